@@ -0,0 +1,32 @@
+package bg.tuvarna.sit.wms.dao;
+
+import java.util.HashMap;
+import java.util.Map;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+
+/**
+ * Creates EntityManagerFactories of the {@code wms} persistence unit backed by in-memory H2 databases.
+ */
+final class BenchmarkPersistence {
+
+  private BenchmarkPersistence() {
+  }
+
+  static Map<String, Object> h2Properties(String databaseName) {
+
+    Map<String, Object> properties = new HashMap<>();
+    properties.put("hibernate.connection.url", "jdbc:h2:mem:" + databaseName + ";DB_CLOSE_DELAY=-1");
+    properties.put("hibernate.connection.driver_class", "org.h2.Driver");
+    properties.put("hibernate.connection.username", "sa");
+    properties.put("hibernate.connection.password", "");
+    properties.put("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+    properties.put("hibernate.hbm2ddl.auto", "create-drop");
+    properties.put("hibernate.show_sql", "false");
+    return properties;
+  }
+
+  static EntityManagerFactory createEntityManagerFactory(Map<String, Object> properties) {
+    return Persistence.createEntityManagerFactory("wms", properties);
+  }
+}
@@ -0,0 +1,108 @@
+package bg.tuvarna.sit.wms.dao;
+
+import bg.tuvarna.sit.wms.entities.User;
+import bg.tuvarna.sit.wms.enums.Role;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of flushing a session holding many managed users of which only a few were changed.
+ * <p>
+ * Without bytecode enhancement Hibernate compares every managed entity against its loaded snapshot on
+ * flush; enhanced entities report their dirty attributes themselves. Run it once on a build with the
+ * entities enhanced and once on a build with {@code -PhibernateEnhance=false} to compare.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FlushBenchmark {
+
+  private static final int CHANGED_USERS = 10;
+
+  @Param({"1000", "10000"})
+  private int managedUsers;
+
+  private EntityManagerFactory entityManagerFactory;
+  private EntityManager entityManager;
+  private List<User> users;
+  private int round;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+
+    entityManagerFactory = BenchmarkPersistence.createEntityManagerFactory(
+            BenchmarkPersistence.h2Properties("flush" + managedUsers));
+    seed();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    entityManagerFactory.close();
+  }
+
+  @Setup(Level.Invocation)
+  public void openSession() {
+
+    entityManager = entityManagerFactory.createEntityManager();
+    entityManager.getTransaction().begin();
+    users = entityManager.createQuery("SELECT u FROM User u", User.class).getResultList();
+  }
+
+  @TearDown(Level.Invocation)
+  public void closeSession() {
+
+    entityManager.getTransaction().rollback();
+    entityManager.close();
+  }
+
+  @Benchmark
+  public void flushFewChanges() {
+
+    round++;
+    for (int i = 0; i < CHANGED_USERS; i++) {
+      users.get((round * CHANGED_USERS + i) % users.size()).setFirstName("Changed" + round);
+    }
+    entityManager.flush();
+  }
+
+  private void seed() {
+
+    EntityManager seedManager = entityManagerFactory.createEntityManager();
+    seedManager.getTransaction().begin();
+    for (int i = 0; i < managedUsers; i++) {
+      User user = new User();
+      user.setFirstName("First");
+      user.setLastName("Last");
+      user.setEmail("user" + i + "@wms.com");
+      user.setPhone(String.format("08%08d", i));
+      user.setPassword("password");
+      user.setRole(Role.values()[i % Role.values().length]);
+      seedManager.persist(user);
+      if (i % 1000 == 999) {
+        seedManager.flush();
+        seedManager.clear();
+      }
+    }
+    seedManager.getTransaction().commit();
+    seedManager.close();
+  }
+}
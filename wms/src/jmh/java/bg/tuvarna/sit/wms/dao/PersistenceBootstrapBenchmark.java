@@ -0,0 +1,40 @@
+package bg.tuvarna.sit.wms.dao;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the time to build the EntityManagerFactory of the {@code wms} unit, without schema generation.
+ * <p>
+ * Every fork measures a cold bootstrap first; the later iterations show the warmed-up cost. Run it once on
+ * a build with the entities enhanced and once on a build with {@code -PhibernateEnhance=false} to compare.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 10)
+@Fork(5)
+public class PersistenceBootstrapBenchmark {
+
+  @Benchmark
+  public EntityManagerFactory bootstrap() {
+
+    Map<String, Object> properties = BenchmarkPersistence.h2Properties("persistenceBootstrap");
+    properties.put("hibernate.hbm2ddl.auto", "none");
+    EntityManagerFactory entityManagerFactory = BenchmarkPersistence.createEntityManagerFactory(properties);
+    entityManagerFactory.close();
+    return entityManagerFactory;
+  }
+}
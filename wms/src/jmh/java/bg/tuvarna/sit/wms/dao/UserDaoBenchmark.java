@@ -0,0 +1,103 @@
+package bg.tuvarna.sit.wms.dao;
+
+import bg.tuvarna.sit.wms.dataset.DatasetGenerator;
+import bg.tuvarna.sit.wms.dataset.DatasetSpec;
+import bg.tuvarna.sit.wms.entities.User;
+import bg.tuvarna.sit.wms.enums.Role;
+import bg.tuvarna.sit.wms.exceptions.UserPersistenceException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link UserDao#findByEmail(String)} and {@link UserDao#saveUser(User)} against an in-memory
+ * H2 database seeded with 100k users by the {@link DatasetGenerator}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserDaoBenchmark {
+
+  private static final String DATABASE = "userDaoBenchmark";
+
+  @Param({"100000"})
+  private int users;
+
+  private final AtomicLong savedUsers = new AtomicLong();
+  private long firstUserId;
+  private EntityManagerFactory entityManagerFactory;
+  private UserDao userDao;
+
+  @Setup(Level.Trial)
+  public void setUp() throws SQLException {
+
+    Map<String, Object> properties = BenchmarkPersistence.h2Properties(DATABASE);
+    entityManagerFactory = BenchmarkPersistence.createEntityManagerFactory(properties);
+    userDao = new UserDao(entityManagerFactory);
+    seed((String) properties.get("hibernate.connection.url"));
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    entityManagerFactory.close();
+  }
+
+  @Benchmark
+  public Optional<User> findByEmail() {
+    return userDao.findByEmail(DatasetGenerator.email(firstUserId + ThreadLocalRandom.current().nextInt(users)));
+  }
+
+  @Benchmark
+  public User saveUser() throws UserPersistenceException {
+
+    // Past the ids of the generated users, whose phone numbers are derived from their ids
+    long index = users + 1 + savedUsers.getAndIncrement();
+    User user = new User();
+    user.setFirstName("First");
+    user.setLastName("Last");
+    user.setEmail("user" + index + "@wms.com");
+    user.setPhone(String.format("08%08d", index));
+    user.setPassword("password");
+    user.setRole(Role.TENANT);
+    userDao.saveUser(user);
+    return user;
+  }
+
+  private void seed(String url) throws SQLException {
+
+    DatasetSpec spec = new DatasetSpec();
+    spec.setCountries(1);
+    spec.setCities(1);
+    spec.setWarehouses(0);
+    spec.setOwners(1);
+    spec.setAgents(1);
+    spec.setTenants(users - 2);
+    spec.setReviews(0);
+    spec.setNotifications(0);
+    try (Connection connection = DriverManager.getConnection(url, "sa", "")) {
+      firstUserId = new DatasetGenerator(spec).generate(connection).getFirstUserId();
+    }
+  }
+}
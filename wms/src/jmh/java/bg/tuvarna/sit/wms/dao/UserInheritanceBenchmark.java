@@ -0,0 +1,105 @@
+package bg.tuvarna.sit.wms.dao;
+
+import bg.tuvarna.sit.wms.entities.Agent;
+import bg.tuvarna.sit.wms.entities.Owner;
+import bg.tuvarna.sit.wms.entities.Tenant;
+import bg.tuvarna.sit.wms.entities.User;
+import bg.tuvarna.sit.wms.enums.Role;
+import bg.tuvarna.sit.wms.util.UserInheritanceMapping;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the latency of polymorphic user lookups under the {@code JOINED} and
+ * {@code SINGLE_TABLE} layouts of the user hierarchy, against an in-memory H2 database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserInheritanceBenchmark {
+
+  @Param({"JOINED", "SINGLE_TABLE"})
+  private UserInheritanceMapping mapping;
+
+  @Param({"10000"})
+  private int users;
+
+  private EntityManagerFactory entityManagerFactory;
+  private UserDao userDao;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+
+    Map<String, Object> properties = BenchmarkPersistence.h2Properties("userInheritance" + mapping);
+    properties.putAll(mapping.configOverrides());
+    entityManagerFactory = BenchmarkPersistence.createEntityManagerFactory(properties);
+    userDao = new UserDao(entityManagerFactory);
+    seed();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    entityManagerFactory.close();
+  }
+
+  @Benchmark
+  public Optional<User> findByEmail() {
+    return userDao.findByEmail("user" + ThreadLocalRandom.current().nextInt(users) + "@wms.com");
+  }
+
+  @Benchmark
+  public Optional<User> findByPhone() {
+    return userDao.findByPhone(phone(ThreadLocalRandom.current().nextInt(users)));
+  }
+
+  private void seed() {
+
+    EntityManager entityManager = entityManagerFactory.createEntityManager();
+    entityManager.getTransaction().begin();
+    for (int i = 0; i < users; i++) {
+      User user = switch (i % 4) {
+        case 0 -> new Owner();
+        case 1 -> new Agent();
+        case 2 -> new Tenant();
+        default -> new User();
+      };
+      user.setFirstName("First");
+      user.setLastName("Last");
+      user.setEmail("user" + i + "@wms.com");
+      user.setPhone(phone(i));
+      user.setPassword("password");
+      user.setRole(Role.values()[(i + 1) % Role.values().length]);
+      entityManager.persist(user);
+      if (i % 1000 == 999) {
+        entityManager.flush();
+        entityManager.clear();
+      }
+    }
+    entityManager.getTransaction().commit();
+    entityManager.close();
+  }
+
+  private static String phone(int index) {
+    return String.format("08%08d", index);
+  }
+}
@@ -0,0 +1,81 @@
+package bg.tuvarna.sit.wms.search;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link CompressedTrie#find(String, int)} over generated city names, the lookup behind the
+ * location autocompletion, which has to stay well below a millisecond.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompressedTrieBenchmark {
+
+  private static final String LETTERS = "abcdefghijklmnoprstuvz";
+
+  @Param({"50000"})
+  private int cities;
+
+  private CompressedTrie<City> trie;
+  private String[] prefixes;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+
+    Random random = new Random(42);
+    CompressedTrie.Builder<City> builder = CompressedTrie.builder(
+            Comparator.comparingInt(City::warehouses).reversed(), 10);
+    prefixes = new String[1024];
+    for (int i = 0; i < cities; i++) {
+      String name = word(random) + (random.nextInt(4) == 0 ? " " + word(random) : "");
+      builder.add(name, new City(name, random.nextInt(1000)));
+      if (i < prefixes.length) {
+        prefixes[i] = name.substring(0, 1 + random.nextInt(Math.min(4, name.length())));
+      }
+    }
+    trie = builder.build();
+  }
+
+  @Benchmark
+  public List<City> find() {
+    return trie.find(prefixes[ThreadLocalRandom.current().nextInt(prefixes.length)], 10);
+  }
+
+  private static String word(Random random) {
+
+    StringBuilder word = new StringBuilder();
+    int length = 4 + random.nextInt(8);
+    for (int i = 0; i < length; i++) {
+      word.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+    }
+    return word.toString();
+  }
+
+  /**
+   * A city ranked by its number of warehouses.
+   *
+   * @param name       The name of the city.
+   * @param warehouses The number of warehouses in the city.
+   */
+  public record City(String name, int warehouses) {
+  }
+}
@@ -0,0 +1,62 @@
+package bg.tuvarna.sit.wms.service;
+
+import bg.tuvarna.sit.wms.exceptions.CredentialSavingException;
+import bg.tuvarna.sit.wms.session.Credentials;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.NoSuchAlgorithmException;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures saving and loading the SSO credentials, including the encryption and the file access.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CredentialManagerBenchmark {
+
+  private CredentialManagerService credentialManagerService;
+  private Path credentialsFile;
+
+  @Setup
+  public void setUp() throws IOException, NoSuchAlgorithmException, CredentialSavingException {
+
+    EncryptionService encryptionService = new EncryptionService();
+    credentialsFile = Files.createTempFile("wms-credentials", ".txt");
+    credentialManagerService = new CredentialManagerService(encryptionService);
+    credentialManagerService.setCREDENTIALS_FILE(credentialsFile.toString());
+    credentialManagerService.setKey(encryptionService.generateKey());
+    credentialManagerService.saveCredentials("john.doe@example.com", "Password123!");
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(credentialsFile);
+  }
+
+  @Benchmark
+  public void saveCredentials() throws CredentialSavingException {
+    credentialManagerService.saveCredentials("john.doe@example.com", "Password123!");
+  }
+
+  @Benchmark
+  public Optional<Credentials> loadCredentials() {
+    return credentialManagerService.loadCredentials();
+  }
+}
@@ -0,0 +1,54 @@
+package bg.tuvarna.sit.wms.service;
+
+import java.security.GeneralSecurityException;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.SecretKey;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the latency of encrypting and decrypting values of typical credential sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EncryptionBenchmark {
+
+  @Param({"16", "256"})
+  private int length;
+
+  private final EncryptionService encryptionService = new EncryptionService();
+  private SecretKey key;
+  private String value;
+  private String encrypted;
+
+  @Setup
+  public void setUp() throws GeneralSecurityException {
+
+    key = encryptionService.generateKey();
+    value = "x".repeat(length);
+    encrypted = encryptionService.encrypt(value, key);
+  }
+
+  @Benchmark
+  public String encrypt() throws GeneralSecurityException {
+    return encryptionService.encrypt(value, key);
+  }
+
+  @Benchmark
+  public String decrypt() throws GeneralSecurityException {
+    return encryptionService.decrypt(encrypted, key);
+  }
+}
@@ -0,0 +1,47 @@
+package bg.tuvarna.sit.wms.service;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.spec.InvalidKeySpecException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the latency of hashing a password at registration and validating it at login.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordHashingBenchmark {
+
+  private static final String PASSWORD = "Password123!";
+
+  private final PasswordHashingService passwordHashingService = new PasswordHashingService();
+  private String storedHash;
+
+  @Setup
+  public void setUp() throws NoSuchAlgorithmException, InvalidKeySpecException {
+    storedHash = passwordHashingService.generateStrongPasswordHash(PASSWORD);
+  }
+
+  @Benchmark
+  public String generateStrongPasswordHash() throws NoSuchAlgorithmException, InvalidKeySpecException {
+    return passwordHashingService.generateStrongPasswordHash(PASSWORD);
+  }
+
+  @Benchmark
+  public boolean validatePassword() throws NoSuchAlgorithmException, InvalidKeySpecException {
+    return passwordHashingService.validatePassword(PASSWORD, storedHash);
+  }
+}
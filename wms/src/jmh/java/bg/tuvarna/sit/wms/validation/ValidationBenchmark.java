@@ -0,0 +1,60 @@
+package bg.tuvarna.sit.wms.validation;
+
+import bg.tuvarna.sit.wms.dto.UserRegistrationDto;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares validating a registration with the rules against the regular expressions the forms used
+ * before, matched with {@link String#matches(String)} on the trimmed values. Run with
+ * {@code -prof gc} to compare the allocations per row as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidationBenchmark {
+
+  private UserRegistrationDto registration;
+
+  @Setup
+  public void setUp() {
+
+    registration = new UserRegistrationDto();
+    registration.setFirstName("John");
+    registration.setLastName("Doe");
+    registration.setEmail("john.doe@example.com");
+    registration.setPassword("Password123!");
+    registration.setPhone("+359878888888");
+  }
+
+  @Benchmark
+  public boolean rules() {
+    return Validator.USER_REGISTRATION.isValid(registration);
+  }
+
+  @Benchmark
+  public boolean stringMatches() {
+
+    return matches(registration.getFirstName(), "^[A-Za-z\\s]+$")
+            && matches(registration.getLastName(), "^[A-Za-z\\s]+$")
+            && matches(registration.getEmail(), "\\S+@\\S+\\.\\S+")
+            && matches(registration.getPassword(), "^(?=.*[A-Z])(?=.*[!@#$%^&*]).{8,}$")
+            && matches(registration.getPhone(), "^(\\+359|0)\\d{9}$");
+  }
+
+  private static boolean matches(String value, String regex) {
+    return !value.trim().isEmpty() && value.trim().matches(regex);
+  }
+}
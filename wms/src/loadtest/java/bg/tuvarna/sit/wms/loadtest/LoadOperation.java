@@ -0,0 +1,21 @@
+package bg.tuvarna.sit.wms.loadtest;
+
+/**
+ * An operation a virtual user performs against the service layer.
+ * <p>
+ * New services are load tested by adding an operation and registering it in {@link LoadSimulator}.
+ * An operation signals a failed attempt, such as a rejected login, by throwing.
+ * </p>
+ */
+public interface LoadOperation {
+
+  String getName();
+
+  /**
+   * Performs the operation once.
+   *
+   * @param user The virtual user performing it.
+   * @throws Exception If the operation failed.
+   */
+  void execute(VirtualUser user) throws Exception;
+}
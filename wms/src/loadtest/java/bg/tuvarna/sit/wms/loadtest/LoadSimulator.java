@@ -0,0 +1,274 @@
+package bg.tuvarna.sit.wms.loadtest;
+
+import bg.tuvarna.sit.wms.audit.AuditLog;
+import bg.tuvarna.sit.wms.dao.UserDao;
+import bg.tuvarna.sit.wms.dao.WarehouseDao;
+import bg.tuvarna.sit.wms.dataset.DatasetGenerator;
+import bg.tuvarna.sit.wms.dataset.DatasetSpec;
+import bg.tuvarna.sit.wms.dataset.DatasetSummary;
+import bg.tuvarna.sit.wms.exceptions.MigrationException;
+import bg.tuvarna.sit.wms.metrics.Counter;
+import bg.tuvarna.sit.wms.metrics.LatencyHistogram;
+import bg.tuvarna.sit.wms.metrics.MetricsRegistry;
+import bg.tuvarna.sit.wms.migration.MigrationRunner;
+import bg.tuvarna.sit.wms.service.PasswordHashingService;
+import bg.tuvarna.sit.wms.service.UserService;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Drives the service layer with many concurrent virtual users and reports throughput and latency percentiles.
+ * <p>
+ * Every virtual user is a thread repeatedly picking an operation according to the configured mix,
+ * performing it and pausing for an exponentially distributed think time. Users are started evenly over
+ * the ramp-up period; only operations started after the ramp-up are measured. Before the run the database
+ * is filled by the {@link DatasetGenerator}, whose users are the ones logging in. Against a persistent database
+ * every run adds another dataset after the existing rows, with its own users. The tool runs headless,
+ * without starting JavaFX. See {@link LoadTestConfig} for the settings.
+ * </p>
+ * <p>
+ * Failed operations are counted by operation and exception type in the report, and the first few failures
+ * of every operation are logged with their stack trace, so a run reporting errors can be diagnosed.
+ * </p>
+ */
+public class LoadSimulator {
+
+  private static final Logger LOGGER = LogManager.getLogger(LoadSimulator.class);
+
+  private static final String H2_URL = "jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1";
+  private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+  private static final int LOGGED_FAILURES_PER_OPERATION = 5;
+
+  private final LoadTestConfig config;
+  private final List<LoadOperation> operations;
+  private final int[] cumulativeWeights;
+  private final MetricsRegistry metricsRegistry = new MetricsRegistry(false);
+  private final Map<String, LongAdder> failuresByType = new ConcurrentSkipListMap<>();
+  private final Map<String, AtomicInteger> loggedFailures = new ConcurrentHashMap<>();
+
+  LoadSimulator(LoadTestConfig config, Map<String, LoadOperation> available) {
+
+    this.config = config;
+    this.operations = new ArrayList<>();
+    this.cumulativeWeights = new int[config.getMix().size()];
+    int total = 0;
+    for (Map.Entry<String, Integer> entry : config.getMix().entrySet()) {
+      LoadOperation operation = available.get(entry.getKey());
+      if (operation == null) {
+        throw new IllegalArgumentException("Unknown operation " + entry.getKey() + ", available: " + available.keySet());
+      }
+      total += entry.getValue();
+      cumulativeWeights[operations.size()] = total;
+      operations.add(operation);
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+
+    LoadTestConfig config = new LoadTestConfig(System.getProperties(), System.getenv());
+    System.out.println("Load test: " + config);
+
+    EntityManagerFactory entityManagerFactory = createEntityManagerFactory(config);
+    try {
+      UserService userService = new UserService(new UserDao(entityManagerFactory), new PasswordHashingService(),
+              AuditLog.disabled());
+      DatasetSummary dataset = generateDataset(config);
+
+      Map<String, LoadOperation> available = new HashMap<>();
+      for (LoadOperation operation : List.of(
+              new LoginOperation(userService, dataset.getFirstUserId(), (int) dataset.getRowCount("users")),
+              new RegisterOperation(userService),
+              new WarehouseListingOperation(new WarehouseDao(entityManagerFactory)))) {
+        available.put(operation.getName(), operation);
+      }
+
+      String report = new LoadSimulator(config, available).run();
+      System.out.println(report);
+      String reportFile = System.getProperty("loadtest.report");
+      if (reportFile != null) {
+        Path path = Paths.get(reportFile);
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        Files.writeString(path, config + System.lineSeparator() + report, StandardCharsets.UTF_8);
+      }
+    } finally {
+      entityManagerFactory.close();
+    }
+  }
+
+  /**
+   * Runs the load and returns the report.
+   *
+   * @return The throughput and latency report of the measured period.
+   * @throws InterruptedException If interrupted while waiting for the virtual users.
+   */
+  String run() throws InterruptedException {
+
+    long start = System.nanoTime();
+    long measureFrom = start + config.getRampUp().toNanos();
+    long end = measureFrom + config.getDuration().toNanos();
+
+    ExecutorService executor = Executors.newFixedThreadPool(config.getUsers(), runnable -> {
+      Thread thread = new Thread(runnable, "virtual-user");
+      thread.setDaemon(true);
+      return thread;
+    });
+    for (int i = 0; i < config.getUsers(); i++) {
+      long startAt = start + config.getRampUp().toNanos() * i / config.getUsers();
+      VirtualUser user = new VirtualUser(i, config.getSeed());
+      executor.execute(() -> runUser(user, startAt, measureFrom, end));
+    }
+    executor.shutdown();
+
+    Counter completed = metricsRegistry.counter("completed");
+    long lastCompleted = 0;
+    while (!executor.awaitTermination(PROGRESS_INTERVAL_NANOS, TimeUnit.NANOSECONDS)) {
+      long now = completed.getCount();
+      System.out.printf("%4ds  %8.1f ops/s%n", TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start),
+              (now - lastCompleted) / (PROGRESS_INTERVAL_NANOS / 1e9));
+      lastCompleted = now;
+    }
+    return report();
+  }
+
+  private void runUser(VirtualUser user, long startAt, long measureFrom, long end) {
+
+    Counter completed = metricsRegistry.counter("completed");
+    parkUntil(startAt);
+    while (System.nanoTime() < end) {
+      user.nextIteration();
+      LoadOperation operation = pickOperation(user);
+      long operationStart = System.nanoTime();
+      boolean failed = false;
+      try {
+        operation.execute(user);
+      } catch (Exception e) {
+        failed = true;
+        recordFailure(operation, e);
+      }
+      if (operationStart >= measureFrom) {
+        LatencyHistogram latency = metricsRegistry.histogram(operation.getName());
+        latency.recordSince(operationStart);
+        if (failed) {
+          latency.recordError();
+        }
+      }
+      completed.increment();
+      parkUntil(System.nanoTime() + thinkTimeNanos(user));
+    }
+  }
+
+  private void recordFailure(LoadOperation operation, Exception failure) {
+
+    failuresByType.computeIfAbsent(operation.getName() + " " + failure.getClass().getName(), key -> new LongAdder())
+            .increment();
+    int logged = loggedFailures.computeIfAbsent(operation.getName(), key -> new AtomicInteger()).getAndIncrement();
+    if (logged < LOGGED_FAILURES_PER_OPERATION) {
+      LOGGER.warn("Operation {} failed", operation.getName(), failure);
+    } else if (logged == LOGGED_FAILURES_PER_OPERATION) {
+      LOGGER.warn("Operation {} failed again, further failures are only counted", operation.getName());
+    }
+  }
+
+  private LoadOperation pickOperation(VirtualUser user) {
+
+    int roll = user.getRandom().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+    for (int i = 0; i < cumulativeWeights.length; i++) {
+      if (roll < cumulativeWeights[i]) {
+        return operations.get(i);
+      }
+    }
+    return operations.get(operations.size() - 1);
+  }
+
+  private long thinkTimeNanos(VirtualUser user) {
+    return (long) (-config.getThinkTime().toNanos() * Math.log(1 - user.getRandom().nextDouble()));
+  }
+
+  private String report() {
+
+    double seconds = config.getDuration().toNanos() / 1e9;
+    StringBuilder report = new StringBuilder(String.format("%-12s %10s %8s %10s %10s %10s %10s %10s%n",
+            "operation", "count", "errors", "ops/s", "p50 ms", "p99 ms", "p999 ms", "max ms"));
+    long total = 0;
+    for (LoadOperation operation : operations) {
+      LatencyHistogram latency = metricsRegistry.histogram(operation.getName());
+      total += latency.getCount();
+      report.append(String.format("%-12s %10d %8d %10.1f %10.2f %10.2f %10.2f %10.2f%n", operation.getName(),
+              latency.getCount(), latency.getErrorCount(), latency.getCount() / seconds, latency.getP50Millis(),
+              latency.getP99Millis(), latency.getP999Millis(), latency.getMaxMillis()));
+    }
+    report.append(String.format("%-12s %10d %8s %10.1f%n", "total", total, "", total / seconds));
+    if (!failuresByType.isEmpty()) {
+      report.append(String.format("%nfailures during the whole run, including the ramp-up:%n"));
+      failuresByType.forEach((type, count) -> report.append(String.format("%10d  %s%n", count.sum(), type)));
+    }
+    return report.toString();
+  }
+
+  private static void parkUntil(long deadline) {
+
+    long remaining;
+    while ((remaining = deadline - System.nanoTime()) > 0) {
+      LockSupport.parkNanos(remaining);
+    }
+  }
+
+  private static DatasetSummary generateDataset(LoadTestConfig config) throws SQLException {
+
+    DatasetSpec spec = DatasetSpec.scaledTo(config.getWarehouses());
+    spec.setSeed(config.getSeed());
+    try (Connection connection = config.getUrl() == null
+            ? DriverManager.getConnection(H2_URL, "sa", "")
+            : DriverManager.getConnection(config.getUrl(), config.getUsername(), config.getPassword())) {
+      DatasetSummary summary = new DatasetGenerator(spec).generate(connection);
+      System.out.println("Dataset: " + summary);
+      return summary;
+    }
+  }
+
+  private static EntityManagerFactory createEntityManagerFactory(LoadTestConfig config)
+          throws SQLException, MigrationException {
+
+    Map<String, Object> properties = new HashMap<>();
+    properties.put("hibernate.show_sql", "false");
+    if (config.getUrl() == null) {
+      properties.put("hibernate.connection.url", H2_URL);
+      properties.put("hibernate.connection.driver_class", "org.h2.Driver");
+      properties.put("hibernate.connection.username", "sa");
+      properties.put("hibernate.connection.password", "");
+      properties.put("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+      properties.put("hibernate.hbm2ddl.auto", "create-drop");
+    } else {
+      try (Connection connection = DriverManager.getConnection(config.getUrl(), config.getUsername(),
+              config.getPassword())) {
+        new MigrationRunner(MigrationRunner.DEFAULT_LOCATION, List.of()).migrate(connection);
+      }
+      properties.put("hibernate.connection.url", config.getUrl());
+      properties.put("hibernate.connection.username", config.getUsername());
+      properties.put("hibernate.connection.password", config.getPassword());
+    }
+    properties.put("hibernate.connection.pool_size", String.valueOf(config.getPoolSize()));
+    return Persistence.createEntityManagerFactory("wms", properties);
+  }
+}
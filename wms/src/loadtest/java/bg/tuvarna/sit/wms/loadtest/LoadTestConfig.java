@@ -0,0 +1,101 @@
+package bg.tuvarna.sit.wms.loadtest;
+
+import bg.tuvarna.sit.wms.util.JpaUtil;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import lombok.Getter;
+
+/**
+ * Settings of a load test run, read from {@code loadtest.*} system properties.
+ * <ul>
+ *   <li>{@code loadtest.users} number of concurrent virtual users (default 20),</li>
+ *   <li>{@code loadtest.rampUp} seconds over which the users are started (default 10),</li>
+ *   <li>{@code loadtest.duration} seconds the full load is held after the ramp-up (default 60),</li>
+ *   <li>{@code loadtest.thinkTime} mean milliseconds a user pauses between operations, exponentially
+ *   distributed (default 500),</li>
+ *   <li>{@code loadtest.mix} operation weights, e.g. {@code login=80,register=10,warehouses=10},</li>
+ *   <li>{@code loadtest.warehouses} size of the dataset generated before the run, the number of users
+ *   follows from it (default 1000),</li>
+ *   <li>{@code loadtest.seed} seed of the dataset and of the random choices (default 42),</li>
+ *   <li>{@code loadtest.url}, {@code loadtest.username}, {@code loadtest.password} a MySQL database to run
+ *   against instead of an in-memory H2 one; its schema must be migrated already,</li>
+ *   <li>{@code loadtest.poolSize} size of the connection pool. By default the pool is sized like the
+ *   application's, from {@code DB_POOL_SIZE} or else the Hibernate default of {@value JpaUtil#DEFAULT_POOL_SIZE},
+ *   so the results are not skewed by a pool the application would not have.</li>
+ * </ul>
+ */
+@Getter
+public class LoadTestConfig {
+
+  private final int users;
+  private final Duration rampUp;
+  private final Duration duration;
+  private final Duration thinkTime;
+  private final Map<String, Integer> mix;
+  private final int warehouses;
+  private final long seed;
+  private final String url;
+  private final String username;
+  private final String password;
+  private final int poolSize;
+  private final String poolSizeSource;
+
+  LoadTestConfig(Properties properties, Map<String, String> env) {
+
+    users = Integer.parseInt(properties.getProperty("loadtest.users", "20"));
+    rampUp = Duration.ofSeconds(Long.parseLong(properties.getProperty("loadtest.rampUp", "10")));
+    duration = Duration.ofSeconds(Long.parseLong(properties.getProperty("loadtest.duration", "60")));
+    thinkTime = Duration.ofMillis(Long.parseLong(properties.getProperty("loadtest.thinkTime", "500")));
+    mix = parseMix(properties.getProperty("loadtest.mix", "login=80,register=10,warehouses=10"));
+    warehouses = Integer.parseInt(properties.getProperty("loadtest.warehouses", "1000"));
+    seed = Long.parseLong(properties.getProperty("loadtest.seed", "42"));
+    url = properties.getProperty("loadtest.url");
+    username = properties.getProperty("loadtest.username", "");
+    password = properties.getProperty("loadtest.password", "");
+    if (properties.getProperty("loadtest.poolSize") != null) {
+      poolSize = Integer.parseInt(properties.getProperty("loadtest.poolSize"));
+      poolSizeSource = "loadtest.poolSize";
+    } else if (env.get("DB_POOL_SIZE") != null) {
+      poolSize = Integer.parseInt(env.get("DB_POOL_SIZE"));
+      poolSizeSource = "DB_POOL_SIZE";
+    } else {
+      poolSize = JpaUtil.DEFAULT_POOL_SIZE;
+      poolSizeSource = "default";
+    }
+
+    if (users < 1) {
+      throw new IllegalArgumentException("loadtest.users must be at least 1");
+    }
+    if (poolSize < 1) {
+      throw new IllegalArgumentException("The connection pool size must be at least 1");
+    }
+  }
+
+  private static Map<String, Integer> parseMix(String value) {
+
+    Map<String, Integer> mix = new LinkedHashMap<>();
+    for (String entry : value.split(",")) {
+      String[] parts = entry.trim().split("=");
+      if (parts.length != 2) {
+        throw new IllegalArgumentException("Invalid operation mix entry: " + entry);
+      }
+      int weight = Integer.parseInt(parts[1].trim());
+      if (weight > 0) {
+        mix.put(parts[0].trim(), weight);
+      }
+    }
+    if (mix.isEmpty()) {
+      throw new IllegalArgumentException("The operation mix is empty");
+    }
+    return mix;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("users=%d rampUp=%ss duration=%ss thinkTime=%sms mix=%s warehouses=%d target=%s "
+                    + "poolSize=%d (%s)", users, rampUp.toSeconds(), duration.toSeconds(), thinkTime.toMillis(), mix,
+            warehouses, url == null ? "H2 in-memory" : url, poolSize, poolSizeSource);
+  }
+}
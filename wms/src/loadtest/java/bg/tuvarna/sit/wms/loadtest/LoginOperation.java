@@ -0,0 +1,35 @@
+package bg.tuvarna.sit.wms.loadtest;
+
+import bg.tuvarna.sit.wms.dataset.DatasetGenerator;
+import bg.tuvarna.sit.wms.dataset.DatasetSpec;
+import bg.tuvarna.sit.wms.service.UserService;
+
+/**
+ * Logs in as one of the users of the dataset generated before the run.
+ */
+public class LoginOperation implements LoadOperation {
+
+  private final UserService userService;
+  private final long firstUserId;
+  private final int datasetUsers;
+
+  public LoginOperation(UserService userService, long firstUserId, int datasetUsers) {
+    this.userService = userService;
+    this.firstUserId = firstUserId;
+    this.datasetUsers = datasetUsers;
+  }
+
+  @Override
+  public String getName() {
+    return "login";
+  }
+
+  @Override
+  public void execute(VirtualUser user) {
+
+    String email = DatasetGenerator.email(firstUserId + user.getRandom().nextInt(datasetUsers));
+    if (!userService.login(email, DatasetSpec.DEFAULT_PASSWORD)) {
+      throw new IllegalStateException("Login rejected for " + email);
+    }
+  }
+}
@@ -0,0 +1,50 @@
+package bg.tuvarna.sit.wms.loadtest;
+
+import bg.tuvarna.sit.wms.dto.UserRegistrationDto;
+import bg.tuvarna.sit.wms.service.UserService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Registers a new user with a unique email and phone number.
+ * <p>
+ * The emails contain a nonce of the run, so runs against a persistent database do not collide with the users
+ * registered by earlier runs. Phone numbers have only seven free digits; every run starts at a random offset,
+ * which makes a collision with an earlier run unlikely rather than impossible.
+ * </p>
+ */
+public class RegisterOperation implements LoadOperation {
+
+  private static final String[] ROLES = {"OWNER", "AGENT", "TENANT"};
+
+  private static final String PASSWORD = "LoadTest123!";
+  private static final int PHONE_NUMBERS = 10_000_000;
+
+  private final UserService userService;
+  private final AtomicInteger nextUser = new AtomicInteger();
+  private final String runNonce = Long.toString(System.currentTimeMillis(), 36);
+  private final int phoneOffset = ThreadLocalRandom.current().nextInt(PHONE_NUMBERS);
+
+  public RegisterOperation(UserService userService) {
+    this.userService = userService;
+  }
+
+  @Override
+  public String getName() {
+    return "register";
+  }
+
+  @Override
+  public void execute(VirtualUser user) throws Exception {
+
+    int index = nextUser.getAndIncrement();
+    UserRegistrationDto registration = new UserRegistrationDto();
+    registration.setFirstName("Load");
+    registration.setLastName("User");
+    registration.setEmail("load.user" + index + "." + runNonce + "@load.test");
+    registration.setPhone(String.format("087%07d", (phoneOffset + index) % PHONE_NUMBERS));
+    registration.setPassword(PASSWORD);
+    registration.setRole(ROLES[user.getRandom().nextInt(ROLES.length)]);
+    userService.registerUser(registration);
+  }
+}
@@ -0,0 +1,24 @@
+package bg.tuvarna.sit.wms.loadtest;
+
+import java.util.Random;
+import lombok.Getter;
+
+/**
+ * The state of one simulated user: its number and its own random source, so that runs are repeatable.
+ */
+@Getter
+public class VirtualUser {
+
+  private final int number;
+  private final Random random;
+  private long iteration;
+
+  VirtualUser(int number, long seed) {
+    this.number = number;
+    this.random = new Random(seed + number);
+  }
+
+  long nextIteration() {
+    return iteration++;
+  }
+}
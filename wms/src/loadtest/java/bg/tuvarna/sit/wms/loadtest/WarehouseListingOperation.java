@@ -0,0 +1,30 @@
+package bg.tuvarna.sit.wms.loadtest;
+
+import bg.tuvarna.sit.wms.dao.WarehouseDao;
+
+/**
+ * Reads a random page of the warehouse listings.
+ */
+public class WarehouseListingOperation implements LoadOperation {
+
+  private static final int PAGE_SIZE = 20;
+
+  private final WarehouseDao warehouseDao;
+  private final int pages;
+
+  public WarehouseListingOperation(WarehouseDao warehouseDao) {
+
+    this.warehouseDao = warehouseDao;
+    this.pages = (int) Math.max(1, (warehouseDao.countListings() + PAGE_SIZE - 1) / PAGE_SIZE);
+  }
+
+  @Override
+  public String getName() {
+    return "warehouses";
+  }
+
+  @Override
+  public void execute(VirtualUser user) {
+    warehouseDao.findListings(user.getRandom().nextInt(pages) * PAGE_SIZE, PAGE_SIZE);
+  }
+}
@@ -0,0 +1,150 @@
+package bg.tuvarna.sit.wms.analytics;
+
+import bg.tuvarna.sit.wms.dao.AnalyticsDao;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Portfolio aggregations for the admin dashboards, answered from an in-memory {@link AnalyticsSnapshot}.
+ * <p>
+ * The snapshot is rebuilt periodically from the database and swapped in once complete, so the aggregations
+ * never query the database, run concurrently with a rebuild and see the data as of the last one. Until the
+ * first rebuild the snapshot is empty.
+ * </p>
+ */
+public class AnalyticsService implements AutoCloseable {
+
+  private static final Logger LOGGER = LogManager.getLogger(AnalyticsService.class);
+
+  private final AnalyticsDao analyticsDao;
+  private final ForkJoinPool pool;
+  private final Object rebuildLock = new Object();
+  private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "analytics-rebuild");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private volatile AnalyticsSnapshot snapshot = AnalyticsSnapshot.builder().build();
+  private boolean started;
+
+  public AnalyticsService(AnalyticsDao analyticsDao) {
+    this(analyticsDao, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Constructs an analytics service.
+   *
+   * @param analyticsDao The DAO the snapshot is built from.
+   * @param parallelism  The number of threads scanning the snapshot.
+   */
+  public AnalyticsService(AnalyticsDao analyticsDao, int parallelism) {
+
+    this.analyticsDao = analyticsDao;
+    this.pool = new ForkJoinPool(parallelism);
+  }
+
+  /**
+   * Builds the snapshot and rebuilds it periodically afterwards. Subsequent calls have no effect.
+   *
+   * @param period The time between the end of a rebuild and the start of the next one.
+   */
+  public synchronized void start(Duration period) {
+
+    if (started) {
+      return;
+    }
+    rebuild();
+    started = true;
+    scheduler.scheduleWithFixedDelay(() -> {
+      try {
+        rebuild();
+      } catch (RuntimeException e) {
+        LOGGER.warn("Analytics snapshot could not be rebuilt, the previous one is kept", e);
+      }
+    }, period.toMillis(), period.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Reads the warehouses and agreements anew and replaces the snapshot. A rebuild started while another one
+   * runs, e.g. a requested one during the periodic one, waits for it, so the snapshot always comes from the
+   * latest read.
+   *
+   * @return The new snapshot.
+   */
+  public AnalyticsSnapshot rebuild() {
+
+    synchronized (rebuildLock) {
+      return build();
+    }
+  }
+
+  private AnalyticsSnapshot build() {
+
+    long start = System.nanoTime();
+    AnalyticsSnapshot.Builder builder = AnalyticsSnapshot.builder();
+    analyticsDao.forEachWarehouse(builder::addWarehouse);
+    analyticsDao.forEachAgreement(builder::addAgreement);
+    AnalyticsSnapshot built = builder.build();
+    snapshot = built;
+    LOGGER.info("Analytics snapshot of {} warehouses and {} agreements built in {} ms", built.getWarehouseCount(),
+            built.getAgreementCount(), (System.nanoTime() - start) / 1_000_000);
+    return built;
+  }
+
+  /**
+   * Returns the current snapshot.
+   *
+   * @return The snapshot.
+   */
+  public AnalyticsSnapshot getSnapshot() {
+    return snapshot;
+  }
+
+  /**
+   * Counts the warehouses and the rented ones by city and climate condition.
+   *
+   * @return The groups ordered by city name and climate condition.
+   */
+  public List<OccupancyStat> occupancyByCityAndClimate() {
+    return snapshot.occupancyByCityAndClimate(pool);
+  }
+
+  /**
+   * Averages the monthly price per square meter of the agreements by storage type.
+   *
+   * @return The storage types ordered by name.
+   */
+  public List<PricePerSquareMeterStat> averagePricePerSquareMeterByStorageType() {
+    return snapshot.averagePricePerSquareMeterByStorageType(pool);
+  }
+
+  /**
+   * Sums the revenue of the agreements by month.
+   *
+   * @param from The first month.
+   * @param to   The last month.
+   * @return A revenue for every month of the period, in order.
+   * @throws IllegalArgumentException If the period ends before it starts.
+   */
+  public List<MonthlyRevenue> revenueByMonth(YearMonth from, YearMonth to) {
+    return snapshot.revenueByMonth(from, to, pool);
+  }
+
+  /**
+   * Stops the periodic rebuild and the scanning threads.
+   */
+  @Override
+  public void close() {
+
+    scheduler.shutdownNow();
+    pool.shutdown();
+  }
+}
@@ -0,0 +1,369 @@
+package bg.tuvarna.sit.wms.analytics;
+
+import bg.tuvarna.sit.wms.enums.ClimateCondition;
+import bg.tuvarna.sit.wms.enums.WarehouseStatus;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * An immutable, column-oriented copy of the warehouses and rental agreements for dashboard aggregations.
+ * <p>
+ * Every attribute is held in its own primitive array, indexed by the row of the warehouse or the agreement:
+ * enums as their ordinals, cities and storage types as indexes into small dictionaries, dates as epoch days
+ * and an agreement's warehouse as the warehouse's row. A group-by is a scan over the few columns it needs,
+ * split into ranges of {@value #SCAN_THRESHOLD} rows run in a {@link ForkJoinPool}. Each range sums into its
+ * own array of group totals, and the arrays are added up when the ranges join, so the scan needs no locking
+ * and no object per row.
+ * </p>
+ */
+public final class AnalyticsSnapshot {
+
+  public static final int SCAN_THRESHOLD = 8192;
+
+  private static final ClimateCondition[] CLIMATE_CONDITIONS = ClimateCondition.values();
+  private static final int RENTED = WarehouseStatus.RENTED.ordinal();
+
+  private final Instant builtAt;
+  private final String[] cityNames;
+  private final String[] storageTypeNames;
+
+  private final int warehouseCount;
+  private final double[] sizes;
+  private final byte[] statuses;
+  private final byte[] climateConditions;
+  private final int[] cities;
+  private final int[] storageTypes;
+
+  private final int agreementCount;
+  private final int[] agreementWarehouses;
+  private final int[] startDays;
+  private final int[] endDays;
+  private final double[] prices;
+
+  private AnalyticsSnapshot(Builder builder) {
+
+    this.builtAt = Instant.now();
+    this.cityNames = builder.cityNames.toArray(new String[0]);
+    this.storageTypeNames = builder.storageTypeNames.toArray(new String[0]);
+    this.warehouseCount = builder.warehouseCount;
+    this.sizes = Arrays.copyOf(builder.sizes, warehouseCount);
+    this.statuses = Arrays.copyOf(builder.statuses, warehouseCount);
+    this.climateConditions = Arrays.copyOf(builder.climateConditions, warehouseCount);
+    this.cities = Arrays.copyOf(builder.cities, warehouseCount);
+    this.storageTypes = Arrays.copyOf(builder.storageTypes, warehouseCount);
+    this.agreementCount = builder.agreementCount;
+    this.agreementWarehouses = Arrays.copyOf(builder.agreementWarehouses, agreementCount);
+    this.startDays = Arrays.copyOf(builder.startDays, agreementCount);
+    this.endDays = Arrays.copyOf(builder.endDays, agreementCount);
+    this.prices = Arrays.copyOf(builder.prices, agreementCount);
+  }
+
+  /**
+   * Starts building a snapshot.
+   *
+   * @return A builder for the snapshot.
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Counts the warehouses and the rented ones by city and climate condition.
+   *
+   * @param pool The pool the scan runs in.
+   * @return The groups with at least one warehouse, ordered by city name and climate condition.
+   */
+  public List<OccupancyStat> occupancyByCityAndClimate(ForkJoinPool pool) {
+
+    int groups = cityNames.length * CLIMATE_CONDITIONS.length;
+    double[] totals = pool.invoke(new Scan(0, warehouseCount, 2 * groups, (from, to, sums) -> {
+      for (int row = from; row < to; row++) {
+        int group = 2 * (cities[row] * CLIMATE_CONDITIONS.length + climateConditions[row]);
+        sums[group]++;
+        if (statuses[row] == RENTED) {
+          sums[group + 1]++;
+        }
+      }
+    }));
+
+    List<OccupancyStat> stats = new ArrayList<>();
+    for (int group = 0; group < groups; group++) {
+      int warehouses = (int) totals[2 * group];
+      if (warehouses > 0) {
+        int rented = (int) totals[2 * group + 1];
+        stats.add(new OccupancyStat(cityNames[group / CLIMATE_CONDITIONS.length],
+                CLIMATE_CONDITIONS[group % CLIMATE_CONDITIONS.length], warehouses, rented,
+                100.0 * rented / warehouses));
+      }
+    }
+    stats.sort(Comparator.comparing(OccupancyStat::cityName).thenComparing(OccupancyStat::climateCondition));
+    return stats;
+  }
+
+  /**
+   * Averages the monthly price per square meter of the agreements by the storage type of their warehouse.
+   *
+   * @param pool The pool the scan runs in.
+   * @return The storage types with at least one agreement, ordered by name.
+   */
+  public List<PricePerSquareMeterStat> averagePricePerSquareMeterByStorageType(ForkJoinPool pool) {
+
+    double[] totals = pool.invoke(new Scan(0, agreementCount, 2 * storageTypeNames.length, (from, to, sums) -> {
+      for (int row = from; row < to; row++) {
+        int warehouse = agreementWarehouses[row];
+        if (sizes[warehouse] > 0) {
+          int group = 2 * storageTypes[warehouse];
+          sums[group] += prices[row] / sizes[warehouse];
+          sums[group + 1]++;
+        }
+      }
+    }));
+
+    List<PricePerSquareMeterStat> stats = new ArrayList<>();
+    for (int group = 0; group < storageTypeNames.length; group++) {
+      int agreements = (int) totals[2 * group + 1];
+      if (agreements > 0) {
+        stats.add(new PricePerSquareMeterStat(storageTypeNames[group], agreements, totals[2 * group] / agreements));
+      }
+    }
+    stats.sort(Comparator.comparing(PricePerSquareMeterStat::storageTypeName));
+    return stats;
+  }
+
+  /**
+   * Sums the revenue of the agreements by month, prorating each monthly price by the days the agreement
+   * covers in the month. An agreement covers its start and end date.
+   *
+   * @param from The first month.
+   * @param to   The last month.
+   * @param pool The pool the scan runs in.
+   * @return A revenue for every month of the period, in order.
+   * @throws IllegalArgumentException If the period ends before it starts.
+   */
+  public List<MonthlyRevenue> revenueByMonth(YearMonth from, YearMonth to, ForkJoinPool pool) {
+
+    if (to.isBefore(from)) {
+      throw new IllegalArgumentException("The period ends before it starts");
+    }
+    int months = (int) from.until(to, ChronoUnit.MONTHS) + 1;
+    int[] monthStarts = new int[months + 1];
+    for (int month = 0; month <= months; month++) {
+      monthStarts[month] = (int) from.plusMonths(month).atDay(1).toEpochDay();
+    }
+    int firstDay = monthStarts[0];
+    int lastDay = monthStarts[months] - 1;
+
+    double[] revenue = pool.invoke(new Scan(0, agreementCount, months, (start, end, sums) -> {
+      for (int row = start; row < end; row++) {
+        int first = Math.max(startDays[row], firstDay);
+        int last = Math.min(endDays[row], lastDay);
+        if (last < first) {
+          continue;
+        }
+        int month = Arrays.binarySearch(monthStarts, first);
+        month = month >= 0 ? month : -month - 2;
+        for (; month < months && monthStarts[month] <= last; month++) {
+          int covered = Math.min(last, monthStarts[month + 1] - 1) - Math.max(first, monthStarts[month]) + 1;
+          sums[month] += prices[row] * covered / (monthStarts[month + 1] - monthStarts[month]);
+        }
+      }
+    }));
+
+    List<MonthlyRevenue> result = new ArrayList<>(months);
+    for (int month = 0; month < months; month++) {
+      result.add(new MonthlyRevenue(from.plusMonths(month), revenue[month]));
+    }
+    return result;
+  }
+
+  public Instant getBuiltAt() {
+    return builtAt;
+  }
+
+  public int getWarehouseCount() {
+    return warehouseCount;
+  }
+
+  public int getAgreementCount() {
+    return agreementCount;
+  }
+
+  /**
+   * Sums a range of rows into an array of group totals.
+   */
+  @FunctionalInterface
+  private interface RangeAggregator {
+
+    void aggregate(int from, int to, double[] sums);
+  }
+
+  /**
+   * Splits a range of rows in halves until they are small enough to be aggregated, then adds up the totals
+   * of the halves.
+   */
+  private static final class Scan extends RecursiveTask<double[]> {
+
+    private final int from;
+    private final int to;
+    private final int width;
+    private final RangeAggregator aggregator;
+
+    private Scan(int from, int to, int width, RangeAggregator aggregator) {
+
+      this.from = from;
+      this.to = to;
+      this.width = width;
+      this.aggregator = aggregator;
+    }
+
+    @Override
+    protected double[] compute() {
+
+      if (to - from <= SCAN_THRESHOLD) {
+        double[] sums = new double[width];
+        aggregator.aggregate(from, to, sums);
+        return sums;
+      }
+
+      int middle = (from + to) >>> 1;
+      Scan left = new Scan(from, middle, width, aggregator);
+      left.fork();
+      double[] sums = new Scan(middle, to, width, aggregator).compute();
+      double[] leftSums = left.join();
+      for (int i = 0; i < width; i++) {
+        sums[i] += leftSums[i];
+      }
+      return sums;
+    }
+  }
+
+  /**
+   * Appends the rows of a snapshot to growing columns. Warehouses must be added before their agreements;
+   * agreements of unknown warehouses, e.g. created while the snapshot was read, are skipped.
+   */
+  public static final class Builder {
+
+    private final List<String> cityNames = new ArrayList<>();
+    private final Map<Long, Integer> cityIndexes = new HashMap<>();
+    private final List<String> storageTypeNames = new ArrayList<>();
+    private final Map<Long, Integer> storageTypeIndexes = new HashMap<>();
+    private final Map<Long, Integer> warehouseRows = new HashMap<>();
+
+    private int warehouseCount;
+    private double[] sizes = new double[16];
+    private byte[] statuses = new byte[16];
+    private byte[] climateConditions = new byte[16];
+    private int[] cities = new int[16];
+    private int[] storageTypes = new int[16];
+
+    private int agreementCount;
+    private int[] agreementWarehouses = new int[16];
+    private int[] startDays = new int[16];
+    private int[] endDays = new int[16];
+    private double[] prices = new double[16];
+
+    private Builder() {
+    }
+
+    /**
+     * Adds a warehouse.
+     *
+     * @param id               The ID of the warehouse.
+     * @param size             The size of the warehouse in square meters.
+     * @param status           The status of the warehouse.
+     * @param climateCondition The climate condition of the warehouse.
+     * @param cityId           The ID of the city of the warehouse.
+     * @param cityName         The name of the city.
+     * @param storageTypeId    The ID of the storage type of the warehouse.
+     * @param storageTypeName  The name of the storage type.
+     * @return This builder.
+     */
+    public Builder addWarehouse(long id, double size, WarehouseStatus status, ClimateCondition climateCondition,
+                                long cityId, String cityName, long storageTypeId, String storageTypeName) {
+
+      if (warehouseCount == sizes.length) {
+        int capacity = 2 * warehouseCount;
+        sizes = Arrays.copyOf(sizes, capacity);
+        statuses = Arrays.copyOf(statuses, capacity);
+        climateConditions = Arrays.copyOf(climateConditions, capacity);
+        cities = Arrays.copyOf(cities, capacity);
+        storageTypes = Arrays.copyOf(storageTypes, capacity);
+      }
+      int row = warehouseCount++;
+      warehouseRows.put(id, row);
+      sizes[row] = size;
+      statuses[row] = (byte) status.ordinal();
+      climateConditions[row] = (byte) climateCondition.ordinal();
+      cities[row] = dictionaryIndex(cityIndexes, cityNames, cityId, cityName);
+      storageTypes[row] = dictionaryIndex(storageTypeIndexes, storageTypeNames, storageTypeId, storageTypeName);
+      return this;
+    }
+
+    /**
+     * Adds a rental agreement of a warehouse added before.
+     *
+     * @param warehouseId   The ID of the warehouse.
+     * @param startDate     The first day of the agreement.
+     * @param endDate       The last day of the agreement.
+     * @param pricePerMonth The monthly price of the agreement.
+     * @return This builder.
+     */
+    public Builder addAgreement(long warehouseId, Date startDate, Date endDate, BigDecimal pricePerMonth) {
+
+      Integer warehouse = warehouseRows.get(warehouseId);
+      if (warehouse == null) {
+        return this;
+      }
+      if (agreementCount == prices.length) {
+        int capacity = 2 * agreementCount;
+        agreementWarehouses = Arrays.copyOf(agreementWarehouses, capacity);
+        startDays = Arrays.copyOf(startDays, capacity);
+        endDays = Arrays.copyOf(endDays, capacity);
+        prices = Arrays.copyOf(prices, capacity);
+      }
+      int row = agreementCount++;
+      agreementWarehouses[row] = warehouse;
+      startDays[row] = (int) toLocalDate(startDate).toEpochDay();
+      endDays[row] = (int) toLocalDate(endDate).toEpochDay();
+      prices[row] = pricePerMonth.doubleValue();
+      return this;
+    }
+
+    /**
+     * Builds the snapshot. The builder must not be used afterwards.
+     *
+     * @return The snapshot.
+     */
+    public AnalyticsSnapshot build() {
+      return new AnalyticsSnapshot(this);
+    }
+
+    private static int dictionaryIndex(Map<Long, Integer> indexes, List<String> names, long id, String name) {
+
+      return indexes.computeIfAbsent(id, key -> {
+        names.add(name);
+        return names.size() - 1;
+      });
+    }
+
+    private static LocalDate toLocalDate(Date date) {
+
+      return date instanceof java.sql.Date sqlDate
+              ? sqlDate.toLocalDate()
+              : date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+  }
+}
@@ -0,0 +1,12 @@
+package bg.tuvarna.sit.wms.analytics;
+
+import java.time.YearMonth;
+
+/**
+ * The revenue of all rental agreements in a month.
+ *
+ * @param month   The month.
+ * @param revenue The monthly prices of the agreements, prorated by the days they cover in the month.
+ */
+public record MonthlyRevenue(YearMonth month, double revenue) {
+}
@@ -0,0 +1,16 @@
+package bg.tuvarna.sit.wms.analytics;
+
+import bg.tuvarna.sit.wms.enums.ClimateCondition;
+
+/**
+ * The occupancy of the warehouses of a city with a climate condition.
+ *
+ * @param cityName         The name of the city.
+ * @param climateCondition The climate condition.
+ * @param warehouses       The number of warehouses.
+ * @param rented           The number of rented warehouses.
+ * @param occupancyPercent The share of rented warehouses, in percent.
+ */
+public record OccupancyStat(String cityName, ClimateCondition climateCondition, int warehouses, int rented,
+                            double occupancyPercent) {
+}
@@ -0,0 +1,11 @@
+package bg.tuvarna.sit.wms.analytics;
+
+/**
+ * The average monthly price per square meter of the rental agreements for a storage type.
+ *
+ * @param storageTypeName The name of the storage type.
+ * @param agreements      The number of agreements.
+ * @param averagePrice    The average of the monthly price divided by the size of the warehouse.
+ */
+public record PricePerSquareMeterStat(String storageTypeName, int agreements, double averagePrice) {
+}
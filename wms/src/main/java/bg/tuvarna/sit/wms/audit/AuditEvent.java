@@ -0,0 +1,35 @@
+package bg.tuvarna.sit.wms.audit;
+
+import bg.tuvarna.sit.wms.enums.AuditEventType;
+import lombok.Getter;
+
+/**
+ * A slot of the audit ring buffer.
+ * <p>
+ * Slots are allocated once, when the {@link AuditLog} is created, and overwritten for every published
+ * event, so recording an event creates no garbage. The subject is the email the event refers to, as
+ * entered by the user.
+ * </p>
+ */
+@Getter
+public class AuditEvent {
+
+  public static final long NO_USER = -1;
+
+  private long timestamp;
+  private AuditEventType type;
+  private long userId;
+  private String subject;
+
+  void set(long timestamp, AuditEventType type, long userId, String subject) {
+
+    this.timestamp = timestamp;
+    this.type = type;
+    this.userId = userId;
+    this.subject = subject;
+  }
+
+  void clear() {
+    subject = null;
+  }
+}
@@ -0,0 +1,207 @@
+package bg.tuvarna.sit.wms.audit;
+
+import bg.tuvarna.sit.wms.enums.AuditEventType;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Asynchronous audit log backed by a preallocated ring buffer.
+ * <p>
+ * Recording an event only claims a slot with a compare-and-set, copies the event fields into it and
+ * publishes it. It never blocks and allocates nothing: when the writer falls behind and the buffer is full,
+ * the event is dropped and counted instead, so a stalled disk can never delay a login. A single daemon
+ * writer thread drains the buffer into an {@link AuditSink}.
+ * </p>
+ */
+public class AuditLog implements AutoCloseable {
+
+  private static final Logger LOGGER = LogManager.getLogger(AuditLog.class);
+
+  public static final int DEFAULT_CAPACITY = 4096;
+
+  private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+  private static final long MAX_IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+  private static final AuditLog DISABLED = new AuditLog();
+
+  private final AuditEvent[] slots;
+  private final AtomicLongArray published;
+  private final int mask;
+  private final AtomicLong claimed = new AtomicLong();
+  private final AtomicLong dropped = new AtomicLong();
+  private final AuditSink sink;
+  private final Thread writer;
+  private volatile long consumed;
+  private volatile boolean running;
+
+  /**
+   * Creates an audit log and starts its writer thread.
+   *
+   * @param sink     The destination of the events.
+   * @param capacity The number of events the buffer holds, rounded up to a power of two.
+   */
+  public AuditLog(AuditSink sink, int capacity) {
+
+    int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+    this.slots = new AuditEvent[size];
+    for (int i = 0; i < size; i++) {
+      slots[i] = new AuditEvent();
+    }
+    this.published = new AtomicLongArray(size);
+    for (int i = 0; i < size; i++) {
+      published.set(i, -1);
+    }
+    this.mask = size - 1;
+    this.sink = sink;
+    this.running = true;
+    this.writer = new Thread(this::drainLoop, "audit-writer");
+    writer.setDaemon(true);
+    writer.start();
+  }
+
+  private AuditLog() {
+
+    this.slots = new AuditEvent[0];
+    this.published = new AtomicLongArray(0);
+    this.mask = 0;
+    this.sink = null;
+    this.writer = null;
+  }
+
+  /**
+   * Returns an audit log discarding all events, for services created without auditing.
+   *
+   * @return The shared disabled audit log.
+   */
+  public static AuditLog disabled() {
+    return DISABLED;
+  }
+
+  /**
+   * Records an event without blocking.
+   *
+   * @param type    The kind of event.
+   * @param userId  The id of the affected user, or null if unknown.
+   * @param subject The email the event refers to.
+   * @return Whether the event was accepted; false if the log is closed or its buffer was full.
+   */
+  public boolean record(AuditEventType type, Long userId, String subject) {
+
+    if (!running) {
+      return false;
+    }
+
+    long sequence;
+    do {
+      sequence = claimed.get();
+      if (sequence - consumed >= slots.length) {
+        dropped.incrementAndGet();
+        return false;
+      }
+    } while (!claimed.compareAndSet(sequence, sequence + 1));
+
+    int index = (int) (sequence & mask);
+    slots[index].set(System.currentTimeMillis(), type, userId == null ? AuditEvent.NO_USER : userId, subject);
+    published.lazySet(index, sequence);
+    return true;
+  }
+
+  /**
+   * Records an event about a user who is not known, such as a failed login.
+   *
+   * @param type    The kind of event.
+   * @param subject The email the event refers to.
+   * @return Whether the event was accepted.
+   */
+  public boolean record(AuditEventType type, String subject) {
+    return record(type, null, subject);
+  }
+
+  /**
+   * Returns the number of events dropped because the buffer was full.
+   *
+   * @return The dropped event count.
+   */
+  public long getDroppedCount() {
+    return dropped.get();
+  }
+
+  /**
+   * Stops accepting events, writes the already recorded ones and closes the sink.
+   */
+  @Override
+  public void close() {
+
+    if (writer == null || !running) {
+      return;
+    }
+    running = false;
+    LockSupport.unpark(writer);
+    try {
+      writer.join(TimeUnit.SECONDS.toMillis(5));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void drainLoop() {
+
+    long next = 0;
+    long parkNanos = IDLE_PARK_NANOS;
+    boolean unflushed = false;
+    while (true) {
+      int index = (int) (next & mask);
+      if (published.get(index) == next) {
+        write(slots[index]);
+        slots[index].clear();
+        consumed = ++next;
+        parkNanos = IDLE_PARK_NANOS;
+        unflushed = true;
+        continue;
+      }
+
+      if (unflushed) {
+        flushSink();
+        unflushed = false;
+      }
+      if (!running && next == claimed.get()) {
+        break;
+      }
+      LockSupport.parkNanos(this, parkNanos);
+      parkNanos = Math.min(parkNanos * 2, MAX_IDLE_PARK_NANOS);
+    }
+
+    try {
+      sink.close();
+    } catch (IOException e) {
+      LOGGER.error("Error closing the audit log", e);
+    }
+    if (dropped.get() > 0) {
+      LOGGER.warn("{} audit events were dropped because the audit buffer was full", dropped.get());
+    }
+  }
+
+  private void write(AuditEvent event) {
+
+    try {
+      sink.write(event);
+    } catch (IOException e) {
+      dropped.incrementAndGet();
+      LOGGER.error("Error writing audit event {}", event.getType(), e);
+    }
+  }
+
+  private void flushSink() {
+
+    try {
+      sink.flush();
+    } catch (IOException e) {
+      LOGGER.error("Error flushing the audit log", e);
+    }
+  }
+}
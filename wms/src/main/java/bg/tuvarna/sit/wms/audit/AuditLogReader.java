@@ -0,0 +1,206 @@
+package bg.tuvarna.sit.wms.audit;
+
+import bg.tuvarna.sit.wms.enums.AuditEventType;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Reads back the audit events written by {@link JsonLinesAuditSink}.
+ * <p>
+ * Only the daily files overlapping the requested time range are opened. Lines that cannot be parsed,
+ * such as a last line cut short by a crash, are skipped.
+ * </p>
+ */
+public class AuditLogReader {
+
+  private static final Logger LOGGER = LogManager.getLogger(AuditLogReader.class);
+
+  private final Path directory;
+  private final ZoneId zone;
+
+  public AuditLogReader(Path directory, ZoneId zone) {
+    this.directory = directory;
+    this.zone = zone;
+  }
+
+  public AuditLogReader(Path directory) {
+    this(directory, ZoneId.systemDefault());
+  }
+
+  /**
+   * Finds the events in a time range, oldest first.
+   *
+   * @param from    The inclusive start of the range.
+   * @param to      The exclusive end of the range.
+   * @param type    The kind of events to return, or null for all kinds.
+   * @param subject The email the events must refer to, or null for any.
+   * @return The matching events.
+   * @throws IOException If the audit files cannot be read.
+   */
+  public List<AuditRecord> find(Instant from, Instant to, AuditEventType type, String subject) throws IOException {
+
+    List<AuditRecord> records = new ArrayList<>();
+    for (Path file : filesBetween(from.atZone(zone).toLocalDate(), to.atZone(zone).toLocalDate())) {
+      try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          AuditRecord record = parse(line);
+          if (record != null && !record.getTimestamp().isBefore(from) && record.getTimestamp().isBefore(to)
+                  && (type == null || record.getType() == type)
+                  && (subject == null || subject.equalsIgnoreCase(record.getSubject()))) {
+            records.add(record);
+          }
+        }
+      }
+    }
+    records.sort(Comparator.comparing(AuditRecord::getTimestamp));
+    return records;
+  }
+
+  /**
+   * Counts the failed logins for an email since a point in time.
+   *
+   * @param subject The email to count the failed logins for.
+   * @param since   The inclusive start of the period.
+   * @return The number of failed password and SSO logins.
+   * @throws IOException If the audit files cannot be read.
+   */
+  public long countFailedLogins(String subject, Instant since) throws IOException {
+
+    return find(since, Instant.now().plusMillis(1), null, subject).stream()
+            .filter(record -> record.getType() == AuditEventType.LOGIN_FAILED
+                    || record.getType() == AuditEventType.SSO_LOGIN_FAILED)
+            .count();
+  }
+
+  private List<Path> filesBetween(LocalDate firstDay, LocalDate lastDay) throws IOException {
+
+    if (!Files.isDirectory(directory)) {
+      return List.of();
+    }
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.filter(file -> {
+        LocalDate day = dayOf(file.getFileName().toString());
+        return day != null && !day.isBefore(firstDay) && !day.isAfter(lastDay);
+      }).sorted().collect(Collectors.toList());
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  private static LocalDate dayOf(String fileName) {
+
+    if (!fileName.startsWith(JsonLinesAuditSink.FILE_PREFIX) || !fileName.endsWith(JsonLinesAuditSink.FILE_SUFFIX)) {
+      return null;
+    }
+    String date = fileName.substring(JsonLinesAuditSink.FILE_PREFIX.length(),
+            JsonLinesAuditSink.FILE_PREFIX.length() + 10);
+    try {
+      return LocalDate.parse(date);
+    } catch (RuntimeException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Parses one line of the flat JSON objects written by the sink.
+   */
+  static AuditRecord parse(String line) {
+
+    try {
+      Map<String, String> fields = new HashMap<>();
+      int i = skipWhitespace(line, 0);
+      expect(line, i++, '{');
+      while (true) {
+        i = skipWhitespace(line, i);
+        if (line.charAt(i) == '}') {
+          break;
+        }
+        StringBuilder key = new StringBuilder();
+        i = readString(line, i, key);
+        i = skipWhitespace(line, i);
+        expect(line, i++, ':');
+        i = skipWhitespace(line, i);
+        if (line.charAt(i) == '"') {
+          StringBuilder value = new StringBuilder();
+          i = readString(line, i, value);
+          fields.put(key.toString(), value.toString());
+        } else {
+          int end = i;
+          while (end < line.length() && line.charAt(end) != ',' && line.charAt(end) != '}') {
+            end++;
+          }
+          String literal = line.substring(i, end).trim();
+          fields.put(key.toString(), literal.equals("null") ? null : literal);
+          i = end;
+        }
+        i = skipWhitespace(line, i);
+        if (line.charAt(i) == ',') {
+          i++;
+        }
+      }
+      return new AuditRecord(Instant.ofEpochMilli(Long.parseLong(fields.get("timestamp"))),
+              AuditEventType.valueOf(fields.get("type")), Long.parseLong(fields.get("userId")),
+              fields.get("subject"));
+    } catch (RuntimeException e) {
+      LOGGER.warn("Skipping malformed audit line: {}", line);
+      return null;
+    }
+  }
+
+  private static int readString(String line, int start, StringBuilder target) {
+
+    expect(line, start, '"');
+    int i = start + 1;
+    while (line.charAt(i) != '"') {
+      char c = line.charAt(i++);
+      if (c != '\\') {
+        target.append(c);
+        continue;
+      }
+      char escaped = line.charAt(i++);
+      switch (escaped) {
+        case 'n' -> target.append('\n');
+        case 'r' -> target.append('\r');
+        case 't' -> target.append('\t');
+        case 'u' -> {
+          target.append((char) Integer.parseInt(line.substring(i, i + 4), 16));
+          i += 4;
+        }
+        default -> target.append(escaped);
+      }
+    }
+    return i + 1;
+  }
+
+  private static int skipWhitespace(String line, int i) {
+
+    while (i < line.length() && Character.isWhitespace(line.charAt(i))) {
+      i++;
+    }
+    return i;
+  }
+
+  private static void expect(String line, int i, char expected) {
+
+    if (line.charAt(i) != expected) {
+      throw new IllegalArgumentException("Expected '" + expected + "' at " + i);
+    }
+  }
+}
@@ -0,0 +1,19 @@
+package bg.tuvarna.sit.wms.audit;
+
+import bg.tuvarna.sit.wms.enums.AuditEventType;
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * An audit event read back from the audit files.
+ */
+@Getter
+@AllArgsConstructor
+public class AuditRecord {
+
+  private final Instant timestamp;
+  private final AuditEventType type;
+  private final long userId;
+  private final String subject;
+}
@@ -0,0 +1,27 @@
+package bg.tuvarna.sit.wms.audit;
+
+import java.io.IOException;
+
+/**
+ * Destination of the audit events drained from the ring buffer by the writer thread.
+ */
+public interface AuditSink extends AutoCloseable {
+
+  /**
+   * Writes one event. The event slot is reused after this call returns.
+   *
+   * @param event The event to write.
+   * @throws IOException If the event cannot be written.
+   */
+  void write(AuditEvent event) throws IOException;
+
+  /**
+   * Called whenever the ring buffer has been drained, to push buffered events out.
+   *
+   * @throws IOException If the buffered events cannot be written.
+   */
+  void flush() throws IOException;
+
+  @Override
+  void close() throws IOException;
+}
@@ -0,0 +1,146 @@
+package bg.tuvarna.sit.wms.audit;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/**
+ * Writes audit events as JSON lines into daily files, rolled over when they reach a size limit.
+ * <p>
+ * The files are named {@code audit-<date>.jsonl}, with {@code audit-<date>.<n>.jsonl} for the parts
+ * following a size rollover. Every line is one event:
+ * {@code {"timestamp":1700000000000,"type":"LOGIN","userId":42,"subject":"user@example.com"}}.
+ * The line is formatted into a reused buffer and copied into a reused character array for the writer, so
+ * writing an event allocates nothing unless the subject contains control characters.
+ * </p>
+ */
+public class JsonLinesAuditSink implements AuditSink {
+
+  public static final long DEFAULT_MAX_FILE_SIZE = 50L * 1024 * 1024;
+
+  static final String FILE_PREFIX = "audit-";
+  static final String FILE_SUFFIX = ".jsonl";
+
+  private final Path directory;
+  private final long maxFileSize;
+  private final ZoneId zone;
+  private final StringBuilder line = new StringBuilder(256);
+  private char[] characters = new char[256];
+
+  private Writer writer;
+  private long fileSize;
+  private long dayEndMillis = Long.MIN_VALUE;
+  private LocalDate day;
+  private int part;
+
+  public JsonLinesAuditSink(Path directory, long maxFileSize, ZoneId zone) throws IOException {
+
+    this.directory = Files.createDirectories(directory);
+    this.maxFileSize = maxFileSize;
+    this.zone = zone;
+  }
+
+  public JsonLinesAuditSink(Path directory) throws IOException {
+    this(directory, DEFAULT_MAX_FILE_SIZE, ZoneId.systemDefault());
+  }
+
+  @Override
+  public void write(AuditEvent event) throws IOException {
+
+    line.setLength(0);
+    line.append("{\"timestamp\":").append(event.getTimestamp())
+            .append(",\"type\":\"").append(event.getType().name())
+            .append("\",\"userId\":").append(event.getUserId())
+            .append(",\"subject\":");
+    appendString(event.getSubject());
+    line.append("}\n");
+
+    if (event.getTimestamp() >= dayEndMillis) {
+      openDay(event.getTimestamp());
+    } else if (fileSize + line.length() > maxFileSize) {
+      part++;
+      openFile();
+    }
+    int length = line.length();
+    if (characters.length < length) {
+      characters = new char[Math.max(length, characters.length * 2)];
+    }
+    line.getChars(0, length, characters, 0);
+    writer.write(characters, 0, length);
+    fileSize += length;
+  }
+
+  @Override
+  public void flush() throws IOException {
+
+    if (writer != null) {
+      writer.flush();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+
+    if (writer != null) {
+      writer.close();
+      writer = null;
+    }
+  }
+
+  static String fileName(LocalDate day, int part) {
+    return FILE_PREFIX + day + (part == 0 ? "" : "." + part) + FILE_SUFFIX;
+  }
+
+  private void openDay(long timestamp) throws IOException {
+
+    day = Instant.ofEpochMilli(timestamp).atZone(zone).toLocalDate();
+    dayEndMillis = day.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+    part = 0;
+    while (Files.exists(directory.resolve(fileName(day, part + 1)))) {
+      part++;
+    }
+    openFile();
+  }
+
+  private void openFile() throws IOException {
+
+    close();
+    Path file = directory.resolve(fileName(day, part));
+    writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+            StandardOpenOption.APPEND);
+    fileSize = Files.size(file);
+  }
+
+  private void appendString(String value) {
+
+    if (value == null) {
+      line.append("null");
+      return;
+    }
+    line.append('"');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      switch (c) {
+        case '"' -> line.append("\\\"");
+        case '\\' -> line.append("\\\\");
+        case '\n' -> line.append("\\n");
+        case '\r' -> line.append("\\r");
+        case '\t' -> line.append("\\t");
+        default -> {
+          if (c < 0x20) {
+            line.append(String.format("\\u%04x", (int) c));
+          } else {
+            line.append(c);
+          }
+        }
+      }
+    }
+    line.append('"');
+  }
+}
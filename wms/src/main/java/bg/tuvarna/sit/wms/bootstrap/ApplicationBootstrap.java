@@ -0,0 +1,156 @@
+package bg.tuvarna.sit.wms.bootstrap;
+
+import bg.tuvarna.sit.wms.context.ApplicationContext;
+import bg.tuvarna.sit.wms.exceptions.RegistrationException;
+import static bg.tuvarna.sit.wms.service.CredentialManagerService.ENCRYPTION_KEY_FILE;
+import bg.tuvarna.sit.wms.session.KeyUtil;
+import bg.tuvarna.sit.wms.util.JpaUtil;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Startup of the application services.
+ * <p>
+ * The startup work is split into the following phases, which run in the background while the first
+ * window is already shown:
+ * <ul>
+ *   <li>{@code persistence} migrates the schema and builds the EntityManagerFactory,</li>
+ *   <li>{@code encryption-key} generates the SSO encryption key on first run,</li>
+ *   <li>{@code administrators} seeds the default administrators once persistence is up. A failure to seed
+ *   them is logged and does not block the application, as before.</li>
+ *   <li>{@code search-index} loads the full-text search index from disk, or builds it from the database on
+ *   first run. A failure is logged and leaves the search empty.</li>
+ *   <li>{@code locations} loads the city and country suggestions. A failure is logged and leaves the
+ *   suggestions empty until the next change of the reference data.</li>
+ *   <li>{@code analytics} builds the first analytics snapshot and schedules its periodic rebuild, every
+ *   {@code ANALYTICS_REFRESH_MINUTES} minutes (15 by default). A failure is logged and leaves the dashboards
+ *   empty.</li>
+ * </ul>
+ * Views consult {@link #getReadiness()} before offering actions that need the database.
+ * </p>
+ */
+public final class ApplicationBootstrap {
+
+  private static final Logger LOGGER = LogManager.getLogger(ApplicationBootstrap.class);
+
+  private static final long DEFAULT_ANALYTICS_REFRESH_MINUTES = 15;
+
+  private static final CompletableFuture<Void> NOT_STARTED = CompletableFuture.completedFuture(null);
+
+  private static volatile Bootstrapper bootstrapper;
+  private static volatile CompletableFuture<Void> readiness = NOT_STARTED;
+
+  private ApplicationBootstrap() {
+  }
+
+  /**
+   * Starts the bootstrap phases in the background. Subsequent calls have no effect.
+   */
+  public static synchronized void start() {
+
+    if (bootstrapper != null) {
+      return;
+    }
+
+    bootstrapper = new Bootstrapper()
+            .addTask("persistence", JpaUtil::getEntityManagerFactory)
+            .addTask("encryption-key", ApplicationBootstrap::ensureEncryptionKey)
+            .addTask("administrators", ApplicationBootstrap::initializeAdministrators, "persistence")
+            .addTask("search-index", ApplicationBootstrap::openSearchIndex, "persistence")
+            .addTask("locations", ApplicationBootstrap::openLocationAutocomplete, "persistence")
+            .addTask("analytics", ApplicationBootstrap::startAnalytics, "persistence");
+
+    ExecutorService executor = Executors.newFixedThreadPool(4, new BootstrapThreadFactory());
+    readiness = bootstrapper.start(executor);
+    readiness.whenComplete((result, failure) -> executor.shutdown());
+  }
+
+  /**
+   * Returns the future completing once all phases have completed. When the bootstrap was never started,
+   * as in tests wiring the services themselves, an already completed future is returned.
+   *
+   * @return The readiness of the application services.
+   */
+  public static CompletableFuture<Void> getReadiness() {
+    return readiness;
+  }
+
+  /**
+   * Records a milestone in the startup timeline, if the bootstrap is running.
+   *
+   * @param name The name of the milestone.
+   */
+  public static void milestone(String name) {
+
+    Bootstrapper current = bootstrapper;
+    if (current != null) {
+      current.milestone(name);
+    }
+  }
+
+  private static void initializeAdministrators() throws Exception {
+
+    try {
+      ApplicationContext.getUSER_SERVICE().initializeAdministrators();
+    } catch (RegistrationException e) {
+      LOGGER.error("Error seeding the default administrators: ", e);
+    }
+  }
+
+  private static void openSearchIndex() {
+
+    try {
+      ApplicationContext.getSEARCH_SERVICE().open();
+    } catch (RuntimeException e) {
+      LOGGER.error("Error opening the search index: ", e);
+    }
+  }
+
+  private static void openLocationAutocomplete() {
+
+    try {
+      ApplicationContext.getLOCATION_AUTOCOMPLETE_SERVICE().open();
+    } catch (RuntimeException e) {
+      LOGGER.error("Error loading the location suggestions: ", e);
+    }
+  }
+
+  private static void startAnalytics() {
+
+    try {
+      String minutes = System.getenv("ANALYTICS_REFRESH_MINUTES");
+      ApplicationContext.getANALYTICS_SERVICE()
+              .start(Duration.ofMinutes(minutes == null ? DEFAULT_ANALYTICS_REFRESH_MINUTES : Long.parseLong(minutes)));
+    } catch (RuntimeException e) {
+      LOGGER.error("Error building the analytics snapshot: ", e);
+    }
+  }
+
+  private static void ensureEncryptionKey() throws Exception {
+
+    if (!Files.exists(Paths.get(ENCRYPTION_KEY_FILE))) {
+      KeyUtil.saveSecretKey(ApplicationContext.getENCRYPTION_SERVICE().generateKey(), ENCRYPTION_KEY_FILE);
+    }
+  }
+
+  private static class BootstrapThreadFactory implements ThreadFactory {
+
+    private final AtomicInteger counter = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+
+      Thread thread = new Thread(runnable, "bootstrap-" + counter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
@@ -0,0 +1,15 @@
+package bg.tuvarna.sit.wms.bootstrap;
+
+/**
+ * A unit of startup work executed by the {@link Bootstrapper}.
+ */
+@FunctionalInterface
+public interface BootstrapAction {
+
+  /**
+   * Runs the startup work.
+   *
+   * @throws Exception If the work fails. Tasks depending on this one are not run then.
+   */
+  void run() throws Exception;
+}
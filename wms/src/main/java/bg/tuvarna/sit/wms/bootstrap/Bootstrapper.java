@@ -0,0 +1,147 @@
+package bg.tuvarna.sit.wms.bootstrap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Runs startup tasks as a dependency graph.
+ * <p>
+ * Every task starts as soon as all of its dependencies have completed, so independent tasks run in parallel
+ * on the given executor. A failing task fails all tasks depending on it, while unrelated tasks still run.
+ * The start and end of every phase are recorded and logged as a timeline once the whole graph has settled.
+ * </p>
+ */
+public class Bootstrapper {
+
+  private static final Logger LOGGER = LogManager.getLogger(Bootstrapper.class);
+
+  private final Map<String, Task> tasks = new LinkedHashMap<>();
+  private final ConcurrentLinkedQueue<PhaseTiming> timeline = new ConcurrentLinkedQueue<>();
+  private long startNanos;
+
+  /**
+   * Registers a task. Dependencies must have been registered before, which keeps the graph free of cycles.
+   *
+   * @param name      The unique name of the task, used in the timeline.
+   * @param action    The work to run.
+   * @param dependsOn The names of the tasks that must complete before this one starts.
+   * @return This bootstrapper, for chaining.
+   * @throws IllegalArgumentException If the name is taken or a dependency is unknown.
+   */
+  public Bootstrapper addTask(String name, BootstrapAction action, String... dependsOn) {
+
+    if (tasks.containsKey(name)) {
+      throw new IllegalArgumentException("Duplicate bootstrap task: " + name);
+    }
+    for (String dependency : dependsOn) {
+      if (!tasks.containsKey(dependency)) {
+        throw new IllegalArgumentException("Bootstrap task " + name + " depends on unknown task " + dependency);
+      }
+    }
+    tasks.put(name, new Task(action, List.copyOf(Arrays.asList(dependsOn))));
+    return this;
+  }
+
+  /**
+   * Starts all registered tasks and returns immediately.
+   *
+   * @param executor The executor running the tasks.
+   * @return A future completing when every task has completed, or exceptionally with the first failure.
+   */
+  public CompletableFuture<Void> start(Executor executor) {
+
+    startNanos = System.nanoTime();
+    Map<String, CompletableFuture<Void>> futures = new LinkedHashMap<>();
+
+    for (Map.Entry<String, Task> entry : tasks.entrySet()) {
+      CompletableFuture<?>[] dependencies = entry.getValue().dependsOn.stream()
+              .map(futures::get)
+              .toArray(CompletableFuture[]::new);
+      futures.put(entry.getKey(), CompletableFuture.allOf(dependencies)
+              .thenRunAsync(() -> runPhase(entry.getKey(), entry.getValue().action), executor));
+    }
+
+    CompletableFuture<Void> all = CompletableFuture.allOf(futures.values().toArray(CompletableFuture[]::new));
+    all.whenComplete((result, failure) -> logTimeline(failure));
+    return all;
+  }
+
+  /**
+   * Records a point in time, such as the first window being shown, in the timeline.
+   *
+   * @param name The name of the milestone.
+   */
+  public void milestone(String name) {
+
+    long now = elapsedMillis();
+    timeline.add(new PhaseTiming(name, Thread.currentThread().getName(), now, now, true));
+    LOGGER.info("Startup milestone {} reached after {} ms", name, now);
+  }
+
+  /**
+   * Returns the phases recorded so far, ordered by their start.
+   *
+   * @return A snapshot of the timeline.
+   */
+  public List<PhaseTiming> getTimeline() {
+
+    List<PhaseTiming> snapshot = new ArrayList<>(timeline);
+    snapshot.sort(Comparator.comparingLong(PhaseTiming::getStartMillis));
+    return snapshot;
+  }
+
+  private void runPhase(String name, BootstrapAction action) {
+
+    long start = elapsedMillis();
+    boolean successful = false;
+    try {
+      action.run();
+      successful = true;
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new CompletionException(e);
+    } finally {
+      timeline.add(new PhaseTiming(name, Thread.currentThread().getName(), start, elapsedMillis(), successful));
+    }
+  }
+
+  private void logTimeline(Throwable failure) {
+
+    StringBuilder builder = new StringBuilder("Startup timeline:");
+    for (PhaseTiming phase : getTimeline()) {
+      builder.append(String.format("%n  %-16s %6d ms -> %6d ms (%5d ms) %s%s", phase.getName(),
+              phase.getStartMillis(), phase.getEndMillis(), phase.getDurationMillis(), phase.getThread(),
+              phase.isSuccessful() ? "" : " FAILED"));
+    }
+    LOGGER.info(builder);
+    if (failure != null) {
+      LOGGER.error("Application bootstrap failed", failure);
+    }
+  }
+
+  private long elapsedMillis() {
+    return (System.nanoTime() - startNanos) / 1_000_000;
+  }
+
+  private static class Task {
+
+    private final BootstrapAction action;
+    private final List<String> dependsOn;
+
+    private Task(BootstrapAction action, List<String> dependsOn) {
+      this.action = action;
+      this.dependsOn = dependsOn;
+    }
+  }
+}
@@ -0,0 +1,22 @@
+package bg.tuvarna.sit.wms.bootstrap;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * The recorded execution of one bootstrap phase, relative to the start of the bootstrap.
+ */
+@Getter
+@AllArgsConstructor
+public class PhaseTiming {
+
+  private final String name;
+  private final String thread;
+  private final long startMillis;
+  private final long endMillis;
+  private final boolean successful;
+
+  public long getDurationMillis() {
+    return endMillis - startMillis;
+  }
+}
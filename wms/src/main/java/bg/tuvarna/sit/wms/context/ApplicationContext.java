@@ -1,39 +1,182 @@
 package bg.tuvarna.sit.wms.context;
 
+import bg.tuvarna.sit.wms.analytics.AnalyticsService;
+import bg.tuvarna.sit.wms.audit.AuditLog;
+import bg.tuvarna.sit.wms.audit.JsonLinesAuditSink;
 import bg.tuvarna.sit.wms.factory.ControllerFactory;
 import bg.tuvarna.sit.wms.controllers.HomeController;
 import bg.tuvarna.sit.wms.controllers.LoginController;
 import bg.tuvarna.sit.wms.controllers.RegistrationController;
+import bg.tuvarna.sit.wms.controllers.WarehouseCatalogController;
+import bg.tuvarna.sit.wms.dao.AnalyticsDao;
+import bg.tuvarna.sit.wms.dao.LocationDao;
+import bg.tuvarna.sit.wms.dao.MeteredUserDao;
+import bg.tuvarna.sit.wms.dao.NotificationDao;
+import bg.tuvarna.sit.wms.dao.RentalAgreementDao;
+import bg.tuvarna.sit.wms.dao.ReportDao;
+import bg.tuvarna.sit.wms.dao.SearchDao;
 import bg.tuvarna.sit.wms.dao.UserDao;
+import bg.tuvarna.sit.wms.dao.WarehouseDao;
+import bg.tuvarna.sit.wms.metrics.MetricsFileReporter;
+import bg.tuvarna.sit.wms.metrics.MetricsRegistry;
+import bg.tuvarna.sit.wms.report.OwnerReportService;
+import bg.tuvarna.sit.wms.search.LocationAutocompleteService;
+import bg.tuvarna.sit.wms.search.SearchService;
+import bg.tuvarna.sit.wms.server.ApiServer;
 import bg.tuvarna.sit.wms.service.CredentialManagerService;
 import bg.tuvarna.sit.wms.service.EncryptionService;
+import bg.tuvarna.sit.wms.service.MeteredEncryptionService;
+import bg.tuvarna.sit.wms.service.MeteredPasswordHashingService;
+import bg.tuvarna.sit.wms.service.MeteredUserService;
 import bg.tuvarna.sit.wms.service.PasswordHashingService;
 import bg.tuvarna.sit.wms.service.UserService;
+import bg.tuvarna.sit.wms.service.WarehouseService;
+import bg.tuvarna.sit.wms.session.SessionRegistry;
 import bg.tuvarna.sit.wms.util.JpaUtil;
-import lombok.Getter;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Duration;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
+/**
+ * The wiring of the application services and controllers.
+ * <p>
+ * The services are lazy singletons of the {@link Container}, each is created the first time a view or
+ * a startup phase needs it. The controllers are prototypes, a new one for every loaded view.
+ * The {@link ApiServer} of the headless server mode is wired from the same services.
+ * </p>
+ */
 public class ApplicationContext {
 
-  @Getter
-  private static final UserService USER_SERVICE =
-          new UserService(new UserDao(JpaUtil.getEntityManagerFactory()), new PasswordHashingService());
+  private static final Logger LOGGER = LogManager.getLogger(ApplicationContext.class);
 
-  @Getter
-  private static final EncryptionService ENCRYPTION_SERVICE = new EncryptionService();
+  private static final Container CONTAINER = createContainer();
 
-  @Getter
-  private static final CredentialManagerService CREDENTIAL_MANAGER_SERVICE =
-          new CredentialManagerService(ENCRYPTION_SERVICE);
+  private ApplicationContext() {
+  }
+
+  public static Container getCONTAINER() {
+    return CONTAINER;
+  }
+
+  public static MetricsRegistry getMETRICS_REGISTRY() {
+    return CONTAINER.get(MetricsRegistry.class);
+  }
+
+  public static AuditLog getAUDIT_LOG() {
+    return CONTAINER.get(AuditLog.class);
+  }
+
+  public static UserService getUSER_SERVICE() {
+    return CONTAINER.get(UserService.class);
+  }
+
+  public static WarehouseService getWAREHOUSE_SERVICE() {
+    return CONTAINER.get(WarehouseService.class);
+  }
+
+  public static EncryptionService getENCRYPTION_SERVICE() {
+    return CONTAINER.get(EncryptionService.class);
+  }
+
+  public static CredentialManagerService getCREDENTIAL_MANAGER_SERVICE() {
+    return CONTAINER.get(CredentialManagerService.class);
+  }
+
+  public static SearchService getSEARCH_SERVICE() {
+    return CONTAINER.get(SearchService.class);
+  }
 
-  @Getter
-  private static final ControllerFactory CONTROLLER_FACTORY = createControllerFactory();
+  public static LocationAutocompleteService getLOCATION_AUTOCOMPLETE_SERVICE() {
+    return CONTAINER.get(LocationAutocompleteService.class);
+  }
+
+  public static AnalyticsService getANALYTICS_SERVICE() {
+    return CONTAINER.get(AnalyticsService.class);
+  }
+
+  public static ControllerFactory getCONTROLLER_FACTORY() {
+    return CONTAINER.get(ControllerFactory.class);
+  }
+
+  private static Container createContainer() {
+
+    return new Container()
+            .register(MetricsRegistry.class, Scope.LAZY_SINGLETON, container -> createMetricsRegistry())
+            .register(AuditLog.class, Scope.LAZY_SINGLETON, container -> createAuditLog())
+            .register(PasswordHashingService.class, MeteredPasswordHashingService.class, Scope.LAZY_SINGLETON)
+            .register(UserDao.class, Scope.LAZY_SINGLETON, container ->
+                    new MeteredUserDao(JpaUtil::getEntityManagerFactory, container.get(MetricsRegistry.class)),
+                    MetricsRegistry.class)
+            .register(UserService.class, MeteredUserService.class, Scope.LAZY_SINGLETON)
+            .register(EncryptionService.class, MeteredEncryptionService.class, Scope.LAZY_SINGLETON)
+            .register(CredentialManagerService.class, Scope.LAZY_SINGLETON)
+            .register(WarehouseDao.class, Scope.LAZY_SINGLETON, container ->
+                    new WarehouseDao(JpaUtil::getEntityManagerFactory))
+            .register(WarehouseService.class, Scope.LAZY_SINGLETON)
+            .register(RentalAgreementDao.class, Scope.LAZY_SINGLETON, container ->
+                    new RentalAgreementDao(JpaUtil::getEntityManagerFactory))
+            .register(NotificationDao.class, Scope.LAZY_SINGLETON, container ->
+                    new NotificationDao(JpaUtil::getEntityManagerFactory))
+            .register(SessionRegistry.class, Scope.LAZY_SINGLETON, container -> new SessionRegistry())
+            .register(SearchDao.class, Scope.LAZY_SINGLETON, container ->
+                    new SearchDao(JpaUtil::getEntityManagerFactory))
+            .register(SearchService.class, Scope.LAZY_SINGLETON, container ->
+                    createSearchService(container.get(SearchDao.class)), SearchDao.class)
+            .register(LocationDao.class, Scope.LAZY_SINGLETON, container ->
+                    new LocationDao(JpaUtil::getEntityManagerFactory))
+            .register(LocationAutocompleteService.class, Scope.LAZY_SINGLETON)
+            .register(ReportDao.class, Scope.LAZY_SINGLETON, container ->
+                    new ReportDao(JpaUtil::getEntityManagerFactory))
+            .register(OwnerReportService.class, Scope.LAZY_SINGLETON, container ->
+                    new OwnerReportService(container.get(ReportDao.class)), ReportDao.class)
+            .register(AnalyticsDao.class, Scope.LAZY_SINGLETON, container ->
+                    new AnalyticsDao(JpaUtil::getEntityManagerFactory))
+            .register(AnalyticsService.class, Scope.LAZY_SINGLETON, container ->
+                    createAnalyticsService(container.get(AnalyticsDao.class)), AnalyticsDao.class)
+            .register(ApiServer.class, Scope.LAZY_SINGLETON)
+            .register(HomeController.class, Scope.PROTOTYPE)
+            .register(LoginController.class, Scope.PROTOTYPE)
+            .register(RegistrationController.class, Scope.PROTOTYPE)
+            .register(WarehouseCatalogController.class, Scope.PROTOTYPE)
+            .register(ControllerFactory.class, Scope.LAZY_SINGLETON, ControllerFactory::new)
+            .start();
+  }
+
+  private static MetricsRegistry createMetricsRegistry() {
+
+    MetricsRegistry registry = new MetricsRegistry(true);
+    String period = System.getenv("METRICS_DUMP_SECONDS");
+    MetricsFileReporter reporter = new MetricsFileReporter(registry, Paths.get("logs", "metrics.log"));
+    reporter.start(Duration.ofSeconds(period == null ? 60 : Long.parseLong(period)));
+    Runtime.getRuntime().addShutdownHook(new Thread(reporter::close, "metrics-shutdown"));
+    return registry;
+  }
+
+  private static SearchService createSearchService(SearchDao searchDao) {
+
+    SearchService searchService = new SearchService(searchDao, SearchService.DEFAULT_DIRECTORY);
+    Runtime.getRuntime().addShutdownHook(new Thread(searchService::close, "search-shutdown"));
+    return searchService;
+  }
+
+  private static AnalyticsService createAnalyticsService(AnalyticsDao analyticsDao) {
+
+    AnalyticsService analyticsService = new AnalyticsService(analyticsDao);
+    Runtime.getRuntime().addShutdownHook(new Thread(analyticsService::close, "analytics-shutdown"));
+    return analyticsService;
+  }
 
-  private static ControllerFactory createControllerFactory() {
+  private static AuditLog createAuditLog() {
 
-    ControllerFactory factory = new ControllerFactory();
-    factory.addController(LoginController.class, () -> new LoginController(USER_SERVICE, CREDENTIAL_MANAGER_SERVICE));
-    factory.addController(HomeController.class, () -> new HomeController(USER_SERVICE, CREDENTIAL_MANAGER_SERVICE));
-    factory.addController(RegistrationController.class, () -> new RegistrationController(USER_SERVICE));
-    return factory;
+    try {
+      AuditLog auditLog = new AuditLog(new JsonLinesAuditSink(Paths.get("logs", "audit")), AuditLog.DEFAULT_CAPACITY);
+      Runtime.getRuntime().addShutdownHook(new Thread(auditLog::close, "audit-shutdown"));
+      return auditLog;
+    } catch (IOException e) {
+      LOGGER.error("Audit log could not be opened, audit events will not be recorded", e);
+      return AuditLog.disabled();
+    }
   }
 }
@@ -0,0 +1,293 @@
+package bg.tuvarna.sit.wms.context;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A small dependency injection container.
+ * <p>
+ * A type is bound either to a class whose constructor is injected with the other bindings, or to a factory.
+ * The constructor is the only public one, or the one annotated with {@link Inject}, and it is resolved once
+ * into a cached {@link MethodHandle}, so creating an instance costs no reflection. Concrete classes which
+ * are requested without being bound, such as controllers, are bound on first use as prototypes.
+ * </p>
+ * <p>
+ * {@link #start()} checks the dependency graph for missing bindings and cycles, then creates the
+ * {@link Scope#SINGLETON} instances. Everything else is created when first requested, so starting the
+ * application only builds what the first view needs. Factories may declare the types they request, so that
+ * they take part in the check; a cycle through an undeclared dependency is still reported when it is
+ * resolved instead of overflowing the stack.
+ * </p>
+ * <p>
+ * A lazy singleton is created exactly once: the first thread requesting it runs the factory while holding
+ * the lock of its binding, and the others wait for the instance. Factories often start threads or register
+ * shutdown hooks, so a second copy must never be made. The dependencies of a factory should therefore be
+ * declared, so that {@link #start()} rejects a cycle before two threads could resolve it from opposite ends.
+ * </p>
+ */
+public class Container {
+
+  private static final Logger LOGGER = LogManager.getLogger(Container.class);
+
+  private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+  private static final MethodType CREATOR_TYPE = MethodType.methodType(Object.class, Object[].class);
+
+  private final Map<Class<?>, Binding> bindings = new ConcurrentHashMap<>();
+  private final ThreadLocal<Deque<Class<?>>> resolving = ThreadLocal.withInitial(ArrayDeque::new);
+
+  /**
+   * Binds a class to itself, injecting its constructor.
+   *
+   * @param type  The class.
+   * @param scope The scope of its instances.
+   * @param <T>   The type of the class.
+   * @return This container.
+   */
+  public <T> Container register(Class<T> type, Scope scope) {
+    return register(type, type, scope);
+  }
+
+  /**
+   * Binds a type to an implementation class, injecting the constructor of the implementation.
+   *
+   * @param type           The type requested from the container.
+   * @param implementation The class of the instances.
+   * @param scope          The scope of the instances.
+   * @param <T>            The requested type.
+   * @return This container.
+   * @throws IllegalArgumentException If the implementation has no injectable constructor.
+   */
+  public <T> Container register(Class<T> type, Class<? extends T> implementation, Scope scope) {
+
+    bindings.put(type, constructorBinding(type, implementation, scope));
+    return this;
+  }
+
+  /**
+   * Binds a type to a factory.
+   *
+   * @param type      The type requested from the container.
+   * @param scope     The scope of the instances.
+   * @param factory   Creates an instance, requesting its dependencies from the container.
+   * @param dependsOn The types the factory requests, checked by {@link #start()}.
+   * @param <T>       The requested type.
+   * @return This container.
+   */
+  public <T> Container register(Class<T> type, Scope scope, Function<Container, ? extends T> factory,
+                                Class<?>... dependsOn) {
+
+    bindings.put(type, new Binding(type, scope, dependsOn.clone(), null, factory));
+    return this;
+  }
+
+  /**
+   * Binds a type to an existing instance.
+   *
+   * @param type     The type requested from the container.
+   * @param instance The instance.
+   * @param <T>      The requested type.
+   * @return This container.
+   */
+  public <T> Container registerInstance(Class<T> type, T instance) {
+
+    Binding binding = new Binding(type, Scope.SINGLETON, new Class<?>[0], null, container -> instance);
+    binding.instance = instance;
+    bindings.put(type, binding);
+    return this;
+  }
+
+  /**
+   * Checks that every dependency is bound and that there are no cycles, then creates the singletons.
+   *
+   * @return This container.
+   * @throws IllegalStateException If a dependency is missing or the dependencies form a cycle.
+   */
+  public Container start() {
+
+    Set<Class<?>> checked = new HashSet<>();
+    for (Class<?> type : List.copyOf(bindings.keySet())) {
+      check(type, null, new ArrayDeque<>(), checked);
+    }
+    for (Binding binding : List.copyOf(bindings.values())) {
+      if (binding.scope == Scope.SINGLETON) {
+        get(binding.type);
+      }
+    }
+    LOGGER.debug("Container started with {} bindings", bindings.size());
+    return this;
+  }
+
+  /**
+   * Returns an instance of the type according to the scope of its binding.
+   *
+   * @param type The requested type.
+   * @param <T>  The requested type.
+   * @return The instance.
+   * @throws IllegalStateException If the type cannot be created or its dependencies form a cycle.
+   */
+  public <T> T get(Class<T> type) {
+
+    Binding binding = binding(type, null);
+    if (binding.scope == Scope.PROTOTYPE) {
+      return type.cast(create(binding));
+    }
+
+    Object instance = binding.instance;
+    if (instance == null) {
+      synchronized (binding) {
+        instance = binding.instance;
+        if (instance == null) {
+          instance = create(binding);
+          binding.instance = instance;
+        }
+      }
+    }
+    return type.cast(instance);
+  }
+
+  /**
+   * Tells whether the single instance of a type has been created already.
+   *
+   * @param type The bound type.
+   * @return true if the type is bound as a singleton and its instance exists.
+   */
+  public boolean isCreated(Class<?> type) {
+
+    Binding binding = bindings.get(type);
+    return binding != null && binding.instance != null;
+  }
+
+  private Object create(Binding binding) {
+
+    Deque<Class<?>> path = resolving.get();
+    if (path.contains(binding.type)) {
+      throw new IllegalStateException("Dependency cycle: " + describe(path, binding.type));
+    }
+
+    path.push(binding.type);
+    try {
+      if (binding.factory != null) {
+        return binding.factory.apply(this);
+      }
+      Object[] arguments = new Object[binding.dependencies.length];
+      for (int i = 0; i < arguments.length; i++) {
+        arguments[i] = get(binding.dependencies[i]);
+      }
+      return (Object) binding.constructor.invokeExact(arguments);
+    } catch (RuntimeException | Error e) {
+      throw e;
+    } catch (Throwable e) {
+      throw new IllegalStateException("Cannot create " + binding.type.getName(), e);
+    } finally {
+      path.pop();
+    }
+  }
+
+  private void check(Class<?> type, Class<?> requiredBy, Deque<Class<?>> path, Set<Class<?>> checked) {
+
+    if (checked.contains(type)) {
+      return;
+    }
+    if (path.contains(type)) {
+      throw new IllegalStateException("Dependency cycle: " + describe(path, type));
+    }
+
+    Binding binding = binding(type, requiredBy);
+    path.push(type);
+    for (Class<?> dependency : binding.dependencies) {
+      check(dependency, type, path, checked);
+    }
+    path.pop();
+    checked.add(type);
+  }
+
+  private Binding binding(Class<?> type, Class<?> requiredBy) {
+
+    Binding binding = bindings.get(type);
+    if (binding != null) {
+      return binding;
+    }
+    if (type.isInterface() || Modifier.isAbstract(type.getModifiers()) || type.isPrimitive()) {
+      throw new IllegalStateException("No binding for " + type.getName()
+              + (requiredBy == null ? "" : " required by " + requiredBy.getName()));
+    }
+    return bindings.computeIfAbsent(type, key -> constructorBinding(key, key, Scope.PROTOTYPE));
+  }
+
+  private static Binding constructorBinding(Class<?> type, Class<?> implementation, Scope scope) {
+
+    Constructor<?> constructor = injectableConstructor(implementation);
+    try {
+      MethodHandle handle = LOOKUP.unreflectConstructor(constructor)
+              .asSpreader(Object[].class, constructor.getParameterCount())
+              .asType(CREATOR_TYPE);
+      return new Binding(type, scope, constructor.getParameterTypes(), handle, null);
+    } catch (IllegalAccessException e) {
+      throw new IllegalArgumentException("Cannot access the constructor of " + implementation.getName(), e);
+    }
+  }
+
+  private static Constructor<?> injectableConstructor(Class<?> implementation) {
+
+    Constructor<?>[] constructors = implementation.getConstructors();
+    List<Constructor<?>> annotated = new ArrayList<>();
+    for (Constructor<?> constructor : constructors) {
+      if (constructor.isAnnotationPresent(Inject.class)) {
+        annotated.add(constructor);
+      }
+    }
+    if (annotated.size() == 1) {
+      return annotated.get(0);
+    }
+    if (annotated.isEmpty() && constructors.length == 1) {
+      return constructors[0];
+    }
+    throw new IllegalArgumentException(implementation.getName()
+            + " needs exactly one public constructor or one annotated with @Inject");
+  }
+
+  private static String describe(Deque<Class<?>> path, Class<?> repeated) {
+
+    List<Class<?>> cycle = new ArrayList<>(path);
+    Collections.reverse(cycle);
+    cycle = cycle.subList(cycle.indexOf(repeated), cycle.size());
+    cycle.add(repeated);
+    return cycle.stream().map(Class::getSimpleName).collect(Collectors.joining(" -> "));
+  }
+
+  private static final class Binding {
+
+    private final Class<?> type;
+    private final Scope scope;
+    private final Class<?>[] dependencies;
+    private final MethodHandle constructor;
+    private final Function<Container, ?> factory;
+    private volatile Object instance;
+
+    private Binding(Class<?> type, Scope scope, Class<?>[] dependencies, MethodHandle constructor,
+                    Function<Container, ?> factory) {
+
+      this.type = type;
+      this.scope = scope;
+      this.dependencies = dependencies;
+      this.constructor = constructor;
+      this.factory = factory;
+    }
+  }
+}
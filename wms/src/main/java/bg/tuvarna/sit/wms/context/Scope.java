@@ -0,0 +1,22 @@
+package bg.tuvarna.sit.wms.context;
+
+/**
+ * How long an instance created by the {@link Container} lives.
+ */
+public enum Scope {
+
+  /**
+   * A single instance, created when the container is started.
+   */
+  SINGLETON,
+
+  /**
+   * A single instance, created when it is first requested.
+   */
+  LAZY_SINGLETON,
+
+  /**
+   * A new instance on every request, e.g. for the controllers of the views.
+   */
+  PROTOTYPE
+}
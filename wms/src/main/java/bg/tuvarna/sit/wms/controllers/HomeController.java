@@ -1,17 +1,26 @@
 package bg.tuvarna.sit.wms.controllers;
 
-import bg.tuvarna.sit.wms.entities.User;
+import bg.tuvarna.sit.wms.bootstrap.ApplicationBootstrap;
+import bg.tuvarna.sit.wms.context.Inject;
 import bg.tuvarna.sit.wms.service.UserService;
 import bg.tuvarna.sit.wms.service.CredentialManagerService;
 import bg.tuvarna.sit.wms.session.Credentials;
+import bg.tuvarna.sit.wms.session.SessionPrincipal;
 import bg.tuvarna.sit.wms.session.UserSession;
+import bg.tuvarna.sit.wms.util.RefreshableView;
+import bg.tuvarna.sit.wms.util.UiTask;
 import static bg.tuvarna.sit.wms.util.ViewLoaderUtil.loadView;
 import static bg.tuvarna.sit.wms.util.ViewLoaderUtil.showAlert;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
+import javafx.scene.layout.HBox;
 import javafx.scene.layout.StackPane;
 import javafx.scene.text.Text;
 
@@ -19,7 +28,7 @@ import javafx.scene.text.Text;
  * Controller class for the home view in the application.
  * It manages the interaction and behavior of the UI elements on the home screen.
  */
-public class HomeController {
+public class HomeController implements RefreshableView {
 
   @FXML
   Button registerButton;
@@ -28,18 +37,43 @@ public class HomeController {
   @FXML
   Button ssoButton;
   @FXML
+  Button catalogButton;
+  @FXML
   Button logoutButton;
   @FXML
   Text welcomeUserText;
   @FXML
   StackPane welcomeMessageContainer;
+  @FXML
+  HBox startupStatusContainer;
+  @FXML
+  ProgressIndicator startupProgressIndicator;
+  @FXML
+  Label startupStatusLabel;
+  @FXML
+  ProgressIndicator busyIndicator;
   UserSession userSession = UserSession.getInstance();
   private final UserService userService;
   private final CredentialManagerService credentialManagerService;
+  private final CompletableFuture<Void> readiness;
 
+  @Inject
   public HomeController(UserService userService, CredentialManagerService credentialManagerService) {
+    this(userService, credentialManagerService, ApplicationBootstrap.getReadiness());
+  }
+
+  /**
+   * Constructs the controller with an explicit readiness of the application services.
+   *
+   * @param userService              The user service.
+   * @param credentialManagerService The SSO credential manager.
+   * @param readiness                Completes once the services needed by the login actions are started.
+   */
+  public HomeController(UserService userService, CredentialManagerService credentialManagerService,
+                        CompletableFuture<Void> readiness) {
     this.userService = userService;
     this.credentialManagerService = credentialManagerService;
+    this.readiness = readiness;
   }
 
   /**
@@ -54,6 +88,16 @@ public class HomeController {
     updateSsoButtonVisibility();
     updateLogoutButtonVisibility();
     updateUserWelcomeMessage();
+    updateStartupStatus();
+  }
+
+  /**
+   * Updates the view for the current user every time the cached home view is shown again,
+   * e.g. after a login or a logout.
+   */
+  @Override
+  public void onShow() {
+    initialize();
   }
 
   /**
@@ -78,35 +122,55 @@ public class HomeController {
     loadView("/views/login.fxml", event);
   }
 
+  /**
+   * Handles the action to navigate to the warehouse catalog view.
+   *
+   * @param event The event that triggered the action.
+   */
+  @FXML
+  void handleCatalogAction(ActionEvent event) {
+
+    loadView("/views/warehouse-catalog.fxml", event);
+  }
+
   /**
    * Handles the Single Sign-On (SSO) action.
    * <p>
    * This method attempts to log in using credentials stored from a previous session.
    * If the credentials are present and valid, it logs the user in automatically
    * and navigates to the home view. If the credentials are missing, expired, or
-   * if the login fails, it displays an appropriate alert to the user.
+   * if the login fails, it displays an appropriate alert to the user. The credentials are
+   * loaded and checked in the background.
    *
    * @param event The event that triggered this action.
    */
   @FXML
   void handleSsoAction(ActionEvent event) {
 
-    Optional<Credentials> credentials = credentialManagerService.loadCredentials();
-
-    if (credentials.isPresent()) {
-      boolean loginSuccessful = userService.login(credentials.get().getEmail(),
-              credentials.get().getPassword());
-
-      if (loginSuccessful) {
-        loadView("/views/home.fxml", event);
-      } else {
-        showAlert(Alert.AlertType.ERROR, "SSO Login Failed", "Login was unsuccessful.\n" +
-                "Please try again.");
+    UiTask.of("sso", () -> {
+      Optional<Credentials> credentials = credentialManagerService.loadCredentials();
+      if (credentials.isEmpty()) {
+        return Optional.<Boolean>empty();
       }
-    } else {
-      showAlert(Alert.AlertType.INFORMATION, "SSO", "SSO credentials are missing or have expired.\n" +
-              "Login manually to activate new SSO session.");
-    }
+      return Optional.of(userService.loginWithSso(credentials.get().getEmail(), credentials.get().getPassword()));
+    })
+            .ownedBy(ssoButton)
+            .disabling(registerButton, loginButton, ssoButton)
+            .showing(busyIndicator)
+            .onSuccess(loginSuccessful -> {
+              if (loginSuccessful.isEmpty()) {
+                showAlert(Alert.AlertType.INFORMATION, "SSO", "SSO credentials are missing or have expired.\n" +
+                        "Login manually to activate new SSO session.");
+              } else if (loginSuccessful.get()) {
+                loadView("/views/home.fxml", event);
+              } else {
+                showAlert(Alert.AlertType.ERROR, "SSO Login Failed", "Login was unsuccessful.\n" +
+                        "Please try again.");
+              }
+            })
+            .onFailure(error -> showAlert(Alert.AlertType.ERROR, "SSO Login Failed", "Login was unsuccessful.\n" +
+                    "Please try again."))
+            .start();
   }
 
   /**
@@ -120,7 +184,7 @@ public class HomeController {
   @FXML
   void handleLogoutAction(ActionEvent event) {
 
-    userSession.logout();
+    userService.logout();
     loadView("/views/home.fxml", event);
   }
 
@@ -130,7 +194,7 @@ public class HomeController {
    */
   private void updateRegisterButtonVisibility() {
 
-    User currentUser = userSession.getCurrentUser();
+    SessionPrincipal currentUser = userSession.getPrincipal();
     registerButton.setVisible(currentUser != null);
     registerButton.setManaged(currentUser != null);
   }
@@ -141,21 +205,21 @@ public class HomeController {
    */
   private void updateLoginButtonVisibility() {
 
-    User currentUser = userSession.getCurrentUser();
+    SessionPrincipal currentUser = userSession.getPrincipal();
     loginButton.setVisible(currentUser == null);
     loginButton.setManaged(currentUser == null);
   }
 
   private void updateSsoButtonVisibility() {
 
-    User currentUser = userSession.getCurrentUser();
+    SessionPrincipal currentUser = userSession.getPrincipal();
     ssoButton.setVisible(currentUser == null);
     ssoButton.setManaged(currentUser == null);
   }
 
   private void updateLogoutButtonVisibility() {
 
-    User currentUser = userSession.getCurrentUser();
+    SessionPrincipal currentUser = userSession.getPrincipal();
     logoutButton.setVisible(currentUser != null);
     logoutButton.setManaged(currentUser != null);
   }
@@ -166,12 +230,45 @@ public class HomeController {
    */
   private void updateUserWelcomeMessage() {
 
-    User currentUser = userSession.getCurrentUser();
+    SessionPrincipal currentUser = userSession.getPrincipal();
     if (currentUser != null) {
-      welcomeUserText.setText("Hello, " + currentUser.getFirstName());
+      welcomeUserText.setText("Hello, " + currentUser.displayName());
       welcomeMessageContainer.setVisible(true);
     } else {
       welcomeMessageContainer.setVisible(false);
     }
   }
+
+  /**
+   * Disables the actions needing the database while the application services are starting up
+   * and shows a progress indicator instead. The actions are enabled once the startup completes.
+   */
+  private void updateStartupStatus() {
+
+    if (readiness.isDone() && !readiness.isCompletedExceptionally()) {
+      return;
+    }
+
+    setActionsDisabled(true);
+    startupStatusContainer.setVisible(true);
+    startupStatusContainer.setManaged(true);
+    readiness.whenComplete((result, failure) -> Platform.runLater(() -> {
+      if (failure == null) {
+        setActionsDisabled(false);
+        startupStatusContainer.setVisible(false);
+        startupStatusContainer.setManaged(false);
+      } else {
+        startupProgressIndicator.setVisible(false);
+        startupStatusLabel.setText("Startup failed. Please check the logs and restart the application.");
+      }
+    }));
+  }
+
+  private void setActionsDisabled(boolean disabled) {
+
+    registerButton.setDisable(disabled);
+    loginButton.setDisable(disabled);
+    ssoButton.setDisable(disabled);
+    catalogButton.setDisable(disabled);
+  }
 }
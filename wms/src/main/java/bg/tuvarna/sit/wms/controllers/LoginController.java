@@ -3,16 +3,21 @@ package bg.tuvarna.sit.wms.controllers;
 import bg.tuvarna.sit.wms.exceptions.CredentialSavingException;
 import bg.tuvarna.sit.wms.service.UserService;
 import bg.tuvarna.sit.wms.service.CredentialManagerService;
+import bg.tuvarna.sit.wms.util.LiveValidation;
+import bg.tuvarna.sit.wms.util.RefreshableView;
+import bg.tuvarna.sit.wms.util.UiTask;
+import bg.tuvarna.sit.wms.validation.Rules;
 import static bg.tuvarna.sit.wms.util.ValidationUtils.bindManagedToVisible;
-import static bg.tuvarna.sit.wms.util.ValidationUtils.showErrorLabel;
-import static bg.tuvarna.sit.wms.util.ValidationUtils.validateField;
+import static bg.tuvarna.sit.wms.util.ViewLoaderUtil.goBack;
 import static bg.tuvarna.sit.wms.util.ViewLoaderUtil.loadView;
 import static bg.tuvarna.sit.wms.util.ViewLoaderUtil.showAlert;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.control.Alert;
+import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.control.PasswordField;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.control.TextField;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -22,7 +27,7 @@ import org.apache.logging.log4j.Logger;
  * This class handles user interactions within the login view,
  * such as input validation and user authentication.
  */
-public class LoginController {
+public class LoginController implements RefreshableView {
 
   @FXML
   private TextField emailField;
@@ -32,6 +37,10 @@ public class LoginController {
   private Label emailErrorLabel;
   @FXML
   private Label authenticationErrorLabel;
+  @FXML
+  private Button loginButton;
+  @FXML
+  private ProgressIndicator busyIndicator;
 
   private static final Logger LOGGER = LogManager.getLogger(LoginController.class);
 
@@ -39,6 +48,8 @@ public class LoginController {
 
   private final CredentialManagerService credentialManagerService;
 
+  private LiveValidation emailValidation;
+
   public LoginController(UserService userService, CredentialManagerService credentialManagerService) {
     this.userService = userService;
     this.credentialManagerService = credentialManagerService;
@@ -48,11 +59,26 @@ public class LoginController {
   void initialize() {
 
     bindManagedToVisible(emailErrorLabel);
+    emailValidation = LiveValidation.attach(emailField, emailErrorLabel, Rules.EMAIL);
+  }
+
+  /**
+   * Clears the form every time the cached login view is shown again.
+   */
+  @Override
+  public void onShow() {
+
+    emailField.clear();
+    passwordField.clear();
+    emailValidation.reset();
+    authenticationErrorLabel.setVisible(false);
   }
 
   /**
    * Invoked when the user clicks the login button.
    * This method validates the user input and attempts to authenticate the user.
+   * The authentication and the saving of the SSO credentials run in the background,
+   * the form is disabled until they finish.
    *
    * @param event The event that triggered this action.
    */
@@ -66,32 +92,49 @@ public class LoginController {
       return;
     }
 
-    boolean loginSuccessful = userService.login(email, password);
-
-    if (loginSuccessful) {
-      try {
+    UiTask.of("login", () -> {
+      boolean loginSuccessful = userService.login(email, password);
+      if (loginSuccessful) {
         credentialManagerService.saveCredentials(email, password);
-        loadView("/views/home.fxml", event);
-      } catch (CredentialSavingException e) {
-        LOGGER.error("Error saving credentials for auto-login.", e);
-        showAlert(Alert.AlertType.WARNING, "Warning",
-                "Could not save credentials for auto-login. You may need to login manually next time.");
       }
-    } else {
-      authenticationErrorLabel.setText("Invalid email or password");
-      authenticationErrorLabel.setVisible(true);
-    }
+      return loginSuccessful;
+    })
+            .ownedBy(loginButton)
+            .disabling(emailField, passwordField, loginButton)
+            .showing(busyIndicator)
+            .onSuccess(loginSuccessful -> {
+              if (loginSuccessful) {
+                loadView("/views/home.fxml", event);
+              } else {
+                authenticationErrorLabel.setText("Invalid email or password");
+                authenticationErrorLabel.setVisible(true);
+              }
+            })
+            .onFailure(this::handleLoginFailure)
+            .start();
   }
 
   /**
-   * Handles back functionality to the Home page.
+   * Handles back functionality, returning to the previous view or to the Home page.
    *
    * @param event The event that triggered this action.
    */
   @FXML
   void handleBack(ActionEvent event) {
 
-    loadView("/views/home.fxml", event);
+    goBack("/views/home.fxml", event);
+  }
+
+  private void handleLoginFailure(Throwable error) {
+
+    if (error instanceof CredentialSavingException) {
+      LOGGER.error("Error saving credentials for auto-login.", error);
+      showAlert(Alert.AlertType.WARNING, "Warning",
+              "Could not save credentials for auto-login. You may need to login manually next time.");
+    } else {
+      LOGGER.error("Login failed.", error);
+      showAlert(Alert.AlertType.ERROR, "Error", "Login failed. Please try again.");
+    }
   }
 
   /**
@@ -102,8 +145,6 @@ public class LoginController {
    */
   private boolean validateInput() {
 
-    boolean isEmailValid = validateField(emailField, "\\S+@\\S+\\.\\S+");
-    showErrorLabel(emailErrorLabel, "The provided email is invalid.", !isEmailValid);
-    return isEmailValid;
+    return emailValidation.validateNow();
   }
 }
@@ -3,19 +3,26 @@ package bg.tuvarna.sit.wms.controllers;
 import bg.tuvarna.sit.wms.dto.UserRegistrationDto;
 import bg.tuvarna.sit.wms.exceptions.RegistrationException;
 import bg.tuvarna.sit.wms.service.UserService;
+import bg.tuvarna.sit.wms.util.LiveValidation;
+import bg.tuvarna.sit.wms.util.RefreshableView;
+import bg.tuvarna.sit.wms.util.UiTask;
+import bg.tuvarna.sit.wms.validation.Rules;
 import static bg.tuvarna.sit.wms.util.ValidationUtils.bindManagedToVisible;
 import static bg.tuvarna.sit.wms.util.ValidationUtils.showErrorLabel;
 import static bg.tuvarna.sit.wms.util.ValidationUtils.validateComboBox;
-import static bg.tuvarna.sit.wms.util.ValidationUtils.validateField;
+import static bg.tuvarna.sit.wms.util.ViewLoaderUtil.goBack;
 import static bg.tuvarna.sit.wms.util.ViewLoaderUtil.loadView;
 import static bg.tuvarna.sit.wms.util.ViewLoaderUtil.showAlert;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.control.Alert;
+import javafx.scene.control.Button;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
 import javafx.scene.control.PasswordField;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.control.TextField;
+import javafx.scene.control.TextInputControl;
 
 /**
  * Controller for handling the user registration process.
@@ -24,7 +31,7 @@ import javafx.scene.control.TextField;
  * @author Yavor Chamov
  * @version 1.0.0
  */
-public class RegistrationController {
+public class RegistrationController implements RefreshableView {
 
   @FXML
   private TextField firstNameField;
@@ -54,9 +61,19 @@ public class RegistrationController {
   private Label phoneErrorLabel;
   @FXML
   private Label roleErrorLabel;
+  @FXML
+  private Button registerBtn;
+  @FXML
+  private ProgressIndicator busyIndicator;
 
   private final UserService userService;
 
+  private LiveValidation firstNameValidation;
+  private LiveValidation lastNameValidation;
+  private LiveValidation emailValidation;
+  private LiveValidation passwordValidation;
+  private LiveValidation phoneValidation;
+
   public RegistrationController(UserService userService) {
     this.userService = userService;
   }
@@ -64,7 +81,7 @@ public class RegistrationController {
   /**
    * Initializes the controller. This method is called after the FXML fields are populated.
    * It binds the visibility of error labels to their managed properties so that space is not
-   * reserved in the layout when they are invisible.
+   * reserved in the layout when they are invisible, and validates the text fields as the user types.
    */
   @FXML
   void initialize() {
@@ -76,12 +93,40 @@ public class RegistrationController {
     bindManagedToVisible(confirmPasswordErrorLabel);
     bindManagedToVisible(phoneErrorLabel);
     bindManagedToVisible(roleErrorLabel);
+
+    firstNameValidation = LiveValidation.attach(firstNameField, firstNameErrorLabel, Rules.FIRST_NAME);
+    lastNameValidation = LiveValidation.attach(lastNameField, lastNameErrorLabel, Rules.LAST_NAME);
+    emailValidation = LiveValidation.attach(emailField, emailErrorLabel, Rules.EMAIL);
+    passwordValidation = LiveValidation.attach(passwordField, passwordErrorLabel, Rules.PASSWORD);
+    phoneValidation = LiveValidation.attach(phoneField, phoneErrorLabel, Rules.PHONE);
+  }
+
+  /**
+   * Clears the form and its error labels every time the cached registration view is shown again.
+   */
+  @Override
+  public void onShow() {
+
+    for (TextInputControl field : new TextInputControl[]{firstNameField, lastNameField, emailField, passwordField,
+            confirmPasswordField, phoneField}) {
+      field.clear();
+      field.setStyle("");
+    }
+    roleBox.setValue(null);
+    roleBox.setStyle("");
+    for (LiveValidation validation : new LiveValidation[]{firstNameValidation, lastNameValidation, emailValidation,
+            passwordValidation, phoneValidation}) {
+      validation.reset();
+    }
+    confirmPasswordErrorLabel.setVisible(false);
+    roleErrorLabel.setVisible(false);
   }
 
   /**
    * Handles the registration action when the registration button is clicked.
    * Validates user input, collects data into a DTO, and attempts to register the user
-   * using the user service.
+   * using the user service. The registration runs in the background, the form is disabled
+   * until it finishes.
    */
   @FXML
   void handleRegistration(ActionEvent event) {
@@ -91,23 +136,32 @@ public class RegistrationController {
     }
 
     UserRegistrationDto registrationDto = getUserRegistrationDto();
-    try {
+    UiTask.of("registration", () -> {
       userService.registerUser(registrationDto);
-      showAlert(Alert.AlertType.INFORMATION,"Registration Successful", "User has been registered successfully!");
-      loadView("/views/home.fxml", event);
-    } catch (RegistrationException e) {
-      showAlert(Alert.AlertType.ERROR,"Registration Failed", e.getMessage());
-    }
+      return null;
+    })
+            .ownedBy(registerBtn)
+            .disabling(firstNameField, lastNameField, emailField, passwordField, confirmPasswordField, phoneField,
+                    roleBox, registerBtn)
+            .showing(busyIndicator)
+            .onSuccess(result -> {
+              showAlert(Alert.AlertType.INFORMATION,"Registration Successful", "User has been registered successfully!");
+              loadView("/views/home.fxml", event);
+            })
+            .onFailure(error -> showAlert(Alert.AlertType.ERROR,"Registration Failed",
+                    error instanceof RegistrationException ? error.getMessage() : "Registration failed. Please try again."))
+            .start();
   }
 
   /**
-   * Handles back functionality to the Home page.
+   * Handles back functionality, returning to the previous view or to the Home page.
    *
    * @param event The event that triggered this action.
    */
   @FXML
   void handleBack(ActionEvent event) {
-    loadView("/views/home.fxml", event);
+
+    goBack("/views/home.fxml", event);
   }
 
   /**
@@ -130,22 +184,15 @@ public class RegistrationController {
 
   private boolean validateInput() {
 
-    return isFieldValid(firstNameField, "^[A-Za-z\\s]+$", firstNameErrorLabel, "First name can contain only letters and spaces.") &&
-            isFieldValid(lastNameField, "^[A-Za-z\\s]+$", lastNameErrorLabel, "Last name can contain only letters and spaces.") &&
-            isFieldValid(emailField, "\\S+@\\S+\\.\\S+", emailErrorLabel, "The provided email is invalid.") &&
-            isFieldValid(passwordField, "^(?=.*[A-Z])(?=.*[!@#$%^&*]).{8,}$", passwordErrorLabel, "Password should contain at least 8 symbols. At least one upper case letter and one special symbol.") &&
+    return firstNameValidation.validateNow() &&
+            lastNameValidation.validateNow() &&
+            emailValidation.validateNow() &&
+            passwordValidation.validateNow() &&
             arePasswordsEqual(passwordField, confirmPasswordField, confirmPasswordErrorLabel, "Passwords must match.") &&
-            isFieldValid(phoneField, "^(\\+359|0)\\d{9}$", phoneErrorLabel, "Enter a valid phone number.") &&
+            phoneValidation.validateNow() &&
             isComboBoxValid(roleBox, roleErrorLabel, "Choosing a role is mandatory.");
   }
 
-  private boolean isFieldValid(TextField field, String regex, Label errorLabel, String errorMessage) {
-
-    boolean isValid = validateField(field, regex);
-    showErrorLabel(errorLabel, errorMessage, !isValid);
-    return isValid;
-  }
-
   private boolean arePasswordsEqual(PasswordField passwordField, PasswordField confirmPasswordField, Label errorLabel, String errorMessage) {
 
     boolean areEqual = passwordField.getText().trim().equals(confirmPasswordField.getText().trim());
@@ -0,0 +1,124 @@
+package bg.tuvarna.sit.wms.controllers;
+
+import bg.tuvarna.sit.wms.dto.WarehouseListingDto;
+import bg.tuvarna.sit.wms.enums.ClimateCondition;
+import bg.tuvarna.sit.wms.enums.WarehouseStatus;
+import bg.tuvarna.sit.wms.service.WarehouseService;
+import bg.tuvarna.sit.wms.util.LazyPagedList;
+import bg.tuvarna.sit.wms.util.RefreshableView;
+import bg.tuvarna.sit.wms.util.UiTask;
+import static bg.tuvarna.sit.wms.util.ViewLoaderUtil.goBack;
+import static bg.tuvarna.sit.wms.util.ViewLoaderUtil.showAlert;
+import java.util.function.Function;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.event.ActionEvent;
+import javafx.fxml.FXML;
+import javafx.scene.control.Alert;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+
+/**
+ * Controller class for the warehouse catalog view.
+ * <p>
+ * The table is backed by a {@link LazyPagedList}, so only the pages of the rows scrolled into view are
+ * loaded, however many warehouses there are. Rows whose page is still loading are shown empty.
+ * </p>
+ */
+public class WarehouseCatalogController implements RefreshableView {
+
+  @FXML
+  private TableView<WarehouseListingDto> catalogTable;
+  @FXML
+  private TableColumn<WarehouseListingDto, String> cityColumn;
+  @FXML
+  private TableColumn<WarehouseListingDto, String> countryColumn;
+  @FXML
+  private TableColumn<WarehouseListingDto, String> streetColumn;
+  @FXML
+  private TableColumn<WarehouseListingDto, String> storageTypeColumn;
+  @FXML
+  private TableColumn<WarehouseListingDto, Double> sizeColumn;
+  @FXML
+  private TableColumn<WarehouseListingDto, ClimateCondition> climateColumn;
+  @FXML
+  private TableColumn<WarehouseListingDto, WarehouseStatus> statusColumn;
+  @FXML
+  private TableColumn<WarehouseListingDto, String> ownerColumn;
+  @FXML
+  private Label countLabel;
+  @FXML
+  private ProgressIndicator busyIndicator;
+
+  private final WarehouseService warehouseService;
+
+  private LazyPagedList<WarehouseListingDto> listings;
+
+  public WarehouseCatalogController(WarehouseService warehouseService) {
+    this.warehouseService = warehouseService;
+  }
+
+  @FXML
+  void initialize() {
+
+    bindColumn(cityColumn, WarehouseListingDto::getCityName);
+    bindColumn(countryColumn, WarehouseListingDto::getCountryName);
+    bindColumn(streetColumn, WarehouseListingDto::getStreet);
+    bindColumn(storageTypeColumn, WarehouseListingDto::getStorageTypeName);
+    bindColumn(sizeColumn, WarehouseListingDto::getSize);
+    bindColumn(climateColumn, WarehouseListingDto::getClimateCondition);
+    bindColumn(statusColumn, WarehouseListingDto::getStatus);
+    bindColumn(ownerColumn, WarehouseListingDto::getOwnerName);
+  }
+
+  /**
+   * Counts the listings again every time the view is shown and starts over with an empty list of that size,
+   * the pages are then loaded as they are scrolled into view.
+   */
+  @Override
+  public void onShow() {
+
+    countLabel.setText("");
+    UiTask.of("catalog.count", warehouseService::countListings)
+            .ownedBy(catalogTable)
+            .showing(busyIndicator)
+            .onSuccess(this::showListings)
+            .onFailure(error -> showAlert(Alert.AlertType.ERROR, "Catalog", "The warehouses could not be loaded.\n" +
+                    "Please try again."))
+            .start();
+  }
+
+  /**
+   * Handles the action to go back to the previous view.
+   *
+   * @param event The event that triggered the action.
+   */
+  @FXML
+  void handleBack(ActionEvent event) {
+
+    if (listings != null) {
+      listings.close();
+    }
+    goBack("/views/home.fxml", event);
+  }
+
+  private void showListings(long count) {
+
+    if (listings != null) {
+      listings.close();
+    }
+    int size = (int) Math.min(count, Integer.MAX_VALUE);
+    listings = new LazyPagedList<>(size, warehouseService::findListingsPage);
+    catalogTable.setItems(listings);
+    catalogTable.scrollTo(0);
+    countLabel.setText(count + " warehouses");
+  }
+
+  private static <V> void bindColumn(TableColumn<WarehouseListingDto, V> column,
+                                     Function<WarehouseListingDto, V> value) {
+
+    column.setCellValueFactory(cell ->
+            new ReadOnlyObjectWrapper<>(cell.getValue() == null ? null : value.apply(cell.getValue())));
+  }
+}
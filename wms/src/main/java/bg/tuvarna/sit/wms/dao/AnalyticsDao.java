@@ -0,0 +1,109 @@
+package bg.tuvarna.sit.wms.dao;
+
+import bg.tuvarna.sit.wms.enums.ClimateCondition;
+import bg.tuvarna.sit.wms.enums.WarehouseStatus;
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Data Access Object (DAO) reading the warehouses and rental agreements for the analytics snapshot.
+ * <p>
+ * Like the {@link SearchDao}, the rows are read in batches ordered by ID, each with its own short-lived
+ * EntityManager, so the whole dataset is streamed as projections without loading any entity.
+ * </p>
+ */
+public class AnalyticsDao {
+
+  public static final int BATCH_SIZE = 1000;
+
+  private static final String WAREHOUSE_QUERY = "SELECT w.id, w.size, w.status, w.climateCondition, "
+          + "c.id, c.name, s.id, s.typeName "
+          + "FROM Warehouse w JOIN w.address a JOIN a.city c JOIN w.storageType s "
+          + "WHERE w.id > :lastId ORDER BY w.id";
+  private static final String AGREEMENT_QUERY = "SELECT r.id, r.warehouse.id, r.startDate, r.endDate, "
+          + "r.pricePerMonth FROM RentalAgreement r WHERE r.id > :lastId ORDER BY r.id";
+
+  private final Supplier<EntityManagerFactory> entityManagerFactory;
+
+  public AnalyticsDao(EntityManagerFactory entityManagerFactory) {
+    this(() -> entityManagerFactory);
+  }
+
+  /**
+   * Constructs an AnalyticsDao resolving the EntityManagerFactory on every use, so that the DAO
+   * can be wired before persistence has finished starting up.
+   *
+   * @param entityManagerFactory The supplier of the EntityManagerFactory.
+   */
+  public AnalyticsDao(Supplier<EntityManagerFactory> entityManagerFactory) {
+    this.entityManagerFactory = entityManagerFactory;
+  }
+
+  /**
+   * Reads all warehouses with their city and storage type, ordered by ID.
+   *
+   * @param consumer Receives every warehouse.
+   */
+  public void forEachWarehouse(WarehouseConsumer consumer) {
+
+    stream(WAREHOUSE_QUERY, row -> consumer.accept((Long) row[0], (Double) row[1], (WarehouseStatus) row[2],
+            (ClimateCondition) row[3], (Long) row[4], (String) row[5], (Long) row[6], (String) row[7]));
+  }
+
+  /**
+   * Reads all rental agreements, ordered by ID.
+   *
+   * @param consumer Receives every agreement.
+   */
+  public void forEachAgreement(AgreementConsumer consumer) {
+
+    stream(AGREEMENT_QUERY, row -> consumer.accept((Long) row[1], (Date) row[2], (Date) row[3],
+            (BigDecimal) row[4]));
+  }
+
+  private void stream(String jpql, Consumer<Object[]> consumer) {
+
+    long lastId = 0;
+    List<Object[]> batch;
+    do {
+      EntityManager entityManager = entityManagerFactory.get().createEntityManager();
+      try {
+        batch = entityManager.createQuery(jpql, Object[].class)
+                .setParameter("lastId", lastId)
+                .setMaxResults(BATCH_SIZE)
+                .getResultList();
+      } finally {
+        entityManager.close();
+      }
+
+      for (Object[] row : batch) {
+        lastId = (Long) row[0];
+        consumer.accept(row);
+      }
+    } while (batch.size() == BATCH_SIZE);
+  }
+
+  /**
+   * Receives a warehouse.
+   */
+  @FunctionalInterface
+  public interface WarehouseConsumer {
+
+    void accept(long id, double size, WarehouseStatus status, ClimateCondition climateCondition, long cityId,
+                String cityName, long storageTypeId, String storageTypeName);
+  }
+
+  /**
+   * Receives a rental agreement.
+   */
+  @FunctionalInterface
+  public interface AgreementConsumer {
+
+    void accept(long warehouseId, Date startDate, Date endDate, BigDecimal pricePerMonth);
+  }
+}
@@ -0,0 +1,90 @@
+package bg.tuvarna.sit.wms.dao;
+
+import bg.tuvarna.sit.wms.dto.LocationSuggestionDto;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Data Access Object (DAO) reading the cities and countries together with their number of warehouses.
+ * <p>
+ * Like the {@link SearchDao}, the locations are read in batches ordered by ID, each with its own short-lived
+ * EntityManager, so all reference data is streamed without loading any entity.
+ * </p>
+ */
+public class LocationDao {
+
+  public static final int BATCH_SIZE = 1000;
+
+  private static final String CITY_QUERY = "SELECT new bg.tuvarna.sit.wms.dto.LocationSuggestionDto("
+          + "c.id, c.name, co.name, COUNT(w.id)) "
+          + "FROM City c JOIN c.country co "
+          + "LEFT JOIN Address a ON a.city = c "
+          + "LEFT JOIN Warehouse w ON w.address = a "
+          + "WHERE c.id > :lastId GROUP BY c.id, c.name, co.name ORDER BY c.id";
+  private static final String COUNTRY_QUERY = "SELECT new bg.tuvarna.sit.wms.dto.LocationSuggestionDto("
+          + "co.id, co.name, co.name, COUNT(w.id)) "
+          + "FROM Country co "
+          + "LEFT JOIN City c ON c.country = co "
+          + "LEFT JOIN Address a ON a.city = c "
+          + "LEFT JOIN Warehouse w ON w.address = a "
+          + "WHERE co.id > :lastId GROUP BY co.id, co.name ORDER BY co.id";
+
+  private final Supplier<EntityManagerFactory> entityManagerFactory;
+
+  public LocationDao(EntityManagerFactory entityManagerFactory) {
+    this(() -> entityManagerFactory);
+  }
+
+  /**
+   * Constructs a LocationDao resolving the EntityManagerFactory on every use, so that the DAO
+   * can be wired before persistence has finished starting up.
+   *
+   * @param entityManagerFactory The supplier of the EntityManagerFactory.
+   */
+  public LocationDao(Supplier<EntityManagerFactory> entityManagerFactory) {
+    this.entityManagerFactory = entityManagerFactory;
+  }
+
+  /**
+   * Reads all cities with the name of their country and their number of warehouses, ordered by ID.
+   *
+   * @param consumer Receives every city.
+   */
+  public void forEachCity(Consumer<LocationSuggestionDto> consumer) {
+    stream(CITY_QUERY, consumer);
+  }
+
+  /**
+   * Reads all countries with their number of warehouses, ordered by ID.
+   *
+   * @param consumer Receives every country.
+   */
+  public void forEachCountry(Consumer<LocationSuggestionDto> consumer) {
+    stream(COUNTRY_QUERY, consumer);
+  }
+
+  private void stream(String jpql, Consumer<LocationSuggestionDto> consumer) {
+
+    long lastId = 0;
+    List<LocationSuggestionDto> batch;
+    do {
+      EntityManager entityManager = entityManagerFactory.get().createEntityManager();
+      try {
+        batch = entityManager.createQuery(jpql, LocationSuggestionDto.class)
+                .setParameter("lastId", lastId)
+                .setMaxResults(BATCH_SIZE)
+                .getResultList();
+      } finally {
+        entityManager.close();
+      }
+
+      for (LocationSuggestionDto location : batch) {
+        lastId = location.getId();
+        consumer.accept(location);
+      }
+    } while (batch.size() == BATCH_SIZE);
+  }
+}
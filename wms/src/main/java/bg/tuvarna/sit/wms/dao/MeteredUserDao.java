@@ -0,0 +1,73 @@
+package bg.tuvarna.sit.wms.dao;
+
+import bg.tuvarna.sit.wms.entities.User;
+import bg.tuvarna.sit.wms.exceptions.UserPersistenceException;
+import bg.tuvarna.sit.wms.metrics.LatencyHistogram;
+import bg.tuvarna.sit.wms.metrics.MetricsRegistry;
+import java.util.Optional;
+import java.util.function.Supplier;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * A {@link UserDao} recording the latency of every operation in the {@link MetricsRegistry},
+ * under {@code userDao.<operation>}.
+ */
+public class MeteredUserDao extends UserDao {
+
+  private final LatencyHistogram saveUser;
+  private final LatencyHistogram findByEmail;
+  private final LatencyHistogram findById;
+  private final LatencyHistogram findByPhone;
+  private final LatencyHistogram getUserPasswordById;
+
+  public MeteredUserDao(Supplier<EntityManagerFactory> entityManagerFactory, MetricsRegistry metricsRegistry) {
+
+    super(entityManagerFactory);
+    saveUser = metricsRegistry.histogram("userDao.saveUser");
+    findByEmail = metricsRegistry.histogram("userDao.findByEmail");
+    findById = metricsRegistry.histogram("userDao.findById");
+    findByPhone = metricsRegistry.histogram("userDao.findByPhone");
+    getUserPasswordById = metricsRegistry.histogram("userDao.getUserPasswordById");
+  }
+
+  @Override
+  public void saveUser(User user) throws UserPersistenceException {
+
+    try (LatencyHistogram.Timing timing = saveUser.time()) {
+      super.saveUser(user);
+      timing.succeeded();
+    }
+  }
+
+  @Override
+  public Optional<User> findByEmail(String email) {
+
+    try (LatencyHistogram.Timing timing = findByEmail.time()) {
+      return timing.succeeded(super.findByEmail(email));
+    }
+  }
+
+  @Override
+  public Optional<User> findById(Long userId) {
+
+    try (LatencyHistogram.Timing timing = findById.time()) {
+      return timing.succeeded(super.findById(userId));
+    }
+  }
+
+  @Override
+  public Optional<User> findByPhone(String phone) {
+
+    try (LatencyHistogram.Timing timing = findByPhone.time()) {
+      return timing.succeeded(super.findByPhone(phone));
+    }
+  }
+
+  @Override
+  public Optional<String> getUserPasswordById(Long userId) {
+
+    try (LatencyHistogram.Timing timing = getUserPasswordById.time()) {
+      return timing.succeeded(super.getUserPasswordById(userId));
+    }
+  }
+}
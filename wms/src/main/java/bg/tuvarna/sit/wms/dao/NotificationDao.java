@@ -0,0 +1,49 @@
+package bg.tuvarna.sit.wms.dao;
+
+import bg.tuvarna.sit.wms.dto.NotificationDto;
+import java.util.List;
+import java.util.function.Supplier;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Data Access Object (DAO) for notification operations.
+ */
+public class NotificationDao {
+
+  private final Supplier<EntityManagerFactory> entityManagerFactory;
+
+  public NotificationDao(EntityManagerFactory entityManagerFactory) {
+    this(() -> entityManagerFactory);
+  }
+
+  /**
+   * Constructs a NotificationDao resolving the EntityManagerFactory on every use, so that the DAO
+   * can be wired before persistence has finished starting up.
+   *
+   * @param entityManagerFactory The supplier of the EntityManagerFactory.
+   */
+  public NotificationDao(Supplier<EntityManagerFactory> entityManagerFactory) {
+    this.entityManagerFactory = entityManagerFactory;
+  }
+
+  /**
+   * Retrieves the notifications of a user, newest first, without loading the user itself.
+   *
+   * @param userId The ID of the user.
+   * @return The notifications of the user, possibly empty.
+   */
+  public List<NotificationDto> findByUser(Long userId) {
+
+    EntityManager entityManager = entityManagerFactory.get().createEntityManager();
+    try {
+      String jpql = "SELECT new bg.tuvarna.sit.wms.dto.NotificationDto(n.id, n.message, n.date, n.status) "
+              + "FROM Notification n WHERE n.user.id = :userId ORDER BY n.date DESC";
+      return entityManager.createQuery(jpql, NotificationDto.class)
+              .setParameter("userId", userId)
+              .getResultList();
+    } finally {
+      entityManager.close();
+    }
+  }
+}
@@ -0,0 +1,81 @@
+package bg.tuvarna.sit.wms.dao;
+
+import bg.tuvarna.sit.wms.dto.RentalAgreementListingDto;
+import bg.tuvarna.sit.wms.entities.RentalAgreement;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Data Access Object (DAO) for rental agreement operations.
+ * <p>
+ * List screens are served by DTO projections, full entities are loaded through
+ * the {@link RentalAgreement#DETAILS_GRAPH} entity graph.
+ * </p>
+ */
+public class RentalAgreementDao {
+
+  private static final String LISTING_QUERY = "SELECT new bg.tuvarna.sit.wms.dto.RentalAgreementListingDto("
+          + "r.id, w.id, a.street, c.name, CONCAT(ag.firstName, ' ', ag.lastName), "
+          + "CONCAT(t.firstName, ' ', t.lastName), r.startDate, r.endDate, r.pricePerMonth) "
+          + "FROM RentalAgreement r JOIN r.warehouse w JOIN w.address a JOIN a.city c "
+          + "JOIN r.agent ag JOIN r.tenant t "
+          + "WHERE ag.id = :userId OR t.id = :userId OR w.owner.id = :userId "
+          + "ORDER BY r.startDate DESC";
+
+  private final Supplier<EntityManagerFactory> entityManagerFactory;
+
+  public RentalAgreementDao(EntityManagerFactory entityManagerFactory) {
+    this(() -> entityManagerFactory);
+  }
+
+  /**
+   * Constructs a RentalAgreementDao resolving the EntityManagerFactory on every use, so that the DAO
+   * can be wired before persistence has finished starting up.
+   *
+   * @param entityManagerFactory The supplier of the EntityManagerFactory.
+   */
+  public RentalAgreementDao(Supplier<EntityManagerFactory> entityManagerFactory) {
+    this.entityManagerFactory = entityManagerFactory;
+  }
+
+  /**
+   * Retrieves the listings of all rental agreements in which the given user takes part
+   * as an owner, agent or tenant, newest first.
+   *
+   * @param userId The ID of the user.
+   * @return The agreement listings of the user, possibly empty.
+   */
+  public List<RentalAgreementListingDto> findListingsByUser(Long userId) {
+
+    EntityManager entityManager = entityManagerFactory.get().createEntityManager();
+    try {
+      return entityManager.createQuery(LISTING_QUERY, RentalAgreementListingDto.class)
+              .setParameter("userId", userId)
+              .getResultList();
+    } finally {
+      entityManager.close();
+    }
+  }
+
+  /**
+   * Finds a rental agreement together with its warehouse address, agent and tenant in a single query.
+   *
+   * @param id The ID of the rental agreement.
+   * @return An Optional containing the agreement if found, or an empty Optional otherwise.
+   */
+  public Optional<RentalAgreement> findByIdWithDetails(Long id) {
+
+    EntityManager entityManager = entityManagerFactory.get().createEntityManager();
+    try {
+      Map<String, Object> hints = Map.of(WarehouseDao.FETCH_GRAPH_HINT,
+              entityManager.getEntityGraph(RentalAgreement.DETAILS_GRAPH));
+      return Optional.ofNullable(entityManager.find(RentalAgreement.class, id, hints));
+    } finally {
+      entityManager.close();
+    }
+  }
+}
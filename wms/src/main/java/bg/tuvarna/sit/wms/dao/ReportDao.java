@@ -0,0 +1,104 @@
+package bg.tuvarna.sit.wms.dao;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.TypedQuery;
+import org.hibernate.annotations.QueryHints;
+import org.hibernate.query.Query;
+
+/**
+ * Data Access Object (DAO) streaming the rows behind the owner reports.
+ * <p>
+ * The rows are projections read through Hibernate's forward-only scrollable results with the given fetch size, so neither the
+ * result list nor any entity is held in memory and a report over millions of agreements runs in constant
+ * space. MySQL Connector/J honours the fetch size only with {@code useCursorFetch=true} in the connection URL,
+ * otherwise it buffers the whole result on the client.
+ * </p>
+ */
+public class ReportDao {
+
+  public static final int DEFAULT_FETCH_SIZE = 1000;
+
+  private static final String PERIOD_SELECT = "SELECT o.id, CONCAT(o.firstName, ' ', o.lastName), w.id, "
+          + "r.startDate, r.endDate, r.pricePerMonth "
+          + "FROM Warehouse w JOIN w.owner o "
+          + "LEFT JOIN RentalAgreement r ON r.warehouse = w AND r.startDate <= :to AND r.endDate >= :from ";
+  private static final String PERIOD_ORDER = "ORDER BY o.id, w.id";
+  private static final String PERIOD_QUERY = PERIOD_SELECT + PERIOD_ORDER;
+  private static final String OWNER_PERIOD_QUERY = PERIOD_SELECT + "WHERE o.id = :ownerId " + PERIOD_ORDER;
+
+  private final Supplier<EntityManagerFactory> entityManagerFactory;
+
+  public ReportDao(EntityManagerFactory entityManagerFactory) {
+    this(() -> entityManagerFactory);
+  }
+
+  /**
+   * Constructs a ReportDao resolving the EntityManagerFactory on every use, so that the DAO
+   * can be wired before persistence has finished starting up.
+   *
+   * @param entityManagerFactory The supplier of the EntityManagerFactory.
+   */
+  public ReportDao(Supplier<EntityManagerFactory> entityManagerFactory) {
+    this.entityManagerFactory = entityManagerFactory;
+  }
+
+  /**
+   * Streams the warehouses with the rental agreements overlapping a period, ordered by owner and warehouse.
+   * A warehouse without such an agreement is passed once, without an agreement.
+   *
+   * @param ownerId   The ID of the owner, or {@code null} for all owners.
+   * @param from      The first day of the period.
+   * @param to        The last day of the period.
+   * @param fetchSize The number of rows fetched from the database at a time.
+   * @param consumer  Receives every row.
+   */
+  @SuppressWarnings("unchecked")
+  public void forEachAgreementPeriod(Long ownerId, Date from, Date to, int fetchSize,
+                                     AgreementPeriodConsumer consumer) {
+
+    EntityManager entityManager = entityManagerFactory.get().createEntityManager();
+    try {
+      TypedQuery<Object[]> query = entityManager
+              .createQuery(ownerId == null ? PERIOD_QUERY : OWNER_PERIOD_QUERY, Object[].class)
+              .setParameter("from", from)
+              .setParameter("to", to)
+              .setHint(QueryHints.FETCH_SIZE, fetchSize)
+              .setHint(QueryHints.READ_ONLY, true);
+      if (ownerId != null) {
+        query.setParameter("ownerId", ownerId);
+      }
+
+      try (Stream<Object[]> rows = query.unwrap(Query.class).stream()) {
+        rows.forEach(row -> consumer.accept((Long) row[0], (String) row[1], (Long) row[2], (Date) row[3],
+                (Date) row[4], (BigDecimal) row[5]));
+      }
+    } finally {
+      entityManager.close();
+    }
+  }
+
+  /**
+   * Receives a warehouse with one of its rental agreements.
+   */
+  @FunctionalInterface
+  public interface AgreementPeriodConsumer {
+
+    /**
+     * Receives a row.
+     *
+     * @param ownerId       The ID of the owner of the warehouse.
+     * @param ownerName     The full name of the owner.
+     * @param warehouseId   The ID of the warehouse.
+     * @param startDate     The first day of the agreement, or {@code null} without an agreement.
+     * @param endDate       The last day of the agreement, or {@code null} without an agreement.
+     * @param pricePerMonth The monthly price of the agreement, or {@code null} without an agreement.
+     */
+    void accept(long ownerId, String ownerName, long warehouseId, Date startDate, Date endDate,
+                BigDecimal pricePerMonth);
+  }
+}
@@ -0,0 +1,128 @@
+package bg.tuvarna.sit.wms.dao;
+
+import bg.tuvarna.sit.wms.enums.SearchDocumentType;
+import java.util.List;
+import java.util.function.Supplier;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Data Access Object (DAO) reading the searchable texts of the entities for building the search index.
+ * <p>
+ * The texts are read in batches ordered by ID, each batch continuing after the last ID of the previous one
+ * with its own short-lived EntityManager, so the whole catalog is streamed without loading any entity and
+ * without holding a persistence context or a connection for the duration of the build.
+ * </p>
+ */
+public class SearchDao {
+
+  public static final int BATCH_SIZE = 1000;
+
+  private static final String WAREHOUSE_QUERY = "SELECT w.id, a.street, a.zipCode "
+          + "FROM Warehouse w JOIN w.address a WHERE w.id > :lastId ORDER BY w.id";
+  private static final String STORAGE_TYPE_QUERY = "SELECT s.id, s.typeName, s.description "
+          + "FROM StorageType s WHERE s.id > :lastId ORDER BY s.id";
+  private static final String REVIEW_QUERY = "SELECT r.id, r.description "
+          + "FROM Review r WHERE r.id > :lastId ORDER BY r.id";
+  private static final String WAREHOUSE_WATERMARK_QUERY = "SELECT COUNT(w), COALESCE(MAX(w.id), 0) "
+          + "FROM Warehouse w JOIN w.address a";
+  private static final String STORAGE_TYPE_WATERMARK_QUERY = "SELECT COUNT(s), COALESCE(MAX(s.id), 0) "
+          + "FROM StorageType s";
+  private static final String REVIEW_WATERMARK_QUERY = "SELECT COUNT(r), COALESCE(MAX(r.id), 0) FROM Review r";
+
+  private final Supplier<EntityManagerFactory> entityManagerFactory;
+
+  public SearchDao(EntityManagerFactory entityManagerFactory) {
+    this(() -> entityManagerFactory);
+  }
+
+  /**
+   * Constructs a SearchDao resolving the EntityManagerFactory on every use, so that the DAO
+   * can be wired before persistence has finished starting up.
+   *
+   * @param entityManagerFactory The supplier of the EntityManagerFactory.
+   */
+  public SearchDao(Supplier<EntityManagerFactory> entityManagerFactory) {
+    this.entityManagerFactory = entityManagerFactory;
+  }
+
+  /**
+   * Reads the searchable texts of all entities of a kind, ordered by ID.
+   *
+   * @param type     The kind of the entities.
+   * @param consumer Receives the ID and the searchable texts of every entity.
+   */
+  public void forEachDocument(SearchDocumentType type, DocumentConsumer consumer) {
+
+    String jpql = switch (type) {
+      case WAREHOUSE -> WAREHOUSE_QUERY;
+      case STORAGE_TYPE -> STORAGE_TYPE_QUERY;
+      case REVIEW -> REVIEW_QUERY;
+    };
+
+    long lastId = 0;
+    List<Object[]> batch;
+    do {
+      EntityManager entityManager = entityManagerFactory.get().createEntityManager();
+      try {
+        batch = entityManager.createQuery(jpql, Object[].class)
+                .setParameter("lastId", lastId)
+                .setMaxResults(BATCH_SIZE)
+                .getResultList();
+      } finally {
+        entityManager.close();
+      }
+
+      for (Object[] row : batch) {
+        String[] fields = new String[row.length - 1];
+        for (int i = 1; i < row.length; i++) {
+          fields[i - 1] = (String) row[i];
+        }
+        lastId = (Long) row[0];
+        consumer.accept(lastId, fields);
+      }
+    } while (batch.size() == BATCH_SIZE);
+  }
+
+  /**
+   * Counts the entities of a kind and finds their highest ID, which tells whether a stored index still
+   * matches the database.
+   *
+   * @param type The kind of the entities.
+   * @return The number of entities and their highest ID, 0 if there are none.
+   */
+  public Watermark watermark(SearchDocumentType type) {
+
+    String jpql = switch (type) {
+      case WAREHOUSE -> WAREHOUSE_WATERMARK_QUERY;
+      case STORAGE_TYPE -> STORAGE_TYPE_WATERMARK_QUERY;
+      case REVIEW -> REVIEW_WATERMARK_QUERY;
+    };
+
+    EntityManager entityManager = entityManagerFactory.get().createEntityManager();
+    try {
+      Object[] row = entityManager.createQuery(jpql, Object[].class).getSingleResult();
+      return new Watermark(((Number) row[0]).longValue(), ((Number) row[1]).longValue());
+    } finally {
+      entityManager.close();
+    }
+  }
+
+  /**
+   * The number of entities of a kind and their highest ID.
+   *
+   * @param count The number of entities.
+   * @param maxId The highest ID, 0 if there are no entities.
+   */
+  public record Watermark(long count, long maxId) {
+  }
+
+  /**
+   * Receives the searchable texts of an entity.
+   */
+  @FunctionalInterface
+  public interface DocumentConsumer {
+
+    void accept(long id, String[] fields);
+  }
+}
@@ -4,6 +4,7 @@ import bg.tuvarna.sit.wms.entities.User;
 import bg.tuvarna.sit.wms.exceptions.UserPersistenceException;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
 import javax.persistence.EntityTransaction;
@@ -21,9 +22,19 @@ public class UserDao {
 
   private static final Logger LOGGER = LogManager.getLogger(UserDao.class);
 
-  private final EntityManagerFactory entityManagerFactory;
+  private final Supplier<EntityManagerFactory> entityManagerFactory;
 
   public UserDao(EntityManagerFactory entityManagerFactory) {
+    this(() -> entityManagerFactory);
+  }
+
+  /**
+   * Constructs a UserDao resolving the EntityManagerFactory on every use, so that the DAO
+   * can be wired before persistence has finished starting up.
+   *
+   * @param entityManagerFactory The supplier of the EntityManagerFactory.
+   */
+  public UserDao(Supplier<EntityManagerFactory> entityManagerFactory) {
     this.entityManagerFactory = entityManagerFactory;
   }
 
@@ -36,7 +47,7 @@ public class UserDao {
    */
   public void saveUser(User user) throws UserPersistenceException {
 
-    EntityManager entityManager = entityManagerFactory.createEntityManager();
+    EntityManager entityManager = entityManagerFactory.get().createEntityManager();
     EntityTransaction entityTransaction = entityManager.getTransaction();
 
     try {
@@ -63,7 +74,7 @@ public class UserDao {
    * @return An Optional containing the User if found, or an empty Optional if no user is found with the given email.
    */
   public Optional<User> findByEmail(String email) {
-    EntityManager entityManager = entityManagerFactory.createEntityManager();
+    EntityManager entityManager = entityManagerFactory.get().createEntityManager();
     try {
       String jpql = "SELECT u FROM User u WHERE u.email = :email";
       TypedQuery<User> query = entityManager.createQuery(jpql, User.class)
@@ -78,6 +89,22 @@ public class UserDao {
     }
   }
 
+  /**
+   * Finds a user by their ID.
+   *
+   * @param userId The ID of the user to find.
+   * @return An Optional containing the User if found, or an empty Optional otherwise.
+   */
+  public Optional<User> findById(Long userId) {
+
+    EntityManager entityManager = getEntityManager();
+    try {
+      return Optional.ofNullable(entityManager.find(User.class, userId));
+    } finally {
+      entityManager.close();
+    }
+  }
+
   /**
    * Finds a user by their phone number.
    *
@@ -150,7 +177,7 @@ public class UserDao {
    */
   private EntityManager getEntityManager() {
 
-    return entityManagerFactory.createEntityManager();
+    return entityManagerFactory.get().createEntityManager();
   }
 
 }
@@ -0,0 +1,125 @@
+package bg.tuvarna.sit.wms.dao;
+
+import bg.tuvarna.sit.wms.dto.WarehouseListingDto;
+import bg.tuvarna.sit.wms.entities.Warehouse;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Data Access Object (DAO) for warehouse operations.
+ * <p>
+ * List screens are served by DTO projections so that a page of listings costs a single query.
+ * Full entities are only loaded one at a time through the {@link Warehouse#DETAILS_GRAPH} entity graph.
+ * </p>
+ */
+public class WarehouseDao {
+
+  static final String FETCH_GRAPH_HINT = "javax.persistence.fetchgraph";
+
+  private static final String LISTING_SELECT = "SELECT new bg.tuvarna.sit.wms.dto.WarehouseListingDto("
+          + "w.id, CONCAT(o.firstName, ' ', o.lastName), a.street, a.zipCode, c.name, co.name, st.typeName, "
+          + "w.size, w.climateCondition, w.status) "
+          + "FROM Warehouse w JOIN w.owner o JOIN w.address a JOIN a.city c JOIN c.country co JOIN w.storageType st ";
+
+  private static final String LISTING_QUERY = LISTING_SELECT + "ORDER BY w.id";
+
+  private static final String LISTING_AFTER_QUERY = LISTING_SELECT + "WHERE w.id > :lastId ORDER BY w.id";
+
+  private final Supplier<EntityManagerFactory> entityManagerFactory;
+
+  public WarehouseDao(EntityManagerFactory entityManagerFactory) {
+    this(() -> entityManagerFactory);
+  }
+
+  /**
+   * Constructs a WarehouseDao resolving the EntityManagerFactory on every use, so that the DAO
+   * can be wired before persistence has finished starting up.
+   *
+   * @param entityManagerFactory The supplier of the EntityManagerFactory.
+   */
+  public WarehouseDao(Supplier<EntityManagerFactory> entityManagerFactory) {
+    this.entityManagerFactory = entityManagerFactory;
+  }
+
+  /**
+   * Retrieves a page of warehouse listings ordered by warehouse ID.
+   *
+   * @param firstResult The position of the first listing to retrieve.
+   * @param maxResults  The maximum number of listings to retrieve.
+   * @return The listings on the requested page, possibly empty.
+   */
+  public List<WarehouseListingDto> findListings(int firstResult, int maxResults) {
+
+    EntityManager entityManager = entityManagerFactory.get().createEntityManager();
+    try {
+      return entityManager.createQuery(LISTING_QUERY, WarehouseListingDto.class)
+              .setFirstResult(firstResult)
+              .setMaxResults(maxResults)
+              .getResultList();
+    } finally {
+      entityManager.close();
+    }
+  }
+
+  /**
+   * Retrieves the listings following the given warehouse ID, ordered by warehouse ID.
+   * <p>
+   * Unlike {@link #findListings(int, int)} the database does not have to skip the preceding rows,
+   * the primary key index leads straight to the page, so the cost does not grow with the position
+   * of the page. Meant for reading the listings page after page.
+   * </p>
+   *
+   * @param lastId     The ID of the last listing of the previous page.
+   * @param maxResults The maximum number of listings to retrieve.
+   * @return The listings on the requested page, possibly empty.
+   */
+  public List<WarehouseListingDto> findListingsAfter(long lastId, int maxResults) {
+
+    EntityManager entityManager = entityManagerFactory.get().createEntityManager();
+    try {
+      return entityManager.createQuery(LISTING_AFTER_QUERY, WarehouseListingDto.class)
+              .setParameter("lastId", lastId)
+              .setMaxResults(maxResults)
+              .getResultList();
+    } finally {
+      entityManager.close();
+    }
+  }
+
+  /**
+   * Counts all warehouses that can be shown as listings.
+   *
+   * @return The total number of warehouses.
+   */
+  public long countListings() {
+
+    EntityManager entityManager = entityManagerFactory.get().createEntityManager();
+    try {
+      return entityManager.createQuery("SELECT COUNT(w) FROM Warehouse w", Long.class)
+              .getSingleResult();
+    } finally {
+      entityManager.close();
+    }
+  }
+
+  /**
+   * Finds a warehouse together with its owner, storage type and full address in a single query.
+   *
+   * @param id The ID of the warehouse.
+   * @return An Optional containing the warehouse if found, or an empty Optional otherwise.
+   */
+  public Optional<Warehouse> findByIdWithDetails(Long id) {
+
+    EntityManager entityManager = entityManagerFactory.get().createEntityManager();
+    try {
+      Map<String, Object> hints = Map.of(FETCH_GRAPH_HINT, entityManager.getEntityGraph(Warehouse.DETAILS_GRAPH));
+      return Optional.ofNullable(entityManager.find(Warehouse.class, id, hints));
+    } finally {
+      entityManager.close();
+    }
+  }
+}
@@ -0,0 +1,21 @@
+package bg.tuvarna.sit.wms.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Read-only projection of a city or a country offered while the user types a location.
+ * <p>
+ * Instances are created directly by a JPQL constructor expression together with the number of warehouses
+ * in the location, which ranks the suggestions. For a country the country name is its own name.
+ * </p>
+ */
+@Getter
+@AllArgsConstructor
+public class LocationSuggestionDto {
+
+  private Long id;
+  private String name;
+  private String countryName;
+  private Long warehouseCount;
+}
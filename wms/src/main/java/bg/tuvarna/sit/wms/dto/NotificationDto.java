@@ -0,0 +1,19 @@
+package bg.tuvarna.sit.wms.dto;
+
+import bg.tuvarna.sit.wms.enums.NotificationStatus;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Read-only projection of a notification used by list screens.
+ */
+@Getter
+@AllArgsConstructor
+public class NotificationDto {
+
+  private Long id;
+  private String message;
+  private LocalDateTime date;
+  private NotificationStatus status;
+}
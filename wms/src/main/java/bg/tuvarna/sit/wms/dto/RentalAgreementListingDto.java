@@ -0,0 +1,28 @@
+package bg.tuvarna.sit.wms.dto;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Read-only projection of a rental agreement used by list screens.
+ * <p>
+ * Instances are created directly by a JPQL constructor expression together with the
+ * warehouse location and the names of the involved agent and tenant.
+ * </p>
+ */
+@Getter
+@AllArgsConstructor
+public class RentalAgreementListingDto {
+
+  private Long id;
+  private Long warehouseId;
+  private String street;
+  private String cityName;
+  private String agentName;
+  private String tenantName;
+  private Date startDate;
+  private Date endDate;
+  private BigDecimal pricePerMonth;
+}
@@ -0,0 +1,29 @@
+package bg.tuvarna.sit.wms.dto;
+
+import bg.tuvarna.sit.wms.enums.ClimateCondition;
+import bg.tuvarna.sit.wms.enums.WarehouseStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Read-only projection of a warehouse used by list screens.
+ * <p>
+ * Instances are created directly by a JPQL constructor expression, so a whole page of
+ * listings is loaded with a single query and no warehouse entity enters the persistence context.
+ * </p>
+ */
+@Getter
+@AllArgsConstructor
+public class WarehouseListingDto {
+
+  private Long id;
+  private String ownerName;
+  private String street;
+  private String zipCode;
+  private String cityName;
+  private String countryName;
+  private String storageTypeName;
+  private Double size;
+  private ClimateCondition climateCondition;
+  private WarehouseStatus status;
+}
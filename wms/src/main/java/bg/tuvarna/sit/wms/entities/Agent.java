@@ -7,6 +7,7 @@ import javax.persistence.OneToMany;
 import javax.persistence.Table;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
 
 /**
  * Represents an agent user within the system.
@@ -28,11 +29,14 @@ import lombok.Setter;
 public class Agent extends User {
 
   @OneToMany(mappedBy = "receiver", cascade = CascadeType.ALL)
+  @BatchSize(size = 25)
   private Set<Review> receivedReviews;
 
   @OneToMany(mappedBy = "agent", cascade = CascadeType.ALL)
+  @BatchSize(size = 25)
   private Set<WarehouseRentalRequest> warehouseRentalRequests;
 
   @OneToMany(mappedBy = "agent", cascade = CascadeType.ALL)
+  @BatchSize(size = 25)
   private Set<RentalAgreement> rentalAgreements;
 }
@@ -1,11 +1,14 @@
 package bg.tuvarna.sit.wms.entities;
 
 import bg.tuvarna.sit.wms.entities.base.BaseEntity;
+import bg.tuvarna.sit.wms.search.LocationListener;
 import lombok.Getter;
 import lombok.Setter;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
+import javax.persistence.FetchType;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.Table;
@@ -22,6 +25,7 @@ import javax.persistence.Table;
  * @since 1.0.0
  */
 @Entity
+@EntityListeners(LocationListener.class)
 @Table(name = "cities")
 @Getter
 @Setter
@@ -30,7 +34,7 @@ public class City extends BaseEntity {
   @Column(name = "name", nullable = false)
   private String name;
 
-  @ManyToOne
+  @ManyToOne(fetch = FetchType.LAZY)
   @JoinColumn(name = "country_id", nullable = false, referencedColumnName = "id")
   private Country country;
 }
@@ -7,6 +7,7 @@ import javax.persistence.OneToMany;
 import javax.persistence.Table;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
 
 /**
  * Represents an owner user within the system.
@@ -28,8 +29,10 @@ import lombok.Setter;
 public class Owner extends User {
 
   @OneToMany(mappedBy = "owner", cascade = CascadeType.ALL, orphanRemoval = true)
+  @BatchSize(size = 25)
   private Set<Warehouse> warehouses;
 
   @OneToMany(mappedBy = "sender", cascade = CascadeType.ALL)
+  @BatchSize(size = 25)
   private Set<Review> sentReviews;
 }
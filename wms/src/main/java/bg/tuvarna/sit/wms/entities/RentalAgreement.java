@@ -6,8 +6,12 @@ import lombok.Setter;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.FetchType;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
+import javax.persistence.NamedSubgraph;
 import javax.persistence.Table;
 import javax.persistence.Temporal;
 import javax.persistence.TemporalType;
@@ -26,19 +30,32 @@ import java.util.Date;
  */
 @Entity
 @Table(name = "rental_agreements")
+@NamedEntityGraph(
+        name = RentalAgreement.DETAILS_GRAPH,
+        attributeNodes = {
+                @NamedAttributeNode(value = "warehouse", subgraph = "warehouse"),
+                @NamedAttributeNode("agent"),
+                @NamedAttributeNode("tenant")
+        },
+        subgraphs = {
+                @NamedSubgraph(name = "warehouse", attributeNodes = @NamedAttributeNode(value = "address", subgraph = "address")),
+                @NamedSubgraph(name = "address", attributeNodes = @NamedAttributeNode("city"))
+        })
 @Getter
 @Setter
 public class RentalAgreement extends BaseEntity {
 
-  @ManyToOne
+  public static final String DETAILS_GRAPH = "RentalAgreement.details";
+
+  @ManyToOne(fetch = FetchType.LAZY)
   @JoinColumn(name = "warehouse_id", nullable = false)
   private Warehouse warehouse;
 
-  @ManyToOne
+  @ManyToOne(fetch = FetchType.LAZY)
   @JoinColumn(name = "agent_id", nullable = false)
   private Agent agent;
 
-  @ManyToOne
+  @ManyToOne(fetch = FetchType.LAZY)
   @JoinColumn(name = "tenant_id", nullable = false)
   private Tenant tenant;
 
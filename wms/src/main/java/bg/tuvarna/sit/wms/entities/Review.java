@@ -1,8 +1,10 @@
 package bg.tuvarna.sit.wms.entities;
 
 import bg.tuvarna.sit.wms.entities.base.BaseEntity;
+import javax.persistence.Basic;
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.FetchType;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.Table;
@@ -30,14 +32,15 @@ public class Review extends BaseEntity {
   @Column(name = "assessment", nullable = false)
   private Integer assessment;
 
+  @Basic(fetch = FetchType.LAZY)
   @Column(name = "description", length = 500)
   private String description;
 
-  @ManyToOne
+  @ManyToOne(fetch = FetchType.LAZY)
   @JoinColumn(name = "sender_id", nullable = false, referencedColumnName = "id")
   private User sender;
 
-  @ManyToOne
+  @ManyToOne(fetch = FetchType.LAZY)
   @JoinColumn(name = "receiver_id", nullable = false, referencedColumnName = "id")
   private User receiver;
 
@@ -7,6 +7,7 @@ import javax.persistence.OneToMany;
 import javax.persistence.Table;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
 
 /**
  * Represents a tenant user within the system.
@@ -28,8 +29,10 @@ import lombok.Setter;
 public class Tenant extends User {
 
   @OneToMany(mappedBy = "tenant", cascade = CascadeType.ALL)
+  @BatchSize(size = 25)
   private Set<RentalAgreement> rentalAgreements;
 
   @OneToMany(mappedBy = "sender", cascade = CascadeType.ALL)
+  @BatchSize(size = 25)
   private Set<Review> sentReviews;
 }
@@ -3,16 +3,23 @@ package bg.tuvarna.sit.wms.entities;
 import bg.tuvarna.sit.wms.entities.base.BaseEntity;
 import bg.tuvarna.sit.wms.enums.ClimateCondition;
 import bg.tuvarna.sit.wms.enums.WarehouseStatus;
+import bg.tuvarna.sit.wms.search.LocationListener;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
 
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
+import javax.persistence.FetchType;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
+import javax.persistence.NamedSubgraph;
 import javax.persistence.OneToMany;
 import javax.persistence.Table;
 import java.util.Set;
@@ -24,24 +31,42 @@ import java.util.Set;
  * and configurations. Every warehouse has only one owner. The status
  * attribute describes the warehouse's current rental status.
  * </p>
+ * <p>
+ * All associations are lazy. Screens that need the full warehouse details load them
+ * through the {@value #DETAILS_GRAPH} entity graph, list screens use DTO projections.
+ * </p>
  *
  * @author Viktor Denchev
  * @since 1.0.0
  */
 @Entity
+@EntityListeners(LocationListener.class)
 @Table(name = "warehouses")
+@NamedEntityGraph(
+        name = Warehouse.DETAILS_GRAPH,
+        attributeNodes = {
+                @NamedAttributeNode("owner"),
+                @NamedAttributeNode("storageType"),
+                @NamedAttributeNode(value = "address", subgraph = "address")
+        },
+        subgraphs = {
+                @NamedSubgraph(name = "address", attributeNodes = @NamedAttributeNode(value = "city", subgraph = "city")),
+                @NamedSubgraph(name = "city", attributeNodes = @NamedAttributeNode("country"))
+        })
 @Getter
 @Setter
 public class Warehouse extends BaseEntity {
 
-  @ManyToOne
+  public static final String DETAILS_GRAPH = "Warehouse.details";
+
+  @ManyToOne(fetch = FetchType.LAZY)
   @JoinColumn(name = "owner_id", nullable = false, referencedColumnName = "id")
   private Owner owner;
 
   @Column(name = "size", nullable = false)
   private Double size;
 
-  @ManyToOne(cascade = CascadeType.ALL)
+  @ManyToOne(fetch = FetchType.LAZY, cascade = CascadeType.ALL)
   @JoinColumn(name = "address_id", nullable = false, referencedColumnName = "id")
   private Address address;
 
@@ -49,7 +74,7 @@ public class Warehouse extends BaseEntity {
   @Column(name = "status", nullable = false)
   private WarehouseStatus status = WarehouseStatus.AVAILABLE;
 
-  @ManyToOne(cascade = CascadeType.ALL)
+  @ManyToOne(fetch = FetchType.LAZY, cascade = CascadeType.ALL)
   @JoinColumn(name = "storage_type_id", nullable = false, referencedColumnName = "id")
   private StorageType storageType;
 
@@ -58,9 +83,11 @@ public class Warehouse extends BaseEntity {
   private ClimateCondition climateCondition;
 
   @OneToMany(mappedBy = "warehouse", cascade = CascadeType.ALL)
+  @BatchSize(size = 25)
   private Set<WarehouseRentalRequest> warehouseRentalRequests;
 
   @OneToMany(mappedBy = "warehouse", cascade = CascadeType.ALL)
+  @BatchSize(size = 25)
   private Set<RentalAgreement> rentalAgreements;
 }
 
@@ -0,0 +1,18 @@
+package bg.tuvarna.sit.wms.enums;
+
+/**
+ * Enumeration representing the kinds of events recorded in the audit log.
+ * <p>
+ * The audit log keeps track of how users authenticate and register, so that
+ * suspicious activity such as repeated failed logins can be traced back.
+ * </p>
+ */
+public enum AuditEventType {
+
+  LOGIN,
+  LOGIN_FAILED,
+  SSO_LOGIN,
+  SSO_LOGIN_FAILED,
+  REGISTRATION,
+  LOGOUT
+}
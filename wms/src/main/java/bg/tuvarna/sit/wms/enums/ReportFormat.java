@@ -0,0 +1,10 @@
+package bg.tuvarna.sit.wms.enums;
+
+/**
+ * Enum which describes the file formats reports can be written in.
+ */
+public enum ReportFormat {
+
+  CSV,
+  JSON
+}
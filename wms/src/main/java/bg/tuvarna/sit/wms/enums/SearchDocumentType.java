@@ -0,0 +1,15 @@
+package bg.tuvarna.sit.wms.enums;
+
+/**
+ * Enumeration representing the kinds of entities covered by the full-text search.
+ * <p>
+ * A warehouse is found by the street and ZIP code of its address, a storage type by its name and
+ * description, and a review by its description.
+ * </p>
+ */
+public enum SearchDocumentType {
+
+    WAREHOUSE,
+    STORAGE_TYPE,
+    REVIEW
+}
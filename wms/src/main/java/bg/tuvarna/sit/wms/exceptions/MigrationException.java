@@ -0,0 +1,17 @@
+package bg.tuvarna.sit.wms.exceptions;
+
+/**
+ * Exception thrown when the database schema cannot be brought to the latest migration version,
+ * for example because a script failed, an applied script was modified or the migration lock
+ * could not be acquired.
+ */
+public class MigrationException extends Exception {
+
+  public MigrationException(String message) {
+    super(message);
+  }
+
+  public MigrationException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
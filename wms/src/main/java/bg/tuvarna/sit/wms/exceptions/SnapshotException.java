@@ -0,0 +1,16 @@
+package bg.tuvarna.sit.wms.exceptions;
+
+/**
+ * Exception thrown when a dataset snapshot cannot be written or restored, for example because the file
+ * is not a snapshot, is damaged, or does not match the schema of the target database.
+ */
+public class SnapshotException extends Exception {
+
+  public SnapshotException(String message) {
+    super(message);
+  }
+
+  public SnapshotException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
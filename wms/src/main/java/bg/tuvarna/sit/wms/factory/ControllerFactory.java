@@ -1,50 +1,45 @@
 package bg.tuvarna.sit.wms.factory;
 
+import bg.tuvarna.sit.wms.context.Container;
+import bg.tuvarna.sit.wms.context.Scope;
 import javafx.util.Callback;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.function.Supplier;
 
 /**
- * Factory for creating controller instances. This factory allows for custom controller
- * instantiation logic, particularly useful when controllers need specific dependencies.
+ * Factory for creating controller instances. The controllers are created by the {@link Container},
+ * which injects their dependencies through constructors resolved once into method handles, so loading
+ * a view does not pay for reflection.
  */
 public class ControllerFactory implements Callback<Class<?>, Object> {
 
-  private final Map<Class<?>, Supplier<?>> creators = new HashMap<>();
+  private final Container container;
+
+  public ControllerFactory(Container container) {
+    this.container = container;
+  }
 
   /**
-   * Registers a controller type and its associated creation logic.
+   * Registers a controller type and its associated creation logic, for controllers which cannot be
+   * created by injecting their constructor.
    *
    * @param type    The class type of the controller.
    * @param creator A supplier that provides instances of the controller.
    * @param <T>     The type of the controller.
    */
   public <T> void addController(Class<T> type, Supplier<T> creator) {
-    creators.put(type, creator);
+    container.register(type, Scope.PROTOTYPE, ignored -> creator.get());
   }
 
   /**
-   * Called by the FXMLLoader when a controller is needed. The factory uses the registered
-   * creator if available; otherwise, it tries to create the controller using its default constructor.
+   * Called by the FXMLLoader when a controller is needed. Controllers which were not registered are
+   * bound as prototypes on first use.
    *
    * @param type The class type of the controller needed.
    * @return A new instance of the controller.
-   * @throws RuntimeException If the controller cannot be instantiated.
+   * @throws IllegalStateException If the controller cannot be instantiated.
    */
   @Override
   public Object call(Class<?> type) {
-
-    Supplier<?> creator = creators.get(type);
-    if (creator != null) {
-      return creator.get();
-    } else {
-      try {
-        return type.getDeclaredConstructor().newInstance();
-      } catch (Exception e) {
-        throw new RuntimeException("Cannot create controller: " + type.getName(), e);
-      }
-    }
+    return container.get(type);
   }
 }
-
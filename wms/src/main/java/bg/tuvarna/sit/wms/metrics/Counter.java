@@ -0,0 +1,36 @@
+package bg.tuvarna.sit.wms.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+import lombok.Getter;
+
+/**
+ * A monotonically increasing count, updated without locks or contention between threads.
+ */
+public class Counter implements Metric, CounterMXBean {
+
+  @Getter
+  private final String name;
+  private final LongAdder count = new LongAdder();
+
+  Counter(String name) {
+    this.name = name;
+  }
+
+  public void increment() {
+    count.increment();
+  }
+
+  public void add(long amount) {
+    count.add(amount);
+  }
+
+  @Override
+  public long getCount() {
+    return count.sum();
+  }
+
+  @Override
+  public String describe() {
+    return "count=" + getCount();
+  }
+}
@@ -0,0 +1,9 @@
+package bg.tuvarna.sit.wms.metrics;
+
+/**
+ * JMX view of a {@link Counter}.
+ */
+public interface CounterMXBean {
+
+  long getCount();
+}
@@ -0,0 +1,29 @@
+package bg.tuvarna.sit.wms.metrics;
+
+import java.util.function.DoubleSupplier;
+import lombok.Getter;
+
+/**
+ * A value sampled on demand, such as a cache size.
+ */
+public class Gauge implements Metric, GaugeMXBean {
+
+  @Getter
+  private final String name;
+  private final DoubleSupplier supplier;
+
+  Gauge(String name, DoubleSupplier supplier) {
+    this.name = name;
+    this.supplier = supplier;
+  }
+
+  @Override
+  public double getValue() {
+    return supplier.getAsDouble();
+  }
+
+  @Override
+  public String describe() {
+    return "value=" + getValue();
+  }
+}
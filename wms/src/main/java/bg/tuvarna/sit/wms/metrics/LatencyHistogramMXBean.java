@@ -0,0 +1,21 @@
+package bg.tuvarna.sit.wms.metrics;
+
+/**
+ * JMX view of a {@link LatencyHistogram}, in milliseconds.
+ */
+public interface LatencyHistogramMXBean {
+
+  long getCount();
+
+  long getErrorCount();
+
+  double getMeanMillis();
+
+  double getP50Millis();
+
+  double getP99Millis();
+
+  double getP999Millis();
+
+  double getMaxMillis();
+}
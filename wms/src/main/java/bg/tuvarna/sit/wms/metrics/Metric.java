@@ -0,0 +1,16 @@
+package bg.tuvarna.sit.wms.metrics;
+
+/**
+ * A named measurement held by the {@link MetricsRegistry}.
+ */
+public interface Metric {
+
+  String getName();
+
+  /**
+   * Describes the current value for the periodic metrics dump, e.g. {@code count=12}.
+   *
+   * @return A single-line description of the current value.
+   */
+  String describe();
+}
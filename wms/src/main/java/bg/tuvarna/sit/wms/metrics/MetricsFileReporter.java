@@ -0,0 +1,90 @@
+package bg.tuvarna.sit.wms.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Periodically appends a snapshot of all metrics to a local file.
+ * <p>
+ * Every dump starts with a timestamp line followed by one line per metric, for example
+ * {@code userDao.findByEmail count=42 errors=0 mean=1.203ms p50=0.981ms p99=4.112ms p999=9.870ms max=9.870ms}.
+ * </p>
+ */
+public class MetricsFileReporter implements AutoCloseable {
+
+  private static final Logger LOGGER = LogManager.getLogger(MetricsFileReporter.class);
+
+  private final MetricsRegistry registry;
+  private final Path file;
+  private final ScheduledExecutorService scheduler;
+
+  public MetricsFileReporter(MetricsRegistry registry, Path file) {
+
+    this.registry = registry;
+    this.file = file;
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "metrics-reporter");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Starts dumping the metrics at a fixed rate.
+   *
+   * @param period The time between two dumps.
+   */
+  public void start(Duration period) {
+    scheduler.scheduleAtFixedRate(this::reportQuietly, period.toMillis(), period.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Appends the current values of all metrics to the file.
+   *
+   * @throws IOException If the file cannot be written.
+   */
+  public void report() throws IOException {
+
+    Path parent = file.toAbsolutePath().getParent();
+    if (parent != null) {
+      Files.createDirectories(parent);
+    }
+    try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+            StandardOpenOption.APPEND)) {
+      writer.write("# " + Instant.now() + System.lineSeparator());
+      for (Metric metric : registry.getMetrics()) {
+        writer.write(metric.getName() + " " + metric.describe() + System.lineSeparator());
+      }
+    }
+  }
+
+  /**
+   * Stops the periodic dumps and writes a final one.
+   */
+  @Override
+  public void close() {
+
+    scheduler.shutdownNow();
+    reportQuietly();
+  }
+
+  private void reportQuietly() {
+
+    try {
+      report();
+    } catch (IOException e) {
+      LOGGER.warn("Metrics could not be written to {}", file, e);
+    }
+  }
+}
@@ -0,0 +1,98 @@
+package bg.tuvarna.sit.wms.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.DoubleSupplier;
+import java.util.function.Function;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Holds the application metrics by name.
+ * <p>
+ * Metrics are created on first request and shared afterwards, so instrumented classes look them up once
+ * and keep the reference. When JMX export is enabled, every metric is registered as an MXBean under
+ * {@code bg.tuvarna.sit.wms:type=Metrics,name=<name>} as soon as it is created.
+ * </p>
+ */
+public class MetricsRegistry {
+
+  private static final Logger LOGGER = LogManager.getLogger(MetricsRegistry.class);
+
+  public static final String JMX_DOMAIN = "bg.tuvarna.sit.wms";
+
+  private final ConcurrentMap<String, Metric> metrics = new ConcurrentHashMap<>();
+  private final MBeanServer mBeanServer;
+
+  /**
+   * Creates a registry.
+   *
+   * @param exportToJmx Whether to register the metrics with the platform MBean server.
+   */
+  public MetricsRegistry(boolean exportToJmx) {
+    this.mBeanServer = exportToJmx ? ManagementFactory.getPlatformMBeanServer() : null;
+  }
+
+  public Counter counter(String name) {
+    return getOrCreate(name, Counter.class, Counter::new);
+  }
+
+  public LatencyHistogram histogram(String name) {
+    return getOrCreate(name, LatencyHistogram.class, LatencyHistogram::new);
+  }
+
+  public Gauge gauge(String name, DoubleSupplier supplier) {
+    return getOrCreate(name, Gauge.class, metricName -> new Gauge(metricName, supplier));
+  }
+
+  /**
+   * Returns all metrics, ordered by name.
+   *
+   * @return A snapshot of the registered metrics.
+   */
+  public List<Metric> getMetrics() {
+
+    List<Metric> snapshot = new ArrayList<>(metrics.values());
+    snapshot.sort(Comparator.comparing(Metric::getName));
+    return snapshot;
+  }
+
+  private <T extends Metric> T getOrCreate(String name, Class<T> type, Function<String, T> factory) {
+
+    Metric metric = metrics.get(name);
+    if (metric == null) {
+      metric = metrics.computeIfAbsent(name, key -> {
+        T created = factory.apply(key);
+        registerWithJmx(created);
+        return created;
+      });
+    }
+    if (!type.isInstance(metric)) {
+      throw new IllegalArgumentException("Metric " + name + " is a " + metric.getClass().getSimpleName()
+              + ", not a " + type.getSimpleName());
+    }
+    return type.cast(metric);
+  }
+
+  private void registerWithJmx(Metric metric) {
+
+    if (mBeanServer == null) {
+      return;
+    }
+    try {
+      ObjectName objectName = new ObjectName(JMX_DOMAIN + ":type=Metrics,name=" + ObjectName.quote(metric.getName()));
+      if (!mBeanServer.isRegistered(objectName)) {
+        mBeanServer.registerMBean(metric, objectName);
+      }
+    } catch (JMException e) {
+      LOGGER.warn("Metric {} could not be registered with JMX", metric.getName(), e);
+    }
+  }
+}
@@ -0,0 +1,38 @@
+package bg.tuvarna.sit.wms.migration;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * A versioned migration implemented in Java, for changes that cannot be expressed as a static
+ * SQL script, e.g. because they depend on constraint names read from the database metadata.
+ */
+public interface JavaMigration {
+
+  /**
+   * @return The version of the migration, e.g. {@code "1.1"}. Ordered together with the SQL scripts.
+   */
+  String getVersion();
+
+  /**
+   * @return A short, human-readable description stored in the history table.
+   */
+  String getDescription();
+
+  /**
+   * Returns the checksum recorded in the history table, so editing the migration after it was applied stops the
+   * startup like a modified script does. Unlike a script, a class has no stable content to hash, so every
+   * migration declares a constant and changes it whenever its behaviour changes.
+   *
+   * @return The checksum of the migration.
+   */
+  int getChecksum();
+
+  /**
+   * Applies the migration.
+   *
+   * @param connection The connection to migrate, with auto-commit disabled.
+   * @throws SQLException If the migration fails.
+   */
+  void migrate(Connection connection) throws SQLException;
+}
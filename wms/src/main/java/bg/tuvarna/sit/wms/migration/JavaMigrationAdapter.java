@@ -0,0 +1,29 @@
+package bg.tuvarna.sit.wms.migration;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Adapts a {@link JavaMigration} to the common migration model, using the checksum the migration reports.
+ */
+class JavaMigrationAdapter extends ResolvedMigration {
+
+  private final JavaMigration migration;
+
+  JavaMigrationAdapter(JavaMigration migration) {
+
+    super(migration.getVersion(), migration.getDescription(), migration.getClass().getName(),
+            migration.getChecksum());
+    this.migration = migration;
+  }
+
+  @Override
+  String getType() {
+    return "JAVA";
+  }
+
+  @Override
+  void apply(Connection connection) throws SQLException {
+    migration.migrate(connection);
+  }
+}
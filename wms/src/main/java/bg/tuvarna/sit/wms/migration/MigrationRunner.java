@@ -0,0 +1,436 @@
+package bg.tuvarna.sit.wms.migration;
+
+import bg.tuvarna.sit.wms.exceptions.MigrationException;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystemAlreadyExistsException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import lombok.AccessLevel;
+import lombok.Setter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Brings the database schema to the latest version by applying versioned migrations in order.
+ * <p>
+ * Migrations are SQL scripts named {@code V<version>__<description>.sql} found in a classpath location,
+ * plus any registered {@link JavaMigration}s. Scripts whose DDL differs between databases are kept in a
+ * sub-directory per vendor, e.g. {@code db/migration/mysql} and {@code db/migration/h2}, of which only the one
+ * matching the migrated database is read. Every applied migration is recorded in the
+ * {@value #HISTORY_TABLE} table together with a checksum, so a script that was modified after it
+ * had been applied stops the startup instead of silently diverging; Java migrations are checked against the
+ * checksum they report, see {@link JavaMigration#getChecksum()}. A pending migration older than the newest
+ * applied one is rejected, unless applying such migrations out of order was allowed explicitly with
+ * {@link #setOutOfOrder(boolean)}. A single row in the
+ * {@value #LOCK_TABLE} table acts as a lock, so concurrently starting instances apply each
+ * migration exactly once. The lock is renewed before every migration and a lock left behind by a crashed
+ * instance expires once it was not renewed for a while, which therefore has to exceed the longest single
+ * migration.
+ * </p>
+ * <p>
+ * Replaces {@code hibernate.hbm2ddl.auto=update}: the persistence unit no longer inspects the whole
+ * schema at startup, and schema changes such as new indexes are reviewed scripts.
+ * </p>
+ */
+public class MigrationRunner {
+
+  private static final Logger LOGGER = LogManager.getLogger(MigrationRunner.class);
+
+  public static final String DEFAULT_LOCATION = "db/migration";
+
+  static final String HISTORY_TABLE = "schema_history";
+  static final String LOCK_TABLE = "schema_lock";
+
+  private static final Pattern SCRIPT_NAME = Pattern.compile("V(\\d+(?:\\.\\d+)*)__(\\w+)\\.sql");
+
+  private final String location;
+  private final List<JavaMigration> javaMigrations;
+  private final String instanceId = UUID.randomUUID().toString();
+
+  @Setter(AccessLevel.PACKAGE)
+  private Duration lockTimeout = Duration.ofMinutes(2);
+
+  @Setter(AccessLevel.PACKAGE)
+  private Duration staleLockAge = Duration.ofMinutes(15);
+
+  /**
+   * The vendor directory to read besides the common scripts, detected from the database when not set.
+   */
+  @Setter(AccessLevel.PACKAGE)
+  private String vendor;
+
+  /**
+   * Whether pending migrations older than the newest applied migration are applied, with a warning, instead of
+   * failing the migration. Needed e.g. when a Java migration is registered after later scripts were applied.
+   */
+  @Setter
+  private boolean outOfOrder;
+
+  public MigrationRunner(String location, List<JavaMigration> javaMigrations) {
+
+    this.location = location;
+    this.javaMigrations = List.copyOf(javaMigrations);
+  }
+
+  /**
+   * Applies all pending migrations on the given connection.
+   *
+   * @param connection An open connection to the database to migrate.
+   * @return The number of migrations applied by this call.
+   * @throws MigrationException If a migration fails, an applied migration was modified, a pending migration is
+   *                            out of order or the migration lock cannot be acquired in time.
+   */
+  public int migrate(Connection connection) throws MigrationException {
+
+    try {
+      List<ResolvedMigration> migrations = resolveMigrations(vendor != null ? vendor : vendorOf(connection));
+      boolean autoCommit = connection.getAutoCommit();
+      connection.setAutoCommit(true);
+      try {
+        createMetadataTables(connection);
+        acquireLock(connection);
+        try {
+          return applyPending(connection, migrations);
+        } finally {
+          releaseLock(connection);
+        }
+      } finally {
+        connection.setAutoCommit(autoCommit);
+      }
+    } catch (SQLException e) {
+      throw new MigrationException("Database error while running migrations", e);
+    }
+  }
+
+  /**
+   * Finds the SQL scripts in the configured location and its vendor directory and merges them with the Java
+   * migrations.
+   *
+   * @param vendor The vendor directory, e.g. {@code mysql}.
+   * @return All known migrations in version order.
+   * @throws MigrationException If the location cannot be read or two migrations share a version.
+   */
+  List<ResolvedMigration> resolveMigrations(String vendor) throws MigrationException {
+
+    List<ResolvedMigration> migrations = new ArrayList<>();
+    for (String directory : List.of(location, location + "/" + vendor)) {
+      try {
+        Enumeration<URL> roots = getClass().getClassLoader().getResources(directory);
+        while (roots.hasMoreElements()) {
+          migrations.addAll(scanLocation(roots.nextElement().toURI(), directory));
+        }
+      } catch (IOException | URISyntaxException e) {
+        throw new MigrationException("Cannot read migrations from " + directory, e);
+      }
+    }
+    javaMigrations.forEach(migration -> migrations.add(new JavaMigrationAdapter(migration)));
+
+    Collections.sort(migrations);
+    for (int i = 1; i < migrations.size(); i++) {
+      if (migrations.get(i - 1).compareTo(migrations.get(i)) == 0) {
+        throw new MigrationException("Found more than one migration with version " + migrations.get(i).getVersion());
+      }
+    }
+    return migrations;
+  }
+
+  private static String vendorOf(Connection connection) throws SQLException {
+    return connection.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT).replace(" ", "");
+  }
+
+  private List<ResolvedMigration> scanLocation(URI root, String directory) throws IOException {
+
+    if (!"jar".equals(root.getScheme())) {
+      return scanDirectory(Paths.get(root), directory);
+    }
+
+    try (FileSystem fileSystem = FileSystems.newFileSystem(root, Map.of())) {
+      return scanDirectory(fileSystem.getPath(directory), directory);
+    } catch (FileSystemAlreadyExistsException e) {
+      return scanDirectory(FileSystems.getFileSystem(root).getPath(directory), directory);
+    }
+  }
+
+  private List<ResolvedMigration> scanDirectory(Path path, String directory) throws IOException {
+
+    List<ResolvedMigration> migrations = new ArrayList<>();
+    try (Stream<Path> files = Files.list(path)) {
+      for (Path file : (Iterable<Path>) files::iterator) {
+        String fileName = file.getFileName().toString();
+        Matcher matcher = SCRIPT_NAME.matcher(fileName);
+        if (Files.isDirectory(file)) {
+          continue;
+        }
+        if (matcher.matches()) {
+          String script = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+          migrations.add(new SqlScriptMigration(matcher.group(1), matcher.group(2).replace('_', ' '),
+                  directory + "/" + fileName, script));
+        } else {
+          LOGGER.warn("Ignoring {} in {}, it does not follow the V<version>__<description>.sql naming", fileName,
+                  directory);
+        }
+      }
+    }
+    return migrations;
+  }
+
+  private int applyPending(Connection connection, List<ResolvedMigration> migrations)
+          throws SQLException, MigrationException {
+
+    Map<String, AppliedMigration> applied = loadHistory(connection);
+    String newestApplied = newestVersion(applied);
+    int nextRank = nextInstalledRank(connection);
+    int appliedNow = 0;
+
+    for (ResolvedMigration migration : migrations) {
+      AppliedMigration history = applied.remove(migration.getVersion());
+      if (history != null) {
+        verify(migration, history);
+        continue;
+      }
+      if (newestApplied != null
+              && ResolvedMigration.compareVersions(migration.getVersionParts(),
+              ResolvedMigration.parseVersion(newestApplied)) < 0) {
+        if (!outOfOrder) {
+          throw new MigrationException("Migration " + migration.getVersion() + " (" + migration.getSource()
+                  + ") is older than the applied migration " + newestApplied + ". Allow out of order migrations "
+                  + "to apply it anyway.");
+        }
+        LOGGER.warn("Applying migration {} out of order, {} has already been applied", migration.getVersion(),
+                newestApplied);
+      }
+      refreshLock(connection);
+      apply(connection, migration, nextRank++);
+      appliedNow++;
+    }
+
+    applied.keySet().forEach(version ->
+            LOGGER.warn("Migration {} is recorded in {} but no longer available", version, HISTORY_TABLE));
+    LOGGER.info("Schema is up to date, {} migration(s) applied", appliedNow);
+    return appliedNow;
+  }
+
+  private static String newestVersion(Map<String, AppliedMigration> applied) {
+
+    String newest = null;
+    for (String version : applied.keySet()) {
+      if (newest == null || ResolvedMigration.compareVersions(ResolvedMigration.parseVersion(version),
+              ResolvedMigration.parseVersion(newest)) > 0) {
+        newest = version;
+      }
+    }
+    return newest;
+  }
+
+  private void verify(ResolvedMigration migration, AppliedMigration history) throws MigrationException {
+
+    if (!history.success) {
+      throw new MigrationException("Migration " + migration.getVersion() + " failed previously. Repair the schema and "
+              + "remove its row from " + HISTORY_TABLE + " before starting again.");
+    }
+    if (history.checksum != migration.getChecksum()) {
+      throw new MigrationException("Migration " + migration.getVersion() + " (" + migration.getSource()
+              + ") was modified after it had been applied");
+    }
+  }
+
+  private void apply(Connection connection, ResolvedMigration migration, int installedRank)
+          throws SQLException, MigrationException {
+
+    LOGGER.info("Applying migration {} - {}", migration.getVersion(), migration.getDescription());
+    long start = System.nanoTime();
+    connection.setAutoCommit(false);
+    try {
+      migration.apply(connection);
+      recordHistory(connection, migration, installedRank, elapsedMillis(start), true);
+      connection.commit();
+    } catch (SQLException e) {
+      connection.rollback();
+      connection.setAutoCommit(true);
+      recordHistory(connection, migration, installedRank, elapsedMillis(start), false);
+      throw new MigrationException("Migration " + migration.getVersion() + " (" + migration.getSource() + ") failed", e);
+    } finally {
+      connection.setAutoCommit(true);
+    }
+  }
+
+  private void createMetadataTables(Connection connection) throws SQLException {
+
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("CREATE TABLE IF NOT EXISTS " + HISTORY_TABLE + " ("
+              + "installed_rank INT NOT NULL, "
+              + "version VARCHAR(50) NOT NULL, "
+              + "description VARCHAR(200) NOT NULL, "
+              + "type VARCHAR(10) NOT NULL, "
+              + "script VARCHAR(1000) NOT NULL, "
+              + "checksum INT NOT NULL, "
+              + "installed_on TIMESTAMP NOT NULL, "
+              + "execution_time INT NOT NULL, "
+              + "success BOOLEAN NOT NULL, "
+              + "PRIMARY KEY (installed_rank))");
+      statement.execute("CREATE TABLE IF NOT EXISTS " + LOCK_TABLE + " ("
+              + "id INT NOT NULL, "
+              + "locked BOOLEAN NOT NULL, "
+              + "locked_by VARCHAR(64), "
+              + "locked_at TIMESTAMP NULL, "
+              + "PRIMARY KEY (id))");
+
+      try (ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM " + LOCK_TABLE + " WHERE id = 1")) {
+        resultSet.next();
+        if (resultSet.getInt(1) == 0) {
+          statement.executeUpdate("INSERT INTO " + LOCK_TABLE + " (id, locked) VALUES (1, FALSE)");
+        }
+      }
+    } catch (SQLException e) {
+      // Another instance may have created the lock row at the same time.
+      if (!lockRowExists(connection)) {
+        throw e;
+      }
+    }
+  }
+
+  private boolean lockRowExists(Connection connection) throws SQLException {
+
+    try (Statement statement = connection.createStatement();
+         ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM " + LOCK_TABLE + " WHERE id = 1")) {
+      return resultSet.next() && resultSet.getInt(1) == 1;
+    }
+  }
+
+  private void acquireLock(Connection connection) throws SQLException, MigrationException {
+
+    Instant deadline = Instant.now().plus(lockTimeout);
+    String sql = "UPDATE " + LOCK_TABLE + " SET locked = TRUE, locked_by = ?, locked_at = ? "
+            + "WHERE id = 1 AND (locked = FALSE OR locked_at < ?)";
+
+    while (true) {
+      Instant now = Instant.now();
+      try (PreparedStatement statement = connection.prepareStatement(sql)) {
+        statement.setString(1, instanceId);
+        statement.setTimestamp(2, Timestamp.from(now));
+        statement.setTimestamp(3, Timestamp.from(now.minus(staleLockAge)));
+        if (statement.executeUpdate() == 1) {
+          return;
+        }
+      }
+      if (now.isAfter(deadline)) {
+        throw new MigrationException("Could not acquire the migration lock within " + lockTimeout
+                + ", another instance is migrating the schema");
+      }
+      LOGGER.info("Waiting for another instance to finish migrating the schema");
+      try {
+        Thread.sleep(500);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new MigrationException("Interrupted while waiting for the migration lock", e);
+      }
+    }
+  }
+
+  /**
+   * Renews the lock before each migration, so it only expires once an instance stopped making progress, and makes
+   * sure no other instance took it over in the meantime.
+   */
+  private void refreshLock(Connection connection) throws SQLException, MigrationException {
+
+    try (PreparedStatement statement = connection.prepareStatement(
+            "UPDATE " + LOCK_TABLE + " SET locked_at = ? WHERE id = 1 AND locked = TRUE AND locked_by = ?")) {
+      statement.setTimestamp(1, Timestamp.from(Instant.now()));
+      statement.setString(2, instanceId);
+      if (statement.executeUpdate() != 1) {
+        throw new MigrationException("Lost the migration lock to another instance, it was held for longer than "
+                + staleLockAge + " without progress");
+      }
+    }
+  }
+
+  private void releaseLock(Connection connection) throws SQLException {
+
+    try (PreparedStatement statement = connection.prepareStatement(
+            "UPDATE " + LOCK_TABLE + " SET locked = FALSE, locked_by = NULL, locked_at = NULL WHERE id = 1 AND locked_by = ?")) {
+      statement.setString(1, instanceId);
+      statement.executeUpdate();
+    }
+  }
+
+  private Map<String, AppliedMigration> loadHistory(Connection connection) throws SQLException {
+
+    Map<String, AppliedMigration> applied = new HashMap<>();
+    try (Statement statement = connection.createStatement();
+         ResultSet resultSet = statement.executeQuery("SELECT version, checksum, success FROM " + HISTORY_TABLE)) {
+      while (resultSet.next()) {
+        applied.put(resultSet.getString(1), new AppliedMigration(resultSet.getInt(2), resultSet.getBoolean(3)));
+      }
+    }
+    return applied;
+  }
+
+  private int nextInstalledRank(Connection connection) throws SQLException {
+
+    try (Statement statement = connection.createStatement();
+         ResultSet resultSet = statement.executeQuery("SELECT MAX(installed_rank) FROM " + HISTORY_TABLE)) {
+      resultSet.next();
+      return resultSet.getInt(1) + 1;
+    }
+  }
+
+  private void recordHistory(Connection connection, ResolvedMigration migration, int installedRank,
+                             int executionTime, boolean success) throws SQLException {
+
+    try (PreparedStatement statement = connection.prepareStatement("INSERT INTO " + HISTORY_TABLE
+            + " (installed_rank, version, description, type, script, checksum, installed_on, execution_time, success)"
+            + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+      statement.setInt(1, installedRank);
+      statement.setString(2, migration.getVersion());
+      statement.setString(3, migration.getDescription());
+      statement.setString(4, migration.getType());
+      statement.setString(5, migration.getSource());
+      statement.setInt(6, migration.getChecksum());
+      statement.setTimestamp(7, Timestamp.from(Instant.now()));
+      statement.setInt(8, executionTime);
+      statement.setBoolean(9, success);
+      statement.executeUpdate();
+    }
+  }
+
+  private int elapsedMillis(long start) {
+    return (int) Duration.ofNanos(System.nanoTime() - start).toMillis();
+  }
+
+  private static class AppliedMigration {
+
+    private final int checksum;
+    private final boolean success;
+
+    AppliedMigration(int checksum, boolean success) {
+      this.checksum = checksum;
+      this.success = success;
+    }
+  }
+}
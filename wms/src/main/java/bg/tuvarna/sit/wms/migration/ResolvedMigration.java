@@ -0,0 +1,54 @@
+package bg.tuvarna.sit.wms.migration;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+import lombok.Getter;
+
+/**
+ * A migration found on the classpath or registered in Java, ready to be applied in version order.
+ */
+@Getter
+abstract class ResolvedMigration implements Comparable<ResolvedMigration> {
+
+  private final String version;
+  private final String description;
+  private final String source;
+  private final int checksum;
+  private final int[] versionParts;
+
+  ResolvedMigration(String version, String description, String source, int checksum) {
+
+    this.version = version;
+    this.description = description;
+    this.source = source;
+    this.checksum = checksum;
+    this.versionParts = parseVersion(version);
+  }
+
+  static int[] parseVersion(String version) {
+    return Arrays.stream(version.split("\\.")).mapToInt(Integer::parseInt).toArray();
+  }
+
+  static int compareVersions(int[] left, int[] right) {
+
+    int length = Math.max(left.length, right.length);
+    for (int i = 0; i < length; i++) {
+      int leftPart = i < left.length ? left[i] : 0;
+      int rightPart = i < right.length ? right[i] : 0;
+      if (leftPart != rightPart) {
+        return Integer.compare(leftPart, rightPart);
+      }
+    }
+    return 0;
+  }
+
+  abstract String getType();
+
+  abstract void apply(Connection connection) throws SQLException;
+
+  @Override
+  public int compareTo(ResolvedMigration other) {
+    return compareVersions(versionParts, other.versionParts);
+  }
+}
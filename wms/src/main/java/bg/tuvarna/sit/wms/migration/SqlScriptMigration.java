@@ -0,0 +1,71 @@
+package bg.tuvarna.sit.wms.migration;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * A versioned SQL script read from the classpath.
+ * <p>
+ * Statements are separated by a semicolon at the end of a line, lines starting with {@code --} are comments.
+ * The checksum is computed over the script with normalized line endings.
+ * </p>
+ */
+class SqlScriptMigration extends ResolvedMigration {
+
+  private final String script;
+
+  SqlScriptMigration(String version, String description, String source, String script) {
+
+    super(version, description, source, checksum(script));
+    this.script = script;
+  }
+
+  @Override
+  String getType() {
+    return "SQL";
+  }
+
+  @Override
+  void apply(Connection connection) throws SQLException {
+
+    try (Statement statement = connection.createStatement()) {
+      for (String sql : splitStatements(script)) {
+        statement.execute(sql);
+      }
+    }
+  }
+
+  static List<String> splitStatements(String script) {
+
+    List<String> statements = new ArrayList<>();
+    StringBuilder current = new StringBuilder();
+    for (String line : script.split("\n")) {
+      String trimmed = line.trim();
+      if (trimmed.isEmpty() || trimmed.startsWith("--")) {
+        continue;
+      }
+      current.append(line).append('\n');
+      if (trimmed.endsWith(";")) {
+        String statement = current.toString().trim();
+        statements.add(statement.substring(0, statement.length() - 1));
+        current.setLength(0);
+      }
+    }
+    if (!current.toString().isBlank()) {
+      statements.add(current.toString().trim());
+    }
+    return statements;
+  }
+
+  private static int checksum(String script) {
+
+    CRC32 crc32 = new CRC32();
+    crc32.update(script.replace("\r\n", "\n").getBytes(StandardCharsets.UTF_8));
+    return (int) crc32.getValue();
+  }
+}
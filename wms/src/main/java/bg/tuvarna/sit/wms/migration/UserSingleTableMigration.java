@@ -0,0 +1,161 @@
+package bg.tuvarna.sit.wms.migration;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Converts the user hierarchy from the {@code JOINED} layout to the single-table layout
+ * described by {@code META-INF/orm-user-single-table.xml}.
+ * <p>
+ * The migration adds the {@code user_type} discriminator column to {@code users}, fills it from the
+ * subclass table each user is found in, re-points every foreign key that referenced a subclass table
+ * to {@code users} and finally drops the subclass tables. It is idempotent, running it against an
+ * already converted schema does nothing. Foreign key names are read from the JDBC metadata, so it
+ * works with the names generated by Hibernate on both MySQL and H2.
+ * </p>
+ * <p>
+ * Registered with the {@link MigrationRunner} as version {@value #VERSION} when the single-table
+ * layout is selected, right after the baseline schema.
+ * </p>
+ */
+public class UserSingleTableMigration implements JavaMigration {
+
+  static final String VERSION = "1.1";
+
+  /**
+   * The checksum recorded in the history table, to be incremented whenever the behaviour of the migration changes.
+   */
+  static final int CHECKSUM = 1;
+
+  private static final Logger LOGGER = LogManager.getLogger(UserSingleTableMigration.class);
+
+  static final String USERS_TABLE = "users";
+  static final String DISCRIMINATOR_COLUMN = "user_type";
+  static final String ROOT_DISCRIMINATOR = "USER";
+
+  private static final Map<String, String> SUBCLASS_TABLES = new LinkedHashMap<>();
+
+  static {
+    SUBCLASS_TABLES.put("owners", "OWNER");
+    SUBCLASS_TABLES.put("agents", "AGENT");
+    SUBCLASS_TABLES.put("tenants", "TENANT");
+  }
+
+  @Override
+  public String getVersion() {
+    return VERSION;
+  }
+
+  @Override
+  public String getDescription() {
+    return "user single table";
+  }
+
+  @Override
+  public int getChecksum() {
+    return CHECKSUM;
+  }
+
+  /**
+   * Runs the migration on the given connection.
+   *
+   * @param connection An open connection to the database holding the {@code JOINED} schema.
+   * @throws SQLException If any of the migration statements fails.
+   */
+  @Override
+  public void migrate(Connection connection) throws SQLException {
+
+    DatabaseMetaData metaData = connection.getMetaData();
+    boolean mysql = metaData.getDatabaseProductName().toLowerCase().contains("mysql");
+
+    try (Statement statement = connection.createStatement()) {
+      if (!columnExists(metaData, USERS_TABLE, DISCRIMINATOR_COLUMN)) {
+        statement.executeUpdate("ALTER TABLE users ADD COLUMN user_type VARCHAR(31)");
+      }
+
+      statement.executeUpdate("UPDATE users SET user_type = '" + ROOT_DISCRIMINATOR + "' WHERE user_type IS NULL");
+      for (Map.Entry<String, String> subclass : SUBCLASS_TABLES.entrySet()) {
+        if (!tableExists(metaData, subclass.getKey())) {
+          continue;
+        }
+        try (PreparedStatement update = connection.prepareStatement(
+                "UPDATE users SET user_type = ? WHERE id IN (SELECT id FROM " + subclass.getKey() + ")")) {
+          update.setString(1, subclass.getValue());
+          int updated = update.executeUpdate();
+          LOGGER.info("Marked {} users as {}", updated, subclass.getValue());
+        }
+      }
+
+      statement.executeUpdate(mysql
+              ? "ALTER TABLE users MODIFY COLUMN user_type VARCHAR(31) NOT NULL"
+              : "ALTER TABLE users ALTER COLUMN user_type SET NOT NULL");
+
+      for (String table : SUBCLASS_TABLES.keySet()) {
+        if (tableExists(metaData, table)) {
+          repointForeignKeys(metaData, statement, table, mysql);
+          statement.executeUpdate("DROP TABLE " + table);
+          LOGGER.info("Dropped subclass table {}", table);
+        }
+      }
+    }
+  }
+
+  /**
+   * Re-creates every foreign key that references the given subclass table so that it references
+   * {@code users} instead. The IDs are shared between the tables, so no data has to change.
+   */
+  private void repointForeignKeys(DatabaseMetaData metaData, Statement statement, String table, boolean mysql)
+          throws SQLException {
+
+    List<String[]> foreignKeys = new ArrayList<>();
+    try (ResultSet keys = metaData.getExportedKeys(metaData.getConnection().getCatalog(),
+            metaData.getConnection().getSchema(), identifier(metaData, table))) {
+      while (keys.next()) {
+        foreignKeys.add(new String[]{keys.getString("FKTABLE_NAME"), keys.getString("FK_NAME"),
+                keys.getString("FKCOLUMN_NAME")});
+      }
+    }
+
+    for (String[] foreignKey : foreignKeys) {
+      String referencingTable = foreignKey[0];
+      String name = foreignKey[1];
+      String column = foreignKey[2];
+      statement.executeUpdate("ALTER TABLE " + referencingTable
+              + (mysql ? " DROP FOREIGN KEY " : " DROP CONSTRAINT ") + name);
+      statement.executeUpdate("ALTER TABLE " + referencingTable + " ADD CONSTRAINT " + name
+              + " FOREIGN KEY (" + column + ") REFERENCES users (id)");
+      LOGGER.info("Re-pointed foreign key {} on {}.{} from {} to users", name, referencingTable, column, table);
+    }
+  }
+
+  private boolean tableExists(DatabaseMetaData metaData, String table) throws SQLException {
+
+    try (ResultSet tables = metaData.getTables(metaData.getConnection().getCatalog(),
+            metaData.getConnection().getSchema(), identifier(metaData, table), new String[]{"TABLE"})) {
+      return tables.next();
+    }
+  }
+
+  private boolean columnExists(DatabaseMetaData metaData, String table, String column) throws SQLException {
+
+    try (ResultSet columns = metaData.getColumns(metaData.getConnection().getCatalog(),
+            metaData.getConnection().getSchema(), identifier(metaData, table), identifier(metaData, column))) {
+      return columns.next();
+    }
+  }
+
+  private String identifier(DatabaseMetaData metaData, String name) throws SQLException {
+
+    return metaData.storesUpperCaseIdentifiers() ? name.toUpperCase() : name;
+  }
+}
@@ -0,0 +1,36 @@
+package bg.tuvarna.sit.wms.profiling;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import org.hibernate.engine.jdbc.connections.internal.DriverManagerConnectionProviderImpl;
+
+/**
+ * Hibernate's built-in connection pool handing out connections that profile their statements.
+ * <p>
+ * Enable it with {@code hibernate.connection.provider_class} and tune it with the
+ * {@value SqlProfiler#SLOW_THRESHOLD_PROPERTY} and {@value SqlProfiler#SAMPLE_RATE_PROPERTY} properties,
+ * see {@link SqlProfiler}.
+ * </p>
+ */
+public class ProfilingConnectionProvider extends DriverManagerConnectionProviderImpl {
+
+  private SqlProfiler profiler;
+
+  @Override
+  public void configure(Map configurationValues) {
+
+    profiler = SqlProfiler.fromProperties(configurationValues);
+    super.configure(configurationValues);
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    return ProfilingJdbc.wrap(super.getConnection(), profiler);
+  }
+
+  @Override
+  public void closeConnection(Connection connection) throws SQLException {
+    super.closeConnection(connection.unwrap(Connection.class));
+  }
+}
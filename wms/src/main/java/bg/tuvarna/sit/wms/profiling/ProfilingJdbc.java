@@ -0,0 +1,348 @@
+package bg.tuvarna.sit.wms.profiling;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * JDBC proxies timing every statement execution and reporting it to a {@link SqlProfiler}.
+ * <p>
+ * A query is measured from its execution until its result set is closed, so the time spent fetching
+ * the rows is included, and the rows read are counted. Updates report their update count.
+ * </p>
+ */
+final class ProfilingJdbc {
+
+  private static final Set<String> EXECUTE_METHODS = Set.of("execute", "executeQuery", "executeUpdate",
+          "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+  private static final int MAX_RENDERED_VALUE_LENGTH = 200;
+  private static final String SENSITIVE_COLUMN = "password";
+  private static final String MASK = "'***'";
+  private static final String COMPARISON_CHARACTERS = "=<>!";
+
+  private ProfilingJdbc() {
+  }
+
+  /**
+   * Wraps a connection so that all statements created from it are profiled.
+   *
+   * @param connection The connection to wrap.
+   * @param profiler   The profiler receiving the executions.
+   * @return The profiling connection.
+   */
+  static Connection wrap(Connection connection, SqlProfiler profiler) {
+
+    return (Connection) Proxy.newProxyInstance(ProfilingJdbc.class.getClassLoader(),
+            new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+              Object result = invoke(connection, method, args);
+              if (result instanceof Statement) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+                return wrapStatement((Statement) result, sql, profiler);
+              }
+              return result;
+            });
+  }
+
+  private static Statement wrapStatement(Statement statement, String sql, SqlProfiler profiler) {
+
+    Class<?> type = statement instanceof CallableStatement ? CallableStatement.class
+            : statement instanceof PreparedStatement ? PreparedStatement.class
+            : Statement.class;
+    return (Statement) Proxy.newProxyInstance(ProfilingJdbc.class.getClassLoader(), new Class<?>[]{type},
+            new StatementHandler(statement, sql, profiler));
+  }
+
+  private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+
+    try {
+      return method.invoke(target, args);
+    } catch (InvocationTargetException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * Replaces the placeholders outside of string literals with the rendered parameter values, masking the
+   * values of password columns.
+   */
+  static String bind(String sql, Map<Integer, Object> parameters) {
+
+    if (parameters.isEmpty()) {
+      return sql;
+    }
+
+    Set<Integer> masked = sensitivePlaceholders(sql);
+    StringBuilder bound = new StringBuilder(sql.length() + parameters.size() * 8);
+    boolean inLiteral = false;
+    int index = 0;
+    for (int i = 0; i < sql.length(); i++) {
+      char c = sql.charAt(i);
+      if (c == '\'') {
+        inLiteral = !inLiteral;
+      }
+      if (c == '?' && !inLiteral) {
+        index++;
+        bound.append(!parameters.containsKey(index) ? "?"
+                : masked.contains(index) ? MASK : render(parameters.get(index)));
+      } else {
+        bound.append(c);
+      }
+    }
+    return bound.toString();
+  }
+
+  /**
+   * Finds the placeholders bound to a password column, either compared or assigned as in
+   * {@code password = ?} or {@code password <> ?}, or in the values of an insert listing its columns.
+   */
+  static Set<Integer> sensitivePlaceholders(String sql) {
+
+    String lower = sql.toLowerCase(Locale.ROOT);
+    if (!lower.contains(SENSITIVE_COLUMN)) {
+      return Set.of();
+    }
+
+    int values = lower.indexOf("values");
+    List<String> insertColumns = insertColumns(lower, values);
+    Set<Integer> masked = new HashSet<>();
+    boolean inLiteral = false;
+    int index = 0;
+    int valuePosition = 0;
+    for (int i = 0; i < lower.length(); i++) {
+      char c = lower.charAt(i);
+      if (c == '\'') {
+        inLiteral = !inLiteral;
+      }
+      if (c != '?' || inLiteral) {
+        continue;
+      }
+      index++;
+      String column = insertColumns != null && i > values
+              ? (valuePosition < insertColumns.size() ? insertColumns.get(valuePosition++) : null)
+              : columnBefore(lower, i);
+      if (column != null && column.contains(SENSITIVE_COLUMN)) {
+        masked.add(index);
+      }
+    }
+    return masked;
+  }
+
+  private static List<String> insertColumns(String lower, int values) {
+
+    int open = lower.indexOf('(');
+    int close = lower.indexOf(')', open + 1);
+    if (!lower.stripLeading().startsWith("insert") || values < 0 || open < 0 || close < 0 || close > values) {
+      return null;
+    }
+    List<String> columns = new ArrayList<>();
+    for (String column : lower.substring(open + 1, close).split(",")) {
+      columns.add(column.trim());
+    }
+    return columns;
+  }
+
+  private static String columnBefore(String lower, int placeholder) {
+
+    int end = placeholder - 1;
+    while (end >= 0 && Character.isWhitespace(lower.charAt(end))) {
+      end--;
+    }
+    if (end < 0 || COMPARISON_CHARACTERS.indexOf(lower.charAt(end)) < 0) {
+      return null;
+    }
+    while (end >= 0 && (Character.isWhitespace(lower.charAt(end))
+            || COMPARISON_CHARACTERS.indexOf(lower.charAt(end)) >= 0)) {
+      end--;
+    }
+    int start = end;
+    while (start >= 0 && isIdentifierPart(lower.charAt(start))) {
+      start--;
+    }
+    return lower.substring(start + 1, end + 1);
+  }
+
+  private static boolean isIdentifierPart(char c) {
+    return Character.isLetterOrDigit(c) || "_.`\"".indexOf(c) >= 0;
+  }
+
+  private static String render(Object value) {
+
+    if (value == null) {
+      return "NULL";
+    }
+    if (value instanceof Number || value instanceof Boolean) {
+      return value.toString();
+    }
+    if (value instanceof byte[]) {
+      return "<" + ((byte[]) value).length + " bytes>";
+    }
+    String text = value.toString();
+    if (text.length() > MAX_RENDERED_VALUE_LENGTH) {
+      text = text.substring(0, MAX_RENDERED_VALUE_LENGTH) + "...";
+    }
+    return "'" + text.replace("'", "''") + "'";
+  }
+
+  private static class StatementHandler implements InvocationHandler {
+
+    private final Statement statement;
+    private final String sql;
+    private final SqlProfiler profiler;
+    private final Map<Integer, Object> parameters = new TreeMap<>();
+    private QueryExecution openQuery;
+
+    private StatementHandler(Statement statement, String sql, SqlProfiler profiler) {
+      this.statement = statement;
+      this.sql = sql;
+      this.profiler = profiler;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+
+      String name = method.getName();
+      if (EXECUTE_METHODS.contains(name)) {
+        return execute(method, args);
+      }
+      if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+        detachOpenQuery();
+        parameters.put((Integer) args[0], name.equals("setNull") ? null : args[1]);
+      } else if (name.equals("clearParameters")) {
+        detachOpenQuery();
+        parameters.clear();
+      } else if (name.equals("close")) {
+        finishOpenQuery();
+      }
+      return ProfilingJdbc.invoke(statement, method, args);
+    }
+
+    private Object execute(Method method, Object[] args) throws Throwable {
+
+      finishOpenQuery();
+      boolean plainSql = args != null && args.length > 0 && args[0] instanceof String;
+      String executedSql = plainSql ? (String) args[0] : String.valueOf(sql);
+      Map<Integer, Object> boundParameters = plainSql ? null : parameters;
+      long start = System.nanoTime();
+
+      Object result;
+      try {
+        result = ProfilingJdbc.invoke(statement, method, args);
+      } catch (Throwable e) {
+        profiler.record(executedSql, boundParameters, System.nanoTime() - start, -1);
+        throw e;
+      }
+
+      if (result instanceof ResultSet) {
+        openQuery = new QueryExecution(executedSql, boundParameters, start);
+        return Proxy.newProxyInstance(ProfilingJdbc.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                new ResultSetHandler((ResultSet) result, openQuery));
+      }
+      profiler.record(executedSql, boundParameters, System.nanoTime() - start, rowCount(result));
+      return result;
+    }
+
+    private long rowCount(Object result) throws Exception {
+
+      if (result instanceof Number) {
+        return ((Number) result).longValue();
+      }
+      if (result instanceof int[]) {
+        long rows = 0;
+        for (int count : (int[]) result) {
+          rows += Math.max(count, 0);
+        }
+        return rows;
+      }
+      if (result instanceof long[]) {
+        long rows = 0;
+        for (long count : (long[]) result) {
+          rows += Math.max(count, 0);
+        }
+        return rows;
+      }
+      if (Boolean.FALSE.equals(result)) {
+        return statement.getUpdateCount();
+      }
+      return -1;
+    }
+
+    /**
+     * Gives a query whose results are still being read its own copy of the parameters before they are changed
+     * for the next execution. Other executions are recorded before the parameters can change, so they use the
+     * parameters without copying them.
+     */
+    private void detachOpenQuery() {
+
+      if (openQuery != null && openQuery.parameters == parameters) {
+        openQuery.parameters = new TreeMap<>(parameters);
+      }
+    }
+
+    private void finishOpenQuery() {
+
+      if (openQuery != null) {
+        openQuery.finish();
+        openQuery = null;
+      }
+    }
+
+    private class QueryExecution {
+
+      private final String sql;
+      private Map<Integer, Object> parameters;
+      private final long start;
+      private long rows;
+      private boolean finished;
+
+      private QueryExecution(String sql, Map<Integer, Object> parameters, long start) {
+        this.sql = sql;
+        this.parameters = parameters;
+        this.start = start;
+      }
+
+      private void finish() {
+
+        if (!finished) {
+          finished = true;
+          profiler.record(sql, parameters, System.nanoTime() - start, rows);
+        }
+      }
+    }
+
+    private static class ResultSetHandler implements InvocationHandler {
+
+      private final ResultSet resultSet;
+      private final QueryExecution execution;
+
+      private ResultSetHandler(ResultSet resultSet, QueryExecution execution) {
+        this.resultSet = resultSet;
+        this.execution = execution;
+      }
+
+      @Override
+      public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+
+        Object result = ProfilingJdbc.invoke(resultSet, method, args);
+        if (method.getName().equals("next") && Boolean.TRUE.equals(result)) {
+          execution.rows++;
+        } else if (method.getName().equals("close")) {
+          execution.finish();
+        }
+        return result;
+      }
+    }
+  }
+}
@@ -0,0 +1,38 @@
+package bg.tuvarna.sit.wms.profiling;
+
+import java.util.concurrent.TimeUnit;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A single profiled statement execution.
+ */
+@Getter
+@AllArgsConstructor
+public class SqlExecution {
+
+  /**
+   * The statement with its parameter values bound in place of the placeholders.
+   */
+  private final String sql;
+  private final long elapsedNanos;
+
+  /**
+   * The number of rows read for queries or the update count for updates, -1 if unknown.
+   */
+  private final long rows;
+
+  /**
+   * The application method that issued the statement, or {@code unknown} if it was not issued by the application.
+   */
+  private final String callSite;
+
+  public long getElapsedMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%d ms, %d rows, at %s: %s", getElapsedMillis(), rows, callSite, sql);
+  }
+}
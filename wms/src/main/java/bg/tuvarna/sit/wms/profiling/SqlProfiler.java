@@ -0,0 +1,120 @@
+package bg.tuvarna.sit.wms.profiling;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Decides which profiled statements are logged.
+ * <p>
+ * Statements taking at least the slow threshold are always written to the {@code wms.sql.slow} logger.
+ * Of the remaining statements, the given fraction is sampled to the {@code wms.sql.sample} logger, which gives
+ * a picture of the normal traffic without the cost of logging every statement. The call site is resolved
+ * only for statements that are logged.
+ * </p>
+ * <p>
+ * The statements are logged with their placeholders, as the bound values include e-mail addresses, phone
+ * numbers and password hashes. Setting {@value #LOG_PARAMETERS_PROPERTY} binds the values into the logged
+ * statements, for development databases; the values of password columns are masked even then.
+ * </p>
+ */
+public class SqlProfiler {
+
+  public static final String SLOW_THRESHOLD_PROPERTY = "wms.sql.slow_threshold_ms";
+  public static final String SAMPLE_RATE_PROPERTY = "wms.sql.sample_rate";
+  public static final String LOG_PARAMETERS_PROPERTY = "wms.sql.log_parameters";
+
+  static final Duration DEFAULT_SLOW_THRESHOLD = Duration.ofMillis(200);
+  static final double DEFAULT_SAMPLE_RATE = 0.0;
+
+  private static final Logger SLOW_LOGGER = LogManager.getLogger("wms.sql.slow");
+  private static final Logger SAMPLE_LOGGER = LogManager.getLogger("wms.sql.sample");
+  private static final String APPLICATION_PACKAGE = "bg.tuvarna.sit";
+  private static final List<String> PROFILING_CLASSES = List.of(SqlProfiler.class.getName(),
+          ProfilingJdbc.class.getName(), ProfilingConnectionProvider.class.getName());
+
+  private final long slowThresholdNanos;
+  private final double sampleRate;
+  private final boolean logParameters;
+  private final Consumer<SqlExecution> slowLog;
+  private final Consumer<SqlExecution> sampleLog;
+
+  public SqlProfiler(Duration slowThreshold, double sampleRate, boolean logParameters) {
+    this(slowThreshold, sampleRate, logParameters, execution -> SLOW_LOGGER.warn("{}", execution),
+            execution -> SAMPLE_LOGGER.info("{}", execution));
+  }
+
+  SqlProfiler(Duration slowThreshold, double sampleRate, boolean logParameters, Consumer<SqlExecution> slowLog,
+              Consumer<SqlExecution> sampleLog) {
+
+    if (sampleRate < 0 || sampleRate > 1) {
+      throw new IllegalArgumentException("The sample rate must be between 0 and 1: " + sampleRate);
+    }
+    this.slowThresholdNanos = slowThreshold.toNanos();
+    this.sampleRate = sampleRate;
+    this.logParameters = logParameters;
+    this.slowLog = slowLog;
+    this.sampleLog = sampleLog;
+  }
+
+  /**
+   * Creates a profiler from the {@value #SLOW_THRESHOLD_PROPERTY}, {@value #SAMPLE_RATE_PROPERTY} and
+   * {@value #LOG_PARAMETERS_PROPERTY} configuration properties, falling back to a threshold of 200 ms,
+   * no sampling and no parameter values.
+   *
+   * @param properties The persistence unit configuration.
+   * @return The configured profiler.
+   */
+  public static SqlProfiler fromProperties(Map<?, ?> properties) {
+
+    Object threshold = properties.get(SLOW_THRESHOLD_PROPERTY);
+    Object sampleRate = properties.get(SAMPLE_RATE_PROPERTY);
+    Object logParameters = properties.get(LOG_PARAMETERS_PROPERTY);
+    return new SqlProfiler(
+            threshold == null ? DEFAULT_SLOW_THRESHOLD : Duration.ofMillis(Long.parseLong(threshold.toString().trim())),
+            sampleRate == null ? DEFAULT_SAMPLE_RATE : Double.parseDouble(sampleRate.toString().trim()),
+            logParameters != null && Boolean.parseBoolean(logParameters.toString().trim()));
+  }
+
+  /**
+   * Records a finished statement execution, logging it if it is slow or sampled.
+   *
+   * The parameter values are bound into the statement only if it is logged and values are logged at all.
+   *
+   * @param sql          The executed statement.
+   * @param parameters   The parameter values by index, {@code null} for a statement without placeholders.
+   * @param elapsedNanos The time from the execution until the results were consumed.
+   * @param rows         The number of rows read or updated, -1 if unknown.
+   */
+  void record(String sql, Map<Integer, Object> parameters, long elapsedNanos, long rows) {
+
+    if (elapsedNanos >= slowThresholdNanos) {
+      slowLog.accept(new SqlExecution(render(sql, parameters), elapsedNanos, rows, findCallSite()));
+    } else if (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+      sampleLog.accept(new SqlExecution(render(sql, parameters), elapsedNanos, rows, findCallSite()));
+    }
+  }
+
+  private String render(String sql, Map<Integer, Object> parameters) {
+    return parameters == null || !logParameters ? sql : ProfilingJdbc.bind(sql, parameters);
+  }
+
+  private static String findCallSite() {
+
+    return StackWalker.getInstance().walk(frames -> frames
+            .filter(frame -> frame.getClassName().startsWith(APPLICATION_PACKAGE) && !isProfilingClass(frame.getClassName()))
+            .findFirst()
+            .map(frame -> frame.getClassName() + "." + frame.getMethodName() + ":" + frame.getLineNumber())
+            .orElse("unknown"));
+  }
+
+  private static boolean isProfilingClass(String className) {
+
+    return PROFILING_CLASSES.stream()
+            .anyMatch(profilingClass -> className.equals(profilingClass) || className.startsWith(profilingClass + "$"));
+  }
+}
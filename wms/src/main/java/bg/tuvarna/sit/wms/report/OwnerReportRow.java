@@ -0,0 +1,18 @@
+package bg.tuvarna.sit.wms.report;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+
+/**
+ * The revenue and occupancy of a warehouse in a month.
+ *
+ * @param ownerId          The ID of the owner of the warehouse.
+ * @param ownerName        The full name of the owner.
+ * @param warehouseId      The ID of the warehouse.
+ * @param month            The month.
+ * @param revenue          The monthly prices of the agreements, prorated by the days they cover in the month.
+ * @param occupancyPercent The share of the days of the month covered by an agreement, in percent.
+ */
+public record OwnerReportRow(long ownerId, String ownerName, long warehouseId, YearMonth month, BigDecimal revenue,
+                             BigDecimal occupancyPercent) {
+}
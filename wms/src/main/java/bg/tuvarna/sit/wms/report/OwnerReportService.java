@@ -0,0 +1,303 @@
+package bg.tuvarna.sit.wms.report;
+
+import bg.tuvarna.sit.wms.dao.ReportDao;
+import bg.tuvarna.sit.wms.enums.ReportFormat;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Writes the monthly revenue and occupancy of the warehouses of the owners to a file.
+ * <p>
+ * The warehouses and their agreements are streamed from the {@link ReportDao} ordered by owner. The rows of
+ * one owner are handed to a worker, which prorates the monthly prices by the days each agreement covers in
+ * every month and counts the days covered by any agreement, while the next owners are read. The results are
+ * written in owner order as soon as they are ready; at most twice as many owners as there are workers are
+ * in flight, so the memory needed depends on the largest owner, not on the number of agreements.
+ * </p>
+ * <p>
+ * An agreement covers its start and end date. Overlapping agreements of a warehouse both add their revenue,
+ * but their common days count once towards the occupancy.
+ * </p>
+ */
+public class OwnerReportService {
+
+  private static final Logger LOGGER = LogManager.getLogger(OwnerReportService.class);
+
+  private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+  private static final int MONEY_SCALE = 2;
+  private static final int WORKING_SCALE = 10;
+
+  private final ReportDao reportDao;
+  private final int parallelism;
+  private final int fetchSize;
+
+  public OwnerReportService(ReportDao reportDao) {
+    this(reportDao, Runtime.getRuntime().availableProcessors(), ReportDao.DEFAULT_FETCH_SIZE);
+  }
+
+  /**
+   * Constructs an owner report service.
+   *
+   * @param reportDao   The DAO the rows are streamed from.
+   * @param parallelism The number of owners aggregated at the same time.
+   * @param fetchSize   The number of rows fetched from the database at a time.
+   */
+  public OwnerReportService(ReportDao reportDao, int parallelism, int fetchSize) {
+
+    if (parallelism < 1 || fetchSize < 1) {
+      throw new IllegalArgumentException("The parallelism and the fetch size must be positive");
+    }
+    this.reportDao = reportDao;
+    this.parallelism = parallelism;
+    this.fetchSize = fetchSize;
+  }
+
+  /**
+   * Writes a row for every warehouse and month of a period, ordered by owner, warehouse and month.
+   *
+   * @param ownerId The ID of the owner to report on, or {@code null} for all owners.
+   * @param from    The first month.
+   * @param to      The last month.
+   * @param format  The format of the file.
+   * @param file    The file, replaced once the report is complete. A failed report leaves it untouched.
+   * @return The number of rows written.
+   * @throws IOException              If the file cannot be written.
+   * @throws IllegalArgumentException If the period ends before it starts.
+   */
+  public long writeReport(Long ownerId, YearMonth from, YearMonth to, ReportFormat format, Path file)
+          throws IOException {
+
+    if (to.isBefore(from)) {
+      throw new IllegalArgumentException("The report period ends before it starts");
+    }
+
+    long start = System.nanoTime();
+    ExecutorService executor = Executors.newFixedThreadPool(parallelism, new ReportThreadFactory());
+    try (ReportWriter writer = ReportWriter.open(format, file)) {
+      Pipeline pipeline = new Pipeline(from, to, executor, 2 * parallelism, writer);
+      try {
+        reportDao.forEachAgreementPeriod(ownerId, java.sql.Date.valueOf(from.atDay(1)),
+                java.sql.Date.valueOf(to.atEndOfMonth()), fetchSize, pipeline::accept);
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+      pipeline.finish();
+      writer.commit();
+      LOGGER.info("Owner report with {} rows written to {} in {} ms", pipeline.rows, file,
+              (System.nanoTime() - start) / 1_000_000);
+      return pipeline.rows;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Computes the rows of one owner.
+   *
+   * @param owner The warehouses and agreements of the owner, ordered by warehouse.
+   * @param from  The first month.
+   * @param to    The last month.
+   * @return The rows ordered by warehouse and month.
+   */
+  static List<OwnerReportRow> aggregate(OwnerPeriods owner, YearMonth from, YearMonth to) {
+
+    LocalDate first = from.atDay(1);
+    LocalDate last = to.atEndOfMonth();
+    int months = (int) from.until(to, ChronoUnit.MONTHS) + 1;
+    int days = (int) first.until(last, ChronoUnit.DAYS) + 1;
+    List<OwnerReportRow> rows = new ArrayList<>();
+
+    int index = 0;
+    while (index < owner.periods.size()) {
+      long warehouseId = owner.periods.get(index).warehouseId;
+      BitSet occupied = new BitSet(days);
+      BigDecimal[] revenue = new BigDecimal[months];
+      Arrays.fill(revenue, BigDecimal.ZERO);
+
+      for (; index < owner.periods.size() && owner.periods.get(index).warehouseId == warehouseId; index++) {
+        Period period = owner.periods.get(index);
+        if (period.start == null) {
+          continue;
+        }
+        LocalDate start = period.start.isBefore(first) ? first : period.start;
+        LocalDate end = period.end.isAfter(last) ? last : period.end;
+        if (end.isBefore(start)) {
+          continue;
+        }
+        occupied.set((int) first.until(start, ChronoUnit.DAYS), (int) first.until(end, ChronoUnit.DAYS) + 1);
+
+        YearMonth lastMonth = YearMonth.from(end);
+        for (YearMonth month = YearMonth.from(start); !month.isAfter(lastMonth); month = month.plusMonths(1)) {
+          LocalDate monthStart = month.atDay(1).isBefore(start) ? start : month.atDay(1);
+          LocalDate monthEnd = month.atEndOfMonth().isAfter(end) ? end : month.atEndOfMonth();
+          long covered = monthStart.until(monthEnd, ChronoUnit.DAYS) + 1;
+          int slot = (int) from.until(month, ChronoUnit.MONTHS);
+          revenue[slot] = revenue[slot].add(period.pricePerMonth.multiply(BigDecimal.valueOf(covered))
+                  .divide(BigDecimal.valueOf(month.lengthOfMonth()), WORKING_SCALE, RoundingMode.HALF_UP));
+        }
+      }
+
+      YearMonth month = from;
+      for (int slot = 0; slot < months; slot++, month = month.plusMonths(1)) {
+        int offset = (int) first.until(month.atDay(1), ChronoUnit.DAYS);
+        int coveredDays = occupied.get(offset, offset + month.lengthOfMonth()).cardinality();
+        BigDecimal occupancy = BigDecimal.valueOf(coveredDays).multiply(HUNDRED)
+                .divide(BigDecimal.valueOf(month.lengthOfMonth()), MONEY_SCALE, RoundingMode.HALF_UP);
+        rows.add(new OwnerReportRow(owner.ownerId, owner.ownerName, warehouseId, month,
+                revenue[slot].setScale(MONEY_SCALE, RoundingMode.HALF_UP), occupancy));
+      }
+    }
+    return rows;
+  }
+
+  private static LocalDate toLocalDate(Date date) {
+
+    if (date == null) {
+      return null;
+    }
+    return date instanceof java.sql.Date sqlDate
+            ? sqlDate.toLocalDate()
+            : date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+  }
+
+  /**
+   * Collects the rows of the current owner, hands completed owners to the workers and writes their results
+   * in order.
+   */
+  private static final class Pipeline {
+
+    private final YearMonth from;
+    private final YearMonth to;
+    private final ExecutorService executor;
+    private final ReportWriter writer;
+    private final int maxInFlight;
+    private final Deque<Future<List<OwnerReportRow>>> inFlight = new ArrayDeque<>();
+    private OwnerPeriods current;
+    private long rows;
+
+    private Pipeline(YearMonth from, YearMonth to, ExecutorService executor, int maxInFlight, ReportWriter writer) {
+
+      this.from = from;
+      this.to = to;
+      this.executor = executor;
+      this.maxInFlight = maxInFlight;
+      this.writer = writer;
+    }
+
+    private void accept(long ownerId, String ownerName, long warehouseId, Date startDate, Date endDate,
+                        BigDecimal pricePerMonth) {
+
+      try {
+        if (current == null || current.ownerId != ownerId) {
+          submitCurrent();
+          current = new OwnerPeriods(ownerId, ownerName);
+        }
+        current.add(warehouseId, toLocalDate(startDate), toLocalDate(endDate), pricePerMonth);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    private void finish() throws IOException {
+
+      submitCurrent();
+      while (!inFlight.isEmpty()) {
+        writeOldest();
+      }
+    }
+
+    private void submitCurrent() throws IOException {
+
+      if (current == null) {
+        return;
+      }
+      OwnerPeriods owner = current;
+      current = null;
+      inFlight.addLast(executor.submit(() -> aggregate(owner, from, to)));
+      while (inFlight.size() >= maxInFlight || (!inFlight.isEmpty() && inFlight.peekFirst().isDone())) {
+        writeOldest();
+      }
+    }
+
+    private void writeOldest() throws IOException {
+
+      List<OwnerReportRow> result;
+      try {
+        result = inFlight.removeFirst().get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("The report was interrupted");
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof RuntimeException runtimeException) {
+          throw runtimeException;
+        }
+        throw new IllegalStateException("The report could not be aggregated", e.getCause());
+      }
+      for (OwnerReportRow row : result) {
+        writer.write(row);
+      }
+      rows += result.size();
+    }
+  }
+
+  /**
+   * The warehouses and agreements of an owner.
+   */
+  static final class OwnerPeriods {
+
+    private final long ownerId;
+    private final String ownerName;
+    private final List<Period> periods = new ArrayList<>();
+
+    OwnerPeriods(long ownerId, String ownerName) {
+
+      this.ownerId = ownerId;
+      this.ownerName = ownerName;
+    }
+
+    OwnerPeriods add(long warehouseId, LocalDate start, LocalDate end, BigDecimal pricePerMonth) {
+
+      periods.add(new Period(warehouseId, start, end, pricePerMonth));
+      return this;
+    }
+  }
+
+  private record Period(long warehouseId, LocalDate start, LocalDate end, BigDecimal pricePerMonth) {
+  }
+
+  private static class ReportThreadFactory implements ThreadFactory {
+
+    private final AtomicInteger counter = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+
+      Thread thread = new Thread(runnable, "owner-report-" + counter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
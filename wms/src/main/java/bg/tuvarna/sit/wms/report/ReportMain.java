@@ -0,0 +1,43 @@
+package bg.tuvarna.sit.wms.report;
+
+import bg.tuvarna.sit.wms.context.ApplicationContext;
+import bg.tuvarna.sit.wms.enums.ReportFormat;
+import bg.tuvarna.sit.wms.util.JpaUtil;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.YearMonth;
+import java.util.Locale;
+
+/**
+ * Writes an owner report from the command line, for running on a reporting host without the JavaFX views.
+ * <p>
+ * The database is configured by the same environment variables as the application, see {@link JpaUtil}.
+ * The report is selected by the system properties {@code report.from} and {@code report.to} (months as
+ * {@code yyyy-MM}, the current month by default), {@code report.owner} (an owner ID, all owners by default),
+ * {@code report.format} ({@code csv} or {@code json}, {@code csv} by default) and {@code report.file}
+ * ({@code owner-report.<format>} by default).
+ * </p>
+ */
+public final class ReportMain {
+
+  private ReportMain() {
+  }
+
+  public static void main(String[] args) throws IOException {
+
+    YearMonth from = YearMonth.parse(System.getProperty("report.from", YearMonth.now().toString()));
+    YearMonth to = YearMonth.parse(System.getProperty("report.to", from.toString()));
+    String owner = System.getProperty("report.owner");
+    ReportFormat format = ReportFormat.valueOf(System.getProperty("report.format", "csv").toUpperCase(Locale.ROOT));
+    Path file = Paths.get(System.getProperty("report.file",
+            "owner-report." + format.name().toLowerCase(Locale.ROOT)));
+
+    try {
+      ApplicationContext.getCONTAINER().get(OwnerReportService.class)
+              .writeReport(owner == null ? null : Long.valueOf(owner), from, to, format, file);
+    } finally {
+      JpaUtil.close();
+    }
+  }
+}
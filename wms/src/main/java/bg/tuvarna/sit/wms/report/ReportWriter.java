@@ -0,0 +1,182 @@
+package bg.tuvarna.sit.wms.report;
+
+import bg.tuvarna.sit.wms.enums.ReportFormat;
+import bg.tuvarna.sit.wms.util.JsonCodec;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Writes report rows to a file one at a time, in CSV or as a JSON array.
+ * <p>
+ * The rows are written to a temporary file next to the target, which {@link #commit()} completes and moves into
+ * place. Closing a writer that was not committed deletes the temporary file, so a failed report neither leaves a
+ * truncated file behind nor replaces an earlier one.
+ * </p>
+ */
+abstract class ReportWriter implements Closeable {
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  protected final Writer out;
+
+  private final Path file;
+  private final Path temporaryFile;
+  private boolean committed;
+
+  private ReportWriter(Path file) throws IOException {
+
+    Path target = file.toAbsolutePath();
+    this.file = file;
+    this.temporaryFile = Files.createTempFile(target.getParent(), "." + target.getFileName(), ".tmp");
+    try {
+      this.out = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(temporaryFile),
+              StandardCharsets.UTF_8), BUFFER_SIZE);
+    } catch (IOException e) {
+      Files.deleteIfExists(temporaryFile);
+      throw e;
+    }
+  }
+
+  /**
+   * Creates the temporary file and writes the header of the format.
+   *
+   * @param format The format.
+   * @param file   The file, replaced when the writer is committed.
+   * @return The writer.
+   * @throws IOException If the file cannot be written.
+   */
+  static ReportWriter open(ReportFormat format, Path file) throws IOException {
+
+    ReportWriter writer = format == ReportFormat.CSV ? new CsvWriter(file) : new JsonWriter(file);
+    try {
+      writer.begin();
+    } catch (IOException e) {
+      writer.close();
+      throw e;
+    }
+    return writer;
+  }
+
+  /**
+   * Completes the file after the last row and moves it into place, replacing the target if it exists.
+   *
+   * @throws IOException If the file cannot be completed or moved.
+   */
+  void commit() throws IOException {
+
+    end();
+    out.close();
+    try {
+      Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+    committed = true;
+  }
+
+  abstract void write(OwnerReportRow row) throws IOException;
+
+  protected abstract void begin() throws IOException;
+
+  protected abstract void end() throws IOException;
+
+  /**
+   * Discards the temporary file unless the writer was committed.
+   *
+   * @throws IOException If the temporary file cannot be deleted.
+   */
+  @Override
+  public void close() throws IOException {
+
+    if (committed) {
+      return;
+    }
+    try {
+      out.close();
+    } finally {
+      Files.deleteIfExists(temporaryFile);
+    }
+  }
+
+  private static final class CsvWriter extends ReportWriter {
+
+    private CsvWriter(Path file) throws IOException {
+      super(file);
+    }
+
+    @Override
+    protected void begin() throws IOException {
+      out.write("owner_id,owner_name,warehouse_id,month,revenue,occupancy_percent\n");
+    }
+
+    @Override
+    void write(OwnerReportRow row) throws IOException {
+
+      out.write(Long.toString(row.ownerId()));
+      out.write(',');
+      writeText(row.ownerName());
+      out.write(',');
+      out.write(Long.toString(row.warehouseId()));
+      out.write(',');
+      out.write(row.month().toString());
+      out.write(',');
+      out.write(row.revenue().toPlainString());
+      out.write(',');
+      out.write(row.occupancyPercent().toPlainString());
+      out.write('\n');
+    }
+
+    @Override
+    protected void end() {
+    }
+
+    private void writeText(String text) throws IOException {
+
+      if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+        out.write(text);
+        return;
+      }
+      out.write('"');
+      out.write(text.replace("\"", "\"\""));
+      out.write('"');
+    }
+  }
+
+  private static final class JsonWriter extends ReportWriter {
+
+    private final StringBuilder buffer = new StringBuilder(256);
+    private boolean first = true;
+
+    private JsonWriter(Path file) throws IOException {
+      super(file);
+    }
+
+    @Override
+    protected void begin() throws IOException {
+      out.write('[');
+    }
+
+    @Override
+    void write(OwnerReportRow row) throws IOException {
+
+      buffer.setLength(0);
+      buffer.append(first ? "\n" : ",\n");
+      first = false;
+      JsonCodec.write(row, buffer);
+      out.append(buffer);
+    }
+
+    @Override
+    protected void end() throws IOException {
+      out.write(first ? "]\n" : "\n]\n");
+    }
+  }
+}
@@ -0,0 +1,287 @@
+package bg.tuvarna.sit.wms.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * An immutable radix trie answering prefix queries with the best ranked values.
+ * <p>
+ * Keys are normalized by the {@link Tokenizer}, so matching ignores case, diacritics and punctuation.
+ * A value is found by its whole key and by every word of the key, e.g. "Veliko Tarnovo" by "vel" and by
+ * "tar". Chains of single-child nodes are merged into one edge, and every node keeps the best ranked
+ * values of its subtree, computed once by the {@link Builder}. A query therefore walks at most the length
+ * of the prefix and copies the stored values, regardless of how many keys the trie holds.
+ * </p>
+ *
+ * @param <T> The type of the values.
+ */
+public final class CompressedTrie<T> {
+
+  private final Node root;
+  private final Comparator<? super T> ranking;
+  private final int size;
+
+  private CompressedTrie(Node root, Comparator<? super T> ranking, int size) {
+
+    this.root = root;
+    this.ranking = ranking;
+    this.size = size;
+  }
+
+  /**
+   * Starts building a trie.
+   *
+   * @param ranking     Orders the values, best first.
+   * @param topPerNode  The number of best values kept by every node, the limit answered without searching the
+   *                    subtree.
+   * @param <T>         The type of the values.
+   * @return A builder for the trie.
+   */
+  public static <T> Builder<T> builder(Comparator<? super T> ranking, int topPerNode) {
+    return new Builder<>(ranking, topPerNode);
+  }
+
+  /**
+   * Finds the best ranked values with a key or a word of a key starting with the prefix.
+   *
+   * @param prefix The prefix, normalized like the keys.
+   * @param limit  The maximum number of values.
+   * @return The best values, best first; every value at most once.
+   */
+  @SuppressWarnings("unchecked")
+  public List<T> find(String prefix, int limit) {
+
+    Node node = locate(normalize(prefix));
+    if (node == null || limit <= 0) {
+      return List.of();
+    }
+    if (limit <= node.top.length || node.complete) {
+      return (List<T>) List.of(Arrays.copyOf(node.top, Math.min(limit, node.top.length)));
+    }
+
+    List<T> values = new ArrayList<>(distinct(collect(node, new ArrayList<>())));
+    values.sort(ranking);
+    return List.copyOf(values.subList(0, Math.min(limit, values.size())));
+  }
+
+  /**
+   * Returns the number of distinct values in the trie.
+   *
+   * @return The number of values.
+   */
+  public int size() {
+    return size;
+  }
+
+  private Node locate(String prefix) {
+
+    Node node = root;
+    int position = 0;
+    while (position < prefix.length()) {
+      Node child = node.child(prefix.charAt(position));
+      if (child == null) {
+        return null;
+      }
+      String label = child.label;
+      int remaining = prefix.length() - position;
+      if (remaining <= label.length()) {
+        return label.startsWith(prefix.substring(position)) ? child : null;
+      }
+      if (!prefix.startsWith(label, position)) {
+        return null;
+      }
+      position += label.length();
+      node = child;
+    }
+    return node;
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<T> collect(Node node, List<T> values) {
+
+    for (Object value : node.values) {
+      values.add((T) value);
+    }
+    for (Node child : node.children) {
+      collect(child, values);
+    }
+    return values;
+  }
+
+  private static <T> List<T> distinct(List<T> values) {
+
+    Set<T> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+    List<T> distinct = new ArrayList<>(values.size());
+    for (T value : values) {
+      if (seen.add(value)) {
+        distinct.add(value);
+      }
+    }
+    return distinct;
+  }
+
+  private static String normalize(String text) {
+    return text == null ? "" : String.join(" ", Tokenizer.tokenize(text));
+  }
+
+  /**
+   * Collects the keys and values of a trie and builds it.
+   *
+   * @param <T> The type of the values.
+   */
+  public static final class Builder<T> {
+
+    private final Comparator<? super T> ranking;
+    private final int topPerNode;
+    private final MutableNode root = new MutableNode("");
+    private final Set<Object> values = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private Builder(Comparator<? super T> ranking, int topPerNode) {
+
+      this.ranking = ranking;
+      this.topPerNode = topPerNode;
+    }
+
+    /**
+     * Adds a value under a key and under every following word of the key.
+     *
+     * @param key   The key, e.g. a name.
+     * @param value The value.
+     * @return This builder.
+     */
+    public Builder<T> add(String key, T value) {
+
+      List<String> words = Tokenizer.tokenize(key);
+      if (words.isEmpty()) {
+        return this;
+      }
+      values.add(value);
+      for (int i = 0; i < words.size(); i++) {
+        insert(String.join(" ", words.subList(i, words.size())), value);
+      }
+      return this;
+    }
+
+    /**
+     * Builds the trie. The builder must not be used afterwards.
+     *
+     * @return The trie.
+     */
+    public CompressedTrie<T> build() {
+      return new CompressedTrie<>(freeze(root), ranking, values.size());
+    }
+
+    private void insert(String key, T value) {
+
+      MutableNode node = root;
+      int position = 0;
+      while (position < key.length()) {
+        char first = key.charAt(position);
+        MutableNode child = node.children.get(first);
+        if (child == null) {
+          child = new MutableNode(key.substring(position));
+          node.children.put(first, child);
+          node = child;
+          break;
+        }
+
+        int common = 0;
+        int limit = Math.min(child.label.length(), key.length() - position);
+        while (common < limit && child.label.charAt(common) == key.charAt(position + common)) {
+          common++;
+        }
+        if (common < child.label.length()) {
+          MutableNode split = new MutableNode(child.label.substring(0, common));
+          child.label = child.label.substring(common);
+          split.children.put(child.label.charAt(0), child);
+          node.children.put(first, split);
+          child = split;
+        }
+        position += common;
+        node = child;
+      }
+      if (!node.values.contains(value)) {
+        node.values.add(value);
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Node freeze(MutableNode node) {
+
+      Node[] children = new Node[node.children.size()];
+      char[] firstCharacters = new char[children.length];
+      List<T> candidates = new ArrayList<>();
+      for (Object value : node.values) {
+        candidates.add((T) value);
+      }
+      boolean complete = true;
+      int i = 0;
+      for (Map.Entry<Character, MutableNode> entry : node.children.entrySet()) {
+        Node child = freeze(entry.getValue());
+        firstCharacters[i] = entry.getKey();
+        children[i++] = child;
+        for (Object value : child.top) {
+          candidates.add((T) value);
+        }
+        complete &= child.complete;
+      }
+
+      List<T> top = distinct(candidates);
+      top.sort(ranking);
+      if (top.size() > topPerNode) {
+        top = top.subList(0, topPerNode);
+        complete = false;
+      }
+      return new Node(node.label, firstCharacters, children, node.values.toArray(), top.toArray(), complete);
+    }
+  }
+
+  private static final class MutableNode {
+
+    private String label;
+    private final Map<Character, MutableNode> children = new TreeMap<>();
+    private final List<Object> values = new ArrayList<>(1);
+
+    private MutableNode(String label) {
+      this.label = label;
+    }
+  }
+
+  /**
+   * A node of the built trie. The children are ordered by the first character of their label; the top values
+   * are complete when the subtree holds no other values.
+   */
+  private static final class Node {
+
+    private final String label;
+    private final char[] firstCharacters;
+    private final Node[] children;
+    private final Object[] values;
+    private final Object[] top;
+    private final boolean complete;
+
+    private Node(String label, char[] firstCharacters, Node[] children, Object[] values, Object[] top,
+                 boolean complete) {
+
+      this.label = label;
+      this.firstCharacters = firstCharacters;
+      this.children = children;
+      this.values = values;
+      this.top = top;
+      this.complete = complete;
+    }
+
+    private Node child(char first) {
+
+      int index = Arrays.binarySearch(firstCharacters, first);
+      return index < 0 ? null : children[index];
+    }
+  }
+}
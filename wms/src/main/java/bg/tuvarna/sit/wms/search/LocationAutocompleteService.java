@@ -0,0 +1,157 @@
+package bg.tuvarna.sit.wms.search;
+
+import bg.tuvarna.sit.wms.dao.LocationDao;
+import bg.tuvarna.sit.wms.dto.LocationSuggestionDto;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Autocompletion of city and country names for address entry and location filters.
+ * <p>
+ * All cities and countries are streamed once from the database into two {@link CompressedTrie}s, ranked by
+ * their number of warehouses, so a suggestion is a walk down the typed prefix instead of a query per
+ * keystroke. Matching ignores case and diacritics and also starts at every word of a name. The tries are
+ * never modified: a refresh builds new ones and swaps them in, so suggestions are served without locking
+ * while a refresh runs. Refreshes run one at a time, so tries read earlier never replace newer ones. The
+ * {@link LocationListener} asks for a refresh when a city, a country or a warehouse changes; the requests
+ * are coalesced into a single rebuild {@value #REFRESH_DELAY_MILLIS} ms after the first of them.
+ * </p>
+ */
+public class LocationAutocompleteService implements AutoCloseable {
+
+  private static final Logger LOGGER = LogManager.getLogger(LocationAutocompleteService.class);
+
+  public static final int MAX_SUGGESTIONS = 10;
+  public static final long REFRESH_DELAY_MILLIS = 2000;
+
+  private static final Comparator<LocationSuggestionDto> RANKING = Comparator
+          .comparing(LocationSuggestionDto::getWarehouseCount, Comparator.reverseOrder())
+          .thenComparing(LocationSuggestionDto::getName, String.CASE_INSENSITIVE_ORDER)
+          .thenComparing(LocationSuggestionDto::getId);
+
+  private final LocationDao locationDao;
+  private final AtomicBoolean refreshScheduled = new AtomicBoolean();
+  private final Object refreshLock = new Object();
+  private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "location-autocomplete");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private volatile CompressedTrie<LocationSuggestionDto> cities = CompressedTrie.builder(RANKING, 0).build();
+  private volatile CompressedTrie<LocationSuggestionDto> countries = CompressedTrie.builder(RANKING, 0).build();
+  private boolean open;
+
+  /**
+   * Constructs an autocomplete service.
+   *
+   * @param locationDao The DAO the locations are read from.
+   */
+  public LocationAutocompleteService(LocationDao locationDao) {
+    this.locationDao = locationDao;
+  }
+
+  /**
+   * Loads the locations and starts following their changes. Subsequent calls have no effect.
+   */
+  public synchronized void open() {
+
+    if (open) {
+      return;
+    }
+    LocationListener.register(this);
+    open = true;
+    refresh();
+  }
+
+  /**
+   * Reads all locations anew and replaces the suggestions. A refresh started while another one runs waits for
+   * it, so the suggestions always come from the latest read.
+   */
+  public void refresh() {
+
+    synchronized (refreshLock) {
+      build();
+    }
+  }
+
+  private void build() {
+
+    long start = System.nanoTime();
+    CompressedTrie.Builder<LocationSuggestionDto> cityBuilder = CompressedTrie.builder(RANKING, MAX_SUGGESTIONS);
+    locationDao.forEachCity(city -> cityBuilder.add(city.getName(), city));
+    CompressedTrie.Builder<LocationSuggestionDto> countryBuilder =
+            CompressedTrie.builder(RANKING, MAX_SUGGESTIONS);
+    locationDao.forEachCountry(country -> countryBuilder.add(country.getName(), country));
+
+    cities = cityBuilder.build();
+    countries = countryBuilder.build();
+    LOGGER.info("Location suggestions for {} cities and {} countries built in {} ms", cities.size(),
+            countries.size(), (System.nanoTime() - start) / 1_000_000);
+  }
+
+  /**
+   * Schedules a {@link #refresh()} unless one is already pending.
+   */
+  public void refreshLater() {
+
+    if (!refreshScheduled.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      scheduler.schedule(() -> {
+        refreshScheduled.set(false);
+        try {
+          refresh();
+        } catch (RuntimeException e) {
+          LOGGER.warn("Location suggestions could not be refreshed", e);
+        }
+      }, REFRESH_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+    } catch (RejectedExecutionException e) {
+      refreshScheduled.set(false);
+    }
+  }
+
+  /**
+   * Suggests the cities whose name, or a word of it, starts with the typed text.
+   *
+   * @param prefix The typed text.
+   * @param limit  The maximum number of suggestions, at most {@value #MAX_SUGGESTIONS}.
+   * @return The cities with the most warehouses first.
+   */
+  public List<LocationSuggestionDto> suggestCities(String prefix, int limit) {
+    return cities.find(prefix, Math.min(limit, MAX_SUGGESTIONS));
+  }
+
+  /**
+   * Suggests the countries whose name, or a word of it, starts with the typed text.
+   *
+   * @param prefix The typed text.
+   * @param limit  The maximum number of suggestions, at most {@value #MAX_SUGGESTIONS}.
+   * @return The countries with the most warehouses first.
+   */
+  public List<LocationSuggestionDto> suggestCountries(String prefix, int limit) {
+    return countries.find(prefix, Math.min(limit, MAX_SUGGESTIONS));
+  }
+
+  /**
+   * Stops following the changes of the locations.
+   */
+  @Override
+  public synchronized void close() {
+
+    if (!open) {
+      return;
+    }
+    LocationListener.unregister(this);
+    open = false;
+    scheduler.shutdownNow();
+  }
+}
@@ -0,0 +1,53 @@
+package bg.tuvarna.sit.wms.search;
+
+import bg.tuvarna.sit.wms.entities.Warehouse;
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * JPA entity listener asking the open {@link LocationAutocompleteService} to refresh its suggestions when
+ * a city or a country changes, or when a warehouse is added or removed and the ranking shifts. Other updates
+ * of a warehouse leave the ranking alone.
+ * <p>
+ * As with the {@link SearchIndexListener}, Hibernate creates the listener itself, so it reaches the service
+ * through a static reference set while the service is open.
+ * </p>
+ */
+public class LocationListener {
+
+  private static volatile LocationAutocompleteService service;
+
+  static void register(LocationAutocompleteService autocompleteService) {
+    service = autocompleteService;
+  }
+
+  static void unregister(LocationAutocompleteService autocompleteService) {
+
+    if (service == autocompleteService) {
+      service = null;
+    }
+  }
+
+  @PostPersist
+  @PostRemove
+  public void onAddOrRemove(Object entity) {
+    refreshLater();
+  }
+
+  @PostUpdate
+  public void onUpdate(Object entity) {
+
+    if (!(entity instanceof Warehouse)) {
+      refreshLater();
+    }
+  }
+
+  private static void refreshLater() {
+
+    LocationAutocompleteService current = service;
+    if (current != null) {
+      current.refreshLater();
+    }
+  }
+}
@@ -0,0 +1,13 @@
+package bg.tuvarna.sit.wms.search;
+
+import bg.tuvarna.sit.wms.enums.SearchDocumentType;
+
+/**
+ * An entity found by the full-text search.
+ *
+ * @param type  The kind of the entity.
+ * @param id    The ID of the entity.
+ * @param score The relevance of the entity to the query, higher is better.
+ */
+public record SearchHit(SearchDocumentType type, long id, double score) {
+}
@@ -0,0 +1,458 @@
+package bg.tuvarna.sit.wms.search;
+
+import bg.tuvarna.sit.wms.enums.SearchDocumentType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * An in-memory inverted index ranking documents with BM25.
+ * <p>
+ * Every document is a short text of one entity, split into terms by the {@link Tokenizer}. A query term
+ * matches the equal term, the terms it is a prefix of, and, when there is no equal term, the terms within
+ * one or two typing errors, found through the trigrams they share. Prefix and fuzzy matches count less than
+ * exact ones, and each query term contributes the best of its matches to the score of a document.
+ * </p>
+ * <p>
+ * The index can be searched from many threads while it is updated; updates take a write lock,
+ * searches a read lock.
+ * </p>
+ */
+public class SearchIndex {
+
+  private static final double K1 = 1.2;
+  private static final double B = 0.75;
+  private static final double PREFIX_WEIGHT = 0.7;
+  private static final double FUZZY_WEIGHT = 0.5;
+  private static final int MIN_PREFIX_LENGTH = 2;
+  private static final int MIN_FUZZY_LENGTH = 4;
+  private static final int MAX_EXPANSIONS = 64;
+  private static final double MIN_TRIGRAM_SIMILARITY = 0.4;
+
+  private static final Comparator<SearchHit> RANKING = Comparator.comparingDouble(SearchHit::score)
+          .thenComparing(SearchHit::type, Comparator.reverseOrder())
+          .thenComparing(SearchHit::id, Comparator.reverseOrder());
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final NavigableMap<String, Postings> postings = new TreeMap<>();
+  private final Map<String, Set<String>> trigramTerms = new HashMap<>();
+  private final Map<DocumentKey, Integer> documentNumbers = new HashMap<>();
+  private final List<Document> documents = new ArrayList<>();
+  private final List<Integer> freeNumbers = new ArrayList<>();
+  private long totalLength;
+
+  /**
+   * Adds a document, replacing the previous version of the same entity.
+   *
+   * @param type   The kind of the entity.
+   * @param id     The ID of the entity.
+   * @param fields The searchable texts of the entity, null ones are skipped.
+   */
+  public void put(SearchDocumentType type, long id, String... fields) {
+
+    Map<String, Integer> frequencies = new LinkedHashMap<>();
+    for (String field : fields) {
+      for (String term : Tokenizer.tokenize(field)) {
+        frequencies.merge(term, 1, Integer::sum);
+      }
+    }
+    String[] terms = new String[frequencies.size()];
+    int[] counts = new int[frequencies.size()];
+    int i = 0;
+    for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+      terms[i] = entry.getKey();
+      counts[i++] = entry.getValue();
+    }
+    putTerms(type, id, terms, counts);
+  }
+
+  /**
+   * Removes the document of an entity.
+   *
+   * @param type The kind of the entity.
+   * @param id   The ID of the entity.
+   * @return true if the entity was indexed.
+   */
+  public boolean remove(SearchDocumentType type, long id) {
+
+    lock.writeLock().lock();
+    try {
+      Integer number = documentNumbers.remove(new DocumentKey(type, id));
+      if (number == null) {
+        return false;
+      }
+      Document document = documents.get(number);
+      for (String term : document.terms) {
+        Postings termPostings = postings.get(term);
+        termPostings.remove(number);
+        if (termPostings.size == 0) {
+          postings.remove(term);
+          for (String trigram : trigrams(term)) {
+            Set<String> terms = trigramTerms.get(trigram);
+            terms.remove(term);
+            if (terms.isEmpty()) {
+              trigramTerms.remove(trigram);
+            }
+          }
+        }
+      }
+      documents.set(number, null);
+      freeNumbers.add(number);
+      totalLength -= document.length;
+      return true;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Removes all documents.
+   */
+  public void clear() {
+
+    lock.writeLock().lock();
+    try {
+      postings.clear();
+      trigramTerms.clear();
+      documentNumbers.clear();
+      documents.clear();
+      freeNumbers.clear();
+      totalLength = 0;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Finds the documents matching a free-text query.
+   *
+   * @param query The query.
+   * @param limit The maximum number of hits.
+   * @return The best hits, best first.
+   */
+  public List<SearchHit> search(String query, int limit) {
+    return search(query, limit, EnumSet.allOf(SearchDocumentType.class));
+  }
+
+  /**
+   * Finds the documents of the given kinds matching a free-text query.
+   *
+   * @param query The query.
+   * @param limit The maximum number of hits.
+   * @param types The kinds of entities to find.
+   * @return The best hits, best first.
+   */
+  public List<SearchHit> search(String query, int limit, Set<SearchDocumentType> types) {
+
+    Set<String> queryTerms = new LinkedHashSet<>(Tokenizer.tokenize(query));
+    if (queryTerms.isEmpty() || limit <= 0) {
+      return List.of();
+    }
+
+    lock.readLock().lock();
+    try {
+      int documentCount = documentNumbers.size();
+      if (documentCount == 0) {
+        return List.of();
+      }
+      double averageLength = (double) totalLength / documentCount;
+      double[] scores = new double[documents.size()];
+      double[] termScores = new double[documents.size()];
+      int[] matched = new int[documents.size()];
+      int matchedCount = 0;
+
+      for (String queryTerm : queryTerms) {
+        int[] termMatched = new int[16];
+        int termMatchedCount = 0;
+        for (Map.Entry<String, Double> expansion : expand(queryTerm).entrySet()) {
+          Postings termPostings = postings.get(expansion.getKey());
+          double idf = Math.log(1 + (documentCount - termPostings.size + 0.5) / (termPostings.size + 0.5));
+          for (int i = 0; i < termPostings.size; i++) {
+            int number = termPostings.documents[i];
+            Document document = documents.get(number);
+            if (!types.contains(document.type)) {
+              continue;
+            }
+            int frequency = termPostings.frequencies[i];
+            double score = expansion.getValue() * idf * frequency * (K1 + 1)
+                    / (frequency + K1 * (1 - B + B * document.length / averageLength));
+            if (termScores[number] == 0) {
+              if (termMatchedCount == termMatched.length) {
+                termMatched = Arrays.copyOf(termMatched, termMatchedCount * 2);
+              }
+              termMatched[termMatchedCount++] = number;
+            }
+            termScores[number] = Math.max(termScores[number], score);
+          }
+        }
+        for (int i = 0; i < termMatchedCount; i++) {
+          int number = termMatched[i];
+          if (scores[number] == 0) {
+            matched[matchedCount++] = number;
+          }
+          scores[number] += termScores[number];
+          termScores[number] = 0;
+        }
+      }
+
+      PriorityQueue<SearchHit> best = new PriorityQueue<>(Math.min(limit, matchedCount) + 1, RANKING);
+      for (int i = 0; i < matchedCount; i++) {
+        Document document = documents.get(matched[i]);
+        best.add(new SearchHit(document.type, document.id, scores[matched[i]]));
+        if (best.size() > limit) {
+          best.poll();
+        }
+      }
+      List<SearchHit> hits = new ArrayList<>(best);
+      hits.sort(RANKING.reversed());
+      return hits;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the number of indexed documents.
+   *
+   * @return The number of documents.
+   */
+  public int size() {
+
+    lock.readLock().lock();
+    try {
+      return documentNumbers.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the number of distinct terms of the indexed documents.
+   *
+   * @return The number of terms.
+   */
+  public int termCount() {
+
+    lock.readLock().lock();
+    try {
+      return postings.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Adds an already tokenized document, replacing the previous version of the same entity.
+   *
+   * @param type        The kind of the entity.
+   * @param id          The ID of the entity.
+   * @param terms       The distinct terms of the document.
+   * @param frequencies The number of occurrences of each term.
+   */
+  void putTerms(SearchDocumentType type, long id, String[] terms, int[] frequencies) {
+
+    lock.writeLock().lock();
+    try {
+      remove(type, id);
+      int length = 0;
+      for (int frequency : frequencies) {
+        length += frequency;
+      }
+      Document document = new Document(type, id, terms, frequencies, length);
+      int number;
+      if (freeNumbers.isEmpty()) {
+        number = documents.size();
+        documents.add(document);
+      } else {
+        number = freeNumbers.remove(freeNumbers.size() - 1);
+        documents.set(number, document);
+      }
+      documentNumbers.put(new DocumentKey(type, id), number);
+      totalLength += length;
+
+      for (int i = 0; i < terms.length; i++) {
+        Postings termPostings = postings.get(terms[i]);
+        if (termPostings == null) {
+          termPostings = new Postings();
+          postings.put(terms[i], termPostings);
+          for (String trigram : trigrams(terms[i])) {
+            trigramTerms.computeIfAbsent(trigram, key -> new HashSet<>()).add(terms[i]);
+          }
+        }
+        termPostings.add(number, frequencies[i]);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Visits every document, e.g. for writing the index to disk. Updates wait until the visit has finished.
+   *
+   * @param visitor Receives the documents.
+   */
+  void forEachDocument(DocumentVisitor visitor) {
+
+    lock.readLock().lock();
+    try {
+      for (int number = 0; number < documents.size(); number++) {
+        Document document = documents.get(number);
+        if (document == null) {
+          continue;
+        }
+        visitor.visit(document.type, document.id, document.terms, document.frequencies);
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private Map<String, Double> expand(String queryTerm) {
+
+    Map<String, Double> expansions = new HashMap<>();
+    boolean exact = postings.containsKey(queryTerm);
+    if (exact) {
+      expansions.put(queryTerm, 1.0);
+    }
+
+    if (queryTerm.length() >= MIN_PREFIX_LENGTH) {
+      for (String term : postings.subMap(queryTerm, false, queryTerm + Character.MAX_VALUE, false).keySet()) {
+        if (expansions.size() >= MAX_EXPANSIONS) {
+          break;
+        }
+        expansions.put(term, PREFIX_WEIGHT);
+      }
+    }
+
+    if (!exact && queryTerm.length() >= MIN_FUZZY_LENGTH) {
+      Set<String> queryTrigrams = trigrams(queryTerm);
+      Map<String, Integer> shared = new HashMap<>();
+      for (String trigram : queryTrigrams) {
+        for (String term : trigramTerms.getOrDefault(trigram, Set.of())) {
+          shared.merge(term, 1, Integer::sum);
+        }
+      }
+      int maxEdits = queryTerm.length() <= 5 ? 1 : 2;
+      shared.entrySet().stream()
+              .filter(entry -> !expansions.containsKey(entry.getKey()))
+              .filter(entry -> 2.0 * entry.getValue() / (queryTrigrams.size() + entry.getKey().length())
+                      >= MIN_TRIGRAM_SIMILARITY)
+              .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+              .limit(MAX_EXPANSIONS)
+              .filter(entry -> editDistance(queryTerm, entry.getKey(), maxEdits) <= maxEdits)
+              .forEach(entry -> expansions.put(entry.getKey(), FUZZY_WEIGHT));
+    }
+    return expansions;
+  }
+
+  /**
+   * Returns the trigrams of a term padded with a marker on both sides, so a term of n characters
+   * has n trigrams and the first and the last characters weigh like the others.
+   */
+  private static Set<String> trigrams(String term) {
+
+    String padded = "$" + term + "$";
+    Set<String> trigrams = new HashSet<>();
+    for (int i = 0; i + 3 <= padded.length(); i++) {
+      trigrams.add(padded.substring(i, i + 3));
+    }
+    if (trigrams.isEmpty()) {
+      trigrams.add(padded);
+    }
+    return trigrams;
+  }
+
+  /**
+   * Computes the optimal string alignment distance, giving up as soon as it exceeds the bound.
+   */
+  private static int editDistance(String a, String b, int bound) {
+
+    if (Math.abs(a.length() - b.length()) > bound) {
+      return bound + 1;
+    }
+    int[] previousPrevious = new int[b.length() + 1];
+    int[] previous = new int[b.length() + 1];
+    int[] current = new int[b.length() + 1];
+    for (int j = 0; j <= b.length(); j++) {
+      previous[j] = j;
+    }
+    for (int i = 1; i <= a.length(); i++) {
+      current[0] = i;
+      int rowMinimum = i;
+      for (int j = 1; j <= b.length(); j++) {
+        int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+        int distance = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+        if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+          distance = Math.min(distance, previousPrevious[j - 2] + 1);
+        }
+        current[j] = distance;
+        rowMinimum = Math.min(rowMinimum, distance);
+      }
+      if (rowMinimum > bound) {
+        return bound + 1;
+      }
+      int[] recycled = previousPrevious;
+      previousPrevious = previous;
+      previous = current;
+      current = recycled;
+    }
+    return previous[b.length()];
+  }
+
+  @FunctionalInterface
+  interface DocumentVisitor {
+
+    void visit(SearchDocumentType type, long id, String[] terms, int[] frequencies);
+  }
+
+  private record DocumentKey(SearchDocumentType type, long id) {
+  }
+
+  private record Document(SearchDocumentType type, long id, String[] terms, int[] frequencies, int length) {
+  }
+
+  /**
+   * The documents containing a term, with the number of occurrences in each, in no particular order.
+   */
+  private static final class Postings {
+
+    private int[] documents = new int[4];
+    private int[] frequencies = new int[4];
+    private int size;
+
+    private void add(int document, int frequency) {
+
+      if (size == documents.length) {
+        documents = Arrays.copyOf(documents, size * 2);
+        frequencies = Arrays.copyOf(frequencies, size * 2);
+      }
+      documents[size] = document;
+      frequencies[size++] = frequency;
+    }
+
+    private void remove(int document) {
+
+      for (int i = 0; i < size; i++) {
+        if (documents[i] == document) {
+          size--;
+          documents[i] = documents[size];
+          frequencies[i] = frequencies[size];
+          return;
+        }
+      }
+    }
+  }
+}
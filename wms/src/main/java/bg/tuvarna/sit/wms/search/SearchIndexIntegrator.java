@@ -0,0 +1,34 @@
+package bg.tuvarna.sit.wms.search;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+
+/**
+ * Registers the {@link SearchIndexListener} for the post-commit events of every session factory.
+ * <p>
+ * Hibernate discovers the integrator through {@code META-INF/services}, as JPA offers no post-commit
+ * entity callbacks.
+ * </p>
+ */
+public class SearchIndexIntegrator implements Integrator {
+
+  @Override
+  public void integrate(Metadata metadata, SessionFactoryImplementor sessionFactory,
+                        SessionFactoryServiceRegistry serviceRegistry) {
+
+    SearchIndexListener listener = new SearchIndexListener();
+    EventListenerRegistry registry = serviceRegistry.getService(EventListenerRegistry.class);
+    registry.appendListeners(EventType.POST_COMMIT_INSERT, listener);
+    registry.appendListeners(EventType.POST_COMMIT_UPDATE, listener);
+    registry.appendListeners(EventType.POST_COMMIT_DELETE, listener);
+  }
+
+  @Override
+  public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+    // The listeners go away with the session factory.
+  }
+}
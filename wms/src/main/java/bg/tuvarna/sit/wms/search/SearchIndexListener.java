@@ -0,0 +1,129 @@
+package bg.tuvarna.sit.wms.search;
+
+import bg.tuvarna.sit.wms.entities.Address;
+import bg.tuvarna.sit.wms.entities.Review;
+import bg.tuvarna.sit.wms.entities.StorageType;
+import bg.tuvarna.sit.wms.entities.Warehouse;
+import bg.tuvarna.sit.wms.enums.SearchDocumentType;
+import java.util.Set;
+import org.hibernate.Hibernate;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+
+/**
+ * Hibernate event listener keeping the search index of the open {@link SearchService} up to date.
+ * <p>
+ * The listener is registered by the {@link SearchIndexIntegrator} for the post-commit events, so Hibernate
+ * queues the changes of the indexed entities with the transaction and hands them over only once it has
+ * committed; the changes of a rolled-back transaction are dropped and never reach the index or its journal.
+ * Hibernate creates the listener itself, so it reaches the service through a static reference set while
+ * the service is open; without an open service, e.g. in tests, it does nothing. Texts which have not been
+ * loaded cannot have changed, so an update of a warehouse whose address is still a proxy, or of a review
+ * whose lazy description has not been read, leaves the index alone instead of loading them.
+ * A change of an address alone is picked up the next time its warehouse is saved or the index is rebuilt.
+ * </p>
+ */
+public class SearchIndexListener implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+        PostCommitDeleteEventListener {
+
+  private static final Set<Class<?>> INDEXED_ENTITIES = Set.of(Warehouse.class, StorageType.class, Review.class);
+
+  private static volatile SearchService service;
+
+  static void register(SearchService searchService) {
+    service = searchService;
+  }
+
+  static void unregister(SearchService searchService) {
+
+    if (service == searchService) {
+      service = null;
+    }
+  }
+
+  @Override
+  public void onPostInsert(PostInsertEvent event) {
+    save(event.getEntity());
+  }
+
+  @Override
+  public void onPostUpdate(PostUpdateEvent event) {
+    save(event.getEntity());
+  }
+
+  @Override
+  public void onPostDelete(PostDeleteEvent event) {
+    remove(event.getEntity());
+  }
+
+  @Override
+  public void onPostInsertCommitFailed(PostInsertEvent event) {
+    // The insert was rolled back, the index never saw it.
+  }
+
+  @Override
+  public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    // The update was rolled back, the index never saw it.
+  }
+
+  @Override
+  public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    // The delete was rolled back, the index never saw it.
+  }
+
+  @Override
+  public boolean requiresPostCommitHandling(EntityPersister persister) {
+    return INDEXED_ENTITIES.contains(persister.getMappedClass());
+  }
+
+  /**
+   * The misspelled predecessor of {@link #requiresPostCommitHandling(EntityPersister)}, still abstract in
+   * Hibernate 5.6.
+   */
+  @Override
+  @Deprecated
+  public boolean requiresPostCommitHanding(EntityPersister persister) {
+    return requiresPostCommitHandling(persister);
+  }
+
+  private static void save(Object entity) {
+
+    SearchService current = service;
+    if (current == null) {
+      return;
+    }
+
+    if (entity instanceof Warehouse warehouse) {
+      Address address = warehouse.getAddress();
+      if (address != null && Hibernate.isInitialized(address)) {
+        current.index(SearchDocumentType.WAREHOUSE, warehouse.getId(), address.getStreet(), address.getZipCode());
+      }
+    } else if (entity instanceof StorageType storageType) {
+      current.index(SearchDocumentType.STORAGE_TYPE, storageType.getId(), storageType.getTypeName(),
+              storageType.getDescription());
+    } else if (entity instanceof Review review && Hibernate.isPropertyInitialized(review, "description")) {
+      current.index(SearchDocumentType.REVIEW, review.getId(), review.getDescription());
+    }
+  }
+
+  private static void remove(Object entity) {
+
+    SearchService current = service;
+    if (current == null) {
+      return;
+    }
+
+    if (entity instanceof Warehouse warehouse) {
+      current.remove(SearchDocumentType.WAREHOUSE, warehouse.getId());
+    } else if (entity instanceof StorageType storageType) {
+      current.remove(SearchDocumentType.STORAGE_TYPE, storageType.getId());
+    } else if (entity instanceof Review review) {
+      current.remove(SearchDocumentType.REVIEW, review.getId());
+    }
+  }
+}
@@ -0,0 +1,348 @@
+package bg.tuvarna.sit.wms.search;
+
+import bg.tuvarna.sit.wms.dao.SearchDao;
+import bg.tuvarna.sit.wms.enums.SearchDocumentType;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Full-text search over the streets of the warehouses, the names and descriptions of the storage types
+ * and the descriptions of the reviews.
+ * <p>
+ * The {@link SearchIndex} lives in memory and is kept on local disk by a {@link SegmentStore}. Opening the
+ * service loads the stored segment, or builds the index from the database when there is none or when its
+ * number of documents or highest IDs no longer match the database, e.g. after a restored snapshot or a
+ * generated dataset. Afterwards the {@link SearchIndexListener} applies the changes of the indexed entities
+ * once their transaction has committed, and journals them; once the journal holds
+ * {@value #COMPACTION_THRESHOLD} updates it is merged into a new segment on a background thread. Changes
+ * made by other processes sharing the database are not seen until {@link #rebuild()}.
+ * </p>
+ * <p>
+ * Updates are serialized, searches run concurrently with them. Loading and rebuilding fill a new index
+ * without blocking the updates, which are recorded meanwhile and replayed onto the new index before it
+ * replaces the current one.
+ * </p>
+ */
+public class SearchService implements AutoCloseable {
+
+  private static final Logger LOGGER = LogManager.getLogger(SearchService.class);
+
+  public static final int COMPACTION_THRESHOLD = 10_000;
+  public static final Path DEFAULT_DIRECTORY = Paths.get("search-index");
+
+  private final SearchDao searchDao;
+  private final SegmentStore store;
+  private final Object rebuildLock = new Object();
+  private final AtomicBoolean compactionQueued = new AtomicBoolean();
+  private volatile SearchIndex index = new SearchIndex();
+  private List<Consumer<SearchIndex>> changesDuringRebuild;
+  private ExecutorService compactor;
+  private boolean open;
+
+  /**
+   * Constructs a search service.
+   *
+   * @param searchDao The DAO the index is built from.
+   * @param directory The directory the index is stored in.
+   */
+  public SearchService(SearchDao searchDao, Path directory) {
+
+    this.searchDao = searchDao;
+    this.store = new SegmentStore(directory);
+  }
+
+  /**
+   * Loads the stored index, or builds it from the database, and starts following the changes of the
+   * indexed entities. Subsequent calls have no effect.
+   */
+  public void open() {
+
+    synchronized (this) {
+      if (open) {
+        return;
+      }
+      compactor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "search-compaction");
+        thread.setDaemon(true);
+        return thread;
+      });
+      SearchIndexListener.register(this);
+      open = true;
+    }
+
+    synchronized (rebuildLock) {
+      long start = System.nanoTime();
+      recordChanges();
+      SearchIndex loaded = new SearchIndex();
+      if (load(loaded)) {
+        replaceIndex(loaded);
+        compactLater();
+        LOGGER.info("Search index with {} documents loaded in {} ms", loaded.size(),
+                (System.nanoTime() - start) / 1_000_000);
+      } else {
+        build();
+      }
+    }
+  }
+
+  /**
+   * Builds the index anew from the database and stores it. Searches and updates go on meanwhile.
+   */
+  public void rebuild() {
+
+    synchronized (rebuildLock) {
+      recordChanges();
+      build();
+    }
+  }
+
+  /**
+   * Deletes the index stored in a directory, so that the next {@link #open()} builds it from the database.
+   * Meant for a database whose rows were replaced while no service was open on the directory.
+   *
+   * @param directory The directory the index is stored in.
+   * @throws IOException If the stored index cannot be deleted.
+   */
+  public static void invalidate(Path directory) throws IOException {
+    new SegmentStore(directory).delete();
+  }
+
+  /**
+   * Finds the entities matching a free-text query.
+   *
+   * @param query The query.
+   * @param limit The maximum number of hits.
+   * @return The best hits, best first.
+   */
+  public List<SearchHit> search(String query, int limit) {
+    return index.search(query, limit);
+  }
+
+  /**
+   * Finds the entities of the given kinds matching a free-text query.
+   *
+   * @param query The query.
+   * @param limit The maximum number of hits.
+   * @param types The kinds of entities to find.
+   * @return The best hits, best first.
+   */
+  public List<SearchHit> search(String query, int limit, Set<SearchDocumentType> types) {
+    return index.search(query, limit, types);
+  }
+
+  /**
+   * Adds or replaces the document of an entity.
+   *
+   * @param type   The kind of the entity.
+   * @param id     The ID of the entity.
+   * @param fields The searchable texts of the entity.
+   */
+  public synchronized void index(SearchDocumentType type, long id, String... fields) {
+
+    index.put(type, id, fields);
+    if (changesDuringRebuild != null) {
+      changesDuringRebuild.add(target -> target.put(type, id, fields));
+    }
+    try {
+      store.appendPut(type, id, fields);
+      compactIfNeeded();
+    } catch (IOException e) {
+      LOGGER.warn("Search journal could not be written, the change is lost on restart", e);
+    }
+  }
+
+  /**
+   * Removes the document of an entity.
+   *
+   * @param type The kind of the entity.
+   * @param id   The ID of the entity.
+   */
+  public synchronized void remove(SearchDocumentType type, long id) {
+
+    if (changesDuringRebuild != null) {
+      changesDuringRebuild.add(target -> target.remove(type, id));
+    }
+    if (!index.remove(type, id)) {
+      return;
+    }
+    try {
+      store.appendRemove(type, id);
+      compactIfNeeded();
+    } catch (IOException e) {
+      LOGGER.warn("Search journal could not be written, the change is lost on restart", e);
+    }
+  }
+
+  /**
+   * Returns the number of indexed entities.
+   *
+   * @return The number of documents.
+   */
+  public int size() {
+    return index.size();
+  }
+
+  /**
+   * Stops following the changes of the entities and merges the journal into the stored segment.
+   */
+  @Override
+  public void close() {
+
+    ExecutorService stopping;
+    synchronized (this) {
+      if (!open) {
+        return;
+      }
+      SearchIndexListener.unregister(this);
+      open = false;
+      if (store.getJournalEntries() > 0) {
+        compactLater();
+      }
+      stopping = compactor;
+      compactor = null;
+    }
+
+    stopping.shutdown();
+    try {
+      if (!stopping.awaitTermination(1, TimeUnit.MINUTES)) {
+        LOGGER.warn("Search index is still being stored, the journal is merged on the next start");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    synchronized (this) {
+      try {
+        store.close();
+      } catch (IOException e) {
+        LOGGER.warn("Search journal could not be closed", e);
+      }
+    }
+  }
+
+  private boolean load(SearchIndex loaded) {
+
+    try {
+      synchronized (this) {
+        store.rotateJournal();
+      }
+      if (!store.load(loaded)) {
+        return false;
+      }
+    } catch (IOException e) {
+      LOGGER.warn("Search index could not be loaded, it is rebuilt", e);
+      return false;
+    }
+    return matchesDatabase(loaded);
+  }
+
+  private boolean matchesDatabase(SearchIndex loaded) {
+
+    SearchDocumentType[] types = SearchDocumentType.values();
+    long[] counts = new long[types.length];
+    long[] maxIds = new long[types.length];
+    loaded.forEachDocument((type, id, terms, frequencies) -> {
+      counts[type.ordinal()]++;
+      maxIds[type.ordinal()] = Math.max(maxIds[type.ordinal()], id);
+    });
+
+    for (SearchDocumentType type : types) {
+      SearchDao.Watermark watermark = searchDao.watermark(type);
+      if (watermark.count() != counts[type.ordinal()] || watermark.maxId() != maxIds[type.ordinal()]) {
+        LOGGER.info("Stored search index has {} {} documents up to ID {}, the database {} up to ID {}; "
+                + "it is rebuilt", counts[type.ordinal()], type, maxIds[type.ordinal()], watermark.count(),
+                watermark.maxId());
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void build() {
+
+    long start = System.nanoTime();
+    SearchIndex rebuilt = new SearchIndex();
+    try {
+      for (SearchDocumentType type : SearchDocumentType.values()) {
+        searchDao.forEachDocument(type, (id, fields) -> rebuilt.put(type, id, fields));
+      }
+    } catch (RuntimeException e) {
+      synchronized (this) {
+        changesDuringRebuild = null;
+      }
+      throw e;
+    }
+    replaceIndex(rebuilt);
+    compactLater();
+    LOGGER.info("Search index with {} documents and {} terms built in {} ms", rebuilt.size(), rebuilt.termCount(),
+            (System.nanoTime() - start) / 1_000_000);
+  }
+
+  private synchronized void recordChanges() {
+    changesDuringRebuild = new ArrayList<>();
+  }
+
+  private synchronized void replaceIndex(SearchIndex replacement) {
+
+    changesDuringRebuild.forEach(change -> change.accept(replacement));
+    changesDuringRebuild = null;
+    index = replacement;
+  }
+
+  private void compactIfNeeded() {
+
+    if (store.getJournalEntries() >= COMPACTION_THRESHOLD) {
+      compactLater();
+    }
+  }
+
+  /**
+   * Writes the current index as the new segment on the compaction thread, or right away when the service is
+   * not open. A compaction queued already covers the request, and while an index is loaded or rebuilt the
+   * segment is left alone until the new index replaces the current one.
+   */
+  private synchronized void compactLater() {
+
+    if (compactor == null) {
+      compact();
+      return;
+    }
+    if (!compactionQueued.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      compactor.execute(this::compact);
+    } catch (RejectedExecutionException e) {
+      compactionQueued.set(false);
+    }
+  }
+
+  private void compact() {
+
+    compactionQueued.set(false);
+    SearchIndex current;
+    try {
+      synchronized (this) {
+        if (changesDuringRebuild != null) {
+          return;
+        }
+        store.rotateJournal();
+        current = index;
+      }
+      store.writeSegment(current);
+    } catch (IOException e) {
+      LOGGER.warn("Search index could not be stored, its journal is merged by the next compaction", e);
+    }
+  }
+}
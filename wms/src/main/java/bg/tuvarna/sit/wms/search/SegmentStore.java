@@ -0,0 +1,307 @@
+package bg.tuvarna.sit.wms.search;
+
+import bg.tuvarna.sit.wms.enums.SearchDocumentType;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Keeps a {@link SearchIndex} on local disk as a segment and a journal.
+ * <p>
+ * The segment holds the tokenized documents of the whole index, its terms written once in a dictionary
+ * and referenced by number, so loading it rebuilds the index without tokenizing or reading the database.
+ * The journal holds the updates since the segment was written and is replayed on top of it. Before a new
+ * segment is written the journal is rotated, so that updates can go on being appended to a fresh journal
+ * while the segment is written from an index which already holds them; the rotated journal is deleted once
+ * the segment is in place. Replaying an update which the segment already holds changes nothing, so a crash
+ * at any point leaves a consistent segment and journals. The segment is first written to a temporary file
+ * and then moved over the previous one, so a crash leaves either the old or the new segment. A journal cut
+ * short by a crash is replayed up to its last complete update.
+ * </p>
+ * <p>
+ * The store is not thread-safe; the {@link SearchService} serializes the updates and the rotation of the
+ * journal, and writes one segment at a time.
+ * </p>
+ */
+public class SegmentStore implements AutoCloseable {
+
+  private static final Logger LOGGER = LogManager.getLogger(SegmentStore.class);
+
+  private static final int MAGIC = 0x57534958;
+  private static final int VERSION = 1;
+  private static final String SEGMENT_FILE = "segment.bin";
+  private static final String JOURNAL_FILE = "journal.bin";
+  private static final String ROTATED_JOURNAL_FILE = "journal.old.bin";
+  private static final byte PUT = 1;
+  private static final byte REMOVE = 2;
+
+  private static final SearchDocumentType[] TYPES = SearchDocumentType.values();
+
+  private final Path segment;
+  private final Path journalFile;
+  private final Path rotatedJournalFile;
+  private DataOutputStream journal;
+  private int journalEntries;
+
+  public SegmentStore(Path directory) {
+
+    this.segment = directory.resolve(SEGMENT_FILE);
+    this.journalFile = directory.resolve(JOURNAL_FILE);
+    this.rotatedJournalFile = directory.resolve(ROTATED_JOURNAL_FILE);
+  }
+
+  /**
+   * Fills the index with the stored segment and the updates of the rotated journal. The journal is expected to
+   * have been rotated with {@link #rotateJournal()} first, so that it is not read while it is appended to.
+   *
+   * @param index The index, cleared first.
+   * @return false if there is no readable segment of the current version; the index is left empty then.
+   * @throws IOException If the files cannot be read.
+   */
+  public boolean load(SearchIndex index) throws IOException {
+
+    index.clear();
+    if (!Files.exists(segment)) {
+      return false;
+    }
+
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment)))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        LOGGER.warn("Search segment {} has an unknown format and is ignored", segment);
+        return false;
+      }
+      String[] dictionary = new String[in.readInt()];
+      for (int i = 0; i < dictionary.length; i++) {
+        dictionary[i] = in.readUTF();
+      }
+      int documentCount = in.readInt();
+      for (int i = 0; i < documentCount; i++) {
+        SearchDocumentType type = TYPES[in.readUnsignedByte()];
+        long id = in.readLong();
+        String[] terms = new String[in.readInt()];
+        int[] frequencies = new int[terms.length];
+        for (int j = 0; j < terms.length; j++) {
+          terms[j] = dictionary[in.readInt()];
+          frequencies[j] = in.readInt();
+        }
+        index.putTerms(type, id, terms, frequencies);
+      }
+    } catch (EOFException | ArrayIndexOutOfBoundsException e) {
+      LOGGER.warn("Search segment {} is damaged and is ignored", segment, e);
+      index.clear();
+      return false;
+    }
+
+    int replayed = replayJournal(index);
+    LOGGER.debug("Search journal with {} updates replayed onto the segment", replayed);
+    return true;
+  }
+
+  /**
+   * Closes the journal and moves its updates to the rotated journal, so that the next update starts a new one.
+   * A rotated journal left by a segment which could not be written is kept, and the updates are appended to it.
+   *
+   * @throws IOException If the journal cannot be moved.
+   */
+  public void rotateJournal() throws IOException {
+
+    closeJournal();
+    if (Files.exists(journalFile)) {
+      if (Files.exists(rotatedJournalFile)) {
+        Files.write(rotatedJournalFile, Files.readAllBytes(journalFile), StandardOpenOption.APPEND);
+        Files.delete(journalFile);
+      } else {
+        Files.move(journalFile, rotatedJournalFile, StandardCopyOption.ATOMIC_MOVE);
+      }
+    }
+    journalEntries = 0;
+  }
+
+  /**
+   * Writes the whole index as the new segment and deletes the rotated journal. The index must hold every
+   * update of the rotated journal; the updates of the current journal are kept.
+   *
+   * @param index The index.
+   * @throws IOException If the segment cannot be written.
+   */
+  public void writeSegment(SearchIndex index) throws IOException {
+
+    Map<String, Integer> dictionary = new HashMap<>();
+    ByteArrayOutputStream documentBytes = new ByteArrayOutputStream();
+    DataOutputStream documents = new DataOutputStream(documentBytes);
+    int[] documentCount = new int[1];
+    IOException[] failure = new IOException[1];
+    index.forEachDocument((type, id, terms, frequencies) -> {
+      try {
+        documents.writeByte(type.ordinal());
+        documents.writeLong(id);
+        documents.writeInt(terms.length);
+        for (int i = 0; i < terms.length; i++) {
+          Integer number = dictionary.get(terms[i]);
+          if (number == null) {
+            number = dictionary.size();
+            dictionary.put(terms[i], number);
+          }
+          documents.writeInt(number);
+          documents.writeInt(frequencies[i]);
+        }
+        documentCount[0]++;
+      } catch (IOException e) {
+        failure[0] = e;
+      }
+    });
+    if (failure[0] != null) {
+      throw failure[0];
+    }
+
+    String[] terms = new String[dictionary.size()];
+    dictionary.forEach((term, number) -> terms[number] = term);
+
+    Files.createDirectories(segment.getParent());
+    Path temporary = segment.resolveSibling(SEGMENT_FILE + ".tmp");
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(terms.length);
+      for (String term : terms) {
+        out.writeUTF(term);
+      }
+      out.writeInt(documentCount[0]);
+      documentBytes.writeTo(out);
+    }
+    Files.move(temporary, segment, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+    Files.deleteIfExists(rotatedJournalFile);
+    LOGGER.debug("Search segment written with {} documents and {} terms", documentCount[0], terms.length);
+  }
+
+  /**
+   * Records an added or changed document in the journal.
+   *
+   * @param type   The kind of the entity.
+   * @param id     The ID of the entity.
+   * @param fields The searchable texts of the entity.
+   * @throws IOException If the journal cannot be written.
+   */
+  public void appendPut(SearchDocumentType type, long id, String... fields) throws IOException {
+
+    DataOutputStream out = journal();
+    out.writeByte(PUT);
+    out.writeByte(type.ordinal());
+    out.writeLong(id);
+    out.writeByte(fields.length);
+    for (String field : fields) {
+      out.writeUTF(field == null ? "" : field);
+    }
+    out.flush();
+    journalEntries++;
+  }
+
+  /**
+   * Records a removed document in the journal.
+   *
+   * @param type The kind of the entity.
+   * @param id   The ID of the entity.
+   * @throws IOException If the journal cannot be written.
+   */
+  public void appendRemove(SearchDocumentType type, long id) throws IOException {
+
+    DataOutputStream out = journal();
+    out.writeByte(REMOVE);
+    out.writeByte(type.ordinal());
+    out.writeLong(id);
+    out.flush();
+    journalEntries++;
+  }
+
+  /**
+   * Returns the number of updates journaled since the journal was last rotated.
+   *
+   * @return The number of journaled updates.
+   */
+  public int getJournalEntries() {
+    return journalEntries;
+  }
+
+  /**
+   * Deletes the segment and the journals, so that the index is built from the database the next time.
+   *
+   * @throws IOException If a file cannot be deleted.
+   */
+  public void delete() throws IOException {
+
+    closeJournal();
+    Files.deleteIfExists(segment);
+    Files.deleteIfExists(segment.resolveSibling(SEGMENT_FILE + ".tmp"));
+    Files.deleteIfExists(rotatedJournalFile);
+    Files.deleteIfExists(journalFile);
+    journalEntries = 0;
+  }
+
+  @Override
+  public void close() throws IOException {
+    closeJournal();
+  }
+
+  private int replayJournal(SearchIndex index) throws IOException {
+
+    if (!Files.exists(rotatedJournalFile)) {
+      return 0;
+    }
+    int entries = 0;
+    try (DataInputStream in =
+                 new DataInputStream(new BufferedInputStream(Files.newInputStream(rotatedJournalFile)))) {
+      while (true) {
+        int operation = in.read();
+        if (operation < 0) {
+          break;
+        }
+        SearchDocumentType type = TYPES[in.readUnsignedByte()];
+        long id = in.readLong();
+        if (operation == PUT) {
+          String[] fields = new String[in.readUnsignedByte()];
+          for (int i = 0; i < fields.length; i++) {
+            fields[i] = in.readUTF();
+          }
+          index.put(type, id, fields);
+        } else {
+          index.remove(type, id);
+        }
+        entries++;
+      }
+    } catch (EOFException | ArrayIndexOutOfBoundsException e) {
+      LOGGER.warn("Search journal {} ends with an incomplete update, which is dropped", rotatedJournalFile);
+    }
+    return entries;
+  }
+
+  private DataOutputStream journal() throws IOException {
+
+    if (journal == null) {
+      Files.createDirectories(journalFile.getParent());
+      journal = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(journalFile,
+              StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+    }
+    return journal;
+  }
+
+  private void closeJournal() throws IOException {
+
+    if (journal != null) {
+      journal.close();
+      journal = null;
+    }
+  }
+}
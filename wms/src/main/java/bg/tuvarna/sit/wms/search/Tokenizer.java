@@ -0,0 +1,72 @@
+package bg.tuvarna.sit.wms.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Splits text into the terms of the search index.
+ * <p>
+ * Text is folded to lower case without diacritics, so "Sofia", "SOFIA" and "S&oacute;fia" are the same term,
+ * and split at every character which is neither a letter nor a digit. Terms longer than
+ * {@value #MAX_TERM_LENGTH} characters are cut.
+ * </p>
+ */
+public final class Tokenizer {
+
+  public static final int MAX_TERM_LENGTH = 64;
+
+  private Tokenizer() {
+  }
+
+  /**
+   * Splits a text into its terms, in order and including repetitions.
+   *
+   * @param text The text, may be null.
+   * @return The terms of the text.
+   */
+  public static List<String> tokenize(String text) {
+
+    List<String> terms = new ArrayList<>();
+    if (text == null) {
+      return terms;
+    }
+    String folded = fold(text);
+    int start = -1;
+    for (int i = 0; i <= folded.length(); i++) {
+      boolean termCharacter = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+      if (termCharacter && start < 0) {
+        start = i;
+      } else if (!termCharacter && start >= 0) {
+        terms.add(folded.substring(start, Math.min(i, start + MAX_TERM_LENGTH)));
+        start = -1;
+      }
+    }
+    return terms;
+  }
+
+  /**
+   * Folds a text to lower case and strips its diacritics.
+   *
+   * @param text The text.
+   * @return The folded text.
+   */
+  public static String fold(String text) {
+
+    for (int i = 0; i < text.length(); i++) {
+      if (text.charAt(i) >= 0x80) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder folded = new StringBuilder(decomposed.length());
+        for (int j = 0; j < decomposed.length(); j++) {
+          char c = decomposed.charAt(j);
+          if (Character.getType(c) != Character.NON_SPACING_MARK) {
+            folded.append(c);
+          }
+        }
+        return folded.toString().toLowerCase(Locale.ROOT);
+      }
+    }
+    return text.toLowerCase(Locale.ROOT);
+  }
+}
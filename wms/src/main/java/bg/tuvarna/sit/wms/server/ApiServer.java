@@ -0,0 +1,501 @@
+package bg.tuvarna.sit.wms.server;
+
+import bg.tuvarna.sit.wms.analytics.AnalyticsService;
+import bg.tuvarna.sit.wms.dao.NotificationDao;
+import bg.tuvarna.sit.wms.dao.RentalAgreementDao;
+import bg.tuvarna.sit.wms.dto.LocationSuggestionDto;
+import bg.tuvarna.sit.wms.dto.UserRegistrationDto;
+import bg.tuvarna.sit.wms.dto.WarehouseListingDto;
+import bg.tuvarna.sit.wms.enums.Role;
+import bg.tuvarna.sit.wms.enums.SearchDocumentType;
+import bg.tuvarna.sit.wms.exceptions.RegistrationException;
+import bg.tuvarna.sit.wms.search.LocationAutocompleteService;
+import bg.tuvarna.sit.wms.search.SearchService;
+import bg.tuvarna.sit.wms.service.UserService;
+import bg.tuvarna.sit.wms.service.WarehouseService;
+import bg.tuvarna.sit.wms.session.SessionPrincipal;
+import bg.tuvarna.sit.wms.session.SessionRegistry;
+import bg.tuvarna.sit.wms.util.JpaUtil;
+import bg.tuvarna.sit.wms.util.JsonCodec;
+import bg.tuvarna.sit.wms.util.TaskExecutors;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import lombok.AccessLevel;
+import lombok.Setter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A headless HTTP/JSON front end for the services, built on the HTTP server of the JDK.
+ * <p>
+ * Every request is handled on its own virtual thread when the runtime provides them, otherwise on a
+ * pool of platform threads as large as the connection pool, see {@link TaskExecutors}. When all of them are
+ * busy and as many requests are waiting, further requests are answered with {@code 503} right away instead of
+ * piling up. All requests share the services, and with them the single
+ * EntityManagerFactory, its second-level state and its connection pool, so a thin client pays neither
+ * the startup of Hibernate nor the opening of connections.
+ * </p>
+ * <p>
+ * A client logs in with {@code POST /api/login} and sends the returned token as
+ * {@code Authorization: Bearer <token>} with the other requests; the sessions are kept in a
+ * {@link SessionRegistry}. The endpoints are:
+ * </p>
+ * <ul>
+ *   <li>{@code POST /api/login} with {@code {"email", "password"}}, returns the token and the principal</li>
+ *   <li>{@code POST /api/logout}</li>
+ *   <li>{@code POST /api/register} with the fields of {@link UserRegistrationDto}</li>
+ *   <li>{@code GET /api/warehouses?offset=&limit=&after=}, a page of warehouse listings; {@code after} is the
+ *   ID of the last listing of the previous page and makes the lookup independent of the position</li>
+ *   <li>{@code GET /api/warehouses/count}</li>
+ *   <li>{@code GET /api/rental-agreements}, the agreements of the logged-in user</li>
+ *   <li>{@code GET /api/notifications}, the notifications of the logged-in user</li>
+ *   <li>{@code GET /api/search?q=&limit=&type=}, a full-text search; {@code type} is a comma-separated list
+ *   of {@link SearchDocumentType}s</li>
+ *   <li>{@code GET /api/locations/cities?q=&limit=} and {@code GET /api/locations/countries?q=&limit=}, the
+ *   location suggestions for a typed prefix</li>
+ *   <li>{@code GET /api/analytics/occupancy}, {@code GET /api/analytics/price-per-square-meter} and
+ *   {@code GET /api/analytics/revenue?from=&to=} (months as {@code yyyy-MM}), the portfolio aggregations of
+ *   the {@link AnalyticsService}, for administrators only</li>
+ *   <li>{@code POST /api/rebuild}, rebuilds the search index, the location suggestions and the analytics from
+ *   the database, e.g. after a snapshot was restored into it; for administrators only</li>
+ * </ul>
+ * <p>
+ * Errors are answered with {@code {"error": "<message>"}} and the matching status code.
+ * </p>
+ */
+public class ApiServer implements AutoCloseable {
+
+  private static final Logger LOGGER = LogManager.getLogger(ApiServer.class);
+
+  public static final int MAX_PAGE_SIZE = 500;
+
+  private static final int DEFAULT_PAGE_SIZE = 50;
+  private static final int MAX_BODY_BYTES = 64 * 1024;
+  private static final String JSON_TYPE = "application/json; charset=utf-8";
+  private static final String BEARER = "Bearer ";
+  private static final ThreadLocal<Boolean> OVERLOADED = ThreadLocal.withInitial(() -> false);
+
+  private final UserService userService;
+  private final WarehouseService warehouseService;
+  private final RentalAgreementDao rentalAgreementDao;
+  private final NotificationDao notificationDao;
+  private final SessionRegistry sessionRegistry;
+  private final SearchService searchService;
+  private final LocationAutocompleteService locationAutocompleteService;
+  private final AnalyticsService analyticsService;
+
+  /**
+   * The number of requests handled at the same time without virtual threads.
+   */
+  @Setter(AccessLevel.PACKAGE)
+  private int maxConcurrentRequests = JpaUtil.getPoolSize();
+
+  /**
+   * The number of requests waiting for a thread without virtual threads.
+   */
+  @Setter(AccessLevel.PACKAGE)
+  private int queuedRequests = JpaUtil.getPoolSize();
+
+  private HttpServer server;
+  private ExecutorService executor;
+
+  public ApiServer(UserService userService, WarehouseService warehouseService, RentalAgreementDao rentalAgreementDao,
+                   NotificationDao notificationDao, SessionRegistry sessionRegistry, SearchService searchService,
+                   LocationAutocompleteService locationAutocompleteService, AnalyticsService analyticsService) {
+
+    this.userService = userService;
+    this.warehouseService = warehouseService;
+    this.rentalAgreementDao = rentalAgreementDao;
+    this.notificationDao = notificationDao;
+    this.sessionRegistry = sessionRegistry;
+    this.searchService = searchService;
+    this.locationAutocompleteService = locationAutocompleteService;
+    this.analyticsService = analyticsService;
+  }
+
+  /**
+   * Starts listening on the given address.
+   *
+   * @param address The address to listen on, port 0 picks a free port.
+   * @return This server.
+   * @throws IOException           If the address cannot be bound.
+   * @throws IllegalStateException If the server has been started already.
+   */
+  public synchronized ApiServer start(InetSocketAddress address) throws IOException {
+
+    if (server != null) {
+      throw new IllegalStateException("The server has been started already");
+    }
+    server = HttpServer.create(address, 0);
+    executor = TaskExecutors.newPerTaskExecutor("api-request-", maxConcurrentRequests, queuedRequests);
+    server.setExecutor(this::dispatch);
+    server.createContext("/api/login", exchange -> handle(exchange, "POST", false, this::login));
+    server.createContext("/api/logout", exchange -> handle(exchange, "POST", true, this::logout));
+    server.createContext("/api/register", exchange -> handle(exchange, "POST", false, this::register));
+    server.createContext("/api/warehouses", exchange -> handle(exchange, "GET", true, this::warehouses));
+    server.createContext("/api/rental-agreements", exchange -> handle(exchange, "GET", true,
+            request -> rentalAgreementDao.findListingsByUser(request.principal.userId())));
+    server.createContext("/api/notifications", exchange -> handle(exchange, "GET", true,
+            request -> notificationDao.findByUser(request.principal.userId())));
+    server.createContext("/api/search", exchange -> handle(exchange, "GET", true, this::search));
+    server.createContext("/api/locations", exchange -> handle(exchange, "GET", true, this::locations));
+    server.createContext("/api/analytics", exchange -> handle(exchange, "GET", true, this::analytics));
+    server.createContext("/api/rebuild", exchange -> handle(exchange, "POST", true, this::rebuild));
+    server.start();
+    LOGGER.info("API server listening on {}", server.getAddress());
+    return this;
+  }
+
+  /**
+   * Returns the port the server listens on.
+   *
+   * @return The port.
+   * @throws IllegalStateException If the server has not been started.
+   */
+  public synchronized int getPort() {
+
+    if (server == null) {
+      throw new IllegalStateException("The server has not been started");
+    }
+    return server.getAddress().getPort();
+  }
+
+  /**
+   * Stops accepting requests, giving the running ones a second to finish.
+   */
+  @Override
+  public synchronized void close() {
+
+    if (server == null) {
+      return;
+    }
+    server.stop(1);
+    executor.shutdown();
+    try {
+      if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+        executor.shutdownNow();
+      }
+    } catch (InterruptedException e) {
+      executor.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
+    server = null;
+    LOGGER.info("API server stopped");
+  }
+
+  private Object login(Request request) throws HttpError, IOException {
+
+    Map<String, Object> credentials = request.jsonBody();
+    String email = JsonCodec.string(credentials, "email");
+    String password = JsonCodec.string(credentials, "password");
+    if (email == null || password == null) {
+      throw new HttpError(400, "The email and the password are required.");
+    }
+
+    SessionPrincipal principal = userService.authenticate(email, password)
+            .orElseThrow(() -> new HttpError(401, "Invalid email or password."));
+    return Map.of("token", sessionRegistry.open(principal), "user", principal);
+  }
+
+  private Object logout(Request request) {
+
+    sessionRegistry.close(request.token);
+    return Map.of();
+  }
+
+  private Object register(Request request) throws HttpError, IOException {
+
+    UserRegistrationDto registrationDto = JsonCodec.readRegistration(request.body());
+    if (registrationDto.getRole() == null) {
+      throw new HttpError(400, "Invalid role provided for user registration.");
+    }
+    try {
+      userService.registerUser(registrationDto);
+    } catch (RegistrationException e) {
+      throw new HttpError(400, e.getMessage());
+    }
+    request.status = 201;
+    return Map.of();
+  }
+
+  private Object warehouses(Request request) throws HttpError {
+
+    String path = request.exchange.getRequestURI().getPath();
+    if (path.equals("/api/warehouses/count")) {
+      return Map.of("count", warehouseService.countListings());
+    }
+    if (!path.equals("/api/warehouses") && !path.equals("/api/warehouses/")) {
+      throw new HttpError(404, "Not found.");
+    }
+
+    Map<String, String> query = request.query();
+    int offset = intParameter(query, "offset", 0, 0, Integer.MAX_VALUE);
+    int limit = intParameter(query, "limit", DEFAULT_PAGE_SIZE, 1, MAX_PAGE_SIZE);
+    String after = query.get("after");
+    List<WarehouseListingDto> listings = after == null
+            ? warehouseService.findListingsPage(offset, limit, null)
+            : warehouseService.findListingsAfter(longParameter("after", after), limit);
+    return Map.of("items", listings);
+  }
+
+  private Object search(Request request) {
+
+    Map<String, String> query = request.query();
+    int limit = intParameter(query, "limit", DEFAULT_PAGE_SIZE, 1, MAX_PAGE_SIZE);
+    Set<SearchDocumentType> types = EnumSet.allOf(SearchDocumentType.class);
+    String type = query.get("type");
+    if (type != null && !type.isEmpty()) {
+      types.clear();
+      for (String name : type.split(",")) {
+        types.add(SearchDocumentType.valueOf(name.trim().toUpperCase(Locale.ROOT)));
+      }
+    }
+    return Map.of("items", searchService.search(query.getOrDefault("q", ""), limit, types));
+  }
+
+  private Object locations(Request request) throws HttpError {
+
+    Map<String, String> query = request.query();
+    String prefix = query.getOrDefault("q", "");
+    int limit = intParameter(query, "limit", LocationAutocompleteService.MAX_SUGGESTIONS, 1,
+            LocationAutocompleteService.MAX_SUGGESTIONS);
+    List<LocationSuggestionDto> suggestions = switch (request.exchange.getRequestURI().getPath()) {
+      case "/api/locations/cities" -> locationAutocompleteService.suggestCities(prefix, limit);
+      case "/api/locations/countries" -> locationAutocompleteService.suggestCountries(prefix, limit);
+      default -> throw new HttpError(404, "Not found.");
+    };
+    return Map.of("items", suggestions);
+  }
+
+  private Object rebuild(Request request) throws HttpError {
+
+    if (request.principal.role() != Role.ADMIN) {
+      throw new HttpError(403, "Administrators only.");
+    }
+    searchService.rebuild();
+    locationAutocompleteService.refresh();
+    analyticsService.rebuild();
+    return Map.of("searchDocuments", searchService.size());
+  }
+
+  private Object analytics(Request request) throws HttpError {
+
+    if (request.principal.role() != Role.ADMIN) {
+      throw new HttpError(403, "Administrators only.");
+    }
+    return switch (request.exchange.getRequestURI().getPath()) {
+      case "/api/analytics/occupancy" -> Map.of("items", analyticsService.occupancyByCityAndClimate());
+      case "/api/analytics/price-per-square-meter" ->
+              Map.of("items", analyticsService.averagePricePerSquareMeterByStorageType());
+      case "/api/analytics/revenue" -> {
+        Map<String, String> query = request.query();
+        YearMonth to = monthParameter(query, "to", YearMonth.now());
+        YearMonth from = monthParameter(query, "from", to.minusMonths(11));
+        yield Map.of("items", analyticsService.revenueByMonth(from, to));
+      }
+      default -> throw new HttpError(404, "Not found.");
+    };
+  }
+
+  /**
+   * Hands an exchange to the request executor. An exchange the executor rejects is run on the dispatcher thread
+   * of the HTTP server instead, which only answers it with {@code 503}.
+   */
+  private void dispatch(Runnable exchange) {
+
+    try {
+      executor.execute(exchange);
+    } catch (RejectedExecutionException e) {
+      OVERLOADED.set(true);
+      try {
+        exchange.run();
+      } finally {
+        OVERLOADED.remove();
+      }
+    }
+  }
+
+  private void handle(HttpExchange exchange, String method, boolean authenticated, Handler handler) {
+
+    try (exchange) {
+      Request request = new Request(exchange);
+      Object response;
+      try {
+        if (OVERLOADED.get()) {
+          exchange.getResponseHeaders().set("Retry-After", "1");
+          throw new HttpError(503, "The server is busy, try again later.");
+        }
+        if (!method.equals(exchange.getRequestMethod())) {
+          exchange.getResponseHeaders().set("Allow", method);
+          throw new HttpError(405, "Method not allowed.");
+        }
+        if (authenticated) {
+          request.authenticate();
+        }
+        response = handler.handle(request);
+      } catch (HttpError e) {
+        request.status = e.status;
+        response = Map.of("error", e.getMessage());
+      } catch (IllegalArgumentException e) {
+        request.status = 400;
+        response = Map.of("error", e.getMessage());
+      } catch (RuntimeException e) {
+        LOGGER.error("Request {} {} failed", exchange.getRequestMethod(), exchange.getRequestURI(), e);
+        request.status = 500;
+        response = Map.of("error", "Internal server error.");
+      }
+      send(exchange, request.status, response);
+    } catch (IOException e) {
+      LOGGER.debug("Response to {} could not be sent", exchange.getRequestURI(), e);
+    }
+  }
+
+  private static void send(HttpExchange exchange, int status, Object response) throws IOException {
+
+    byte[] body = JsonCodec.write(response).getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", JSON_TYPE);
+    exchange.sendResponseHeaders(status, body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+
+  private static int intParameter(Map<String, String> query, String name, int defaultValue, int min, int max) {
+
+    String value = query.get(name);
+    if (value == null) {
+      return defaultValue;
+    }
+    long number = longParameter(name, value);
+    if (number < min || number > max) {
+      throw new IllegalArgumentException("The parameter '" + name + "' must be between " + min + " and " + max);
+    }
+    return (int) number;
+  }
+
+  private static YearMonth monthParameter(Map<String, String> query, String name, YearMonth defaultValue) {
+
+    String value = query.get(name);
+    if (value == null) {
+      return defaultValue;
+    }
+    try {
+      return YearMonth.parse(value);
+    } catch (DateTimeParseException e) {
+      throw new IllegalArgumentException("The parameter '" + name + "' must be a month as yyyy-MM");
+    }
+  }
+
+  private static long longParameter(String name, String value) {
+
+    try {
+      return Long.parseLong(value);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("The parameter '" + name + "' must be a number");
+    }
+  }
+
+  @FunctionalInterface
+  private interface Handler {
+
+    Object handle(Request request) throws HttpError, IOException;
+  }
+
+  /**
+   * The state of a request while it is handled.
+   */
+  private final class Request {
+
+    private final HttpExchange exchange;
+    private int status = 200;
+    private String token;
+    private SessionPrincipal principal;
+
+    private Request(HttpExchange exchange) {
+      this.exchange = exchange;
+    }
+
+    private void authenticate() throws HttpError {
+
+      String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+      if (authorization != null && authorization.startsWith(BEARER)) {
+        token = authorization.substring(BEARER.length()).trim();
+      }
+      Optional<SessionPrincipal> found = sessionRegistry.find(token);
+      if (found.isEmpty()) {
+        exchange.getResponseHeaders().set("WWW-Authenticate", "Bearer");
+        throw new HttpError(401, "Authentication required.");
+      }
+      principal = found.get();
+    }
+
+    private String body() throws HttpError, IOException {
+
+      ByteArrayOutputStream body = new ByteArrayOutputStream();
+      try (InputStream in = exchange.getRequestBody()) {
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+          if (body.size() + read > MAX_BODY_BYTES) {
+            throw new HttpError(413, "The request body is too large.");
+          }
+          body.write(buffer, 0, read);
+        }
+      }
+      return body.toString(StandardCharsets.UTF_8);
+    }
+
+    private Map<String, Object> jsonBody() throws HttpError, IOException {
+      return JsonCodec.parseObject(body());
+    }
+
+    private Map<String, String> query() {
+
+      Map<String, String> parameters = new HashMap<>();
+      String query = exchange.getRequestURI().getRawQuery();
+      if (query == null || query.isEmpty()) {
+        return parameters;
+      }
+      for (String pair : query.split("&")) {
+        int separator = pair.indexOf('=');
+        String name = separator < 0 ? pair : pair.substring(0, separator);
+        String value = separator < 0 ? "" : pair.substring(separator + 1);
+        parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+      }
+      return parameters;
+    }
+  }
+
+  /**
+   * Ends a request with an error status.
+   */
+  private static final class HttpError extends Exception {
+
+    private final int status;
+
+    private HttpError(int status, String message) {
+
+      super(message);
+      this.status = status;
+    }
+  }
+}
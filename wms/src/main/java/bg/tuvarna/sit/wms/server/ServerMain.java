@@ -0,0 +1,64 @@
+package bg.tuvarna.sit.wms.server;
+
+import bg.tuvarna.sit.wms.bootstrap.ApplicationBootstrap;
+import bg.tuvarna.sit.wms.context.ApplicationContext;
+import bg.tuvarna.sit.wms.session.SessionRegistry;
+import bg.tuvarna.sit.wms.util.JpaUtil;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Runs the application headless, serving the {@link ApiServer} instead of the JavaFX views.
+ * <p>
+ * The database is configured by the same environment variables as the desktop application, see
+ * {@link JpaUtil}. {@code SERVER_HOST} and {@code SERVER_PORT} select the address to listen on,
+ * {@code 0.0.0.0:8080} by default. The server starts accepting requests once the bootstrap phases have
+ * completed, so the first client already finds a migrated schema and a warm EntityManagerFactory.
+ * </p>
+ */
+public final class ServerMain {
+
+  private static final Logger LOGGER = LogManager.getLogger(ServerMain.class);
+
+  private static final int DEFAULT_PORT = 8080;
+
+  private ServerMain() {
+  }
+
+  public static void main(String[] args) throws IOException {
+
+    ApplicationBootstrap.start();
+    ApplicationBootstrap.getReadiness().join();
+
+    String host = System.getenv("SERVER_HOST");
+    String port = System.getenv("SERVER_PORT");
+    InetSocketAddress address = new InetSocketAddress(host == null ? "0.0.0.0" : host,
+            port == null ? DEFAULT_PORT : Integer.parseInt(port));
+
+    ApiServer server = ApplicationContext.getCONTAINER().get(ApiServer.class).start(address);
+    SessionRegistry sessionRegistry = ApplicationContext.getCONTAINER().get(SessionRegistry.class);
+
+    ScheduledExecutorService evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "session-evictor");
+      thread.setDaemon(true);
+      return thread;
+    });
+    evictor.scheduleWithFixedDelay(() -> {
+      int evicted = sessionRegistry.evictExpired();
+      if (evicted > 0) {
+        LOGGER.debug("Evicted {} expired sessions", evicted);
+      }
+    }, 1, 1, TimeUnit.MINUTES);
+
+    Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+      evictor.shutdownNow();
+      server.close();
+      JpaUtil.close();
+    }, "server-shutdown"));
+  }
+}
@@ -27,29 +27,29 @@ public class CredentialManagerService {
 
   private static final Logger LOGGER = LogManager.getLogger(CredentialManagerService.class);
 
+  /**
+   * The file holding the key the credentials are encrypted with, generated by the application bootstrap on
+   * first run.
+   */
+  public static final String ENCRYPTION_KEY_FILE = "encryption.key";
+
   @Setter(value = AccessLevel.PACKAGE)
   private String CREDENTIALS_FILE = System.getenv().get("SSO_CREDENTIALS_FILE");
 
   @Setter(value = AccessLevel.PACKAGE)
-  private SecretKey key;
+  private volatile SecretKey key;
 
   private final EncryptionService encryptionService;
 
   /**
    * Constructs a CredentialManagerService with a provided EncryptionService.
-   * Attempts to load the encryption key from a file. If the key cannot be loaded,
-   * a RuntimeException is thrown.
+   * The encryption key is loaded from its file on first use, as the file may still be
+   * generated by the application bootstrap when the service is created.
    *
    * @param encryptionService The encryption service used for encrypting and decrypting credentials.
-   * @throws RuntimeException If an IOException occurs while loading the encryption key.
    */
   public CredentialManagerService(EncryptionService encryptionService) {
     this.encryptionService = encryptionService;
-    try {
-      key = KeyUtil.loadSecretKey("encryption.key", "AES");
-    } catch (IOException e) {
-      throw new RuntimeException(e);
-    }
   }
 
   /**
@@ -62,6 +62,7 @@ public class CredentialManagerService {
    */
   public void saveCredentials(String email, String password) throws CredentialSavingException {
     try {
+      SecretKey key = getKey();
       String encryptedEmail = encryptionService.encrypt(email, key);
       String encryptedPassword = encryptionService.encrypt(password, key);
       String timestamp = Long.toString(Instant.now().getEpochSecond());
@@ -86,6 +87,7 @@ public class CredentialManagerService {
         return Optional.empty();
       }
 
+      SecretKey key = getKey();
       String decryptedEmail = encryptionService.decrypt(lines.get(0), key);
       String decryptedPassword = encryptionService.decrypt(lines.get(1), key);
       long timestamp = Long.parseLong(lines.get(2));
@@ -101,5 +103,18 @@ public class CredentialManagerService {
       return Optional.empty();
     }
   }
-}
 
+  /**
+   * Returns the encryption key, loading it from its file on first use.
+   *
+   * @return The encryption key.
+   * @throws IOException If the key file cannot be read.
+   */
+  private synchronized SecretKey getKey() throws IOException {
+
+    if (key == null) {
+      key = KeyUtil.loadSecretKey(ENCRYPTION_KEY_FILE, "AES");
+    }
+    return key;
+  }
+}
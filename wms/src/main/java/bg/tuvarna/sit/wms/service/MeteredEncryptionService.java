@@ -0,0 +1,54 @@
+package bg.tuvarna.sit.wms.service;
+
+import bg.tuvarna.sit.wms.metrics.LatencyHistogram;
+import bg.tuvarna.sit.wms.metrics.MetricsRegistry;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import javax.crypto.BadPaddingException;
+import javax.crypto.IllegalBlockSizeException;
+import javax.crypto.NoSuchPaddingException;
+import javax.crypto.SecretKey;
+
+/**
+ * An {@link EncryptionService} recording the latency of every operation in the {@link MetricsRegistry},
+ * under {@code encryption.<operation>}.
+ */
+public class MeteredEncryptionService extends EncryptionService {
+
+  private final LatencyHistogram generateKey;
+  private final LatencyHistogram encrypt;
+  private final LatencyHistogram decrypt;
+
+  public MeteredEncryptionService(MetricsRegistry metricsRegistry) {
+
+    generateKey = metricsRegistry.histogram("encryption.generateKey");
+    encrypt = metricsRegistry.histogram("encryption.encrypt");
+    decrypt = metricsRegistry.histogram("encryption.decrypt");
+  }
+
+  @Override
+  public SecretKey generateKey() throws NoSuchAlgorithmException {
+
+    try (LatencyHistogram.Timing timing = generateKey.time()) {
+      return timing.succeeded(super.generateKey());
+    }
+  }
+
+  @Override
+  public String encrypt(String value, SecretKey key) throws NoSuchPaddingException,
+          NoSuchAlgorithmException, InvalidKeyException, IllegalBlockSizeException, BadPaddingException {
+
+    try (LatencyHistogram.Timing timing = encrypt.time()) {
+      return timing.succeeded(super.encrypt(value, key));
+    }
+  }
+
+  @Override
+  public String decrypt(String value, SecretKey key) throws NoSuchPaddingException,
+          NoSuchAlgorithmException, InvalidKeyException, IllegalBlockSizeException, BadPaddingException {
+
+    try (LatencyHistogram.Timing timing = decrypt.time()) {
+      return timing.succeeded(super.decrypt(value, key));
+    }
+  }
+}
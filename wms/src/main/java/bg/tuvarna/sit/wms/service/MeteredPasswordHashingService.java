@@ -0,0 +1,40 @@
+package bg.tuvarna.sit.wms.service;
+
+import bg.tuvarna.sit.wms.metrics.LatencyHistogram;
+import bg.tuvarna.sit.wms.metrics.MetricsRegistry;
+import java.security.NoSuchAlgorithmException;
+import java.security.spec.InvalidKeySpecException;
+
+/**
+ * A {@link PasswordHashingService} recording the latency of hashing and validating passwords
+ * in the {@link MetricsRegistry}, under {@code passwordHashing.<operation>}. The hex encoding, a step of both, is
+ * not metered on its own.
+ */
+public class MeteredPasswordHashingService extends PasswordHashingService {
+
+  private final LatencyHistogram generateStrongPasswordHash;
+  private final LatencyHistogram validatePassword;
+
+  public MeteredPasswordHashingService(MetricsRegistry metricsRegistry) {
+
+    generateStrongPasswordHash = metricsRegistry.histogram("passwordHashing.generateStrongPasswordHash");
+    validatePassword = metricsRegistry.histogram("passwordHashing.validatePassword");
+  }
+
+  @Override
+  String generateStrongPasswordHash(String password) throws NoSuchAlgorithmException, InvalidKeySpecException {
+
+    try (LatencyHistogram.Timing timing = generateStrongPasswordHash.time()) {
+      return timing.succeeded(super.generateStrongPasswordHash(password));
+    }
+  }
+
+  @Override
+  boolean validatePassword(String originalPassword, String storedPasswordHash)
+          throws NoSuchAlgorithmException, InvalidKeySpecException {
+
+    try (LatencyHistogram.Timing timing = validatePassword.time()) {
+      return timing.succeeded(super.validatePassword(originalPassword, storedPasswordHash));
+    }
+  }
+}
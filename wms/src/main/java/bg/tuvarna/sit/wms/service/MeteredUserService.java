@@ -0,0 +1,125 @@
+package bg.tuvarna.sit.wms.service;
+
+import bg.tuvarna.sit.wms.audit.AuditLog;
+import bg.tuvarna.sit.wms.dao.UserDao;
+import bg.tuvarna.sit.wms.dto.UserRegistrationDto;
+import bg.tuvarna.sit.wms.entities.User;
+import bg.tuvarna.sit.wms.exceptions.RegistrationException;
+import bg.tuvarna.sit.wms.metrics.Counter;
+import bg.tuvarna.sit.wms.metrics.LatencyHistogram;
+import bg.tuvarna.sit.wms.metrics.MetricsRegistry;
+import bg.tuvarna.sit.wms.session.SessionPrincipal;
+import java.security.NoSuchAlgorithmException;
+import java.security.spec.InvalidKeySpecException;
+import java.util.Optional;
+
+/**
+ * A {@link UserService} recording the latency of every operation in the {@link MetricsRegistry},
+ * under {@code userService.<operation>}. Rejected logins are counted under
+ * {@code userService.login.rejected}, {@code userService.loginWithSso.rejected} and
+ * {@code userService.authenticate.rejected}.
+ */
+public class MeteredUserService extends UserService {
+
+  private final LatencyHistogram login;
+  private final LatencyHistogram loginWithSso;
+  private final LatencyHistogram authenticate;
+  private final Counter rejectedLogins;
+  private final Counter rejectedSsoLogins;
+  private final Counter rejectedAuthentications;
+  private final LatencyHistogram registerUser;
+  private final LatencyHistogram initializeAdministrators;
+  private final LatencyHistogram logout;
+  private final LatencyHistogram loadUser;
+
+  public MeteredUserService(UserDao userDao, PasswordHashingService passwordHashingService, AuditLog auditLog,
+                            MetricsRegistry metricsRegistry) {
+
+    super(userDao, passwordHashingService, auditLog);
+    login = metricsRegistry.histogram("userService.login");
+    loginWithSso = metricsRegistry.histogram("userService.loginWithSso");
+    rejectedLogins = metricsRegistry.counter("userService.login.rejected");
+    rejectedSsoLogins = metricsRegistry.counter("userService.loginWithSso.rejected");
+    authenticate = metricsRegistry.histogram("userService.authenticate");
+    rejectedAuthentications = metricsRegistry.counter("userService.authenticate.rejected");
+    registerUser = metricsRegistry.histogram("userService.registerUser");
+    initializeAdministrators = metricsRegistry.histogram("userService.initializeAdministrators");
+    logout = metricsRegistry.histogram("userService.logout");
+    loadUser = metricsRegistry.histogram("userService.loadUser");
+  }
+
+  @Override
+  public boolean login(String email, String password) {
+
+    boolean successful;
+    try (LatencyHistogram.Timing timing = login.time()) {
+      successful = timing.succeeded(super.login(email, password));
+    }
+    if (!successful) {
+      rejectedLogins.increment();
+    }
+    return successful;
+  }
+
+  @Override
+  public boolean loginWithSso(String email, String password) {
+
+    boolean successful;
+    try (LatencyHistogram.Timing timing = loginWithSso.time()) {
+      successful = timing.succeeded(super.loginWithSso(email, password));
+    }
+    if (!successful) {
+      rejectedSsoLogins.increment();
+    }
+    return successful;
+  }
+
+  @Override
+  public Optional<SessionPrincipal> authenticate(String email, String password) {
+
+    Optional<SessionPrincipal> principal;
+    try (LatencyHistogram.Timing timing = authenticate.time()) {
+      principal = timing.succeeded(super.authenticate(email, password));
+    }
+    if (principal.isEmpty()) {
+      rejectedAuthentications.increment();
+    }
+    return principal;
+  }
+
+  @Override
+  public void registerUser(UserRegistrationDto registrationDto) throws RegistrationException {
+
+    try (LatencyHistogram.Timing timing = registerUser.time()) {
+      super.registerUser(registrationDto);
+      timing.succeeded();
+    }
+  }
+
+  @Override
+  public void initializeAdministrators()
+          throws RegistrationException, InvalidKeySpecException, NoSuchAlgorithmException {
+
+    try (LatencyHistogram.Timing timing = initializeAdministrators.time()) {
+      super.initializeAdministrators();
+      timing.succeeded();
+    }
+  }
+
+  @Override
+  public void logout() {
+
+    try (LatencyHistogram.Timing timing = logout.time()) {
+      super.logout();
+      timing.succeeded();
+    }
+  }
+
+  @Override
+  public Optional<User> loadUser(SessionPrincipal principal) {
+
+    try (LatencyHistogram.Timing timing = loadUser.time()) {
+      return timing.succeeded(super.loadUser(principal));
+    }
+  }
+}
@@ -1,17 +1,23 @@
 package bg.tuvarna.sit.wms.service;
 
+import bg.tuvarna.sit.wms.audit.AuditLog;
 import bg.tuvarna.sit.wms.dao.UserDao;
 import bg.tuvarna.sit.wms.dto.UserRegistrationDto;
 import bg.tuvarna.sit.wms.entities.Agent;
 import bg.tuvarna.sit.wms.entities.Owner;
 import bg.tuvarna.sit.wms.entities.Tenant;
 import bg.tuvarna.sit.wms.entities.User;
+import bg.tuvarna.sit.wms.enums.AuditEventType;
 import bg.tuvarna.sit.wms.enums.Role;
 import bg.tuvarna.sit.wms.exceptions.RegistrationException;
 import bg.tuvarna.sit.wms.exceptions.UserPersistenceException;
+import bg.tuvarna.sit.wms.session.SessionPrincipal;
 import bg.tuvarna.sit.wms.session.UserSession;
+import bg.tuvarna.sit.wms.validation.Validator;
+import bg.tuvarna.sit.wms.validation.Violation;
 import java.security.NoSuchAlgorithmException;
 import java.security.spec.InvalidKeySpecException;
+import java.util.Locale;
 import java.util.Optional;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -25,23 +31,36 @@ public class UserService {
 
   private final UserDao userDao;
   private final PasswordHashingService passwordHashingService;
+  private final AuditLog auditLog;
 
   private static final Logger LOGGER = LogManager.getLogger(UserService.class);
 
   public UserService(UserDao userDao, PasswordHashingService passwordHashingService) {
 
+    this(userDao, passwordHashingService, AuditLog.disabled());
+  }
+
+  public UserService(UserDao userDao, PasswordHashingService passwordHashingService, AuditLog auditLog) {
+
     this.userDao = userDao;
     this.passwordHashingService = passwordHashingService;
+    this.auditLog = auditLog;
   }
 
   /**
    * Registers a new user based on the provided registration data.
+   * The data is checked against the same rules as the registration form before any lookup.
    *
    * @param registrationDto Data Transfer Object containing user registration details.
    * @throws RegistrationException if there is a problem with user registration, such as invalid input or persistence errors.
    */
   public void registerUser(UserRegistrationDto registrationDto) throws RegistrationException {
 
+    Optional<Violation> violation = Validator.USER_REGISTRATION.firstViolation(registrationDto);
+    if (violation.isPresent()) {
+      throw new RegistrationException(violation.get().getMessage());
+    }
+
     if (userDao.findByEmail(registrationDto.getEmail()).isPresent()) {
       throw new RegistrationException("A user with this email already exists.");
     }
@@ -54,6 +73,7 @@ public class UserService {
     User user = createUserFromDto(registrationDto);
     setUserPassword(user, registrationDto.getPassword());
     saveUser(user);
+    auditLog.record(AuditEventType.REGISTRATION, user.getId(), user.getEmail());
   }
 
   /**
@@ -86,18 +106,80 @@ public class UserService {
    */
   public boolean login(String email, String password) {
 
+    return login(email, password, AuditEventType.LOGIN, AuditEventType.LOGIN_FAILED);
+  }
+
+  /**
+   * Attempts to log in a user with credentials saved by a previous session for Single Sign-On.
+   * It behaves like {@link #login(String, String)}, but is audited as an SSO login.
+   *
+   * @param email    The saved email of the user.
+   * @param password The saved password of the user.
+   * @return true if the login is successful, false otherwise.
+   */
+  public boolean loginWithSso(String email, String password) {
+
+    return login(email, password, AuditEventType.SSO_LOGIN, AuditEventType.SSO_LOGIN_FAILED);
+  }
+
+  /**
+   * Logs out the current user, if any.
+   */
+  public void logout() {
+
+    UserSession.getInstance().logout()
+            .ifPresent(principal -> auditLog.record(AuditEventType.LOGOUT, principal.userId(), principal.email()));
+  }
+
+  /**
+   * Checks the credentials of a user without changing the session of the desktop application,
+   * e.g. for opening a session in a {@link bg.tuvarna.sit.wms.session.SessionRegistry}.
+   * The attempt is audited like a login.
+   *
+   * @param email    The email of the user.
+   * @param password The password of the user.
+   * @return The principal of the user if the credentials are valid, otherwise empty.
+   */
+  public Optional<SessionPrincipal> authenticate(String email, String password) {
+
+    return authenticate(email, password, AuditEventType.LOGIN, AuditEventType.LOGIN_FAILED);
+  }
+
+  /**
+   * Loads the full entity of a logged-in user, for the screens which need more than the principal.
+   *
+   * @param principal The principal of the user.
+   * @return The user, or empty if it no longer exists.
+   */
+  public Optional<User> loadUser(SessionPrincipal principal) {
+
+    return userDao.findById(principal.userId());
+  }
+
+  private boolean login(String email, String password, AuditEventType successType, AuditEventType failureType) {
+
+    Optional<SessionPrincipal> principal = authenticate(email, password, successType, failureType);
+    principal.ifPresent(UserSession.getInstance()::setPrincipal);
+    return principal.isPresent();
+  }
+
+  private Optional<SessionPrincipal> authenticate(String email, String password, AuditEventType successType,
+                                                  AuditEventType failureType) {
+
     try {
       Optional<User> userOptional = userDao.findByEmail(email);
 
-      if (userOptional.isPresent() && passwordHashingService.validatePassword(password, userDao.getUserPasswordById(userOptional.get().getId()).get())) {
-        UserSession.getInstance().setCurrentUser(userOptional.get());
-        return true;
+      if (userOptional.isPresent() && passwordHashingService.validatePassword(password, userOptional.get().getPassword())) {
+        auditLog.record(successType, userOptional.get().getId(), email);
+        return Optional.of(SessionPrincipal.of(userOptional.get()));
       }
 
-      return false;
+      auditLog.record(failureType, email);
+      return Optional.empty();
     } catch (Exception e) {
       LOGGER.error("Login error", e);
-      return false;
+      auditLog.record(failureType, email);
+      return Optional.empty();
     }
   }
 
@@ -110,7 +192,8 @@ public class UserService {
    */
   private User createUserFromDto(UserRegistrationDto dto) throws RegistrationException {
 
-    Optional<User> userOptional = getUserBasedOnRole(dto.getRole());
+    Optional<Role> role = parseRole(dto.getRole());
+    Optional<User> userOptional = role.flatMap(this::getUserBasedOnRole);
 
     if (userOptional.isEmpty()) {
       String errorMessage = "Invalid role provided for user registration.";
@@ -123,7 +206,7 @@ public class UserService {
     user.setLastName(dto.getLastName());
     user.setEmail(dto.getEmail());
     user.setPhone(dto.getPhone());
-    user.setRole(Role.valueOf(dto.getRole()));
+    user.setRole(role.get());
 
     return user;
   }
@@ -169,7 +252,7 @@ public class UserService {
 
     try {
       userDao.saveUser(user);
-      LOGGER.info("User saved successfully: " + user.getEmail());
+      LOGGER.info("User saved successfully: {}", user.getEmail());
     } catch (UserPersistenceException e) {
       String errorMessage = "Error persisting user during registration.";
       LOGGER.error(errorMessage, e);
@@ -177,18 +260,37 @@ public class UserService {
     }
   }
 
+  /**
+   * Parses a role name given at registration, ignoring case and surrounding whitespace.
+   *
+   * @param role The role name.
+   * @return The role, or an empty Optional if the name is missing or unknown.
+   */
+  private static Optional<Role> parseRole(String role) {
+
+    if (role == null) {
+      return Optional.empty();
+    }
+    try {
+      return Optional.of(Role.valueOf(role.trim().toUpperCase(Locale.ROOT)));
+    } catch (IllegalArgumentException e) {
+      return Optional.empty();
+    }
+  }
+
   /**
    * Retrieves a user entity based on the specified role.
    *
    * @param role The role of the user.
-   * @return An Optional containing the User entity if the role is valid, otherwise an empty Optional.
+   * @return An Optional containing the User entity if users can register with the role, otherwise an empty
+   *         Optional.
    */
-  private Optional<User> getUserBasedOnRole(String role) {
+  private Optional<User> getUserBasedOnRole(Role role) {
 
-    return switch (role.toUpperCase()) {
-      case "OWNER" -> Optional.of(new Owner());
-      case "AGENT" -> Optional.of(new Agent());
-      case "TENANT" -> Optional.of(new Tenant());
+    return switch (role) {
+      case OWNER -> Optional.of(new Owner());
+      case AGENT -> Optional.of(new Agent());
+      case TENANT -> Optional.of(new Tenant());
       default -> Optional.empty();
     };
   }
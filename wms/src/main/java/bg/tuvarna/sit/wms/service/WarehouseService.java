@@ -0,0 +1,55 @@
+package bg.tuvarna.sit.wms.service;
+
+import bg.tuvarna.sit.wms.dao.WarehouseDao;
+import bg.tuvarna.sit.wms.dto.WarehouseListingDto;
+import java.util.List;
+
+/**
+ * Service class for browsing the warehouses.
+ */
+public class WarehouseService {
+
+  private final WarehouseDao warehouseDao;
+
+  public WarehouseService(WarehouseDao warehouseDao) {
+    this.warehouseDao = warehouseDao;
+  }
+
+  /**
+   * Counts the warehouse listings.
+   *
+   * @return The total number of listings.
+   */
+  public long countListings() {
+    return warehouseDao.countListings();
+  }
+
+  /**
+   * Loads a page of warehouse listings ordered by warehouse ID.
+   * When the last listing of the previous page is known the page is looked up by ID instead of
+   * by position, which keeps deep pages as cheap as the first one.
+   *
+   * @param offset   The position of the first listing of the page.
+   * @param limit    The maximum number of listings on the page.
+   * @param previous The listing just before the page, or null if it is not known.
+   * @return The listings of the page.
+   */
+  public List<WarehouseListingDto> findListingsPage(int offset, int limit, WarehouseListingDto previous) {
+
+    if (previous != null) {
+      return findListingsAfter(previous.getId(), limit);
+    }
+    return warehouseDao.findListings(offset, limit);
+  }
+
+  /**
+   * Loads the warehouse listings following the given warehouse ID, ordered by warehouse ID.
+   *
+   * @param lastId The ID of the last listing of the previous page.
+   * @param limit  The maximum number of listings on the page.
+   * @return The listings of the page.
+   */
+  public List<WarehouseListingDto> findListingsAfter(long lastId, int limit) {
+    return warehouseDao.findListingsAfter(lastId, limit);
+  }
+}
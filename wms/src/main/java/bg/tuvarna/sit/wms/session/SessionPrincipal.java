@@ -0,0 +1,35 @@
+package bg.tuvarna.sit.wms.session;
+
+import bg.tuvarna.sit.wms.entities.User;
+import bg.tuvarna.sit.wms.enums.Role;
+import java.util.Objects;
+
+/**
+ * The identity of a logged-in user, as kept by a session.
+ * <p>
+ * Unlike the {@link User} entity it is immutable and holds no lazy associations, so it can be shared
+ * between threads and kept for the whole session without pinning an entity graph. The entity is loaded
+ * on demand through the ID.
+ * </p>
+ *
+ * @param userId      The ID of the user.
+ * @param role        The role of the user.
+ * @param displayName The name the user is greeted with.
+ * @param email       The email of the user, used by the audit log.
+ */
+public record SessionPrincipal(Long userId, Role role, String displayName, String email) {
+
+  public SessionPrincipal {
+    Objects.requireNonNull(role, "role");
+  }
+
+  /**
+   * Creates the principal of a user loaded from the database.
+   *
+   * @param user The user.
+   * @return The principal of the user.
+   */
+  public static SessionPrincipal of(User user) {
+    return new SessionPrincipal(user.getId(), user.getRole(), user.getFirstName(), user.getEmail());
+  }
+}
@@ -0,0 +1,149 @@
+package bg.tuvarna.sit.wms.session;
+
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Keeps the sessions of many concurrent clients, keyed by an opaque random token.
+ * <p>
+ * Each session holds only the immutable {@link SessionPrincipal}, so a session can be looked up from any
+ * thread without locking. A session expires when it has not been used for the idle timeout; expired
+ * sessions are dropped when they are looked up and by {@link #evictExpired()}.
+ * </p>
+ */
+public class SessionRegistry {
+
+  public static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofMinutes(30);
+
+  private static final int TOKEN_BYTES = 32;
+
+  private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+  private final SecureRandom random = new SecureRandom();
+  private final Duration idleTimeout;
+  private final Clock clock;
+
+  public SessionRegistry() {
+    this(DEFAULT_IDLE_TIMEOUT, Clock.systemUTC());
+  }
+
+  /**
+   * Constructs a registry with an explicit idle timeout and clock, e.g. for tests.
+   *
+   * @param idleTimeout The time after which an unused session expires.
+   * @param clock       The clock the use of the sessions is measured with.
+   */
+  public SessionRegistry(Duration idleTimeout, Clock clock) {
+
+    this.idleTimeout = idleTimeout;
+    this.clock = clock;
+  }
+
+  /**
+   * Opens a session for the given principal.
+   *
+   * @param principal The principal of the logged-in user.
+   * @return The token identifying the session.
+   */
+  public String open(SessionPrincipal principal) {
+
+    byte[] bytes = new byte[TOKEN_BYTES];
+    random.nextBytes(bytes);
+    String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    sessions.put(token, new Session(principal, clock.millis()));
+    return token;
+  }
+
+  /**
+   * Looks up the principal of a session and marks the session as used.
+   *
+   * @param token The token of the session.
+   * @return The principal, or empty if the token is unknown or the session has expired.
+   */
+  public Optional<SessionPrincipal> find(String token) {
+
+    if (token == null) {
+      return Optional.empty();
+    }
+    Session session = sessions.get(token);
+    if (session == null) {
+      return Optional.empty();
+    }
+    long now = clock.millis();
+    if (session.isExpired(now, idleTimeout)) {
+      sessions.remove(token, session);
+      return Optional.empty();
+    }
+    session.lastUsed = now;
+    return Optional.of(session.principal);
+  }
+
+  /**
+   * Closes a session.
+   *
+   * @param token The token of the session.
+   * @return The principal of the closed session, or empty if there was no such session.
+   */
+  public Optional<SessionPrincipal> close(String token) {
+
+    Session session = token == null ? null : sessions.remove(token);
+    return session == null ? Optional.empty() : Optional.of(session.principal);
+  }
+
+  /**
+   * Closes all sessions of a user, e.g. after the user changed their password.
+   *
+   * @param userId The ID of the user.
+   * @return The number of closed sessions.
+   */
+  public int closeAll(Long userId) {
+    return removeIf(session -> userId.equals(session.principal.userId()));
+  }
+
+  /**
+   * Drops the expired sessions.
+   *
+   * @return The number of dropped sessions.
+   */
+  public int evictExpired() {
+
+    long now = clock.millis();
+    return removeIf(session -> session.isExpired(now, idleTimeout));
+  }
+
+  public int size() {
+    return sessions.size();
+  }
+
+  private int removeIf(Predicate<Session> condition) {
+
+    int removed = 0;
+    for (Map.Entry<String, Session> entry : sessions.entrySet()) {
+      if (condition.test(entry.getValue()) && sessions.remove(entry.getKey(), entry.getValue())) {
+        removed++;
+      }
+    }
+    return removed;
+  }
+
+  private static final class Session {
+
+    private final SessionPrincipal principal;
+    private volatile long lastUsed;
+
+    private Session(SessionPrincipal principal, long lastUsed) {
+
+      this.principal = principal;
+      this.lastUsed = lastUsed;
+    }
+
+    private boolean isExpired(long now, Duration idleTimeout) {
+      return now - lastUsed > idleTimeout.toMillis();
+    }
+  }
+}
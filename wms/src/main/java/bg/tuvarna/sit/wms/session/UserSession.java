@@ -1,17 +1,18 @@
 package bg.tuvarna.sit.wms.session;
 
-import bg.tuvarna.sit.wms.entities.User;
-import lombok.Getter;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
- * Singleton class for managing the user session in the application.
- * This class holds the currently logged-in user and provides methods
- * for setting the current user and logging out.
+ * Singleton class for managing the session of the desktop application.
+ * This class holds the principal of the currently logged-in user and provides methods
+ * for setting it and logging out. The principal is published through an atomic reference,
+ * so it can be read from background tasks as well as from the JavaFX Application Thread.
+ * Sessions of other clients, such as the HTTP API, are kept by a {@link SessionRegistry}.
  */
-@Getter
 public class UserSession {
 
-  private User currentUser;
+  private final AtomicReference<SessionPrincipal> principal = new AtomicReference<>();
 
   // Private constructor to prevent instantiation from outside the class
   private UserSession() {
@@ -34,19 +35,33 @@ public class UserSession {
   }
 
   /**
-   * Sets the currently logged-in user for the session.
+   * Gets the principal of the currently logged-in user.
    *
-   * @param user The user to set as the current user.
+   * @return The principal, or null if no user is logged in.
    */
-  public void setCurrentUser(User user) {
-    this.currentUser = user;
+  public SessionPrincipal getPrincipal() {
+    return principal.get();
+  }
+
+  public Optional<SessionPrincipal> findPrincipal() {
+    return Optional.ofNullable(principal.get());
   }
 
   /**
-   * Logs out the current user by setting the currentUser to null.
+   * Sets the principal of the currently logged-in user.
+   *
+   * @param principal The principal of the user.
    */
-  public void logout() {
-    currentUser = null;
+  public void setPrincipal(SessionPrincipal principal) {
+    this.principal.set(principal);
   }
-}
 
+  /**
+   * Logs out the current user.
+   *
+   * @return The principal of the user who was logged in, if any.
+   */
+  public Optional<SessionPrincipal> logout() {
+    return Optional.ofNullable(principal.getAndSet(null));
+  }
+}
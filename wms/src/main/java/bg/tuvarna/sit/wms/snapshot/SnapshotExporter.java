@@ -0,0 +1,185 @@
+package bg.tuvarna.sit.wms.snapshot;
+
+import bg.tuvarna.sit.wms.exceptions.SnapshotException;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Writes every row of the WMS tables to a snapshot file, see {@link SnapshotFormat} for the layout.
+ * <p>
+ * The tables are read with plain JDBC, one table at a time and in id order, with a fetch size so the driver
+ * streams the rows instead of loading whole tables. Each row is written as soon as it is read, through a
+ * buffered GZIP stream on a {@link FileChannel}, so memory use does not grow with the size of the dataset.
+ * All tables are read in one read-only transaction, which gives a consistent snapshot on databases with
+ * multi-version concurrency like MySQL's InnoDB. On MySQL the connection needs {@code useCursorFetch=true}
+ * for the fetch size to take effect.
+ * </p>
+ */
+public class SnapshotExporter {
+
+  private static final Logger LOGGER = LogManager.getLogger(SnapshotExporter.class);
+
+  private static final int FETCH_SIZE = 1000;
+
+  /**
+   * Writes a snapshot of the database. The connection's auto-commit and read-only modes are restored
+   * afterwards.
+   *
+   * @param connection A connection to a database holding the WMS schema.
+   * @param file       The snapshot file, replaced if it exists.
+   * @return The number of rows written per table.
+   * @throws SnapshotException If the database cannot be read or the file cannot be written.
+   */
+  public SnapshotSummary export(Connection connection, Path file) throws SnapshotException {
+
+    long start = System.currentTimeMillis();
+    SnapshotSummary summary = new SnapshotSummary();
+    try {
+      boolean autoCommit = connection.getAutoCommit();
+      boolean readOnly = connection.isReadOnly();
+      connection.setAutoCommit(false);
+      connection.setReadOnly(true);
+      try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+              StandardOpenOption.TRUNCATE_EXISTING)) {
+        writeHeader(channel, start);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(Channels.newOutputStream(channel), SnapshotFormat.BUFFER_SIZE),
+                SnapshotFormat.BUFFER_SIZE))) {
+          for (String table : SnapshotFormat.TABLES) {
+            if (SnapshotFormat.storedTableName(connection, table) != null) {
+              summary.add(table, writeTable(connection, table, out));
+            }
+          }
+          out.writeByte(SnapshotFormat.END);
+        }
+        connection.commit();
+      } finally {
+        connection.setReadOnly(readOnly);
+        connection.setAutoCommit(autoCommit);
+      }
+      summary.setBytes(Files.size(file));
+    } catch (SQLException e) {
+      throw new SnapshotException("Could not read the database for the snapshot", e);
+    } catch (IOException e) {
+      throw new SnapshotException("Could not write the snapshot to " + file, e);
+    }
+
+    summary.setElapsedMillis(System.currentTimeMillis() - start);
+    LOGGER.info("Exported snapshot {}: {}", file, summary);
+    return summary;
+  }
+
+  private static void writeHeader(FileChannel channel, long createdAt) throws IOException {
+
+    ByteBuffer header = ByteBuffer.allocate(SnapshotFormat.HEADER_BYTES)
+            .putInt(SnapshotFormat.MAGIC)
+            .putShort(SnapshotFormat.VERSION)
+            .putLong(createdAt)
+            .flip();
+    while (header.hasRemaining()) {
+      channel.write(header);
+    }
+  }
+
+  private static long writeTable(Connection connection, String table, DataOutputStream out)
+          throws SQLException, IOException, SnapshotException {
+
+    try (Statement statement = connection.createStatement()) {
+      statement.setFetchSize(FETCH_SIZE);
+      try (ResultSet rows = statement.executeQuery("SELECT * FROM " + table + " ORDER BY id")) {
+        ResultSetMetaData metaData = rows.getMetaData();
+        int columnCount = metaData.getColumnCount();
+        byte[] types = new byte[columnCount];
+
+        out.writeByte(SnapshotFormat.TABLE);
+        SnapshotFormat.writeString(out, table);
+        SnapshotFormat.writeLong(out, columnCount);
+        for (int i = 0; i < columnCount; i++) {
+          String column = metaData.getColumnName(i + 1).toLowerCase();
+          types[i] = SnapshotFormat.valueType(metaData.getColumnType(i + 1), table + "." + column);
+          SnapshotFormat.writeString(out, column);
+          out.writeByte(types[i]);
+        }
+
+        Object[] values = new Object[columnCount];
+        byte[] nulls = new byte[(columnCount + 7) / 8];
+        long count = 0;
+        while (rows.next()) {
+          Arrays.fill(nulls, (byte) 0);
+          for (int i = 0; i < columnCount; i++) {
+            values[i] = read(rows, i + 1, types[i]);
+            if (values[i] == null) {
+              nulls[i >> 3] |= (byte) (1 << (i & 7));
+            }
+          }
+          out.writeByte(SnapshotFormat.ROW);
+          out.write(nulls);
+          for (int i = 0; i < columnCount; i++) {
+            if (values[i] != null) {
+              write(out, types[i], values[i]);
+            }
+          }
+          count++;
+        }
+        out.writeByte(SnapshotFormat.END_OF_ROWS);
+        SnapshotFormat.writeLong(out, count);
+        return count;
+      }
+    }
+  }
+
+  private static Object read(ResultSet rows, int column, byte type) throws SQLException {
+
+    Object value = switch (type) {
+      case SnapshotFormat.LONG -> rows.getLong(column);
+      case SnapshotFormat.DOUBLE -> rows.getDouble(column);
+      case SnapshotFormat.DECIMAL -> rows.getBigDecimal(column);
+      case SnapshotFormat.DATE -> rows.getObject(column, LocalDate.class);
+      case SnapshotFormat.TIMESTAMP -> rows.getObject(column, LocalDateTime.class);
+      case SnapshotFormat.BOOLEAN -> rows.getBoolean(column);
+      default -> rows.getString(column);
+    };
+    return rows.wasNull() ? null : value;
+  }
+
+  private static void write(DataOutputStream out, byte type, Object value) throws IOException {
+
+    switch (type) {
+      case SnapshotFormat.LONG -> SnapshotFormat.writeLong(out, (Long) value);
+      case SnapshotFormat.DOUBLE -> out.writeDouble((Double) value);
+      case SnapshotFormat.DECIMAL -> {
+        BigDecimal decimal = (BigDecimal) value;
+        SnapshotFormat.writeLong(out, decimal.scale());
+        SnapshotFormat.writeBytes(out, decimal.unscaledValue().toByteArray());
+      }
+      case SnapshotFormat.DATE -> SnapshotFormat.writeLong(out, ((LocalDate) value).toEpochDay());
+      case SnapshotFormat.TIMESTAMP -> {
+        LocalDateTime timestamp = (LocalDateTime) value;
+        SnapshotFormat.writeLong(out, timestamp.toEpochSecond(ZoneOffset.UTC));
+        SnapshotFormat.writeLong(out, timestamp.getNano());
+      }
+      case SnapshotFormat.BOOLEAN -> out.writeBoolean((Boolean) value);
+      default -> SnapshotFormat.writeString(out, (String) value);
+    }
+  }
+}
@@ -0,0 +1,177 @@
+package bg.tuvarna.sit.wms.snapshot;
+
+import bg.tuvarna.sit.wms.exceptions.SnapshotException;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * The layout of a dataset snapshot file and the helpers shared by the {@link SnapshotExporter} and the
+ * {@link SnapshotImporter}.
+ * <p>
+ * A snapshot starts with an uncompressed header: the magic number {@value #MAGIC}, the format version and the
+ * creation time in epoch milliseconds. The rest of the file is a GZIP stream holding one section per table, in
+ * the order of {@link #TABLES}: a table marker, the table name, its columns with their value types, the rows
+ * and the number of rows. Every row starts with a row marker and a bitmap of its {@code null} columns, followed
+ * by the other values. Integers are written as zig-zag variable-length numbers, so the ids and foreign keys of
+ * a typical row take one to three bytes before compression. The stream ends with an end marker.
+ * </p>
+ */
+final class SnapshotFormat {
+
+  static final int MAGIC = 0x574D5353;
+  static final short VERSION = 1;
+  static final int HEADER_BYTES = 4 + 2 + 8;
+  static final int BUFFER_SIZE = 64 * 1024;
+
+  /**
+   * The tables of a snapshot, each after the tables it references. Tables missing from a database, like the
+   * subclass tables of the single-table user layout, are skipped.
+   */
+  static final List<String> TABLES = List.of("countries", "cities", "addresses", "storage_types", "users",
+          "owners", "agents", "tenants", "warehouses", "warehouse_rental_requests", "rental_agreements", "reviews",
+          "notifications");
+
+  static final byte TABLE = 1;
+  static final byte END = 0;
+  static final byte ROW = 1;
+  static final byte END_OF_ROWS = 0;
+
+  static final byte LONG = 1;
+  static final byte DOUBLE = 2;
+  static final byte DECIMAL = 3;
+  static final byte STRING = 4;
+  static final byte DATE = 5;
+  static final byte TIMESTAMP = 6;
+  static final byte BOOLEAN = 7;
+
+  private SnapshotFormat() {
+  }
+
+  /**
+   * Maps a JDBC column type to the value type it is stored as.
+   *
+   * @param sqlType The JDBC type.
+   * @param column  The name of the column, for the error message.
+   * @return The value type.
+   * @throws SnapshotException If the JDBC type is not supported.
+   */
+  static byte valueType(int sqlType, String column) throws SnapshotException {
+
+    return switch (sqlType) {
+      case Types.BIGINT, Types.INTEGER, Types.SMALLINT, Types.TINYINT -> LONG;
+      case Types.DOUBLE, Types.FLOAT, Types.REAL -> DOUBLE;
+      case Types.DECIMAL, Types.NUMERIC -> DECIMAL;
+      case Types.CHAR, Types.VARCHAR, Types.LONGVARCHAR, Types.NCHAR, Types.NVARCHAR, Types.LONGNVARCHAR,
+              Types.CLOB -> STRING;
+      case Types.DATE -> DATE;
+      case Types.TIMESTAMP -> TIMESTAMP;
+      case Types.BOOLEAN, Types.BIT -> BOOLEAN;
+      default -> throw new SnapshotException("The column " + column + " has the unsupported type " + sqlType);
+    };
+  }
+
+  /**
+   * Maps a value type back to the JDBC type used to bind a {@code null}.
+   *
+   * @param valueType The value type.
+   * @return The JDBC type.
+   */
+  static int sqlType(byte valueType) {
+
+    return switch (valueType) {
+      case LONG -> Types.BIGINT;
+      case DOUBLE -> Types.DOUBLE;
+      case DECIMAL -> Types.DECIMAL;
+      case DATE -> Types.DATE;
+      case TIMESTAMP -> Types.TIMESTAMP;
+      case BOOLEAN -> Types.BOOLEAN;
+      default -> Types.VARCHAR;
+    };
+  }
+
+  /**
+   * Finds the name a table is stored under, as databases differ in the case of unquoted names.
+   *
+   * @param connection The connection.
+   * @param table      The name of the table in lower case.
+   * @return The stored name, or {@code null} if the table does not exist.
+   * @throws SQLException If the metadata cannot be read.
+   */
+  static String storedTableName(Connection connection, String table) throws SQLException {
+
+    DatabaseMetaData metaData = connection.getMetaData();
+    for (String name : new String[] {table, table.toUpperCase()}) {
+      try (ResultSet tables = metaData.getTables(connection.getCatalog(), connection.getSchema(), name,
+              new String[] {"TABLE"})) {
+        if (tables.next()) {
+          return tables.getString("TABLE_NAME");
+        }
+      }
+    }
+    return null;
+  }
+
+  static boolean isMySql(Connection connection) throws SQLException {
+    return connection.getMetaData().getDatabaseProductName().equalsIgnoreCase("MySQL");
+  }
+
+  static boolean isH2(Connection connection) throws SQLException {
+    return connection.getMetaData().getDatabaseProductName().equalsIgnoreCase("H2");
+  }
+
+  static void writeLong(DataOutput out, long value) throws IOException {
+
+    long zigZag = (value << 1) ^ (value >> 63);
+    while ((zigZag & ~0x7FL) != 0) {
+      out.writeByte((int) ((zigZag & 0x7F) | 0x80));
+      zigZag >>>= 7;
+    }
+    out.writeByte((int) zigZag);
+  }
+
+  static long readLong(DataInput in) throws IOException, SnapshotException {
+
+    long zigZag = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      byte next = in.readByte();
+      zigZag |= (long) (next & 0x7F) << shift;
+      if ((next & 0x80) == 0) {
+        return (zigZag >>> 1) ^ -(zigZag & 1);
+      }
+    }
+    throw new SnapshotException("The snapshot is damaged: a number is too long");
+  }
+
+  static void writeBytes(DataOutput out, byte[] bytes) throws IOException {
+
+    writeLong(out, bytes.length);
+    out.write(bytes);
+  }
+
+  static byte[] readBytes(DataInput in) throws IOException, SnapshotException {
+
+    long length = readLong(in);
+    if (length < 0 || length > Integer.MAX_VALUE - 8) {
+      throw new SnapshotException("The snapshot is damaged: invalid length " + length);
+    }
+    byte[] bytes = new byte[(int) length];
+    in.readFully(bytes);
+    return bytes;
+  }
+
+  static void writeString(DataOutput out, String value) throws IOException {
+    writeBytes(out, value.getBytes(StandardCharsets.UTF_8));
+  }
+
+  static String readString(DataInput in) throws IOException, SnapshotException {
+    return new String(readBytes(in), StandardCharsets.UTF_8);
+  }
+}
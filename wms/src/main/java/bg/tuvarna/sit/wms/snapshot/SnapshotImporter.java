@@ -0,0 +1,421 @@
+package bg.tuvarna.sit.wms.snapshot;
+
+import bg.tuvarna.sit.wms.exceptions.SnapshotException;
+import bg.tuvarna.sit.wms.search.SearchService;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Replaces the rows of the WMS tables with the rows of a snapshot written by the {@link SnapshotExporter}.
+ * <p>
+ * The snapshot is read as a stream and inserted with batched prepared statements, so a restore needs memory
+ * for one batch regardless of the size of the dataset. The existing rows are deleted and the snapshot rows are
+ * inserted in a single transaction, which is rolled back if the snapshot turns out to be damaged. The rows keep
+ * their ids, so the target database must hold the same schema version as the exported one.
+ * </p>
+ * <p>
+ * Maintaining secondary indexes row by row is the slowest part of a bulk insert, so the indexes that are not
+ * unique are dropped before the restore and built once afterwards. As DDL commits implicitly on MySQL, the
+ * indexes are dropped and recreated outside the transaction, whether the restore succeeds or not. Indexes
+ * backing a foreign key cannot be dropped and stay in place. On MySQL the foreign key and unique checks are
+ * also switched off for the session, as the snapshot was consistent when it was written.
+ * </p>
+ * <p>
+ * The search index stored on disk mirrors the rows, so once they are replaced it is deleted, and the
+ * application builds it from the restored rows when it starts. A running application keeps serving its
+ * search index, location suggestions and analytics from memory until they are rebuilt through
+ * {@code POST /api/rebuild} or the application is restarted.
+ * </p>
+ */
+public class SnapshotImporter {
+
+  private static final Logger LOGGER = LogManager.getLogger(SnapshotImporter.class);
+
+  private static final int BATCH_SIZE = 1000;
+  private static final int MAX_COLUMNS = 1024;
+
+  private final Path searchIndexDirectory;
+
+  /**
+   * Constructs an importer which leaves the stored search index alone, for databases no application uses.
+   */
+  public SnapshotImporter() {
+    this(null);
+  }
+
+  /**
+   * Constructs an importer which deletes the search index stored in a directory once the rows are replaced.
+   *
+   * @param searchIndexDirectory The directory of the search index of the application using the database.
+   */
+  public SnapshotImporter(Path searchIndexDirectory) {
+    this.searchIndexDirectory = searchIndexDirectory;
+  }
+
+  /**
+   * Restores a snapshot into the database. The connection's auto-commit mode is restored afterwards.
+   *
+   * @param connection A connection to a database holding the WMS schema.
+   * @param file       The snapshot file.
+   * @return The number of rows restored per table.
+   * @throws SnapshotException If the file is not a readable snapshot, does not match the schema of the
+   *                           database, or the rows cannot be inserted; the rows are left as they were then.
+   *                           Also if the restored rows are in place but the dropped indexes cannot all be
+   *                           recreated, or the stored search index cannot be deleted. A failure to recreate
+   *                           the indexes after another failure, including one while dropping them, is added
+   *                           to it as suppressed.
+   */
+  public SnapshotSummary restore(Connection connection, Path file) throws SnapshotException {
+
+    long start = System.currentTimeMillis();
+    SnapshotSummary summary = new SnapshotSummary();
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      readHeader(channel, file);
+      summary.setBytes(channel.size());
+
+      boolean autoCommit = connection.getAutoCommit();
+      List<IndexDefinition> deferredIndexes = new ArrayList<>();
+      try {
+        connection.setAutoCommit(true);
+        dropIndexes(connection, deferredIndexes);
+        connection.setAutoCommit(false);
+        restoreRows(connection, new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Channels.newInputStream(channel), SnapshotFormat.BUFFER_SIZE),
+                SnapshotFormat.BUFFER_SIZE)), summary);
+        invalidateSearchIndex();
+        connection.setAutoCommit(true);
+        restartIdentities(connection);
+      } catch (SQLException | IOException | SnapshotException | RuntimeException e) {
+        try {
+          recreateIndexes(connection, deferredIndexes, autoCommit);
+        } catch (SQLException | RuntimeException recreateFailure) {
+          e.addSuppressed(recreateFailure);
+        }
+        throw e;
+      }
+      try {
+        recreateIndexes(connection, deferredIndexes, autoCommit);
+      } catch (SQLException e) {
+        throw new SnapshotException("The snapshot " + file + " was restored, but not all of its indexes could be "
+                + "recreated", e);
+      }
+    } catch (EOFException e) {
+      throw new SnapshotException("The snapshot " + file + " is truncated", e);
+    } catch (IOException e) {
+      throw new SnapshotException("Could not read the snapshot " + file, e);
+    } catch (SQLException e) {
+      throw new SnapshotException("Could not restore the snapshot " + file + " into the database", e);
+    }
+
+    summary.setElapsedMillis(System.currentTimeMillis() - start);
+    LOGGER.info("Restored snapshot {}: {}", file, summary);
+    return summary;
+  }
+
+  private void invalidateSearchIndex() throws SnapshotException {
+
+    if (searchIndexDirectory == null) {
+      return;
+    }
+    try {
+      SearchService.invalidate(searchIndexDirectory);
+    } catch (IOException e) {
+      throw new SnapshotException("The rows were restored, but the search index in " + searchIndexDirectory
+              + " could not be deleted; delete it before starting the application", e);
+    }
+  }
+
+  private static void readHeader(FileChannel channel, Path file) throws IOException, SnapshotException {
+
+    ByteBuffer header = ByteBuffer.allocate(SnapshotFormat.HEADER_BYTES);
+    while (header.hasRemaining()) {
+      if (channel.read(header) < 0) {
+        throw new SnapshotException("The file " + file + " is not a snapshot");
+      }
+    }
+    header.flip();
+    if (header.getInt() != SnapshotFormat.MAGIC) {
+      throw new SnapshotException("The file " + file + " is not a snapshot");
+    }
+    short version = header.getShort();
+    if (version != SnapshotFormat.VERSION) {
+      throw new SnapshotException("The snapshot " + file + " has the unsupported format version " + version);
+    }
+  }
+
+  private static void restoreRows(Connection connection, DataInputStream in, SnapshotSummary summary)
+          throws SQLException, IOException, SnapshotException {
+
+    boolean mySql = SnapshotFormat.isMySql(connection);
+    try (Statement statement = connection.createStatement()) {
+      if (mySql) {
+        statement.execute("SET FOREIGN_KEY_CHECKS = 0, UNIQUE_CHECKS = 0");
+      }
+      try {
+        List<String> tables = new ArrayList<>(SnapshotFormat.TABLES);
+        Collections.reverse(tables);
+        for (String table : tables) {
+          if (SnapshotFormat.storedTableName(connection, table) != null) {
+            statement.executeUpdate("DELETE FROM " + table);
+          }
+        }
+
+        byte marker;
+        while ((marker = in.readByte()) == SnapshotFormat.TABLE) {
+          String table = SnapshotFormat.readString(in);
+          summary.add(table, restoreTable(connection, table, in));
+        }
+        if (marker != SnapshotFormat.END) {
+          throw new SnapshotException("The snapshot is damaged: unexpected table marker " + marker);
+        }
+        connection.commit();
+      } catch (SQLException | IOException | SnapshotException | RuntimeException e) {
+        rollback(connection, e);
+        throw e;
+      } finally {
+        if (mySql) {
+          statement.execute("SET FOREIGN_KEY_CHECKS = 1, UNIQUE_CHECKS = 1");
+        }
+      }
+    }
+  }
+
+  private static long restoreTable(Connection connection, String table, DataInputStream in)
+          throws SQLException, IOException, SnapshotException {
+
+    String storedName = SnapshotFormat.TABLES.contains(table)
+            ? SnapshotFormat.storedTableName(connection, table) : null;
+    if (storedName == null) {
+      throw new SnapshotException("The table " + table + " of the snapshot does not exist in the database");
+    }
+    Map<String, Boolean> targetColumns = columns(connection, storedName);
+
+    long columnCount = SnapshotFormat.readLong(in);
+    if (columnCount <= 0 || columnCount > MAX_COLUMNS) {
+      throw new SnapshotException("The snapshot is damaged: " + table + " has " + columnCount + " columns");
+    }
+    String[] columns = new String[(int) columnCount];
+    byte[] types = new byte[columns.length];
+    for (int i = 0; i < columns.length; i++) {
+      columns[i] = SnapshotFormat.readString(in);
+      types[i] = in.readByte();
+      if (!targetColumns.containsKey(columns[i])) {
+        throw new SnapshotException("The column " + table + "." + columns[i]
+                + " of the snapshot does not exist in the database");
+      }
+      if (types[i] < SnapshotFormat.LONG || types[i] > SnapshotFormat.BOOLEAN) {
+        throw new SnapshotException("The snapshot is damaged: unknown value type " + types[i]);
+      }
+    }
+
+    String sql = "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES ("
+            + String.join(", ", Collections.nCopies(columns.length, "?")) + ")";
+    try (PreparedStatement insert = connection.prepareStatement(sql)) {
+      byte[] nulls = new byte[(columns.length + 7) / 8];
+      long count = 0;
+      int pending = 0;
+      byte marker;
+      while ((marker = in.readByte()) == SnapshotFormat.ROW) {
+        in.readFully(nulls);
+        for (int i = 0; i < columns.length; i++) {
+          if ((nulls[i >> 3] & (1 << (i & 7))) != 0) {
+            insert.setNull(i + 1, SnapshotFormat.sqlType(types[i]));
+          } else {
+            bind(insert, i + 1, types[i], in);
+          }
+        }
+        insert.addBatch();
+        count++;
+        if (++pending == BATCH_SIZE) {
+          insert.executeBatch();
+          pending = 0;
+        }
+      }
+      if (marker != SnapshotFormat.END_OF_ROWS) {
+        throw new SnapshotException("The snapshot is damaged: unexpected row marker " + marker + " in " + table);
+      }
+      if (pending > 0) {
+        insert.executeBatch();
+      }
+
+      long expected = SnapshotFormat.readLong(in);
+      if (expected != count) {
+        throw new SnapshotException("The snapshot is damaged: " + table + " has " + count + " rows instead of "
+                + expected);
+      }
+      return count;
+    }
+  }
+
+  private static void bind(PreparedStatement insert, int parameter, byte type, DataInputStream in)
+          throws SQLException, IOException, SnapshotException {
+
+    switch (type) {
+      case SnapshotFormat.LONG -> insert.setLong(parameter, SnapshotFormat.readLong(in));
+      case SnapshotFormat.DOUBLE -> insert.setDouble(parameter, in.readDouble());
+      case SnapshotFormat.DECIMAL -> {
+        int scale = (int) SnapshotFormat.readLong(in);
+        insert.setBigDecimal(parameter, new BigDecimal(new BigInteger(SnapshotFormat.readBytes(in)), scale));
+      }
+      case SnapshotFormat.DATE -> insert.setObject(parameter, LocalDate.ofEpochDay(SnapshotFormat.readLong(in)));
+      case SnapshotFormat.TIMESTAMP -> {
+        long epochSecond = SnapshotFormat.readLong(in);
+        int nanos = (int) SnapshotFormat.readLong(in);
+        insert.setObject(parameter, LocalDateTime.ofEpochSecond(epochSecond, nanos, ZoneOffset.UTC));
+      }
+      case SnapshotFormat.BOOLEAN -> insert.setBoolean(parameter, in.readBoolean());
+      default -> insert.setString(parameter, SnapshotFormat.readString(in));
+    }
+  }
+
+  private static void rollback(Connection connection, Exception cause) {
+
+    try {
+      connection.rollback();
+    } catch (SQLException e) {
+      cause.addSuppressed(e);
+    }
+  }
+
+  /**
+   * Returns the columns of a table by their lower case name, mapped to whether they are generated by the
+   * database.
+   */
+  private static Map<String, Boolean> columns(Connection connection, String storedName) throws SQLException {
+
+    Map<String, Boolean> columns = new LinkedHashMap<>();
+    try (ResultSet resultSet = connection.getMetaData().getColumns(connection.getCatalog(), connection.getSchema(),
+            storedName, null)) {
+      while (resultSet.next()) {
+        columns.put(resultSet.getString("COLUMN_NAME").toLowerCase(),
+                "YES".equalsIgnoreCase(resultSet.getString("IS_AUTOINCREMENT")));
+      }
+    }
+    return columns;
+  }
+
+  /**
+   * Drops the indexes which are not unique. Each index is added to {@code dropped} as soon as it is gone, so
+   * the indexes dropped before a failure can still be recreated.
+   */
+  private static void dropIndexes(Connection connection, List<IndexDefinition> dropped) throws SQLException {
+
+    DatabaseMetaData metaData = connection.getMetaData();
+    boolean mySql = SnapshotFormat.isMySql(connection);
+    for (String table : SnapshotFormat.TABLES) {
+      String storedName = SnapshotFormat.storedTableName(connection, table);
+      if (storedName == null) {
+        continue;
+      }
+
+      Map<String, List<String>> indexes = new LinkedHashMap<>();
+      try (ResultSet resultSet = metaData.getIndexInfo(connection.getCatalog(), connection.getSchema(), storedName,
+              false, false)) {
+        while (resultSet.next()) {
+          String name = resultSet.getString("INDEX_NAME");
+          String column = resultSet.getString("COLUMN_NAME");
+          if (!resultSet.getBoolean("NON_UNIQUE") || name == null || column == null
+                  || resultSet.getShort("TYPE") == DatabaseMetaData.tableIndexStatistic) {
+            continue;
+          }
+          String order = "D".equals(resultSet.getString("ASC_OR_DESC")) ? " DESC" : "";
+          indexes.computeIfAbsent(name, key -> new ArrayList<>()).add(column + order);
+        }
+      }
+
+      try (Statement statement = connection.createStatement()) {
+        for (Map.Entry<String, List<String>> index : indexes.entrySet()) {
+          try {
+            statement.execute("DROP INDEX " + index.getKey() + (mySql ? " ON " + table : ""));
+            dropped.add(new IndexDefinition(table, index.getKey(), index.getValue()));
+          } catch (SQLException e) {
+            LOGGER.debug("Keeping the index {} on {} during the restore: {}", index.getKey(), table, e.getMessage());
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Creates the dropped indexes and restores the auto-commit mode. Every index is attempted; the first failure
+   * is thrown with the others suppressed.
+   */
+  private static void recreateIndexes(Connection connection, List<IndexDefinition> indexes, boolean autoCommit)
+          throws SQLException {
+
+    connection.setAutoCommit(true);
+    SQLException failure = null;
+    try (Statement statement = connection.createStatement()) {
+      for (IndexDefinition index : indexes) {
+        try {
+          statement.execute("CREATE INDEX " + index.name() + " ON " + index.table() + " ("
+                  + String.join(", ", index.columns()) + ")");
+        } catch (SQLException e) {
+          LOGGER.error("Could not recreate the index {} on {}", index.name(), index.table(), e);
+          if (failure == null) {
+            failure = e;
+          } else {
+            failure.addSuppressed(e);
+          }
+        }
+      }
+    }
+    connection.setAutoCommit(autoCommit);
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  /**
+   * MySQL moves its auto increment counters past explicitly inserted ids, H2 has to be told.
+   */
+  private static void restartIdentities(Connection connection) throws SQLException {
+
+    if (!SnapshotFormat.isH2(connection)) {
+      return;
+    }
+    try (Statement statement = connection.createStatement()) {
+      for (String table : SnapshotFormat.TABLES) {
+        String storedName = SnapshotFormat.storedTableName(connection, table);
+        if (storedName == null || !columns(connection, storedName).getOrDefault("id", false)) {
+          continue;
+        }
+        long next;
+        try (ResultSet resultSet = statement.executeQuery("SELECT COALESCE(MAX(id), 0) + 1 FROM " + table)) {
+          resultSet.next();
+          next = resultSet.getLong(1);
+        }
+        statement.executeUpdate("ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + next);
+      }
+    }
+  }
+
+  private record IndexDefinition(String table, String name, List<String> columns) {
+  }
+}
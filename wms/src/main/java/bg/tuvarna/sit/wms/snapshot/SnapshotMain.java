@@ -0,0 +1,51 @@
+package bg.tuvarna.sit.wms.snapshot;
+
+import bg.tuvarna.sit.wms.exceptions.SnapshotException;
+import bg.tuvarna.sit.wms.search.SearchService;
+import bg.tuvarna.sit.wms.util.JpaUtil;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Map;
+
+/**
+ * Exports the whole dataset to a snapshot file or restores it from one, from the command line.
+ * <p>
+ * The database is configured by the same environment variables as the application, see {@link JpaUtil}, and
+ * is migrated to the current schema first. The system property {@code snapshot.mode} selects {@code export}
+ * (the default) or {@code import}, {@code snapshot.file} the file ({@code wms.snapshot} by default). An import
+ * also deletes the search index the application stores in the working directory, so it is rebuilt from the
+ * restored rows on the next start.
+ * </p>
+ */
+public final class SnapshotMain {
+
+  private SnapshotMain() {
+  }
+
+  public static void main(String[] args) throws SnapshotException, SQLException {
+
+    String mode = System.getProperty("snapshot.mode", "export");
+    Path file = Paths.get(System.getProperty("snapshot.file", "wms.snapshot"));
+    if (!mode.equals("export") && !mode.equals("import")) {
+      throw new IllegalArgumentException("Set snapshot.mode to export or import, not " + mode);
+    }
+
+    Map<String, String> env = System.getenv();
+    try {
+      JpaUtil.getEntityManagerFactory();
+      try (Connection connection = DriverManager.getConnection(env.get("DB_CONNECTION_URL"),
+              env.get("DB_USERNAME"), env.get("DB_PASSWORD"))) {
+        if (mode.equals("export")) {
+          new SnapshotExporter().export(connection, file);
+        } else {
+          new SnapshotImporter(SearchService.DEFAULT_DIRECTORY).restore(connection, file);
+        }
+      }
+    } finally {
+      JpaUtil.close();
+    }
+  }
+}
@@ -0,0 +1,53 @@
+package bg.tuvarna.sit.wms.snapshot;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import lombok.Getter;
+
+/**
+ * The number of rows a snapshot holds per table, the size of the snapshot file and the time it took to write or
+ * restore it.
+ */
+@Getter
+public class SnapshotSummary {
+
+  private final Map<String, Long> rowCounts = new LinkedHashMap<>();
+  private long bytes;
+  private long elapsedMillis;
+
+  void add(String table, long rows) {
+    rowCounts.merge(table, rows, Long::sum);
+  }
+
+  void setBytes(long bytes) {
+    this.bytes = bytes;
+  }
+
+  void setElapsedMillis(long elapsedMillis) {
+    this.elapsedMillis = elapsedMillis;
+  }
+
+  /**
+   * Returns the number of rows of a table.
+   *
+   * @param table The table name.
+   * @return The row count, zero for tables that are not in the snapshot.
+   */
+  public long getRowCount(String table) {
+    return rowCounts.getOrDefault(table, 0L);
+  }
+
+  public long getTotalRows() {
+    return rowCounts.values().stream().mapToLong(Long::longValue).sum();
+  }
+
+  public Map<String, Long> getRowCounts() {
+    return Collections.unmodifiableMap(rowCounts);
+  }
+
+  @Override
+  public String toString() {
+    return getTotalRows() + " rows, " + bytes + " bytes in " + elapsedMillis + " ms " + rowCounts;
+  }
+}
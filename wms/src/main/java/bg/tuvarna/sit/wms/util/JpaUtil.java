@@ -1,17 +1,44 @@
 package bg.tuvarna.sit.wms.util;
 
+import bg.tuvarna.sit.wms.exceptions.MigrationException;
+import bg.tuvarna.sit.wms.migration.JavaMigration;
+import bg.tuvarna.sit.wms.migration.MigrationRunner;
+import bg.tuvarna.sit.wms.migration.UserSingleTableMigration;
+import bg.tuvarna.sit.wms.profiling.SqlProfiler;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.List;
 import javax.persistence.EntityManagerFactory;
 import javax.persistence.Persistence;
 import java.util.HashMap;
 import java.util.Map;
-import lombok.Getter;
 
 /**
  * Utility class for managing JPA EntityManagerFactory and providing EntityManager instances.
  * <p>
  * This class encapsulates the setup of the EntityManagerFactory using configuration overrides
- * derived from environment variables. It provides a static method to obtain EntityManager
- * instances for interacting with the persistence context.
+ * derived from environment variables. The factory is created lazily on first access, which
+ * lets the application show its first window before the database is reached.
+ * </p>
+ * <p>
+ * The layout of the user hierarchy is selected by the {@code USER_INHERITANCE} environment variable,
+ * see {@link UserInheritanceMapping}.
+ * </p>
+ * <p>
+ * Before the EntityManagerFactory is created, the database schema is brought to the latest version
+ * by the {@link MigrationRunner}. Setting {@code DB_MIGRATE=false} skips this step, and
+ * {@code DB_SCHEMA_VALIDATION=validate} makes Hibernate validate the migrated schema at startup.
+ * {@code DB_MIGRATE_OUT_OF_ORDER=true} applies pending migrations older than the newest applied one,
+ * e.g. the single-table user migration when that layout is selected on an existing database.
+ * </p>
+ * <p>
+ * Statements are profiled by the {@link SqlProfiler}; {@code SQL_SLOW_THRESHOLD_MS} and {@code SQL_SAMPLE_RATE}
+ * override the slow-query threshold and the sampled fraction of the remaining statements.
+ * </p>
+ * <p>
+ * All EntityManagers share the connection pool of the factory; {@code DB_POOL_SIZE} overrides its size,
+ * e.g. for the server mode, which serves many clients from one factory.
  * </p>
  *
  * @author Yavor Chamov
@@ -19,25 +46,106 @@ import lombok.Getter;
  */
 public class JpaUtil {
 
-  @Getter
-  private static final EntityManagerFactory entityManagerFactory;
+  /**
+   * The size of the connection pool of Hibernate unless {@code DB_POOL_SIZE} is set.
+   */
+  public static final int DEFAULT_POOL_SIZE = 20;
+
+  private static volatile EntityManagerFactory entityManagerFactory;
+
+  /**
+   * Returns the EntityManagerFactory, creating it on first use. Creation migrates the schema and
+   * builds the Hibernate metamodel, so it is done by the application bootstrap in the background.
+   *
+   * @return The shared EntityManagerFactory.
+   */
+  public static EntityManagerFactory getEntityManagerFactory() {
+
+    EntityManagerFactory factory = entityManagerFactory;
+    if (factory == null) {
+      synchronized (JpaUtil.class) {
+        factory = entityManagerFactory;
+        if (factory == null) {
+          factory = createEntityManagerFactory();
+          entityManagerFactory = factory;
+        }
+      }
+    }
+    return factory;
+  }
+
+  /**
+   * Returns the size of the connection pool, which also bounds the useful number of threads working on the
+   * database at the same time.
+   *
+   * @return {@code DB_POOL_SIZE} if set, the Hibernate default otherwise.
+   */
+  public static int getPoolSize() {
 
-  static {
+    String poolSize = System.getenv("DB_POOL_SIZE");
+    return poolSize == null ? DEFAULT_POOL_SIZE : Integer.parseInt(poolSize);
+  }
+
+  private static EntityManagerFactory createEntityManagerFactory() {
 
     Map<String, String> env = System.getenv();
+    UserInheritanceMapping userInheritance = UserInheritanceMapping.fromValue(env.get("USER_INHERITANCE"));
+    migrateSchema(env, userInheritance);
+
     Map<String, Object> configOverrides = new HashMap<>();
     configOverrides.put("hibernate.connection.url", env.get("DB_CONNECTION_URL"));
     configOverrides.put("hibernate.connection.username", env.get("DB_USERNAME"));
     configOverrides.put("hibernate.connection.password", env.get("DB_PASSWORD"));
+    configOverrides.putAll(userInheritance.configOverrides());
+    if (env.get("DB_SCHEMA_VALIDATION") != null) {
+      configOverrides.put("hibernate.hbm2ddl.auto", env.get("DB_SCHEMA_VALIDATION"));
+    }
+    if (env.get("DB_POOL_SIZE") != null) {
+      configOverrides.put("hibernate.connection.pool_size", env.get("DB_POOL_SIZE"));
+    }
+    if (env.get("SQL_SLOW_THRESHOLD_MS") != null) {
+      configOverrides.put(SqlProfiler.SLOW_THRESHOLD_PROPERTY, env.get("SQL_SLOW_THRESHOLD_MS"));
+    }
+    if (env.get("SQL_SAMPLE_RATE") != null) {
+      configOverrides.put(SqlProfiler.SAMPLE_RATE_PROPERTY, env.get("SQL_SAMPLE_RATE"));
+    }
 
-    entityManagerFactory = Persistence.createEntityManagerFactory(env.get("PERSISTENCE_NAME"), configOverrides);
+    return Persistence.createEntityManagerFactory(env.get("PERSISTENCE_NAME"), configOverrides);
+  }
+
+  /**
+   * Applies the pending schema migrations to the configured database.
+   * Nothing is done when no connection URL is configured or migrations are disabled.
+   *
+   * @param env             The environment holding the connection settings.
+   * @param userInheritance The selected layout of the user hierarchy.
+   * @throws IllegalStateException If the schema cannot be migrated. The application must not start then.
+   */
+  private static void migrateSchema(Map<String, String> env, UserInheritanceMapping userInheritance) {
+
+    String url = env.get("DB_CONNECTION_URL");
+    if (url == null || "false".equalsIgnoreCase(env.get("DB_MIGRATE"))) {
+      return;
+    }
+
+    List<JavaMigration> javaMigrations = userInheritance == UserInheritanceMapping.SINGLE_TABLE
+            ? List.of(new UserSingleTableMigration())
+            : List.of();
+
+    try (Connection connection = DriverManager.getConnection(url, env.get("DB_USERNAME"), env.get("DB_PASSWORD"))) {
+      MigrationRunner migrationRunner = new MigrationRunner(MigrationRunner.DEFAULT_LOCATION, javaMigrations);
+      migrationRunner.setOutOfOrder("true".equalsIgnoreCase(env.get("DB_MIGRATE_OUT_OF_ORDER")));
+      migrationRunner.migrate(connection);
+    } catch (SQLException | MigrationException e) {
+      throw new IllegalStateException("Database schema migration failed", e);
+    }
   }
 
   /**
    * Closes the EntityManagerFactory when it's no longer needed, such as when the application
    * is shutting down. This method ensures that all resources are released properly.
    */
-  public static void close() {
+  public static synchronized void close() {
     if (entityManagerFactory != null) {
       entityManagerFactory.close();
     }
@@ -0,0 +1,561 @@
+package bg.tuvarna.sit.wms.util;
+
+import bg.tuvarna.sit.wms.analytics.MonthlyRevenue;
+import bg.tuvarna.sit.wms.analytics.OccupancyStat;
+import bg.tuvarna.sit.wms.analytics.PricePerSquareMeterStat;
+import bg.tuvarna.sit.wms.dto.LocationSuggestionDto;
+import bg.tuvarna.sit.wms.dto.NotificationDto;
+import bg.tuvarna.sit.wms.dto.RentalAgreementListingDto;
+import bg.tuvarna.sit.wms.dto.UserRegistrationDto;
+import bg.tuvarna.sit.wms.dto.WarehouseListingDto;
+import bg.tuvarna.sit.wms.report.OwnerReportRow;
+import bg.tuvarna.sit.wms.search.SearchHit;
+import bg.tuvarna.sit.wms.session.SessionPrincipal;
+import java.math.BigDecimal;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compact JSON codec for the objects exchanged by the {@link bg.tuvarna.sit.wms.server.ApiServer} and written
+ * to the JSON reports.
+ * <p>
+ * Writing supports maps, iterables, strings, numbers, booleans, enums, dates and the DTOs of the
+ * application, each DTO with an explicit field list so that no reflection is involved and the payload
+ * stays stable when the DTO gains internal fields. Dates are written as ISO-8601 strings.
+ * Parsing returns {@link LinkedHashMap}s, {@link ArrayList}s, strings, booleans, {@code null}, and
+ * {@link Long}s for integral numbers or {@link BigDecimal}s for the others.
+ * </p>
+ */
+public final class JsonCodec {
+
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+  private JsonCodec() {
+  }
+
+  /**
+   * Writes a value as JSON.
+   *
+   * @param value The value.
+   * @return The JSON text.
+   * @throws IllegalArgumentException If the value or one of its elements cannot be written.
+   */
+  public static String write(Object value) {
+
+    StringBuilder out = new StringBuilder(128);
+    write(value, out);
+    return out.toString();
+  }
+
+  /**
+   * Writes a value as JSON to the given builder.
+   *
+   * @param value The value.
+   * @param out   The builder the JSON text is appended to.
+   * @throws IllegalArgumentException If the value or one of its elements cannot be written.
+   */
+  public static void write(Object value, StringBuilder out) {
+
+    if (value == null) {
+      out.append("null");
+    } else if (value instanceof CharSequence || value instanceof Enum || value instanceof TemporalAccessor) {
+      writeString(value.toString(), out);
+    } else if (value instanceof Date date) {
+      writeString(date.toInstant().toString(), out);
+    } else if (value instanceof BigDecimal decimal) {
+      out.append(decimal.toPlainString());
+    } else if (value instanceof Double || value instanceof Float) {
+      double number = ((Number) value).doubleValue();
+      if (Double.isNaN(number) || Double.isInfinite(number)) {
+        out.append("null");
+      } else {
+        out.append(value);
+      }
+    } else if (value instanceof Number || value instanceof Boolean) {
+      out.append(value);
+    } else if (value instanceof Map<?, ?> map) {
+      writeMap(map, out);
+    } else if (value instanceof Iterable<?> iterable) {
+      writeIterable(iterable, out);
+    } else if (value instanceof WarehouseListingDto warehouse) {
+      new ObjectWriter(out)
+              .field("id", warehouse.getId())
+              .field("ownerName", warehouse.getOwnerName())
+              .field("street", warehouse.getStreet())
+              .field("zipCode", warehouse.getZipCode())
+              .field("cityName", warehouse.getCityName())
+              .field("countryName", warehouse.getCountryName())
+              .field("storageTypeName", warehouse.getStorageTypeName())
+              .field("size", warehouse.getSize())
+              .field("climateCondition", warehouse.getClimateCondition())
+              .field("status", warehouse.getStatus())
+              .end();
+    } else if (value instanceof RentalAgreementListingDto agreement) {
+      new ObjectWriter(out)
+              .field("id", agreement.getId())
+              .field("warehouseId", agreement.getWarehouseId())
+              .field("street", agreement.getStreet())
+              .field("cityName", agreement.getCityName())
+              .field("agentName", agreement.getAgentName())
+              .field("tenantName", agreement.getTenantName())
+              .field("startDate", agreement.getStartDate())
+              .field("endDate", agreement.getEndDate())
+              .field("pricePerMonth", agreement.getPricePerMonth())
+              .end();
+    } else if (value instanceof NotificationDto notification) {
+      new ObjectWriter(out)
+              .field("id", notification.getId())
+              .field("message", notification.getMessage())
+              .field("date", notification.getDate())
+              .field("status", notification.getStatus())
+              .end();
+    } else if (value instanceof SessionPrincipal principal) {
+      new ObjectWriter(out)
+              .field("userId", principal.userId())
+              .field("role", principal.role())
+              .field("displayName", principal.displayName())
+              .field("email", principal.email())
+              .end();
+    } else if (value instanceof SearchHit hit) {
+      new ObjectWriter(out)
+              .field("type", hit.type())
+              .field("id", hit.id())
+              .field("score", hit.score())
+              .end();
+    } else if (value instanceof OccupancyStat stat) {
+      new ObjectWriter(out)
+              .field("cityName", stat.cityName())
+              .field("climateCondition", stat.climateCondition())
+              .field("warehouses", stat.warehouses())
+              .field("rented", stat.rented())
+              .field("occupancyPercent", stat.occupancyPercent())
+              .end();
+    } else if (value instanceof PricePerSquareMeterStat stat) {
+      new ObjectWriter(out)
+              .field("storageTypeName", stat.storageTypeName())
+              .field("agreements", stat.agreements())
+              .field("averagePrice", stat.averagePrice())
+              .end();
+    } else if (value instanceof MonthlyRevenue revenue) {
+      new ObjectWriter(out)
+              .field("month", revenue.month())
+              .field("revenue", revenue.revenue())
+              .end();
+    } else if (value instanceof OwnerReportRow row) {
+      new ObjectWriter(out)
+              .field("ownerId", row.ownerId())
+              .field("ownerName", row.ownerName())
+              .field("warehouseId", row.warehouseId())
+              .field("month", row.month())
+              .field("revenue", row.revenue())
+              .field("occupancyPercent", row.occupancyPercent())
+              .end();
+    } else if (value instanceof LocationSuggestionDto location) {
+      new ObjectWriter(out)
+              .field("id", location.getId())
+              .field("name", location.getName())
+              .field("countryName", location.getCountryName())
+              .field("warehouseCount", location.getWarehouseCount())
+              .end();
+    } else {
+      throw new IllegalArgumentException("Cannot write " + value.getClass().getName() + " as JSON");
+    }
+  }
+
+  /**
+   * Parses a JSON text.
+   *
+   * @param json The JSON text.
+   * @return The parsed value.
+   * @throws IllegalArgumentException If the text is not valid JSON.
+   */
+  public static Object parse(CharSequence json) {
+
+    Parser parser = new Parser(json);
+    Object value = parser.readValue();
+    parser.skipWhitespace();
+    if (parser.position < json.length()) {
+      throw parser.error("Unexpected content after the value");
+    }
+    return value;
+  }
+
+  /**
+   * Parses a JSON object.
+   *
+   * @param json The JSON text.
+   * @return The members of the object.
+   * @throws IllegalArgumentException If the text is not a valid JSON object.
+   */
+  @SuppressWarnings("unchecked")
+  public static Map<String, Object> parseObject(CharSequence json) {
+
+    Object value = parse(json);
+    if (!(value instanceof Map)) {
+      throw new IllegalArgumentException("A JSON object is expected");
+    }
+    return (Map<String, Object>) value;
+  }
+
+  /**
+   * Reads the registration form sent by a client.
+   *
+   * @param json The JSON object holding the fields of the form.
+   * @return The registration data, with the missing fields left null.
+   * @throws IllegalArgumentException If the text is not a valid JSON object or a field is not a string.
+   */
+  public static UserRegistrationDto readRegistration(CharSequence json) {
+
+    Map<String, Object> fields = parseObject(json);
+    UserRegistrationDto registrationDto = new UserRegistrationDto();
+    registrationDto.setFirstName(string(fields, "firstName"));
+    registrationDto.setLastName(string(fields, "lastName"));
+    registrationDto.setEmail(string(fields, "email"));
+    registrationDto.setPassword(string(fields, "password"));
+    registrationDto.setPhone(string(fields, "phone"));
+    registrationDto.setRole(string(fields, "role"));
+    return registrationDto;
+  }
+
+  /**
+   * Returns a string member of a parsed object.
+   *
+   * @param fields The members of the object.
+   * @param name   The name of the member.
+   * @return The string, or null if the member is missing or null.
+   * @throws IllegalArgumentException If the member is not a string.
+   */
+  public static String string(Map<String, Object> fields, String name) {
+
+    Object value = fields.get(name);
+    if (value != null && !(value instanceof String)) {
+      throw new IllegalArgumentException("The field '" + name + "' must be a string");
+    }
+    return (String) value;
+  }
+
+  private static void writeMap(Map<?, ?> map, StringBuilder out) {
+
+    ObjectWriter writer = new ObjectWriter(out);
+    for (Map.Entry<?, ?> entry : map.entrySet()) {
+      writer.field(String.valueOf(entry.getKey()), entry.getValue());
+    }
+    writer.end();
+  }
+
+  private static void writeIterable(Iterable<?> iterable, StringBuilder out) {
+
+    out.append('[');
+    boolean first = true;
+    for (Object element : iterable) {
+      if (!first) {
+        out.append(',');
+      }
+      write(element, out);
+      first = false;
+    }
+    out.append(']');
+  }
+
+  private static void writeString(String value, StringBuilder out) {
+
+    out.append('"');
+    int start = 0;
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c >= 0x20 && c != '"' && c != '\\') {
+        continue;
+      }
+      out.append(value, start, i);
+      switch (c) {
+        case '"' -> out.append("\\\"");
+        case '\\' -> out.append("\\\\");
+        case '\n' -> out.append("\\n");
+        case '\r' -> out.append("\\r");
+        case '\t' -> out.append("\\t");
+        default -> out.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+      }
+      start = i + 1;
+    }
+    out.append(value, start, value.length()).append('"');
+  }
+
+  /**
+   * Writes the members of a JSON object one after the other.
+   */
+  private static final class ObjectWriter {
+
+    private final StringBuilder out;
+    private boolean first = true;
+
+    private ObjectWriter(StringBuilder out) {
+
+      this.out = out;
+      out.append('{');
+    }
+
+    private ObjectWriter field(String name, Object value) {
+
+      if (!first) {
+        out.append(',');
+      }
+      writeString(name, out);
+      out.append(':');
+      write(value, out);
+      first = false;
+      return this;
+    }
+
+    private void end() {
+      out.append('}');
+    }
+  }
+
+  /**
+   * A recursive descent parser over the characters of a JSON text.
+   */
+  private static final class Parser {
+
+    private static final int MAX_DEPTH = 64;
+
+    private final CharSequence json;
+    private int position;
+    private int depth;
+
+    private Parser(CharSequence json) {
+      this.json = json;
+    }
+
+    private Object readValue() {
+
+      skipWhitespace();
+      if (position >= json.length()) {
+        throw error("Unexpected end of input");
+      }
+      char c = json.charAt(position);
+      return switch (c) {
+        case '{' -> readObject();
+        case '[' -> readArray();
+        case '"' -> readString();
+        case 't' -> readLiteral("true", Boolean.TRUE);
+        case 'f' -> readLiteral("false", Boolean.FALSE);
+        case 'n' -> readLiteral("null", null);
+        default -> {
+          if (c == '-' || (c >= '0' && c <= '9')) {
+            yield readNumber();
+          }
+          throw error("Unexpected character '" + c + "'");
+        }
+      };
+    }
+
+    private Map<String, Object> readObject() {
+
+      enter();
+      position++;
+      Map<String, Object> members = new LinkedHashMap<>();
+      skipWhitespace();
+      if (peek() == '}') {
+        position++;
+        depth--;
+        return members;
+      }
+      while (true) {
+        skipWhitespace();
+        if (peek() != '"') {
+          throw error("A member name is expected");
+        }
+        String name = readString();
+        skipWhitespace();
+        expect(':');
+        members.put(name, readValue());
+        skipWhitespace();
+        char c = next();
+        if (c == '}') {
+          depth--;
+          return members;
+        }
+        if (c != ',') {
+          throw error("',' or '}' is expected");
+        }
+      }
+    }
+
+    private List<Object> readArray() {
+
+      enter();
+      position++;
+      List<Object> elements = new ArrayList<>();
+      skipWhitespace();
+      if (peek() == ']') {
+        position++;
+        depth--;
+        return elements;
+      }
+      while (true) {
+        elements.add(readValue());
+        skipWhitespace();
+        char c = next();
+        if (c == ']') {
+          depth--;
+          return elements;
+        }
+        if (c != ',') {
+          throw error("',' or ']' is expected");
+        }
+      }
+    }
+
+    private String readString() {
+
+      position++;
+      StringBuilder value = null;
+      int start = position;
+      while (true) {
+        char c = next();
+        if (c == '"') {
+          if (value == null) {
+            return json.subSequence(start, position - 1).toString();
+          }
+          return value.append(json, start, position - 1).toString();
+        }
+        if (c < 0x20) {
+          throw error("Control characters must be escaped");
+        }
+        if (c == '\\') {
+          if (value == null) {
+            value = new StringBuilder();
+          }
+          value.append(json, start, position - 1).append(readEscape());
+          start = position;
+        }
+      }
+    }
+
+    private char readEscape() {
+
+      char c = next();
+      return switch (c) {
+        case '"', '\\', '/' -> c;
+        case 'b' -> '\b';
+        case 'f' -> '\f';
+        case 'n' -> '\n';
+        case 'r' -> '\r';
+        case 't' -> '\t';
+        case 'u' -> {
+          if (position + 4 > json.length()) {
+            throw error("Incomplete unicode escape");
+          }
+          int code = 0;
+          for (int i = 0; i < 4; i++) {
+            int digit = Character.digit(json.charAt(position++), 16);
+            if (digit < 0) {
+              throw error("Invalid unicode escape");
+            }
+            code = code * 16 + digit;
+          }
+          yield (char) code;
+        }
+        default -> throw error("Invalid escape '\\" + c + "'");
+      };
+    }
+
+    private Object readNumber() {
+
+      int start = position;
+      boolean integral = true;
+      if (peek() == '-') {
+        position++;
+      }
+      if (!readDigits()) {
+        throw error("A digit is expected");
+      }
+      if (peek() == '.') {
+        integral = false;
+        position++;
+        if (!readDigits()) {
+          throw error("A digit is expected after the decimal point");
+        }
+      }
+      if (peek() == 'e' || peek() == 'E') {
+        integral = false;
+        position++;
+        if (peek() == '+' || peek() == '-') {
+          position++;
+        }
+        if (!readDigits()) {
+          throw error("A digit is expected in the exponent");
+        }
+      }
+      String text = json.subSequence(start, position).toString();
+      if (integral && position - start < 19) {
+        return Long.parseLong(text);
+      }
+      return new BigDecimal(text);
+    }
+
+    private boolean readDigits() {
+
+      int start = position;
+      while (position < json.length() && json.charAt(position) >= '0' && json.charAt(position) <= '9') {
+        position++;
+      }
+      return position > start;
+    }
+
+    private Object readLiteral(String literal, Object value) {
+
+      for (int i = 0; i < literal.length(); i++) {
+        if (next() != literal.charAt(i)) {
+          throw error("Invalid literal, '" + literal + "' is expected");
+        }
+      }
+      return value;
+    }
+
+    private void enter() {
+
+      if (++depth > MAX_DEPTH) {
+        throw error("Nesting is deeper than " + MAX_DEPTH);
+      }
+    }
+
+    private void expect(char expected) {
+
+      if (next() != expected) {
+        throw error("'" + expected + "' is expected");
+      }
+    }
+
+    private char peek() {
+      return position < json.length() ? json.charAt(position) : '\0';
+    }
+
+    private char next() {
+
+      if (position >= json.length()) {
+        throw error("Unexpected end of input");
+      }
+      return json.charAt(position++);
+    }
+
+    private void skipWhitespace() {
+
+      while (position < json.length()) {
+        char c = json.charAt(position);
+        if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+          return;
+        }
+        position++;
+      }
+    }
+
+    private IllegalArgumentException error(String message) {
+      return new IllegalArgumentException(message + " at position " + position);
+    }
+  }
+}
@@ -0,0 +1,221 @@
+package bg.tuvarna.sit.wms.util;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javafx.application.Platform;
+import javafx.collections.ObservableListBase;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * An observable list of a known size whose items are loaded page by page on demand.
+ * <p>
+ * Meant as the items of a virtualized control such as a {@code TableView}, which only asks for the
+ * items of its visible rows. An item which is not loaded yet is returned as {@code null} and its page
+ * is requested from the page loader on a background thread. Once the page arrives it is applied on the
+ * JavaFX Application Thread and reported as replaced, so the rows showing it are updated. Only the
+ * {@value #DEFAULT_MAX_PAGES} most recently used pages are kept in memory by default, the others are
+ * loaded again when they are scrolled back into view.
+ * </p>
+ * <p>
+ * The page following the last row asked for is prefetched once the rows near the end of a page are
+ * shown. When the page before a requested page is in memory, its last item is passed to the loader,
+ * so sequential pages can be looked up by key instead of by position. Pages are loaded one at a time;
+ * requests which are no longer near the last requested page, e.g. after fast scrolling, are dropped
+ * before they reach the loader.
+ * </p>
+ * <p>
+ * Apart from {@link #close()} the list must only be used on the JavaFX Application Thread.
+ * </p>
+ *
+ * @param <T> The type of the items.
+ */
+public class LazyPagedList<T> extends ObservableListBase<T> implements AutoCloseable {
+
+  public static final int DEFAULT_PAGE_SIZE = 100;
+  public static final int DEFAULT_MAX_PAGES = 10;
+
+  private static final Logger LOGGER = LogManager.getLogger(LazyPagedList.class);
+
+  /**
+   * Loads a page of items, called on a background thread.
+   *
+   * @param <T> The type of the items.
+   */
+  @FunctionalInterface
+  public interface PageLoader<T> {
+
+    /**
+     * Loads the items of a page.
+     *
+     * @param offset   The position of the first item of the page.
+     * @param limit    The number of items of the page.
+     * @param previous The item just before the page, or null if it is not known.
+     * @return The items of the page.
+     * @throws Exception If the page could not be loaded.
+     */
+    List<T> load(int offset, int limit, T previous) throws Exception;
+  }
+
+  private final int size;
+  private final int pageSize;
+  private final int maxPages;
+  private final PageLoader<T> loader;
+  private final Executor loadExecutor;
+  private final Executor fxExecutor;
+  private final ExecutorService ownedExecutor;
+  private final Map<Integer, List<T>> pages = new LinkedHashMap<>(16, 0.75f, true);
+  private final Set<Integer> requestedPages = new HashSet<>();
+  private volatile int lastRequestedPage;
+  private volatile boolean closed;
+
+  /**
+   * Constructs a list loading its pages on its own background thread.
+   *
+   * @param size   The total number of items.
+   * @param loader The loader of the pages.
+   */
+  public LazyPagedList(int size, PageLoader<T> loader) {
+    this(size, DEFAULT_PAGE_SIZE, DEFAULT_MAX_PAGES, loader, null, Platform::runLater);
+  }
+
+  /**
+   * Constructs a list with explicit executors, e.g. running everything on the calling thread in tests.
+   *
+   * @param size         The total number of items.
+   * @param pageSize     The number of items of a page.
+   * @param maxPages     The maximum number of pages kept in memory.
+   * @param loader       The loader of the pages.
+   * @param loadExecutor The executor calling the loader, or null to use a single background thread of the list.
+   * @param fxExecutor   The executor applying the loaded pages, the JavaFX Application Thread in the application.
+   */
+  public LazyPagedList(int size, int pageSize, int maxPages, PageLoader<T> loader, Executor loadExecutor,
+                       Executor fxExecutor) {
+
+    if (size < 0 || pageSize <= 0 || maxPages <= 0) {
+      throw new IllegalArgumentException("Size must not be negative, page size and page count must be positive");
+    }
+    this.size = size;
+    this.pageSize = pageSize;
+    this.maxPages = maxPages;
+    this.loader = loader;
+    this.fxExecutor = fxExecutor;
+    if (loadExecutor == null) {
+      ownedExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "lazy-page-loader");
+        thread.setDaemon(true);
+        return thread;
+      });
+      this.loadExecutor = ownedExecutor;
+    } else {
+      ownedExecutor = null;
+      this.loadExecutor = loadExecutor;
+    }
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the item if its page is in memory and requests the page otherwise.
+   *
+   * @param index The position of the item.
+   * @return The item, or null while its page is being loaded.
+   */
+  @Override
+  public T get(int index) {
+
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+    }
+
+    int page = index / pageSize;
+    List<T> items = pages.get(page);
+    if (items == null) {
+      request(page);
+      return null;
+    }
+
+    int position = index % pageSize;
+    if (position >= pageSize - pageSize / 4) {
+      request(page + 1);
+    }
+    return position < items.size() ? items.get(position) : null;
+  }
+
+  public int getLoadedPageCount() {
+    return pages.size();
+  }
+
+  /**
+   * Stops loading pages. Pages in flight are dropped when they arrive.
+   */
+  @Override
+  public void close() {
+
+    closed = true;
+    if (ownedExecutor != null) {
+      ownedExecutor.shutdownNow();
+    }
+  }
+
+  private void request(int page) {
+
+    if (closed || page * pageSize >= size || pages.containsKey(page) || !requestedPages.add(page)) {
+      return;
+    }
+    lastRequestedPage = page;
+
+    List<T> previousPage = page > 0 ? pages.get(page - 1) : null;
+    T previous = previousPage != null && previousPage.size() == pageSize ? previousPage.get(pageSize - 1) : null;
+    int offset = page * pageSize;
+    int limit = Math.min(pageSize, size - offset);
+
+    loadExecutor.execute(() -> {
+      if (closed || Math.abs(page - lastRequestedPage) > maxPages / 2) {
+        fxExecutor.execute(() -> requestedPages.remove(page));
+        return;
+      }
+      try {
+        List<T> items = loader.load(offset, limit, previous);
+        fxExecutor.execute(() -> apply(page, items));
+      } catch (Exception e) {
+        LOGGER.error("Failed to load the page at offset {}", offset, e);
+        fxExecutor.execute(() -> requestedPages.remove(page));
+      }
+    });
+  }
+
+  private void apply(int page, List<T> items) {
+
+    requestedPages.remove(page);
+    if (closed) {
+      return;
+    }
+
+    pages.put(page, items);
+    Iterator<Integer> leastRecentlyUsed = pages.keySet().iterator();
+    while (pages.size() > maxPages) {
+      leastRecentlyUsed.next();
+      leastRecentlyUsed.remove();
+    }
+
+    int from = page * pageSize;
+    int to = Math.min(from + items.size(), size);
+    if (from < to) {
+      beginChange();
+      nextReplace(from, to, Collections.nCopies(to - from, null));
+      endChange();
+    }
+  }
+}
@@ -0,0 +1,81 @@
+package bg.tuvarna.sit.wms.util;
+
+import bg.tuvarna.sit.wms.validation.ValidationRule;
+import static bg.tuvarna.sit.wms.util.ValidationUtils.showErrorLabel;
+import static bg.tuvarna.sit.wms.util.ValidationUtils.validateField;
+import javafx.animation.PauseTransition;
+import javafx.scene.control.Label;
+import javafx.scene.control.TextInputControl;
+import javafx.util.Duration;
+
+/**
+ * Validates a text field while the user types.
+ * <p>
+ * The field is checked once the user pauses typing for {@link #DEFAULT_DELAY}, not on every keystroke,
+ * and an empty field is not reported until the form is submitted. Submitting the form should call
+ * {@link #validateNow()}, which drops the pending check and validates right away.
+ * </p>
+ */
+public class LiveValidation {
+
+  public static final Duration DEFAULT_DELAY = Duration.millis(300);
+
+  private final TextInputControl field;
+  private final Label errorLabel;
+  private final ValidationRule rule;
+  private final PauseTransition pause;
+
+  private LiveValidation(TextInputControl field, Label errorLabel, ValidationRule rule, Duration delay) {
+
+    this.field = field;
+    this.errorLabel = errorLabel;
+    this.rule = rule;
+    this.pause = new PauseTransition(delay);
+    pause.setOnFinished(event -> validateTyped());
+    field.textProperty().addListener((observable, oldText, newText) -> pause.playFromStart());
+  }
+
+  /**
+   * Starts validating the field against the rule as the user types.
+   *
+   * @param field      The field to validate.
+   * @param errorLabel The label showing the message of the rule while the field is invalid.
+   * @param rule       The rule the text of the field must pass.
+   * @return The validation of the field.
+   */
+  public static LiveValidation attach(TextInputControl field, Label errorLabel, ValidationRule rule) {
+    return new LiveValidation(field, errorLabel, rule, DEFAULT_DELAY);
+  }
+
+  /**
+   * Validates the field right away, e.g. when the form is submitted.
+   *
+   * @return true if the field is valid.
+   */
+  public boolean validateNow() {
+
+    pause.stop();
+    boolean isValid = validateField(field, rule);
+    showErrorLabel(errorLabel, rule.getMessage(), !isValid);
+    return isValid;
+  }
+
+  /**
+   * Drops the pending check and clears the error state, e.g. when the form is cleared.
+   */
+  public void reset() {
+
+    pause.stop();
+    field.setStyle("");
+    errorLabel.setVisible(false);
+  }
+
+  private void validateTyped() {
+
+    if (field.getText() == null || field.getText().isBlank()) {
+      reset();
+    } else {
+      validateNow();
+    }
+  }
+}
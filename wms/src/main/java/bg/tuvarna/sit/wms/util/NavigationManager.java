@@ -0,0 +1,186 @@
+package bg.tuvarna.sit.wms.util;
+
+import bg.tuvarna.sit.wms.context.ApplicationContext;
+import bg.tuvarna.sit.wms.metrics.LatencyHistogram;
+import bg.tuvarna.sit.wms.metrics.MetricsRegistry;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import javafx.animation.AnimationTimer;
+import javafx.animation.FadeTransition;
+import javafx.scene.Group;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.stage.Stage;
+import javafx.util.Duration;
+
+/**
+ * Navigates between the views of a stage by swapping the root of a single scene.
+ * <p>
+ * Keeping the scene means its stylesheets stay parsed and its CSS and layout caches survive
+ * navigation, so only the new root has to be styled. The new root is faded in when a transition
+ * is set. Each manager keeps a back-stack of the last {@value #BACK_STACK_LIMIT} views, the oldest
+ * entries are dropped beyond that so the stack cannot grow without bound.
+ * </p>
+ * <p>
+ * The cost of applying CSS and laying out the new root is recorded under
+ * {@code navigation.css.<fxmlPath>} and the frame intervals during the transition under
+ * {@code navigation.frame}. Setting the {@value #REUSE_SCENE_PROPERTY} system property to
+ * {@code false} creates a new scene on every navigation instead, for comparing both ways
+ * with the same measurements.
+ * </p>
+ */
+public class NavigationManager {
+
+  public static final String REUSE_SCENE_PROPERTY = "wms.navigation.reuse_scene";
+
+  static final int BACK_STACK_LIMIT = 16;
+
+  private static final String STAGE_PROPERTY = NavigationManager.class.getName();
+  private static final Duration DEFAULT_TRANSITION = Duration.millis(120);
+  private static final int MEASURED_FRAMES = 30;
+
+  private final Stage stage;
+  private final boolean reuseScene;
+  private final Deque<String> backStack = new ArrayDeque<>();
+  private Duration transition = DEFAULT_TRANSITION;
+  private FadeTransition runningTransition;
+  private String currentPath;
+
+  NavigationManager(Stage stage, boolean reuseScene) {
+
+    this.stage = stage;
+    this.reuseScene = reuseScene;
+  }
+
+  /**
+   * Returns the navigation manager of the stage, creating it on first use.
+   *
+   * @param stage The stage to navigate in.
+   * @return The manager bound to the stage.
+   */
+  public static NavigationManager of(Stage stage) {
+
+    return (NavigationManager) stage.getProperties().computeIfAbsent(STAGE_PROPERTY, key ->
+            new NavigationManager(stage, Boolean.parseBoolean(System.getProperty(REUSE_SCENE_PROPERTY, "true"))));
+  }
+
+  /**
+   * Sets the duration of the fade-in of a new view, {@link Duration#ZERO} disables the transition.
+   *
+   * @param transition The fade-in duration.
+   */
+  public void setTransition(Duration transition) {
+    this.transition = transition;
+  }
+
+  /**
+   * Shows the given view, putting the current one on the back-stack.
+   *
+   * @param fxmlPath The path to the FXML file of the view.
+   */
+  public void navigate(String fxmlPath) {
+
+    if (currentPath != null && !currentPath.equals(fxmlPath)) {
+      backStack.push(currentPath);
+      if (backStack.size() > BACK_STACK_LIMIT) {
+        backStack.removeLast();
+      }
+    }
+    show(fxmlPath);
+  }
+
+  /**
+   * Shows the previous view from the back-stack, or the fallback view if the stack is empty.
+   *
+   * @param fallbackPath The view to show when there is nothing to go back to.
+   */
+  public void back(String fallbackPath) {
+    show(backStack.isEmpty() ? fallbackPath : backStack.pop());
+  }
+
+  public int getBackStackSize() {
+    return backStack.size();
+  }
+
+  private void show(String fxmlPath) {
+
+    ViewLoaderUtil.CachedView view = ViewLoaderUtil.getView(fxmlPath);
+    if (view.getController() instanceof RefreshableView) {
+      ((RefreshableView) view.getController()).onShow();
+    }
+    Parent root = view.getRoot();
+
+    Scene scene = stage.getScene();
+    if (root.getScene() != null && root.getScene() != scene) {
+      root.getScene().setRoot(new Group());
+    }
+
+    MetricsRegistry metricsRegistry = ApplicationContext.getMETRICS_REGISTRY();
+    long start = System.nanoTime();
+    if (scene == null || !reuseScene) {
+      if (scene != null) {
+        scene.setRoot(new Group());
+      }
+      scene = new Scene(root);
+      stage.setScene(scene);
+    } else if (scene.getRoot() != root) {
+      scene.setRoot(root);
+    }
+    root.applyCss();
+    root.layout();
+    metricsRegistry.histogram("navigation.css." + fxmlPath).recordSince(start);
+
+    boolean changed = !fxmlPath.equals(currentPath);
+    currentPath = fxmlPath;
+    if (changed) {
+      stage.sizeToScene();
+      fadeIn(root, metricsRegistry.histogram("navigation.frame"));
+    }
+    stage.show();
+  }
+
+  private void fadeIn(Parent root, LatencyHistogram frameTimes) {
+
+    if (runningTransition != null) {
+      runningTransition.stop();
+      runningTransition.getNode().setOpacity(1);
+      runningTransition = null;
+    }
+
+    startFrameTimer(frameTimes);
+    if (transition.lessThanOrEqualTo(Duration.ZERO)) {
+      return;
+    }
+    FadeTransition fade = new FadeTransition(transition, root);
+    fade.setFromValue(0);
+    fade.setToValue(1);
+    fade.setOnFinished(event -> runningTransition = null);
+    runningTransition = fade;
+    fade.play();
+  }
+
+  /**
+   * Records the intervals between the first frames after a navigation, which is when
+   * a slow CSS pass or layout shows up as a dropped frame.
+   */
+  private static void startFrameTimer(LatencyHistogram frameTimes) {
+
+    new AnimationTimer() {
+
+      private long previous;
+      private int frames;
+
+      @Override
+      public void handle(long now) {
+
+        if (previous != 0) {
+          frameTimes.record(now - previous);
+        }
+        previous = now;
+        if (++frames > MEASURED_FRAMES) {
+          stop();
+        }
+      }
+    }.start();
+  }
+}
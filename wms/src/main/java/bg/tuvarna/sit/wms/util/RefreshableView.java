@@ -0,0 +1,19 @@
+package bg.tuvarna.sit.wms.util;
+
+/**
+ * Implemented by controllers of views kept in the view cache of {@link ViewLoaderUtil}.
+ * <p>
+ * A cached view is parsed and initialized only once, so whatever the controller sets up in its
+ * {@code initialize} method from state that may have changed since, such as the logged in user,
+ * or leftovers of the previous visit, such as typed in text and error labels, has to be
+ * refreshed here.
+ * </p>
+ */
+public interface RefreshableView {
+
+  /**
+   * Called on the JavaFX application thread every time the cached view is shown again,
+   * before it is set to the stage.
+   */
+  void onShow();
+}
@@ -0,0 +1,56 @@
+package bg.tuvarna.sit.wms.util;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates executors running every task on its own thread, for work that mostly waits on the database.
+ */
+public final class TaskExecutors {
+
+  private TaskExecutors() {
+  }
+
+  /**
+   * Uses a virtual thread per task where available (Java 21 and later), looked up reflectively
+   * since the application targets Java 17. Virtual threads are cheap, so their number is not limited.
+   * <p>
+   * Otherwise the tasks run on a pool of at most {@code maxThreads} daemon threads, which should match the
+   * connection pool, since more threads would only wait for a connection. Tasks arriving while all threads are
+   * busy wait in a queue of the given capacity; once it is full, further tasks are rejected with a
+   * {@link java.util.concurrent.RejectedExecutionException}, instead of starting a platform thread per task
+   * without limit.
+   * </p>
+   *
+   * @param threadNamePrefix The name prefix of the pooled threads, followed by a running number.
+   * @param maxThreads       The maximum number of pooled threads.
+   * @param queueCapacity    The number of tasks that may wait for a pooled thread, 0 for none.
+   * @return The executor.
+   */
+  public static ExecutorService newPerTaskExecutor(String threadNamePrefix, int maxThreads, int queueCapacity) {
+
+    try {
+      Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return (ExecutorService) factory.invoke(null);
+    } catch (ReflectiveOperationException e) {
+      AtomicInteger threadNumber = new AtomicInteger();
+      BlockingQueue<Runnable> queue = queueCapacity == 0
+              ? new SynchronousQueue<>() : new LinkedBlockingQueue<>(queueCapacity);
+      ThreadPoolExecutor executor = new ThreadPoolExecutor(maxThreads, maxThreads, 60, TimeUnit.SECONDS, queue,
+              runnable -> {
+                Thread thread = new Thread(runnable, threadNamePrefix + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+              });
+      executor.allowCoreThreadTimeOut(true);
+      return executor;
+    }
+  }
+}
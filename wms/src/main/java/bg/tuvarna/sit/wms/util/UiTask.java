@@ -0,0 +1,192 @@
+package bg.tuvarna.sit.wms.util;
+
+import bg.tuvarna.sit.wms.context.ApplicationContext;
+import bg.tuvarna.sit.wms.metrics.LatencyHistogram;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import javafx.beans.value.ChangeListener;
+import javafx.concurrent.Task;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Runs a blocking call of a controller, such as a service call hitting the database, off the JavaFX
+ * Application Thread.
+ * <p>
+ * While the call is in flight the given controls are disabled and the busy indicator is shown. The
+ * result or the error is delivered back on the JavaFX Application Thread. The call is cancelled when
+ * the view of the owner node is swapped out of its scene, i.e. when the user navigates away, and its
+ * result is then dropped. The calls run on virtual threads when the runtime has them and on a pool
+ * of daemon threads otherwise. The duration of each call is recorded under {@code ui.task.<name>}.
+ * </p>
+ * <pre>{@code
+ * UiTask.of("login", () -> userService.login(email, password))
+ *     .ownedBy(loginButton)
+ *     .disabling(emailField, passwordField, loginButton)
+ *     .showing(busyIndicator)
+ *     .onSuccess(loggedIn -> ...)
+ *     .onFailure(error -> ...)
+ *     .start();
+ * }</pre>
+ *
+ * @param <T> The type of the result of the call.
+ */
+public class UiTask<T> {
+
+  private static final Logger LOGGER = LogManager.getLogger(UiTask.class);
+
+  private static final ExecutorService EXECUTOR = TaskExecutors.newPerTaskExecutor("ui-task-",
+          JpaUtil.getPoolSize(), Integer.MAX_VALUE);
+  private static final AtomicInteger IN_FLIGHT = new AtomicInteger();
+
+  private final String name;
+  private final Callable<T> call;
+  private final List<Node> disabledNodes = new ArrayList<>();
+  private Node owner;
+  private Node busyIndicator;
+  private Consumer<T> onSuccess = result -> {
+  };
+  private Consumer<Throwable> onFailure = error -> LOGGER.error("Background task failed", error);
+
+  private UiTask(String name, Callable<T> call) {
+
+    this.name = name;
+    this.call = call;
+  }
+
+  /**
+   * Creates a task for the given blocking call.
+   *
+   * @param name The name of the task, used for its metrics and log messages.
+   * @param call The blocking call, run on a background thread.
+   * @param <T>  The type of the result of the call.
+   * @return A task to be configured and started.
+   */
+  public static <T> UiTask<T> of(String name, Callable<T> call) {
+    return new UiTask<>(name, Objects.requireNonNull(call));
+  }
+
+  /**
+   * Tells whether no task is in flight. Meant for tests waiting for the effects of a user action;
+   * the result of the last task is delivered by the JavaFX Application Thread right after it is
+   * counted as finished, so tests should wait for the pending FX events next.
+   *
+   * @return true if the call of every started task has finished.
+   */
+  public static boolean isIdle() {
+    return IN_FLIGHT.get() == 0;
+  }
+
+  /**
+   * Sets the node whose removal from its scene cancels the task.
+   *
+   * @param owner A node of the view starting the task.
+   * @return This task.
+   */
+  public UiTask<T> ownedBy(Node owner) {
+
+    this.owner = owner;
+    return this;
+  }
+
+  /**
+   * Adds nodes to be disabled while the task is in flight.
+   *
+   * @param nodes The nodes, typically the fields and buttons of the form.
+   * @return This task.
+   */
+  public UiTask<T> disabling(Node... nodes) {
+
+    disabledNodes.addAll(List.of(nodes));
+    return this;
+  }
+
+  /**
+   * Sets the node shown while the task is in flight.
+   *
+   * @param busyIndicator The busy indicator, hidden otherwise.
+   * @return This task.
+   */
+  public UiTask<T> showing(Node busyIndicator) {
+
+    this.busyIndicator = busyIndicator;
+    return this;
+  }
+
+  public UiTask<T> onSuccess(Consumer<T> onSuccess) {
+
+    this.onSuccess = onSuccess;
+    return this;
+  }
+
+  public UiTask<T> onFailure(Consumer<Throwable> onFailure) {
+
+    this.onFailure = onFailure;
+    return this;
+  }
+
+  /**
+   * Starts the task. Must be called on the JavaFX Application Thread.
+   *
+   * @return The started JavaFX task, e.g. for cancelling it explicitly.
+   */
+  public Task<T> start() {
+
+    LatencyHistogram latency = ApplicationContext.getMETRICS_REGISTRY().histogram("ui.task." + name);
+    Task<T> task = new Task<>() {
+      @Override
+      protected T call() throws Exception {
+
+        try (LatencyHistogram.Timing timing = latency.time()) {
+          return timing.succeeded(UiTask.this.call.call());
+        }
+      }
+    };
+
+    ChangeListener<Scene> cancelOnNavigation = (observable, oldScene, newScene) -> {
+      if (newScene == null) {
+        LOGGER.debug("Cancelling task {}, its view was left", name);
+        task.cancel(true);
+      }
+    };
+    if (owner != null) {
+      owner.sceneProperty().addListener(cancelOnNavigation);
+    }
+
+    setBusy(true);
+    IN_FLIGHT.incrementAndGet();
+    task.setOnSucceeded(event -> finish(cancelOnNavigation, () -> onSuccess.accept(task.getValue())));
+    task.setOnFailed(event -> finish(cancelOnNavigation, () -> onFailure.accept(task.getException())));
+    task.setOnCancelled(event -> finish(cancelOnNavigation, () -> {
+    }));
+    EXECUTOR.execute(task);
+    return task;
+  }
+
+  private void finish(ChangeListener<Scene> cancelOnNavigation, Runnable delivery) {
+
+    if (owner != null) {
+      owner.sceneProperty().removeListener(cancelOnNavigation);
+    }
+    setBusy(false);
+    // Counted as finished before the delivery, which may block in a nested event loop showing a dialog
+    IN_FLIGHT.decrementAndGet();
+    delivery.run();
+  }
+
+  private void setBusy(boolean busy) {
+
+    disabledNodes.forEach(node -> node.setDisable(busy));
+    if (busyIndicator != null) {
+      busyIndicator.setVisible(busy);
+      busyIndicator.setManaged(busy);
+    }
+  }
+}
@@ -0,0 +1,48 @@
+package bg.tuvarna.sit.wms.util;
+
+import java.util.List;
+import java.util.Map;
+import org.hibernate.cfg.AvailableSettings;
+
+/**
+ * The supported database layouts of the user hierarchy.
+ * <p>
+ * The entity annotations describe the {@link #JOINED} layout. {@link #SINGLE_TABLE} is applied on top of
+ * them through an additional mapping file, which keeps every user in the {@code users} table and tells the
+ * subclasses apart by a {@code user_type} discriminator column. Polymorphic lookups then read a single
+ * table instead of outer-joining {@code owners}, {@code agents} and {@code tenants}.
+ * </p>
+ */
+public enum UserInheritanceMapping {
+
+  JOINED,
+  SINGLE_TABLE;
+
+  /**
+   * Mapping file that overrides the user hierarchy with the single-table layout.
+   */
+  public static final String SINGLE_TABLE_MAPPING_FILE = "META-INF/orm-user-single-table.xml";
+
+  /**
+   * Resolves the layout from a configuration value, falling back to {@link #JOINED}.
+   *
+   * @param value The configured value, e.g. the {@code USER_INHERITANCE} environment variable. May be null.
+   * @return The matching layout.
+   */
+  public static UserInheritanceMapping fromValue(String value) {
+
+    return SINGLE_TABLE.name().equalsIgnoreCase(value) ? SINGLE_TABLE : JOINED;
+  }
+
+  /**
+   * Returns the configuration overrides that select this layout when creating an EntityManagerFactory.
+   *
+   * @return The overrides, empty for the default layout.
+   */
+  public Map<String, Object> configOverrides() {
+
+    return this == SINGLE_TABLE
+            ? Map.of(AvailableSettings.ORM_XML_FILES, List.of(SINGLE_TABLE_MAPPING_FILE))
+            : Map.of();
+  }
+}
@@ -1,5 +1,6 @@
 package bg.tuvarna.sit.wms.util;
 
+import bg.tuvarna.sit.wms.validation.ValidationRule;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextInputControl;
@@ -10,16 +11,16 @@ import javafx.scene.control.TextInputControl;
 public class ValidationUtils {
 
   /**
-   * Validates the input of a given text field based on provided validation criteria.
-   * The method checks if the text field is not empty and if it matches the specified regex pattern.
+   * Validates the input of a given text field against a validation rule.
+   * The rule checks the trimmed text in place and fails an empty field.
    *
-   * @param field              The text input control to validate.
-   * @param validationCriteria The regex pattern the input must match.
-   * @return true if the field is valid (not empty and matches the regex), false otherwise.
+   * @param field The text input control to validate.
+   * @param rule  The rule the input must pass.
+   * @return true if the field is valid (not empty and passes the rule), false otherwise.
    */
-  public static boolean validateField(TextInputControl field, String validationCriteria) {
+  public static boolean validateField(TextInputControl field, ValidationRule rule) {
 
-    boolean isValid = !field.getText().trim().isEmpty() && field.getText().trim().matches(validationCriteria);
+    boolean isValid = rule.test(field.getText());
     field.setStyle(isValid ? "" : "-fx-border-color: red;");
     return isValid;
   }
@@ -1,21 +1,47 @@
 package bg.tuvarna.sit.wms.util;
 
 import bg.tuvarna.sit.wms.context.ApplicationContext;
+import bg.tuvarna.sit.wms.metrics.Counter;
+import bg.tuvarna.sit.wms.metrics.LatencyHistogram;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Node;
 import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.stage.Stage;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+/**
+ * Loads the FXML views of the application and sets them to a stage.
+ * <p>
+ * Every view is parsed once and kept in a cache together with its controller, so navigating back to
+ * a view reuses its scene graph instead of parsing the FXML again. Controllers implementing
+ * {@link RefreshableView} are told when their view is shown again. Views the user is likely to open
+ * next can be parsed ahead of time with {@link #preload(String...)}.
+ * Showing a view on a stage goes through the {@link NavigationManager} of the stage.
+ * </p>
+ * <p>
+ * Views are loaded on the JavaFX application thread only, as their controls and controllers are not
+ * thread-safe.
+ * </p>
+ */
 public class ViewLoaderUtil {
 
   private static final Logger LOGGER = LogManager.getLogger(ViewLoaderUtil.class);
 
+  static final int MAX_CACHED_VIEWS = 8;
+
+  private static final Map<String, CachedView> VIEW_CACHE = new ConcurrentHashMap<>();
+  private static final Counter CACHE_HITS = ApplicationContext.getMETRICS_REGISTRY().counter("view.cache.hits");
+  private static final Counter CACHE_MISSES = ApplicationContext.getMETRICS_REGISTRY().counter("view.cache.misses");
+
   /**
    * Loads a view and sets it to the current stage.
    *
@@ -37,13 +63,52 @@ public class ViewLoaderUtil {
   public static void loadView(String fxmlPath, Stage stage) {
 
     try {
-      Parent view = loadFXML(fxmlPath);
-      setScene(stage, view);
+      NavigationManager.of(stage).navigate(fxmlPath);
     } catch (Exception e) {
       handleLoadViewException(e, fxmlPath);
     }
   }
 
+  /**
+   * Shows the view the user came from, see {@link NavigationManager#back(String)}.
+   *
+   * @param fallbackPath The view to show when there is no previous view.
+   * @param event        The action event that triggered the view change.
+   */
+  public static void goBack(String fallbackPath, ActionEvent event) {
+
+    Stage stage = (Stage) ((Node) event.getSource()).getScene().getWindow();
+    try {
+      NavigationManager.of(stage).back(fallbackPath);
+    } catch (Exception e) {
+      handleLoadViewException(e, fallbackPath);
+    }
+  }
+
+  /**
+   * Loads the given views into the cache, so showing them later does not wait for the FXML to be parsed.
+   * Every view is loaded by its own task queued on the JavaFX application thread, so the thread handles
+   * user input between them. Views already in the cache are skipped and failures are only logged,
+   * loading the view on demand reports them to the user.
+   *
+   * @param fxmlPaths The paths to the FXML files of the views.
+   */
+  public static void preload(String... fxmlPaths) {
+
+    for (String fxmlPath : fxmlPaths) {
+      Platform.runLater(() -> {
+        if (VIEW_CACHE.containsKey(fxmlPath)) {
+          return;
+        }
+        try {
+          getView(fxmlPath);
+        } catch (RuntimeException e) {
+          LOGGER.warn("Failed to preload the view: {}", fxmlPath, e);
+        }
+      });
+    }
+  }
+
   /**
    * Shows an alert dialog with the specified type, title, and content.
    *
@@ -61,30 +126,66 @@ public class ViewLoaderUtil {
   }
 
   /**
-   * Loads an FXML file and returns its root node.
+   * Returns the cached view for the given FXML file, loading it on a cache miss. The FXML is loaded
+   * outside of the cache map, so a controller may itself load other views while it is constructed.
+   * Beyond {@value #MAX_CACHED_VIEWS} views the least recently used one that is not shown anywhere
+   * is evicted. Must be called on the JavaFX application thread.
    *
    * @param fxmlPath The path to the FXML file.
-   * @return The root node of the loaded FXML file.
-   * @throws IOException If the file cannot be loaded.
+   * @return The root node and the controller of the view.
    */
-  private static Parent loadFXML(String fxmlPath) throws IOException {
+  static CachedView getView(String fxmlPath) {
+
+    CachedView cached = VIEW_CACHE.get(fxmlPath);
+    if (cached == null) {
+      CachedView loaded;
+      try {
+        loaded = loadFXML(fxmlPath);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      cached = VIEW_CACHE.putIfAbsent(fxmlPath, loaded);
+      if (cached == null) {
+        cached = loaded;
+        CACHE_MISSES.increment();
+        if (VIEW_CACHE.size() > MAX_CACHED_VIEWS) {
+          evictLeastRecentlyUsed(fxmlPath);
+        }
+      } else {
+        CACHE_HITS.increment();
+      }
+    } else {
+      CACHE_HITS.increment();
+    }
+    cached.lastUsed = System.nanoTime();
+    return cached;
+  }
+
+  private static void evictLeastRecentlyUsed(String keptPath) {
 
-    FXMLLoader loader = new FXMLLoader(ViewLoaderUtil.class.getResource(fxmlPath));
-    loader.setControllerFactory(ApplicationContext.getCONTROLLER_FACTORY());
-    return loader.load();
+    VIEW_CACHE.entrySet().stream()
+            .filter(entry -> !entry.getKey().equals(keptPath) && entry.getValue().root.getScene() == null)
+            .min(Comparator.comparingLong(entry -> entry.getValue().lastUsed))
+            .ifPresent(entry -> VIEW_CACHE.remove(entry.getKey(), entry.getValue()));
   }
 
   /**
-   * Sets the provided view to the given stage.
+   * Loads an FXML file and returns its root node and controller.
+   * The load time is recorded in the metrics registry under {@code view.load.<fxmlPath>}.
    *
-   * @param stage The stage to set the view on.
-   * @param view  The root node of the JavaFX view to set on the stage.
+   * @param fxmlPath The path to the FXML file.
+   * @return The root node and the controller of the loaded FXML file.
+   * @throws IOException If the file cannot be loaded.
    */
-  private static void setScene(Stage stage, Parent view) {
+  private static CachedView loadFXML(String fxmlPath) throws IOException {
 
-    Scene scene = new Scene(view);
-    stage.setScene(scene);
-    stage.show();
+    LatencyHistogram latency = ApplicationContext.getMETRICS_REGISTRY().histogram("view.load." + fxmlPath);
+    try (LatencyHistogram.Timing timing = latency.time()) {
+      FXMLLoader loader = new FXMLLoader(ViewLoaderUtil.class.getResource(fxmlPath));
+      loader.setControllerFactory(ApplicationContext.getCONTROLLER_FACTORY());
+      Parent root = loader.load();
+      return timing.succeeded(new CachedView(root, loader.getController()));
+    }
   }
 
   /**
@@ -95,7 +196,30 @@ public class ViewLoaderUtil {
    */
   private static void handleLoadViewException(Exception e, String fxmlPath) {
 
-    LOGGER.error("Failed to load the view: " + fxmlPath, e);
+    LOGGER.error("Failed to load the view: {}", fxmlPath, e);
     showAlert(Alert.AlertType.ERROR, "Error", "Failed to load the view.");
   }
+
+  /**
+   * The parsed scene graph of a view together with its controller.
+   */
+  static final class CachedView {
+
+    private final Parent root;
+    private final Object controller;
+    private volatile long lastUsed;
+
+    private CachedView(Parent root, Object controller) {
+      this.root = root;
+      this.controller = controller;
+    }
+
+    Parent getRoot() {
+      return root;
+    }
+
+    Object getController() {
+      return controller;
+    }
+  }
 }
@@ -0,0 +1,143 @@
+package bg.tuvarna.sit.wms.validation;
+
+/**
+ * The validation rules of the user data, shared by the forms, the service layer and bulk imports.
+ * <p>
+ * The rules are written as plain character scans equivalent to the regular expressions the forms
+ * used before, noted on each rule, which keeps them free of matcher allocations.
+ * </p>
+ */
+public final class Rules {
+
+  /**
+   * Letters and whitespace only, {@code ^[A-Za-z\s]+$}.
+   */
+  public static final ValidationRule FIRST_NAME = ValidationRule.of("firstName",
+          "First name can contain only letters and spaces.", Rules::isLettersAndSpaces);
+
+  /**
+   * Letters and whitespace only, {@code ^[A-Za-z\s]+$}.
+   */
+  public static final ValidationRule LAST_NAME = ValidationRule.of("lastName",
+          "Last name can contain only letters and spaces.", Rules::isLettersAndSpaces);
+
+  /**
+   * A local part, an at sign and a domain with a dot, without whitespace, {@code \S+@\S+\.\S+}.
+   */
+  public static final ValidationRule EMAIL = ValidationRule.of("email",
+          "The provided email is invalid.", Rules::isEmail);
+
+  /**
+   * At least 8 symbols with an upper case letter and a special symbol,
+   * {@code ^(?=.*[A-Z])(?=.*[!@#$%^&*]).{8,}$}.
+   */
+  public static final ValidationRule PASSWORD = ValidationRule.of("password",
+          "Password should contain at least 8 symbols. At least one upper case letter and one special symbol.",
+          Rules::isStrongPassword);
+
+  /**
+   * A Bulgarian phone number in national or international format, {@code ^(\+359|0)\d{9}$}.
+   */
+  public static final ValidationRule PHONE = ValidationRule.of("phone",
+          "Enter a valid phone number.", Rules::isBulgarianPhone);
+
+  private static final String SPECIAL_SYMBOLS = "!@#$%^&*";
+  private static final String INTERNATIONAL_PREFIX = "+359";
+  private static final int SUBSCRIBER_DIGITS = 9;
+  private static final int MIN_PASSWORD_LENGTH = 8;
+
+  private Rules() {
+  }
+
+  private static boolean isLettersAndSpaces(CharSequence value, int start, int end) {
+
+    for (int i = start; i < end; i++) {
+      char c = value.charAt(i);
+      if (!(c >= 'A' && c <= 'Z' || c >= 'a' && c <= 'z' || isRegexWhitespace(c))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isEmail(CharSequence value, int start, int end) {
+
+    // The expression backtracks to any at sign and dot, so the first at sign after the local part and any dot
+    // with a symbol on each side of it after the at sign are enough
+    int at = -1;
+    boolean dot = false;
+    for (int i = start; i < end; i++) {
+      char c = value.charAt(i);
+      if (isRegexWhitespace(c)) {
+        return false;
+      }
+      if (c == '@' && at < 0 && i > start) {
+        at = i;
+      } else if (c == '.' && at >= 0 && i > at + 1 && i < end - 1) {
+        dot = true;
+      }
+    }
+    return dot;
+  }
+
+  private static boolean isStrongPassword(CharSequence value, int start, int end) {
+
+    if (Character.codePointCount(value, start, end) < MIN_PASSWORD_LENGTH) {
+      return false;
+    }
+    boolean upperCase = false;
+    boolean special = false;
+    for (int i = start; i < end; i++) {
+      char c = value.charAt(i);
+      if (isLineTerminator(c)) {
+        return false;
+      }
+      upperCase |= c >= 'A' && c <= 'Z';
+      special |= SPECIAL_SYMBOLS.indexOf(c) >= 0;
+    }
+    return upperCase && special;
+  }
+
+  private static boolean isBulgarianPhone(CharSequence value, int start, int end) {
+
+    int digits = start;
+    if (startsWith(value, start, end, INTERNATIONAL_PREFIX)) {
+      digits += INTERNATIONAL_PREFIX.length();
+    } else if (value.charAt(start) == '0') {
+      digits++;
+    } else {
+      return false;
+    }
+    if (end - digits != SUBSCRIBER_DIGITS) {
+      return false;
+    }
+    for (int i = digits; i < end; i++) {
+      char c = value.charAt(i);
+      if (c < '0' || c > '9') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean startsWith(CharSequence value, int start, int end, String prefix) {
+
+    if (end - start < prefix.length()) {
+      return false;
+    }
+    for (int i = 0; i < prefix.length(); i++) {
+      if (value.charAt(start + i) != prefix.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isRegexWhitespace(char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+  }
+
+  private static boolean isLineTerminator(char c) {
+    return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+  }
+}
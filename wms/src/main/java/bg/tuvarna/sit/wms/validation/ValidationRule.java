@@ -0,0 +1,100 @@
+package bg.tuvarna.sit.wms.validation;
+
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+/**
+ * A named check of a single text value together with the message shown when the value fails it.
+ * <p>
+ * Leading and trailing whitespace is ignored the way {@link String#trim()} does, and a missing or
+ * blank value always fails, so a rule also marks its field as required. The value is checked in place,
+ * without trimming it into a new string, so a rule can be run on every keystroke or over a large batch
+ * of rows without allocating.
+ * Rules backed by a regular expression compile it once and reuse a matcher per thread.
+ * </p>
+ */
+@Getter
+public final class ValidationRule {
+
+  /**
+   * Checks the trimmed range of a value.
+   */
+  @FunctionalInterface
+  public interface Check {
+
+    /**
+     * Checks the characters of the value between the given bounds.
+     *
+     * @param value The value to check.
+     * @param start The index of the first non-whitespace character.
+     * @param end   The index after the last non-whitespace character, greater than start.
+     * @return true if the value is valid.
+     */
+    boolean test(CharSequence value, int start, int end);
+  }
+
+  private final String name;
+  private final String message;
+  @Getter(AccessLevel.NONE)
+  private final Check check;
+
+  private ValidationRule(String name, String message, Check check) {
+
+    this.name = Objects.requireNonNull(name);
+    this.message = Objects.requireNonNull(message);
+    this.check = Objects.requireNonNull(check);
+  }
+
+  /**
+   * Creates a rule from a check over the trimmed value.
+   *
+   * @param name    The name of the rule, reported with its violations.
+   * @param message The message shown when a value fails the rule.
+   * @param check   The check of the trimmed value.
+   * @return The rule.
+   */
+  public static ValidationRule of(String name, String message, Check check) {
+    return new ValidationRule(name, message, check);
+  }
+
+  /**
+   * Creates a rule requiring the whole trimmed value to match the given regular expression.
+   *
+   * @param name    The name of the rule, reported with its violations.
+   * @param message The message shown when a value fails the rule.
+   * @param regex   The regular expression, compiled once.
+   * @return The rule.
+   */
+  public static ValidationRule matching(String name, String message, String regex) {
+
+    Pattern pattern = Pattern.compile(regex);
+    ThreadLocal<Matcher> matchers = ThreadLocal.withInitial(() -> pattern.matcher(""));
+    return new ValidationRule(name, message, (value, start, end) ->
+            matchers.get().reset(value).region(start, end).matches());
+  }
+
+  /**
+   * Checks a value against the rule.
+   *
+   * @param value The value to check, possibly null.
+   * @return true if the value is not blank and passes the rule.
+   */
+  public boolean test(CharSequence value) {
+
+    if (value == null) {
+      return false;
+    }
+    int start = 0;
+    int end = value.length();
+    while (start < end && value.charAt(start) <= ' ') {
+      start++;
+    }
+    while (end > start && value.charAt(end - 1) <= ' ') {
+      end--;
+    }
+    return start < end && check.test(value, start, end);
+  }
+}
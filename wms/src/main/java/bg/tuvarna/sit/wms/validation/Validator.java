@@ -0,0 +1,142 @@
+package bg.tuvarna.sit.wms.validation;
+
+import bg.tuvarna.sit.wms.dto.UserRegistrationDto;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Validates objects field by field against a fixed list of rules.
+ * <p>
+ * The fields are declared once and checked in their declaration order, so the same validator serves
+ * a form, the service layer and a bulk import. Checking a valid object allocates nothing, violations
+ * are only collected for the objects failing a rule.
+ * </p>
+ * <pre>{@code
+ * Validator<UserRegistrationDto> validator = Validator.<UserRegistrationDto>builder()
+ *     .field("email", UserRegistrationDto::getEmail, Rules.EMAIL)
+ *     .field("phone", UserRegistrationDto::getPhone, Rules.PHONE)
+ *     .build();
+ * }</pre>
+ *
+ * @param <T> The type of the validated objects.
+ */
+public final class Validator<T> {
+
+  /**
+   * The fields of a user registration, in the order of the registration form.
+   */
+  public static final Validator<UserRegistrationDto> USER_REGISTRATION = Validator.<UserRegistrationDto>builder()
+          .field("firstName", UserRegistrationDto::getFirstName, Rules.FIRST_NAME)
+          .field("lastName", UserRegistrationDto::getLastName, Rules.LAST_NAME)
+          .field("email", UserRegistrationDto::getEmail, Rules.EMAIL)
+          .field("password", UserRegistrationDto::getPassword, Rules.PASSWORD)
+          .field("phone", UserRegistrationDto::getPhone, Rules.PHONE)
+          .build();
+
+  private final String[] names;
+  private final Function<T, ? extends CharSequence>[] getters;
+  private final ValidationRule[] rules;
+
+  private Validator(Builder<T> builder) {
+
+    int size = builder.names.size();
+    this.names = builder.names.toArray(new String[0]);
+    this.rules = builder.rules.toArray(new ValidationRule[0]);
+    @SuppressWarnings("unchecked")
+    Function<T, ? extends CharSequence>[] getters = builder.getters.toArray(new Function[size]);
+    this.getters = getters;
+  }
+
+  public static <T> Builder<T> builder() {
+    return new Builder<>();
+  }
+
+  /**
+   * Tells whether every field of the object passes its rule, stopping at the first failing field.
+   *
+   * @param object The object to check.
+   * @return true if the object is valid.
+   */
+  public boolean isValid(T object) {
+
+    for (int i = 0; i < rules.length; i++) {
+      if (!rules[i].test(getters[i].apply(object))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the first field failing its rule, in declaration order.
+   *
+   * @param object The object to check.
+   * @return The first violation, or empty if the object is valid.
+   */
+  public Optional<Violation> firstViolation(T object) {
+
+    for (int i = 0; i < rules.length; i++) {
+      if (!rules[i].test(getters[i].apply(object))) {
+        return Optional.of(new Violation(names[i], rules[i]));
+      }
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Checks every field of the object.
+   *
+   * @param object The object to check.
+   * @return The violations in declaration order, an empty immutable list if the object is valid.
+   */
+  public List<Violation> validate(T object) {
+
+    List<Violation> violations = null;
+    for (int i = 0; i < rules.length; i++) {
+      if (!rules[i].test(getters[i].apply(object))) {
+        if (violations == null) {
+          violations = new ArrayList<>();
+        }
+        violations.add(new Violation(names[i], rules[i]));
+      }
+    }
+    return violations == null ? List.of() : violations;
+  }
+
+  /**
+   * Declares the fields of a validator.
+   *
+   * @param <T> The type of the validated objects.
+   */
+  public static final class Builder<T> {
+
+    private final List<String> names = new ArrayList<>();
+    private final List<Function<T, ? extends CharSequence>> getters = new ArrayList<>();
+    private final List<ValidationRule> rules = new ArrayList<>();
+
+    private Builder() {
+    }
+
+    /**
+     * Adds a field checked after the fields added before it.
+     *
+     * @param name   The name of the field, reported with its violations.
+     * @param getter Reads the value of the field.
+     * @param rule   The rule the value must pass.
+     * @return This builder.
+     */
+    public Builder<T> field(String name, Function<T, ? extends CharSequence> getter, ValidationRule rule) {
+
+      names.add(name);
+      getters.add(getter);
+      rules.add(rule);
+      return this;
+    }
+
+    public Validator<T> build() {
+      return new Validator<>(this);
+    }
+  }
+}
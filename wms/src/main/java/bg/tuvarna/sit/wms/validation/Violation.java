@@ -0,0 +1,24 @@
+package bg.tuvarna.sit.wms.validation;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A field of a validated object which failed its rule.
+ */
+@Getter
+@AllArgsConstructor
+public class Violation {
+
+  private final String field;
+  private final ValidationRule rule;
+
+  public String getMessage() {
+    return rule.getMessage();
+  }
+
+  @Override
+  public String toString() {
+    return field + ": " + rule.getMessage();
+  }
+}
@@ -0,0 +1,2 @@
+-- Serves the notification list of a user, which filters by user and orders by date.
+create index idx_notifications_user_date on notifications (user_id, date);
@@ -0,0 +1,122 @@
+-- Baseline schema of the WMS database, as previously created by hibernate.hbm2ddl.auto=update.
+-- Every table is created only if it is missing, so databases created by Hibernate keep their data
+-- and simply get this version recorded in the history table.
+
+create table if not exists countries (
+    id bigint not null auto_increment,
+    name varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table if not exists cities (
+    id bigint not null auto_increment,
+    name varchar(255) not null,
+    country_id bigint not null,
+    primary key (id),
+    constraint FK6gatmv9dwedve82icy8wrkdmk foreign key (country_id) references countries (id)
+) engine=InnoDB;
+
+create table if not exists addresses (
+    id bigint not null auto_increment,
+    street varchar(255) not null,
+    zip_code varchar(255) not null,
+    city_id bigint not null,
+    primary key (id),
+    constraint FK9fkb8qaj71tiyr9htkmn7r8y5 foreign key (city_id) references cities (id)
+) engine=InnoDB;
+
+create table if not exists storage_types (
+    id bigint not null auto_increment,
+    description varchar(400),
+    type_name varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table if not exists users (
+    id bigint not null auto_increment,
+    email varchar(255) not null,
+    first_name varchar(255) not null,
+    last_name varchar(255) not null,
+    password varchar(255) not null,
+    phone varchar(255) not null,
+    role varchar(255),
+    primary key (id),
+    constraint UK_6dotkott2kjsp8vw4d0m25fb7 unique (email),
+    constraint UK_du5v5sr43g5bfnji4vb8hg5s3 unique (phone)
+) engine=InnoDB;
+
+create table if not exists owners (
+    id bigint not null,
+    primary key (id),
+    constraint FK76w3kxt0dkdsh0gmyralo64t4 foreign key (id) references users (id)
+) engine=InnoDB;
+
+create table if not exists agents (
+    id bigint not null,
+    primary key (id),
+    constraint FKqaw7vqyrwpqych5yeuwyjcyjs foreign key (id) references users (id)
+) engine=InnoDB;
+
+create table if not exists tenants (
+    id bigint not null,
+    primary key (id),
+    constraint FKfnd9hamepyrkemwhb2lavl1q9 foreign key (id) references users (id)
+) engine=InnoDB;
+
+create table if not exists warehouses (
+    id bigint not null auto_increment,
+    climate_condition varchar(255) not null,
+    size double precision not null,
+    status varchar(255) not null,
+    address_id bigint not null,
+    owner_id bigint not null,
+    storage_type_id bigint not null,
+    primary key (id),
+    constraint FK4e4lvoo6ncfomibepxlmok94l foreign key (address_id) references addresses (id),
+    constraint FK2k150e3cdngogd6ciq4ydl6xy foreign key (owner_id) references owners (id),
+    constraint FKo6a004f64b1617fypa7hi39n4 foreign key (storage_type_id) references storage_types (id)
+) engine=InnoDB;
+
+create table if not exists warehouse_rental_requests (
+    id bigint not null auto_increment,
+    agent_id bigint not null,
+    warehouse_id bigint not null,
+    primary key (id),
+    constraint FKhq6bdrikhe8wm45543tptp3c foreign key (agent_id) references agents (id),
+    constraint FKitd7h7etftt8hrxsett5s4bng foreign key (warehouse_id) references warehouses (id)
+) engine=InnoDB;
+
+create table if not exists rental_agreements (
+    id bigint not null auto_increment,
+    end_date date not null,
+    price_per_month decimal(19,2) not null,
+    start_date date not null,
+    agent_id bigint not null,
+    tenant_id bigint not null,
+    warehouse_id bigint not null,
+    primary key (id),
+    constraint FK1okmw75updtrcgk4mtovxj48f foreign key (agent_id) references agents (id),
+    constraint FKferaguj3nokheehf8044b56t foreign key (tenant_id) references tenants (id),
+    constraint FK2fa9n3r46074h2j2c320ii0gc foreign key (warehouse_id) references warehouses (id)
+) engine=InnoDB;
+
+create table if not exists reviews (
+    id bigint not null auto_increment,
+    assessment integer not null,
+    description varchar(500),
+    receiver_id bigint not null,
+    sender_id bigint not null,
+    primary key (id),
+    constraint FK77qnqsbwjkgvrto39r56vv03b foreign key (receiver_id) references users (id),
+    constraint FKsg09mdnj5wns8lk8lagj1040m foreign key (sender_id) references users (id)
+) engine=InnoDB;
+
+create table if not exists notifications (
+    id bigint not null auto_increment,
+    date datetime(6) not null,
+    message varchar(128) not null,
+    status varchar(255) not null,
+    user_id bigint not null,
+    primary key (id),
+    constraint FK9y21adhxn0ayjhfocscqox7bh foreign key (user_id) references users (id)
+) engine=InnoDB;
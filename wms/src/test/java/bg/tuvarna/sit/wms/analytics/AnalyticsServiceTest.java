@@ -0,0 +1,158 @@
+package bg.tuvarna.sit.wms.analytics;
+
+import bg.tuvarna.sit.wms.dao.AnalyticsDao;
+import bg.tuvarna.sit.wms.entities.Address;
+import bg.tuvarna.sit.wms.entities.Agent;
+import bg.tuvarna.sit.wms.entities.City;
+import bg.tuvarna.sit.wms.entities.Country;
+import bg.tuvarna.sit.wms.entities.Owner;
+import bg.tuvarna.sit.wms.entities.RentalAgreement;
+import bg.tuvarna.sit.wms.entities.StorageType;
+import bg.tuvarna.sit.wms.entities.Tenant;
+import bg.tuvarna.sit.wms.entities.User;
+import bg.tuvarna.sit.wms.entities.Warehouse;
+import bg.tuvarna.sit.wms.enums.ClimateCondition;
+import bg.tuvarna.sit.wms.enums.Role;
+import bg.tuvarna.sit.wms.enums.WarehouseStatus;
+import static bg.tuvarna.sit.wms.util.PersistenceTestUtils.createUser;
+import static bg.tuvarna.sit.wms.util.PersistenceTestUtils.inTransaction;
+import bg.tuvarna.sit.wms.util.QueryCounter;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.persistence.EntityManagerFactory;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class AnalyticsServiceTest {
+
+  private static EntityManagerFactory entityManagerFactory;
+
+  @BeforeAll
+  static void setUp() {
+
+    entityManagerFactory = QueryCounter.createEntityManagerFactory("analytics");
+    inTransaction(entityManagerFactory, entityManager -> {
+      Country country = new Country();
+      country.setName("Bulgaria");
+      entityManager.persist(country);
+      City city = new City();
+      city.setName("Varna");
+      city.setCountry(country);
+      entityManager.persist(city);
+      StorageType storageType = new StorageType();
+      storageType.setTypeName("Dry storage");
+      entityManager.persist(storageType);
+
+      Owner owner = createUser(new Owner(), Role.OWNER, "owner@wms.com", "0888000001");
+      Agent agent = createUser(new Agent(), Role.AGENT, "agent@wms.com", "0888000002");
+      Tenant tenant = createUser(new Tenant(), Role.TENANT, "tenant@wms.com", "0888000003");
+      for (User user : List.of(owner, agent, tenant)) {
+        entityManager.persist(user);
+      }
+
+      Address address = new Address();
+      address.setStreet("Main 1");
+      address.setZipCode("9000");
+      address.setCity(city);
+      Warehouse warehouse = new Warehouse();
+      warehouse.setOwner(owner);
+      warehouse.setAddress(address);
+      warehouse.setStorageType(storageType);
+      warehouse.setSize(250.0);
+      warehouse.setStatus(WarehouseStatus.RENTED);
+      warehouse.setClimateCondition(ClimateCondition.AMBIENT);
+      entityManager.persist(warehouse);
+
+      RentalAgreement agreement = new RentalAgreement();
+      agreement.setWarehouse(warehouse);
+      agreement.setAgent(agent);
+      agreement.setTenant(tenant);
+      agreement.setStartDate(Date.valueOf(LocalDate.of(2024, 3, 1)));
+      agreement.setEndDate(Date.valueOf(LocalDate.of(2024, 3, 31)));
+      agreement.setPricePerMonth(new BigDecimal("500.00"));
+      entityManager.persist(agreement);
+    });
+  }
+
+  @AfterAll
+  static void tearDown() {
+    entityManagerFactory.close();
+  }
+
+  @Test
+  void rebuild_ShouldAnswerTheAggregationsFromTheSnapshot() {
+
+    AnalyticsService service = new AnalyticsService(new AnalyticsDao(entityManagerFactory), 2);
+    try {
+      assertEquals(List.of(), service.occupancyByCityAndClimate());
+
+      AnalyticsSnapshot snapshot = service.rebuild();
+
+      assertSame(snapshot, service.getSnapshot());
+      assertEquals(List.of(new OccupancyStat("Varna", ClimateCondition.AMBIENT, 1, 1, 100.0)),
+              service.occupancyByCityAndClimate());
+      assertEquals(List.of(new PricePerSquareMeterStat("Dry storage", 1, 2.0)),
+              service.averagePricePerSquareMeterByStorageType());
+      assertEquals(List.of(new MonthlyRevenue(YearMonth.of(2024, 2), 0.0),
+              new MonthlyRevenue(YearMonth.of(2024, 3), 500.0)),
+              service.revenueByMonth(YearMonth.of(2024, 2), YearMonth.of(2024, 3)));
+    } finally {
+      service.close();
+    }
+  }
+
+  @Test
+  void rebuild_ShouldNotLetAnOlderReadReplaceANewerOne() throws InterruptedException {
+
+    CountDownLatch reading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicBoolean firstRead = new AtomicBoolean(true);
+    AnalyticsDao slowFirstRead = new AnalyticsDao(entityManagerFactory) {
+      @Override
+      public void forEachWarehouse(WarehouseConsumer consumer) {
+
+        if (firstRead.getAndSet(false)) {
+          reading.countDown();
+          try {
+            release.await(10, TimeUnit.SECONDS);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        }
+        super.forEachWarehouse(consumer);
+      }
+    };
+    AnalyticsService service = new AnalyticsService(slowFirstRead, 2);
+    try {
+      Thread older = new Thread(service::rebuild);
+      older.start();
+      assertTrue(reading.await(10, TimeUnit.SECONDS));
+      AtomicReference<AnalyticsSnapshot> newest = new AtomicReference<>();
+      Thread newer = new Thread(() -> newest.set(service.rebuild()));
+      newer.start();
+
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+      while (newer.getState() != Thread.State.BLOCKED && newer.isAlive() && System.nanoTime() < deadline) {
+        Thread.sleep(10);
+      }
+      release.countDown();
+      older.join();
+      newer.join();
+
+      assertSame(newest.get(), service.getSnapshot());
+    } finally {
+      service.close();
+    }
+  }
+}
@@ -0,0 +1,105 @@
+package bg.tuvarna.sit.wms.analytics;
+
+import bg.tuvarna.sit.wms.enums.ClimateCondition;
+import bg.tuvarna.sit.wms.enums.WarehouseStatus;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class AnalyticsSnapshotTest {
+
+  private static ForkJoinPool pool;
+
+  @BeforeAll
+  static void setUp() {
+    pool = new ForkJoinPool(4);
+  }
+
+  @AfterAll
+  static void tearDown() {
+    pool.shutdown();
+  }
+
+  @Test
+  void aggregations_ShouldGroupTheColumns() {
+
+    AnalyticsSnapshot snapshot = AnalyticsSnapshot.builder()
+            .addWarehouse(1, 100, WarehouseStatus.RENTED, ClimateCondition.AMBIENT, 10, "Varna", 20, "Dry")
+            .addWarehouse(2, 50, WarehouseStatus.AVAILABLE, ClimateCondition.AMBIENT, 10, "Varna", 21, "Cold")
+            .addWarehouse(3, 200, WarehouseStatus.RENTED, ClimateCondition.REFRIGERATED, 11, "Burgas", 21, "Cold")
+            .addAgreement(1, date(2024, 1, 15), date(2024, 2, 14), new BigDecimal("310"))
+            .addAgreement(3, date(2024, 1, 1), date(2024, 12, 31), new BigDecimal("1000"))
+            .addAgreement(2, date(2024, 2, 1), date(2024, 2, 29), new BigDecimal("100"))
+            .addAgreement(99, date(2024, 1, 1), date(2024, 1, 31), new BigDecimal("1"))
+            .build();
+
+    assertEquals(3, snapshot.getWarehouseCount());
+    assertEquals(3, snapshot.getAgreementCount());
+    assertEquals(List.of(
+            new OccupancyStat("Burgas", ClimateCondition.REFRIGERATED, 1, 1, 100.0),
+            new OccupancyStat("Varna", ClimateCondition.AMBIENT, 2, 1, 50.0)),
+            snapshot.occupancyByCityAndClimate(pool));
+    assertEquals(List.of(
+            new PricePerSquareMeterStat("Cold", 2, (1000.0 / 200 + 100.0 / 50) / 2),
+            new PricePerSquareMeterStat("Dry", 1, 3.1)),
+            snapshot.averagePricePerSquareMeterByStorageType(pool));
+
+    List<MonthlyRevenue> revenue = snapshot.revenueByMonth(YearMonth.of(2023, 12), YearMonth.of(2024, 2), pool);
+    assertEquals(List.of(YearMonth.of(2023, 12), YearMonth.of(2024, 1), YearMonth.of(2024, 2)),
+            revenue.stream().map(MonthlyRevenue::month).toList());
+    assertEquals(0.0, revenue.get(0).revenue());
+    assertEquals(170.0 + 1000.0, revenue.get(1).revenue(), 1e-9);
+    assertEquals(310.0 * 14 / 29 + 1000.0 + 100.0, revenue.get(2).revenue(), 1e-9);
+    assertThrows(IllegalArgumentException.class,
+            () -> snapshot.revenueByMonth(YearMonth.of(2024, 2), YearMonth.of(2024, 1), pool));
+  }
+
+  @Test
+  void aggregations_ShouldMatchASequentialScanWhenSplit() {
+
+    Random random = new Random(7);
+    int warehouses = 5 * AnalyticsSnapshot.SCAN_THRESHOLD;
+    int[] rented = new int[3];
+    double[] revenue = new double[12];
+    AnalyticsSnapshot.Builder builder = AnalyticsSnapshot.builder();
+    for (int id = 0; id < warehouses; id++) {
+      boolean isRented = random.nextBoolean();
+      int city = random.nextInt(3);
+      WarehouseStatus status = isRented ? WarehouseStatus.RENTED : WarehouseStatus.AVAILABLE;
+      builder.addWarehouse(id, 10 + random.nextInt(500), status, ClimateCondition.AMBIENT, city, "City " + city, 0,
+              "Dry");
+      rented[city] += isRented ? 1 : 0;
+
+      YearMonth month = YearMonth.of(2024, 1 + random.nextInt(12));
+      int price = 100 + random.nextInt(1000);
+      builder.addAgreement(id, Date.valueOf(month.atDay(1)), Date.valueOf(month.atEndOfMonth()),
+              BigDecimal.valueOf(price));
+      revenue[month.getMonthValue() - 1] += price;
+    }
+    AnalyticsSnapshot snapshot = builder.build();
+
+    List<OccupancyStat> occupancy = snapshot.occupancyByCityAndClimate(pool);
+    assertEquals(warehouses, occupancy.stream().mapToInt(OccupancyStat::warehouses).sum());
+    for (int city = 0; city < 3; city++) {
+      assertEquals(rented[city], occupancy.get(city).rented());
+    }
+    assertEquals(warehouses, snapshot.averagePricePerSquareMeterByStorageType(pool).get(0).agreements());
+    List<MonthlyRevenue> months = snapshot.revenueByMonth(YearMonth.of(2024, 1), YearMonth.of(2024, 12), pool);
+    for (int month = 0; month < 12; month++) {
+      assertEquals(revenue[month], months.get(month).revenue(), 1e-6);
+    }
+  }
+
+  private static Date date(int year, int month, int day) {
+    return Date.valueOf(LocalDate.of(year, month, day));
+  }
+}
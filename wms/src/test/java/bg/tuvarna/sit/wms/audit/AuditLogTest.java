@@ -0,0 +1,113 @@
+package bg.tuvarna.sit.wms.audit;
+
+import bg.tuvarna.sit.wms.enums.AuditEventType;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AuditLogTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void record_ShouldBeWrittenAsJsonLinesAndReadBack() throws IOException {
+
+    Instant start = Instant.now().minus(1, ChronoUnit.SECONDS);
+    AuditLog auditLog = new AuditLog(new JsonLinesAuditSink(directory, 1024 * 1024, ZoneOffset.UTC), 16);
+
+    assertTrue(auditLog.record(AuditEventType.LOGIN_FAILED, "john\"doe@example.com"));
+    assertTrue(auditLog.record(AuditEventType.LOGIN, 7L, "john\"doe@example.com"));
+    assertTrue(auditLog.record(AuditEventType.REGISTRATION, 8L, "jane@example.com"));
+    auditLog.close();
+
+    AuditLogReader reader = new AuditLogReader(directory, ZoneOffset.UTC);
+    List<AuditRecord> records = reader.find(start, Instant.now().plusSeconds(1), null, "john\"doe@example.com");
+
+    assertEquals(List.of(AuditEventType.LOGIN_FAILED, AuditEventType.LOGIN),
+            records.stream().map(AuditRecord::getType).collect(Collectors.toList()));
+    assertEquals(AuditEvent.NO_USER, records.get(0).getUserId());
+    assertEquals(7L, records.get(1).getUserId());
+    assertEquals(1, reader.countFailedLogins("john\"doe@example.com", start));
+    assertFalse(auditLog.record(AuditEventType.LOGOUT, 7L, "john\"doe@example.com"));
+  }
+
+  @Test
+  void record_WhenWriterIsStalled_ShouldDropInsteadOfBlocking() throws InterruptedException {
+
+    CountDownLatch release = new CountDownLatch(1);
+    AuditLog auditLog = new AuditLog(new AuditSink() {
+      @Override
+      public void write(AuditEvent event) {
+        awaitQuietly(release);
+      }
+
+      @Override
+      public void flush() {
+      }
+
+      @Override
+      public void close() {
+      }
+    }, 4);
+
+    int accepted = 0;
+    for (int i = 0; i < 100; i++) {
+      if (auditLog.record(AuditEventType.LOGIN, (long) i, "user@example.com")) {
+        accepted++;
+      }
+    }
+
+    assertTrue(accepted <= 5);
+    assertEquals(100 - accepted, auditLog.getDroppedCount());
+    release.countDown();
+    auditLog.close();
+  }
+
+  @Test
+  void write_OverSizeLimit_ShouldRollToNextPart() throws IOException {
+
+    JsonLinesAuditSink sink = new JsonLinesAuditSink(directory, 200, ZoneOffset.UTC);
+    AuditEvent event = new AuditEvent();
+    for (int i = 0; i < 10; i++) {
+      event.set(System.currentTimeMillis(), AuditEventType.LOGIN, i, "user" + i + "@example.com");
+      sink.write(event);
+    }
+    sink.close();
+
+    try (Stream<Path> files = Files.list(directory)) {
+      assertTrue(files.count() > 1);
+    }
+    List<AuditRecord> records = new AuditLogReader(directory, ZoneOffset.UTC)
+            .find(Instant.now().minusSeconds(60), Instant.now().plusSeconds(1), AuditEventType.LOGIN, null);
+    assertEquals(10, records.size());
+  }
+
+  @Test
+  void parse_WithTruncatedLine_ShouldSkipIt() {
+    assertNull(AuditLogReader.parse("{\"timestamp\":1700000000000,\"type\":\"LOG"));
+  }
+
+  private static void awaitQuietly(CountDownLatch latch) {
+
+    try {
+      latch.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,104 @@
+package bg.tuvarna.sit.wms.bootstrap;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BootstrapperTest {
+
+  private ExecutorService executor;
+
+  @BeforeEach
+  void setUp() {
+    executor = Executors.newFixedThreadPool(3);
+  }
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  void start_ShouldRunIndependentTasksInParallel() throws Exception {
+
+    CountDownLatch bothStarted = new CountDownLatch(2);
+    BootstrapAction waitForOther = () -> {
+      bothStarted.countDown();
+      if (!bothStarted.await(5, TimeUnit.SECONDS)) {
+        throw new IllegalStateException("Tasks did not run in parallel");
+      }
+    };
+
+    Bootstrapper bootstrapper = new Bootstrapper()
+            .addTask("first", waitForOther)
+            .addTask("second", waitForOther);
+
+    bootstrapper.start(executor).get(10, TimeUnit.SECONDS);
+
+    assertEquals(2, bootstrapper.getTimeline().size());
+    assertTrue(bootstrapper.getTimeline().stream().allMatch(PhaseTiming::isSuccessful));
+  }
+
+  @Test
+  void start_ShouldRunTaskOnlyAfterItsDependencies() throws Exception {
+
+    AtomicBoolean persistenceDone = new AtomicBoolean();
+    AtomicBoolean seenByDependent = new AtomicBoolean();
+
+    Bootstrapper bootstrapper = new Bootstrapper()
+            .addTask("persistence", () -> {
+              Thread.sleep(50);
+              persistenceDone.set(true);
+            })
+            .addTask("administrators", () -> seenByDependent.set(persistenceDone.get()), "persistence");
+
+    bootstrapper.start(executor).get(10, TimeUnit.SECONDS);
+
+    assertTrue(seenByDependent.get());
+    List<String> order = bootstrapper.getTimeline().stream().map(PhaseTiming::getName).collect(Collectors.toList());
+    assertEquals(List.of("persistence", "administrators"), order);
+  }
+
+  @Test
+  void start_WhenTaskFails_ShouldSkipDependentsAndFailReadiness() throws Exception {
+
+    AtomicBoolean dependentRan = new AtomicBoolean();
+    AtomicBoolean independentRan = new AtomicBoolean();
+
+    Bootstrapper bootstrapper = new Bootstrapper()
+            .addTask("persistence", () -> {
+              throw new IllegalStateException("database down");
+            })
+            .addTask("administrators", () -> dependentRan.set(true), "persistence")
+            .addTask("encryption-key", () -> independentRan.set(true));
+
+    CompletableFuture<Void> readiness = bootstrapper.start(executor);
+
+    ExecutionException thrown = assertThrows(ExecutionException.class, () -> readiness.get(10, TimeUnit.SECONDS));
+    assertTrue(thrown.getCause() instanceof IllegalStateException);
+    assertFalse(dependentRan.get());
+    assertTrue(independentRan.get());
+  }
+
+  @Test
+  void addTask_WithUnknownDependency_ShouldFail() {
+
+    Bootstrapper bootstrapper = new Bootstrapper();
+
+    assertThrows(IllegalArgumentException.class, () -> bootstrapper.addTask("administrators", () -> {
+    }, "persistence"));
+  }
+}
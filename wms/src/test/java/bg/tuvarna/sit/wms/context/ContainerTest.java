@@ -0,0 +1,216 @@
+package bg.tuvarna.sit.wms.context;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+class ContainerTest {
+
+  @Test
+  void get_ShouldInjectConstructorsAccordingToTheScopes() {
+
+    Container container = new Container()
+            .register(Repository.class, Scope.LAZY_SINGLETON)
+            .register(Service.class, Scope.LAZY_SINGLETON)
+            .register(Controller.class, Scope.PROTOTYPE)
+            .start();
+
+    assertFalse(container.isCreated(Repository.class));
+
+    Controller first = container.get(Controller.class);
+    Controller second = container.get(Controller.class);
+
+    assertNotSame(first, second);
+    assertSame(first.service, second.service);
+    assertSame(container.get(Repository.class), first.service.repository);
+    assertTrue(container.isCreated(Repository.class));
+  }
+
+  @Test
+  void start_ShouldCreateOnlyTheEagerSingletons() {
+
+    AtomicInteger eager = new AtomicInteger();
+    AtomicInteger lazy = new AtomicInteger();
+    Container container = new Container()
+            .register(Repository.class, Scope.SINGLETON, ignored -> {
+              eager.incrementAndGet();
+              return new Repository();
+            })
+            .register(Service.class, Scope.LAZY_SINGLETON, c -> {
+              lazy.incrementAndGet();
+              return new Service(c.get(Repository.class));
+            }, Repository.class)
+            .start();
+
+    assertEquals(1, eager.get());
+    assertEquals(0, lazy.get());
+    container.get(Service.class);
+    container.get(Service.class);
+    assertEquals(1, eager.get());
+    assertEquals(1, lazy.get());
+  }
+
+  @Test
+  void get_ShouldBindUnregisteredConcreteClassesAsPrototypesAndUseTheInjectConstructor() {
+
+    Container container = new Container().registerInstance(Repository.class, new Repository());
+
+    AnnotatedController controller = container.get(AnnotatedController.class);
+
+    assertSame(container.get(Repository.class), controller.repository);
+    assertNotSame(controller, container.get(AnnotatedController.class));
+  }
+
+  @Test
+  void start_ShouldDetectCyclesAndMissingBindings() {
+
+    Container cyclic = new Container()
+            .register(Chicken.class, Scope.LAZY_SINGLETON)
+            .register(Egg.class, Scope.LAZY_SINGLETON);
+    IllegalStateException cycle = assertThrows(IllegalStateException.class, cyclic::start);
+    assertTrue(cycle.getMessage().contains("Chicken -> Egg -> Chicken")
+            || cycle.getMessage().contains("Egg -> Chicken -> Egg"), cycle.getMessage());
+
+    Container incomplete = new Container().register(Consumer.class, Scope.PROTOTYPE);
+    IllegalStateException missing = assertThrows(IllegalStateException.class, incomplete::start);
+    assertTrue(missing.getMessage().contains(Supplier.class.getName()), missing.getMessage());
+  }
+
+  @Test
+  void get_ShouldDetectCyclesThroughUndeclaredFactoryDependencies() {
+
+    Container container = new Container()
+            .register(Chicken.class, Scope.LAZY_SINGLETON, c -> new Chicken(c.get(Egg.class)))
+            .register(Egg.class, Scope.LAZY_SINGLETON)
+            .start();
+
+    IllegalStateException cycle = assertThrows(IllegalStateException.class, () -> container.get(Egg.class));
+    assertTrue(cycle.getMessage().startsWith("Dependency cycle"), cycle.getMessage());
+  }
+
+  @Test
+  void get_ShouldCreateALazySingletonOnceWhenRequestedConcurrently() throws Exception {
+
+    AtomicInteger created = new AtomicInteger();
+    CountDownLatch creating = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Container container = new Container()
+            .register(Resource.class, Scope.LAZY_SINGLETON, c -> {
+              created.incrementAndGet();
+              creating.countDown();
+              await(release);
+              return new Resource();
+            })
+            .start();
+
+    assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+      CompletableFuture<Resource> first = CompletableFuture.supplyAsync(() -> container.get(Resource.class));
+      assertTrue(creating.await(5, TimeUnit.SECONDS));
+      Thread second = new Thread(() -> container.get(Resource.class));
+      second.start();
+      while (second.getState() != Thread.State.BLOCKED && second.isAlive()) {
+        Thread.sleep(10);
+      }
+      release.countDown();
+      second.join();
+
+      assertSame(first.get(), container.get(Resource.class));
+    });
+    assertEquals(1, created.get());
+  }
+
+  @Test
+  void register_ShouldRejectClassesWithAmbiguousConstructors() {
+    assertThrows(IllegalArgumentException.class, () -> new Container().register(Ambiguous.class, Scope.PROTOTYPE));
+  }
+
+  private static void await(CountDownLatch latch) {
+
+    try {
+      if (!latch.await(5, TimeUnit.SECONDS)) {
+        throw new IllegalStateException("The latch was not released");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
+
+  public static class Repository {
+  }
+
+  public static class Resource {
+  }
+
+  public static class Service {
+
+    private final Repository repository;
+
+    public Service(Repository repository) {
+      this.repository = repository;
+    }
+  }
+
+  public static class Controller {
+
+    private final Service service;
+
+    public Controller(Service service) {
+      this.service = service;
+    }
+  }
+
+  public static class AnnotatedController {
+
+    private final Repository repository;
+
+    public AnnotatedController() {
+      this(null);
+    }
+
+    @Inject
+    public AnnotatedController(Repository repository) {
+      this.repository = repository;
+    }
+  }
+
+  public static class Chicken {
+
+    public Chicken(Egg egg) {
+    }
+  }
+
+  public static class Egg {
+
+    public Egg(Chicken chicken) {
+    }
+  }
+
+  public interface Supplier {
+  }
+
+  public static class Consumer {
+
+    public Consumer(Supplier supplier) {
+    }
+  }
+
+  public static class Ambiguous {
+
+    public Ambiguous() {
+    }
+
+    public Ambiguous(Repository repository) {
+    }
+  }
+}
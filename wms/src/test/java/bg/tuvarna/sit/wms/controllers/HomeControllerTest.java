@@ -1,10 +1,15 @@
 package bg.tuvarna.sit.wms.controllers;
 
-import bg.tuvarna.sit.wms.entities.User;
+import bg.tuvarna.sit.wms.enums.Role;
 import bg.tuvarna.sit.wms.service.UserService;
 import bg.tuvarna.sit.wms.service.CredentialManagerService;
+import bg.tuvarna.sit.wms.session.SessionPrincipal;
 import bg.tuvarna.sit.wms.session.UserSession;
+import java.util.concurrent.CompletableFuture;
 import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
+import javafx.scene.layout.HBox;
 import javafx.scene.layout.StackPane;
 import javafx.scene.text.Text;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -37,15 +42,15 @@ public class HomeControllerTest {
     controller.welcomeUserText = new Text();
     controller.welcomeMessageContainer = new StackPane();
     controller.ssoButton = new Button();
+    controller.catalogButton = new Button();
     controller.logoutButton = new Button();
   }
 
   @Test
   void initialize_ShouldConfigureForLoggedInUser() {
 
-    User mockUser = mock(User.class);
-    when(mockUser.getFirstName()).thenReturn("John");
-    when(userSessionMock.getCurrentUser()).thenReturn(mockUser);
+    SessionPrincipal principal = new SessionPrincipal(1L, Role.TENANT, "John", "john@wms.com");
+    when(userSessionMock.getPrincipal()).thenReturn(principal);
 
     controller.initialize();
 
@@ -64,7 +69,7 @@ public class HomeControllerTest {
   @Test
   void initialize_ShouldConfigureForNotLoggedInUser() {
 
-    when(userSessionMock.getCurrentUser()).thenReturn(null);
+    when(userSessionMock.getPrincipal()).thenReturn(null);
 
     controller.initialize();
 
@@ -79,4 +84,28 @@ public class HomeControllerTest {
     assertEquals(controller.welcomeUserText.getText(), "");
     assertFalse(controller.welcomeMessageContainer.isVisible());
   }
+
+  @Test
+  void initialize_WhileServicesAreStarting_ShouldDisableLoginActions() {
+
+    controller = new HomeController(userService, credentialManagerService, new CompletableFuture<>());
+    controller.userSession = userSessionMock;
+    controller.registerButton = new Button();
+    controller.loginButton = new Button();
+    controller.welcomeUserText = new Text();
+    controller.welcomeMessageContainer = new StackPane();
+    controller.ssoButton = new Button();
+    controller.catalogButton = new Button();
+    controller.logoutButton = new Button();
+    controller.startupStatusContainer = new HBox();
+    controller.startupProgressIndicator = new ProgressIndicator();
+    controller.startupStatusLabel = new Label();
+    when(userSessionMock.getPrincipal()).thenReturn(null);
+
+    controller.initialize();
+
+    assertTrue(controller.loginButton.isDisabled());
+    assertTrue(controller.ssoButton.isDisabled());
+    assertTrue(controller.startupStatusContainer.isVisible());
+  }
 }
@@ -3,6 +3,7 @@ package bg.tuvarna.sit.wms.controllers;
 import bg.tuvarna.sit.wms.entities.User;
 import bg.tuvarna.sit.wms.enums.Role;
 import bg.tuvarna.sit.wms.util.JpaUtil;
+import static bg.tuvarna.sit.wms.util.UiTestUtils.waitForUiTasks;
 import bg.tuvarna.sit.wms.util.ViewLoaderUtil;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
@@ -13,6 +14,8 @@ import javafx.stage.Stage;
 import javax.persistence.EntityManager;
 import javax.persistence.EntityTransaction;
 import org.junit.jupiter.api.AfterEach;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.testfx.api.FxRobot;
@@ -68,6 +71,14 @@ class LoginControllerTest {
     assertThat(robot.lookup("#welcomeUserText").queryAs(Text.class)).hasText("Hello, First");
   }
 
+  @Test
+  void handleBack_ShouldShowTheHomeViewWhenThereIsNoPreviousView(FxRobot robot) {
+
+    robot.clickOn("#backButton");
+    assertTrue(robot.lookup("#ssoButton").tryQuery().isPresent());
+    assertFalse(robot.lookup("#emailField").tryQuery().isPresent());
+  }
+
   private void setupTestData() {
 
     User user = createUser();
@@ -102,6 +113,7 @@ class LoginControllerTest {
     robot.clickOn("#passwordField");
     robot.write(password);
     robot.clickOn("#loginButton");
+    waitForUiTasks();
   }
 
   private void performLogout(FxRobot robot) {
@@ -111,6 +123,7 @@ class LoginControllerTest {
   private void performSsoLogin(FxRobot robot) {
 
     robot.clickOn("#ssoButton");
+    waitForUiTasks();
   }
 
   private void clearDatabase() {
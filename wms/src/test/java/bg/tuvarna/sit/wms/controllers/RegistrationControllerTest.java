@@ -4,6 +4,7 @@ import bg.tuvarna.sit.wms.dao.UserDao;
 import bg.tuvarna.sit.wms.entities.User;
 import bg.tuvarna.sit.wms.enums.Role;
 import bg.tuvarna.sit.wms.util.JpaUtil;
+import static bg.tuvarna.sit.wms.util.UiTestUtils.waitForUiTasks;
 import bg.tuvarna.sit.wms.util.ViewLoaderUtil;
 import java.util.Optional;
 import javafx.fxml.FXMLLoader;
@@ -49,6 +50,7 @@ class RegistrationControllerTest {
   void handleRegister_ShouldShowOnlyFirstNameErrorLabelWhenFieldsAreEmpty(FxRobot robot) {
 
     robot.clickOn("#registerBtn");
+    waitForUiTasks();
 
     assertThat(robot.lookup("#firstNameErrorLabel").queryAs(Label.class))
             .hasText("First name can contain only letters and spaces.");
@@ -61,6 +63,7 @@ class RegistrationControllerTest {
     robot.clickOn("#firstNameField");
     robot.write("1Invalid_*Name");
     robot.clickOn("#registerBtn");
+    waitForUiTasks();
 
     assertTrue(robot.lookup("#firstNameErrorLabel").queryAs(Label.class).isVisible());
     assertThat(robot.lookup("#firstNameErrorLabel").queryAs(Label.class))
@@ -75,6 +78,7 @@ class RegistrationControllerTest {
     robot.clickOn("#lastNameField");
     robot.write("1Invalid__");
     robot.clickOn("#registerBtn");
+    waitForUiTasks();
 
     assertFalse(robot.lookup("#firstNameErrorLabel").queryAs(Label.class).isVisible());
     assertTrue(robot.lookup("#lastNameErrorLabel").queryAs(Label.class).isVisible());
@@ -92,6 +96,7 @@ class RegistrationControllerTest {
     robot.clickOn("#emailField");
     robot.write("invalidEmail");
     robot.clickOn("#registerBtn");
+    waitForUiTasks();
 
     assertFalse(robot.lookup("#firstNameErrorLabel").queryAs(Label.class).isVisible());
     assertFalse(robot.lookup("#lastNameErrorLabel").queryAs(Label.class).isVisible());
@@ -111,6 +116,7 @@ class RegistrationControllerTest {
     robot.clickOn("#passwordField");
     robot.write("123456");
     robot.clickOn("#registerBtn");
+    waitForUiTasks();
 
     assertFalse(robot.lookup("#firstNameErrorLabel").queryAs(Label.class).isVisible());
     assertFalse(robot.lookup("#lastNameErrorLabel").queryAs(Label.class).isVisible());
@@ -134,6 +140,7 @@ class RegistrationControllerTest {
     robot.clickOn("#confirmPasswordField");
     robot.write("12345678");
     robot.clickOn("#registerBtn");
+    waitForUiTasks();
 
     assertFalse(robot.lookup("#firstNameErrorLabel").queryAs(Label.class).isVisible());
     assertFalse(robot.lookup("#lastNameErrorLabel").queryAs(Label.class).isVisible());
@@ -160,6 +167,7 @@ class RegistrationControllerTest {
     robot.clickOn("#phoneField");
     robot.write("+3590878888888");
     robot.clickOn("#registerBtn");
+    waitForUiTasks();
 
     assertFalse(robot.lookup("#firstNameErrorLabel").queryAs(Label.class).isVisible());
     assertFalse(robot.lookup("#lastNameErrorLabel").queryAs(Label.class).isVisible());
@@ -186,6 +194,7 @@ class RegistrationControllerTest {
     robot.clickOn("#phoneField");
     robot.write("+040878888888");
     robot.clickOn("#registerBtn");
+    waitForUiTasks();
 
     assertFalse(robot.lookup("#firstNameErrorLabel").queryAs(Label.class).isVisible());
     assertFalse(robot.lookup("#lastNameErrorLabel").queryAs(Label.class).isVisible());
@@ -212,6 +221,7 @@ class RegistrationControllerTest {
     robot.clickOn("#phoneField");
     robot.write("08788888881");
     robot.clickOn("#registerBtn");
+    waitForUiTasks();
 
     assertFalse(robot.lookup("#firstNameErrorLabel").queryAs(Label.class).isVisible());
     assertFalse(robot.lookup("#lastNameErrorLabel").queryAs(Label.class).isVisible());
@@ -238,6 +248,7 @@ class RegistrationControllerTest {
     robot.clickOn("#phoneField");
     robot.write("+359878888888");
     robot.clickOn("#registerBtn");
+    waitForUiTasks();
 
     assertFalse(robot.lookup("#firstNameErrorLabel").queryAs(Label.class).isVisible());
     assertFalse(robot.lookup("#lastNameErrorLabel").queryAs(Label.class).isVisible());
@@ -263,6 +274,7 @@ class RegistrationControllerTest {
     robot.clickOn("#phoneField");
     robot.write("0878888888");
     robot.clickOn("#registerBtn");
+    waitForUiTasks();
 
     assertFalse(robot.lookup("#firstNameErrorLabel").queryAs(Label.class).isVisible());
     assertFalse(robot.lookup("#lastNameErrorLabel").queryAs(Label.class).isVisible());
@@ -288,6 +300,7 @@ class RegistrationControllerTest {
     robot.clickOn("#phoneField");
     robot.write("0878888888");
     robot.clickOn("#registerBtn");
+    waitForUiTasks();
 
     assertFalse(robot.lookup("#firstNameErrorLabel").queryAs(Label.class).isVisible());
     assertFalse(robot.lookup("#lastNameErrorLabel").queryAs(Label.class).isVisible());
@@ -317,6 +330,7 @@ class RegistrationControllerTest {
     robot.clickOn("#roleBox");
     robot.clickOn("OWNER");
     robot.clickOn("#registerBtn");
+    waitForUiTasks();
 
     assertFalse(robot.lookup("#firstNameErrorLabel").queryAs(Label.class).isVisible());
     assertFalse(robot.lookup("#lastNameErrorLabel").queryAs(Label.class).isVisible());
@@ -350,6 +364,7 @@ class RegistrationControllerTest {
     robot.clickOn("#roleBox");
     robot.clickOn("OWNER");
     robot.clickOn("#registerBtn");
+    waitForUiTasks();
 
     String contentText = robot.lookup(".dialog-pane").queryAs(DialogPane.class).getContentText();
     assertEquals("A user with this email already exists.", contentText);
@@ -375,6 +390,7 @@ class RegistrationControllerTest {
     robot.clickOn("#roleBox");
     robot.clickOn("OWNER");
     robot.clickOn("#registerBtn");
+    waitForUiTasks();
 
     String contentText = robot.lookup(".dialog-pane").queryAs(DialogPane.class).getContentText();
     assertEquals("A user with this phone number already exists.", contentText);
@@ -400,6 +416,7 @@ class RegistrationControllerTest {
     robot.clickOn("#roleBox");
     robot.clickOn("OWNER");
     robot.clickOn("#registerBtn");
+    waitForUiTasks();
 
     String contentText = robot.lookup(".dialog-pane").queryAs(DialogPane.class).getContentText();
     assertEquals("A user with this phone number already exists.", contentText);
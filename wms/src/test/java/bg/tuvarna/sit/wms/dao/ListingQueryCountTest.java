@@ -0,0 +1,183 @@
+package bg.tuvarna.sit.wms.dao;
+
+import bg.tuvarna.sit.wms.dto.WarehouseListingDto;
+import bg.tuvarna.sit.wms.entities.Address;
+import bg.tuvarna.sit.wms.entities.Agent;
+import bg.tuvarna.sit.wms.entities.City;
+import bg.tuvarna.sit.wms.entities.Country;
+import bg.tuvarna.sit.wms.entities.Notification;
+import bg.tuvarna.sit.wms.entities.Owner;
+import bg.tuvarna.sit.wms.entities.RentalAgreement;
+import bg.tuvarna.sit.wms.entities.StorageType;
+import bg.tuvarna.sit.wms.entities.Tenant;
+import bg.tuvarna.sit.wms.entities.Warehouse;
+import bg.tuvarna.sit.wms.enums.ClimateCondition;
+import bg.tuvarna.sit.wms.enums.NotificationStatus;
+import bg.tuvarna.sit.wms.enums.Role;
+import static bg.tuvarna.sit.wms.util.PersistenceTestUtils.createUser;
+import bg.tuvarna.sit.wms.util.QueryCounter;
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.List;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class ListingQueryCountTest {
+
+  private static final int WAREHOUSE_COUNT = 30;
+
+  private static EntityManagerFactory entityManagerFactory;
+  private static QueryCounter queryCounter;
+  private static Long firstWarehouseId;
+  private static Long tenantId;
+
+  @BeforeAll
+  static void setUp() {
+
+    entityManagerFactory = QueryCounter.createEntityManagerFactory("listingQueryCount");
+    queryCounter = new QueryCounter(entityManagerFactory);
+    seedDatabase();
+  }
+
+  @AfterAll
+  static void tearDown() {
+    entityManagerFactory.close();
+  }
+
+  @Test
+  void findListings_ShouldLoadAPageWithASingleQuery() {
+
+    QueryCounter.Measured<List<WarehouseListingDto>> measured =
+            queryCounter.measure(() -> new WarehouseDao(entityManagerFactory).findListings(0, 20));
+
+    assertEquals(20, measured.getValue().size());
+    assertEquals("Varna", measured.getValue().get(0).getCityName());
+    measured.getResult()
+            .assertStatementsAtMost(1)
+            .assertEntityLoadsAtMost(0)
+            .assertCollectionFetchesAtMost(0);
+  }
+
+  @Test
+  void findListingsAfter_ShouldContinueAfterTheLastListingWithASingleQuery() {
+
+    WarehouseDao warehouseDao = new WarehouseDao(entityManagerFactory);
+    List<WarehouseListingDto> firstPage = warehouseDao.findListings(0, 10);
+    QueryCounter.Measured<List<WarehouseListingDto>> measured =
+            queryCounter.measure(() -> warehouseDao.findListingsAfter(firstPage.get(9).getId(), 10));
+
+    List<WarehouseListingDto> expected = warehouseDao.findListings(10, 10);
+    assertEquals(10, measured.getValue().size());
+    for (int i = 0; i < expected.size(); i++) {
+      assertEquals(expected.get(i).getId(), measured.getValue().get(i).getId());
+    }
+    measured.getResult()
+            .assertStatementsAtMost(1)
+            .assertEntityLoadsAtMost(0);
+  }
+
+  @Test
+  void findByIdWithDetails_ShouldLoadTheWholeGraphWithASingleQuery() {
+
+    QueryCounter.Measured<Warehouse> measured = queryCounter.measure(() ->
+            new WarehouseDao(entityManagerFactory).findByIdWithDetails(firstWarehouseId).orElseThrow());
+
+    Warehouse warehouse = measured.getValue();
+    assertTrue(Hibernate.isInitialized(warehouse.getOwner()));
+    assertTrue(Hibernate.isInitialized(warehouse.getAddress().getCity().getCountry()));
+    assertEquals("Bulgaria", warehouse.getAddress().getCity().getCountry().getName());
+    measured.getResult().assertStatementsAtMost(1);
+  }
+
+  @Test
+  void findRentalAgreementListings_ShouldUseASingleQuery() {
+
+    QueryCounter.Measured<?> measured =
+            queryCounter.measure(() -> new RentalAgreementDao(entityManagerFactory).findListingsByUser(tenantId));
+
+    assertEquals(WAREHOUSE_COUNT, ((List<?>) measured.getValue()).size());
+    measured.getResult().assertStatementsAtMost(1).assertEntityLoadsAtMost(0);
+  }
+
+  @Test
+  void findNotifications_ShouldUseASingleQuery() {
+
+    QueryCounter.Measured<?> measured =
+            queryCounter.measure(() -> new NotificationDao(entityManagerFactory).findByUser(tenantId));
+
+    assertEquals(3, ((List<?>) measured.getValue()).size());
+    measured.getResult().assertStatementsAtMost(1).assertEntityLoadsAtMost(0);
+  }
+
+  private static void seedDatabase() {
+
+    EntityManager entityManager = entityManagerFactory.createEntityManager();
+    entityManager.getTransaction().begin();
+
+    Country country = new Country();
+    country.setName("Bulgaria");
+    entityManager.persist(country);
+
+    City city = new City();
+    city.setName("Varna");
+    city.setCountry(country);
+    entityManager.persist(city);
+
+    StorageType storageType = new StorageType();
+    storageType.setTypeName("Pallet racking");
+    entityManager.persist(storageType);
+
+    Owner owner = createUser(new Owner(), Role.OWNER, "owner@wms.com", "0888000001");
+    Agent agent = createUser(new Agent(), Role.AGENT, "agent@wms.com", "0888000002");
+    Tenant tenant = createUser(new Tenant(), Role.TENANT, "tenant@wms.com", "0888000003");
+    entityManager.persist(owner);
+    entityManager.persist(agent);
+    entityManager.persist(tenant);
+
+    for (int i = 0; i < WAREHOUSE_COUNT; i++) {
+      Address address = new Address();
+      address.setStreet("Street " + i);
+      address.setZipCode("9000");
+      address.setCity(city);
+
+      Warehouse warehouse = new Warehouse();
+      warehouse.setOwner(owner);
+      warehouse.setAddress(address);
+      warehouse.setStorageType(storageType);
+      warehouse.setSize(100.0 + i);
+      warehouse.setClimateCondition(ClimateCondition.AMBIENT);
+      entityManager.persist(warehouse);
+
+      RentalAgreement agreement = new RentalAgreement();
+      agreement.setWarehouse(warehouse);
+      agreement.setAgent(agent);
+      agreement.setTenant(tenant);
+      agreement.setStartDate(new Date());
+      agreement.setEndDate(new Date());
+      agreement.setPricePerMonth(BigDecimal.valueOf(500));
+      entityManager.persist(agreement);
+
+      if (firstWarehouseId == null) {
+        firstWarehouseId = warehouse.getId();
+      }
+    }
+
+    for (int i = 0; i < 3; i++) {
+      Notification notification = new Notification();
+      notification.setMessage("Message " + i);
+      notification.setStatus(NotificationStatus.UNREAD);
+      notification.setUser(tenant);
+      entityManager.persist(notification);
+    }
+
+    entityManager.getTransaction().commit();
+    entityManager.close();
+    tenantId = tenant.getId();
+  }
+}
@@ -0,0 +1,154 @@
+package bg.tuvarna.sit.wms.dataset;
+
+import bg.tuvarna.sit.wms.dao.UserDao;
+import bg.tuvarna.sit.wms.dao.WarehouseDao;
+import bg.tuvarna.sit.wms.entities.Tenant;
+import bg.tuvarna.sit.wms.enums.Role;
+import bg.tuvarna.sit.wms.service.PasswordHashingService;
+import bg.tuvarna.sit.wms.service.UserService;
+import static bg.tuvarna.sit.wms.util.PersistenceTestUtils.count;
+import static bg.tuvarna.sit.wms.util.PersistenceTestUtils.dump;
+import bg.tuvarna.sit.wms.util.QueryCounter;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import javax.persistence.EntityManagerFactory;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class DatasetGeneratorTest {
+
+  private static final String[] TABLES = {"countries", "cities", "addresses", "storage_types", "users", "owners",
+          "agents", "tenants", "warehouses", "rental_agreements", "warehouse_rental_requests", "reviews",
+          "notifications"};
+
+  private final List<EntityManagerFactory> entityManagerFactories = new ArrayList<>();
+
+  @AfterEach
+  void tearDown() {
+    entityManagerFactories.forEach(EntityManagerFactory::close);
+  }
+
+  @Test
+  void generate_ShouldWriteTheRequestedNumberOfRows() throws SQLException {
+
+    DatasetSpec spec = new DatasetSpec();
+    DatasetSummary summary = generate("datasetCounts", spec);
+
+    try (Connection connection = connect("datasetCounts")) {
+      for (String table : TABLES) {
+        assertEquals(summary.getRowCount(table), count(connection, "SELECT COUNT(*) FROM " + table), table);
+      }
+    }
+    assertEquals(spec.getWarehouses(), summary.getRowCount("warehouses"));
+    assertEquals(spec.getUsers(), summary.getRowCount("users"));
+    assertEquals(spec.getTenants(), summary.getRowCount("tenants"));
+    assertEquals(spec.getReviews(), summary.getRowCount("reviews"));
+    assertEquals(spec.getNotifications(), summary.getRowCount("notifications"));
+    assertTrue(summary.getRowCount("rental_agreements") > 0);
+    assertTrue(summary.getRowCount("warehouse_rental_requests") > 0);
+  }
+
+  @Test
+  void generate_ShouldBeDeterministicForTheSameSeed() throws SQLException {
+
+    generate("datasetFirst", new DatasetSpec());
+    generate("datasetSecond", new DatasetSpec());
+    DatasetSpec otherSeed = new DatasetSpec();
+    otherSeed.setSeed(7);
+    generate("datasetOtherSeed", otherSeed);
+
+    try (Connection first = connect("datasetFirst");
+         Connection second = connect("datasetSecond");
+         Connection third = connect("datasetOtherSeed")) {
+      for (String table : TABLES) {
+        assertEquals(dump(first, table), dump(second, table), table);
+      }
+      assertNotEquals(dump(first, "warehouses"), dump(third, "warehouses"));
+    }
+  }
+
+  @Test
+  void generate_ShouldKeepTheWarehouseStatusConsistentWithAgreementsAndRequests() throws SQLException {
+
+    DatasetSpec spec = new DatasetSpec();
+    generate("datasetStatus", spec);
+
+    try (Connection connection = connect("datasetStatus")) {
+      String today = "DATE '" + spec.getReferenceDate() + "'";
+      assertEquals(0, count(connection, "SELECT COUNT(*) FROM warehouses w WHERE w.status = 'RENTED' AND NOT EXISTS "
+              + "(SELECT 1 FROM rental_agreements a WHERE a.warehouse_id = w.id AND a.start_date <= " + today
+              + " AND a.end_date > " + today + ")"));
+      assertEquals(0, count(connection, "SELECT COUNT(*) FROM warehouses w WHERE w.status = 'PENDING_RENTAL' "
+              + "AND NOT EXISTS (SELECT 1 FROM warehouse_rental_requests r WHERE r.warehouse_id = w.id)"));
+      assertEquals(0, count(connection, "SELECT COUNT(*) FROM rental_agreements WHERE end_date <= start_date"));
+      assertTrue(count(connection, "SELECT COUNT(*) FROM warehouses WHERE status = 'RENTED'") > 0);
+      assertTrue(count(connection, "SELECT COUNT(*) FROM rental_agreements a JOIN rental_agreements b "
+              + "ON a.warehouse_id = b.warehouse_id AND a.id < b.id "
+              + "AND a.start_date < b.end_date AND b.start_date < a.end_date") > 0);
+
+      long ambient = count(connection, "SELECT COUNT(*) FROM warehouses WHERE climate_condition = 'AMBIENT'");
+      long atmosphere = count(connection,
+              "SELECT COUNT(*) FROM warehouses WHERE climate_condition = 'ATMOSPHERE_CONTROLLED'");
+      assertTrue(ambient > spec.getWarehouses() / 3);
+      assertTrue(ambient > 5 * atmosphere);
+    }
+  }
+
+  @Test
+  void generate_ShouldProduceDataUsableThroughTheApplication() throws Exception {
+
+    DatasetSummary summary = generate("datasetUsable", new DatasetSpec());
+    EntityManagerFactory entityManagerFactory = entityManagerFactories.get(0);
+
+    UserDao userDao = new UserDao(entityManagerFactory);
+    UserService userService = new UserService(userDao, new PasswordHashingService());
+    assertTrue(userService.login(DatasetGenerator.email(summary.getFirstUserId()), DatasetSpec.DEFAULT_PASSWORD));
+    assertEquals(20, new WarehouseDao(entityManagerFactory).findListings(0, 20).size());
+
+    Tenant tenant = new Tenant();
+    tenant.setFirstName("New");
+    tenant.setLastName("Tenant");
+    tenant.setEmail("new.tenant@wms.com");
+    tenant.setPhone("0899999999");
+    tenant.setPassword("password");
+    tenant.setRole(Role.TENANT);
+    userDao.saveUser(tenant);
+    assertNotNull(tenant.getId());
+  }
+
+  @Test
+  void generate_WhenTheDatabaseAlreadyHoldsADataset_ShouldAddUsersWithOtherEmails() throws Exception {
+
+    DatasetSpec spec = new DatasetSpec();
+    DatasetSummary first = generate("datasetTwice", spec);
+    DatasetSummary second;
+    try (Connection connection = connect("datasetTwice")) {
+      second = new DatasetGenerator(spec).generate(connection);
+      assertEquals(2L * spec.getUsers(), count(connection, "SELECT COUNT(DISTINCT email) FROM users"));
+    }
+    assertEquals(first.getFirstUserId() + spec.getUsers(), second.getFirstUserId());
+
+    UserService userService = new UserService(new UserDao(entityManagerFactories.get(0)),
+            new PasswordHashingService());
+    assertTrue(userService.login(DatasetGenerator.email(second.getFirstUserId()), DatasetSpec.DEFAULT_PASSWORD));
+  }
+
+  private DatasetSummary generate(String database, DatasetSpec spec) throws SQLException {
+
+    entityManagerFactories.add(QueryCounter.createEntityManagerFactory(database));
+    try (Connection connection = connect(database)) {
+      return new DatasetGenerator(spec).generate(connection);
+    }
+  }
+
+  private static Connection connect(String database) throws SQLException {
+    return DriverManager.getConnection("jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1", "sa", "");
+  }
+}
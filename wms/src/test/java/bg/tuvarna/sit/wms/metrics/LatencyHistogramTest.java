@@ -0,0 +1,87 @@
+package bg.tuvarna.sit.wms.metrics;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest {
+
+  @Test
+  void getValueAtQuantile_ShouldBeWithinBucketPrecision() {
+
+    LatencyHistogram histogram = new LatencyHistogram("test");
+    for (long micros = 1; micros <= 10_000; micros++) {
+      histogram.record(TimeUnit.MICROSECONDS.toNanos(micros));
+    }
+
+    assertWithinPrecision(5_000_000, histogram.getValueAtQuantile(0.5));
+    assertWithinPrecision(9_900_000, histogram.getValueAtQuantile(0.99));
+    assertWithinPrecision(9_990_000, histogram.getValueAtQuantile(0.999));
+    assertEquals(10_000_000, histogram.getValueAtQuantile(1.0));
+    assertEquals(10.0, histogram.getMaxMillis());
+    assertEquals(10_000, histogram.getCount());
+  }
+
+  @Test
+  void bucketIndex_ShouldMapEveryValueIntoABucketContainingIt() {
+
+    for (long value : new long[]{0, 1, 127, 128, 129, 1_000, 123_456_789, Long.MAX_VALUE}) {
+      int index = LatencyHistogram.bucketIndex(value);
+      assertTrue(LatencyHistogram.highestValueIn(index) >= value);
+      assertTrue(index == 0 || LatencyHistogram.highestValueIn(index - 1) < value);
+    }
+  }
+
+  @Test
+  void record_FromManyThreads_ShouldCountEveryValue() throws InterruptedException {
+
+    LatencyHistogram histogram = new LatencyHistogram("test");
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    for (int thread = 0; thread < 4; thread++) {
+      executor.execute(() -> {
+        for (int i = 0; i < 25_000; i++) {
+          histogram.record(i);
+        }
+      });
+    }
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+    assertEquals(100_000, histogram.getCount());
+  }
+
+  @Test
+  void getValueAtQuantile_WhenEmpty_ShouldBeZero() {
+    assertEquals(0, new LatencyHistogram("test").getValueAtQuantile(0.99));
+  }
+
+  @Test
+  void time_ShouldRecordTheLatencyAndCountOperationsNotMarkedAsSucceeded() {
+
+    LatencyHistogram histogram = new LatencyHistogram("test");
+
+    try (LatencyHistogram.Timing timing = histogram.time()) {
+      assertEquals("result", timing.succeeded("result"));
+    }
+    assertThrows(IllegalStateException.class, () -> {
+      try (LatencyHistogram.Timing timing = histogram.time()) {
+        timing.succeeded(failingOperation());
+      }
+    });
+
+    assertEquals(2, histogram.getCount());
+    assertEquals(1, histogram.getErrorCount());
+  }
+
+  private static String failingOperation() {
+    throw new IllegalStateException("failed");
+  }
+
+  private static void assertWithinPrecision(long expected, long actual) {
+    assertTrue(Math.abs(actual - expected) <= expected / 50, "expected ~" + expected + " but was " + actual);
+  }
+}
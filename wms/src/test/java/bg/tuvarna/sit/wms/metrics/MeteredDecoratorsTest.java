@@ -0,0 +1,45 @@
+package bg.tuvarna.sit.wms.metrics;
+
+import bg.tuvarna.sit.wms.dao.MeteredUserDao;
+import bg.tuvarna.sit.wms.service.MeteredEncryptionService;
+import bg.tuvarna.sit.wms.service.MeteredPasswordHashingService;
+import bg.tuvarna.sit.wms.service.MeteredUserService;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+
+class MeteredDecoratorsTest {
+
+  /**
+   * Methods deliberately not metered, as documented by their decorators.
+   */
+  private static final Set<String> NOT_METERED = Set.of("PasswordHashingService.toHex");
+
+  @Test
+  void decorators_ShouldMeterEveryOperationOfTheirSuperclass() {
+
+    List<String> unmetered = new ArrayList<>();
+    for (Class<?> decorator : List.of(MeteredUserService.class, MeteredUserDao.class, MeteredEncryptionService.class,
+            MeteredPasswordHashingService.class)) {
+      Class<?> decorated = decorator.getSuperclass();
+      for (Method method : decorated.getDeclaredMethods()) {
+        String name = decorated.getSimpleName() + "." + method.getName();
+        int modifiers = method.getModifiers();
+        if (Modifier.isPrivate(modifiers) || Modifier.isStatic(modifiers) || method.isSynthetic()
+                || NOT_METERED.contains(name)) {
+          continue;
+        }
+        try {
+          decorator.getDeclaredMethod(method.getName(), method.getParameterTypes());
+        } catch (NoSuchMethodException e) {
+          unmetered.add(name);
+        }
+      }
+    }
+    assertEquals(List.of(), unmetered);
+  }
+}
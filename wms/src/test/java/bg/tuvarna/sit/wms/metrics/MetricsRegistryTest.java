@@ -0,0 +1,53 @@
+package bg.tuvarna.sit.wms.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import javax.management.ObjectName;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MetricsRegistryTest {
+
+  @Test
+  void histogram_ShouldReturnTheSameInstanceForAName() {
+
+    MetricsRegistry registry = new MetricsRegistry(false);
+
+    assertSame(registry.histogram("userDao.findByEmail"), registry.histogram("userDao.findByEmail"));
+    assertThrows(IllegalArgumentException.class, () -> registry.counter("userDao.findByEmail"));
+  }
+
+  @Test
+  void counter_WhenExportedToJmx_ShouldBeReadableAsAttribute() throws Exception {
+
+    MetricsRegistry registry = new MetricsRegistry(true);
+    registry.counter("test.jmx.counter").add(3);
+
+    ObjectName name = new ObjectName(MetricsRegistry.JMX_DOMAIN + ":type=Metrics,name="
+            + ObjectName.quote("test.jmx.counter"));
+    assertEquals(3L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Count"));
+  }
+
+  @Test
+  void report_ShouldAppendOneLinePerMetric(@TempDir Path directory) throws Exception {
+
+    MetricsRegistry registry = new MetricsRegistry(false);
+    registry.histogram("b.latency").record(1_000_000);
+    registry.gauge("a.gauge", () -> 4);
+    Path file = directory.resolve("metrics.log");
+
+    new MetricsFileReporter(registry, file).report();
+
+    List<String> lines = Files.readAllLines(file);
+    assertEquals(3, lines.size());
+    assertTrue(lines.get(0).startsWith("# "));
+    assertEquals("a.gauge value=4.0", lines.get(1));
+    assertTrue(lines.get(2).startsWith("b.latency count=1 errors=0"));
+  }
+}
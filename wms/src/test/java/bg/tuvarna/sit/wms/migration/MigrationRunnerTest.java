@@ -0,0 +1,227 @@
+package bg.tuvarna.sit.wms.migration;
+
+import bg.tuvarna.sit.wms.exceptions.MigrationException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class MigrationRunnerTest {
+
+  private Connection connection;
+
+  @BeforeEach
+  void setUp() throws SQLException {
+    connection = DriverManager.getConnection("jdbc:h2:mem:migrationRunner", "sa", "");
+  }
+
+  @AfterEach
+  void tearDown() throws SQLException {
+    connection.close();
+  }
+
+  @Test
+  void migrate_ShouldApplyScriptsAndJavaMigrationsInVersionOrderOnlyOnce() throws Exception {
+
+    MigrationRunner runner = new MigrationRunner("db/test-migration", List.of(renameMigration()));
+
+    assertEquals(3, runner.migrate(connection));
+    assertEquals(0, runner.migrate(connection));
+
+    assertEquals("renamed", queryString("SELECT name FROM items WHERE id = 1"));
+    assertEquals("1,1.1,2", queryString("SELECT LISTAGG(version, ',') WITHIN GROUP (ORDER BY installed_rank) "
+            + "FROM schema_history WHERE success"));
+  }
+
+  @Test
+  void migrate_WhenAppliedScriptWasModified_ShouldFail() throws Exception {
+
+    MigrationRunner runner = new MigrationRunner("db/test-migration", List.of());
+    runner.migrate(connection);
+    execute("UPDATE schema_history SET checksum = checksum + 1 WHERE version = '2'");
+
+    MigrationException thrown = assertThrows(MigrationException.class, () -> runner.migrate(connection));
+    assertTrue(thrown.getMessage().contains("was modified"));
+  }
+
+  @Test
+  void migrate_WhenMigrationFails_ShouldRecordFailureAndRefuseToContinue() {
+
+    JavaMigration failing = javaMigration("1.5", connection -> {
+      throw new SQLException("boom");
+    });
+    MigrationRunner runner = new MigrationRunner("db/test-migration", List.of(failing));
+
+    assertThrows(MigrationException.class, () -> runner.migrate(connection));
+    MigrationException thrown = assertThrows(MigrationException.class, () -> runner.migrate(connection));
+    assertTrue(thrown.getMessage().contains("failed previously"));
+  }
+
+  @Test
+  void migrate_WhenLockIsHeldByAnotherInstance_ShouldWaitAndGiveUp() throws Exception {
+
+    MigrationRunner runner = new MigrationRunner("db/test-migration", List.of());
+    runner.migrate(connection);
+    execute("UPDATE schema_lock SET locked = TRUE, locked_by = 'other', locked_at = CURRENT_TIMESTAMP");
+    runner.setLockTimeout(Duration.ofMillis(200));
+
+    MigrationException thrown = assertThrows(MigrationException.class, () -> runner.migrate(connection));
+    assertTrue(thrown.getMessage().contains("lock"));
+  }
+
+  @Test
+  void migrate_WhenLockIsStale_ShouldTakeItOver() throws Exception {
+
+    MigrationRunner runner = new MigrationRunner("db/test-migration", List.of());
+    runner.migrate(connection);
+    execute("UPDATE schema_lock SET locked = TRUE, locked_by = 'crashed', "
+            + "locked_at = DATEADD('HOUR', -1, CURRENT_TIMESTAMP)");
+
+    assertEquals(0, runner.migrate(connection));
+    assertEquals("FALSE", queryString("SELECT locked FROM schema_lock"));
+  }
+
+  @Test
+  void migrate_WhenJavaMigrationChecksumChanged_ShouldFail() throws Exception {
+
+    new MigrationRunner("db/test-migration", List.of(javaMigration("1.1", 1, connection -> { }))).migrate(connection);
+    MigrationRunner runner = new MigrationRunner("db/test-migration",
+            List.of(javaMigration("1.1", 2, connection -> { })));
+
+    MigrationException thrown = assertThrows(MigrationException.class, () -> runner.migrate(connection));
+    assertTrue(thrown.getMessage().contains("was modified"));
+  }
+
+  @Test
+  void migrate_WhenAnotherInstanceTookTheLockOver_ShouldStopBeforeTheNextMigration() throws Exception {
+
+    JavaMigration takeOver = javaMigration("1.1", connection -> {
+      try (Statement statement = connection.createStatement()) {
+        statement.executeUpdate("UPDATE schema_lock SET locked_by = 'other', locked_at = CURRENT_TIMESTAMP");
+      }
+    });
+    MigrationRunner runner = new MigrationRunner("db/test-migration", List.of(takeOver));
+
+    MigrationException thrown = assertThrows(MigrationException.class, () -> runner.migrate(connection));
+    assertTrue(thrown.getMessage().contains("Lost the migration lock"));
+    assertEquals("1,1.1", queryString("SELECT LISTAGG(version, ',') WITHIN GROUP (ORDER BY installed_rank) "
+            + "FROM schema_history"));
+    assertEquals("other", queryString("SELECT locked_by FROM schema_lock"));
+  }
+
+  @Test
+  void migrate_WhenPendingMigrationIsOlderThanAnAppliedOne_ShouldFailUnlessOutOfOrderIsAllowed() throws Exception {
+
+    new MigrationRunner("db/test-migration", List.of()).migrate(connection);
+    MigrationRunner runner = new MigrationRunner("db/test-migration", List.of(renameMigration()));
+
+    MigrationException thrown = assertThrows(MigrationException.class, () -> runner.migrate(connection));
+    assertTrue(thrown.getMessage().contains("older than the applied migration 2"));
+    assertEquals("first", queryString("SELECT name FROM items WHERE id = 1"));
+
+    runner.setOutOfOrder(true);
+    assertEquals(1, runner.migrate(connection));
+    assertEquals("renamed", queryString("SELECT name FROM items WHERE id = 1"));
+  }
+
+  @Test
+  void baselineMigrations_ShouldMatchTheEntityMapping() throws Exception {
+
+    String url = "jdbc:h2:mem:migrationBaseline;MODE=MySQL;DB_CLOSE_DELAY=-1";
+    try (Connection mysqlMode = DriverManager.getConnection(url, "sa", "")) {
+      MigrationRunner runner = new MigrationRunner(MigrationRunner.DEFAULT_LOCATION, List.of());
+      runner.setVendor("mysql");
+      runner.migrate(mysqlMode);
+    }
+    validateSchema(url);
+  }
+
+  @Test
+  void baselineMigrations_OnH2_ShouldMatchTheEntityMapping() throws Exception {
+
+    String url = "jdbc:h2:mem:migrationBaselineH2;DB_CLOSE_DELAY=-1";
+    try (Connection h2 = DriverManager.getConnection(url, "sa", "")) {
+      assertEquals(2, new MigrationRunner(MigrationRunner.DEFAULT_LOCATION, List.of()).migrate(h2));
+    }
+    validateSchema(url);
+  }
+
+  private static void validateSchema(String url) {
+
+    Map<String, Object> properties = new HashMap<>();
+    properties.put("javax.persistence.jdbc.url", url);
+    properties.put("hibernate.hbm2ddl.auto", "validate");
+    EntityManagerFactory entityManagerFactory = Persistence.createEntityManagerFactory("wms-test", properties);
+    entityManagerFactory.close();
+  }
+
+  private JavaMigration renameMigration() {
+
+    return javaMigration("1.1", connection -> {
+      try (Statement statement = connection.createStatement()) {
+        statement.executeUpdate("UPDATE items SET name = 'renamed' WHERE id = 1");
+      }
+    });
+  }
+
+  private JavaMigration javaMigration(String version, SqlAction action) {
+    return javaMigration(version, 1, action);
+  }
+
+  private JavaMigration javaMigration(String version, int checksum, SqlAction action) {
+
+    return new JavaMigration() {
+      @Override
+      public int getChecksum() {
+        return checksum;
+      }
+
+      @Override
+      public String getVersion() {
+        return version;
+      }
+
+      @Override
+      public String getDescription() {
+        return "test migration " + version;
+      }
+
+      @Override
+      public void migrate(Connection connection) throws SQLException {
+        action.run(connection);
+      }
+    };
+  }
+
+  private void execute(String sql) throws SQLException {
+
+    try (Statement statement = connection.createStatement()) {
+      statement.executeUpdate(sql);
+    }
+  }
+
+  private String queryString(String sql) throws SQLException {
+
+    try (Statement statement = connection.createStatement(); ResultSet resultSet = statement.executeQuery(sql)) {
+      resultSet.next();
+      return resultSet.getString(1);
+    }
+  }
+
+  private interface SqlAction {
+    void run(Connection connection) throws SQLException;
+  }
+}
@@ -0,0 +1,103 @@
+package bg.tuvarna.sit.wms.migration;
+
+import bg.tuvarna.sit.wms.dao.UserDao;
+import bg.tuvarna.sit.wms.dao.WarehouseDao;
+import bg.tuvarna.sit.wms.entities.Address;
+import bg.tuvarna.sit.wms.entities.City;
+import bg.tuvarna.sit.wms.entities.Country;
+import bg.tuvarna.sit.wms.entities.Owner;
+import bg.tuvarna.sit.wms.entities.StorageType;
+import bg.tuvarna.sit.wms.entities.Tenant;
+import bg.tuvarna.sit.wms.entities.User;
+import bg.tuvarna.sit.wms.entities.Warehouse;
+import bg.tuvarna.sit.wms.enums.ClimateCondition;
+import bg.tuvarna.sit.wms.enums.Role;
+import static bg.tuvarna.sit.wms.util.PersistenceTestUtils.createUser;
+import bg.tuvarna.sit.wms.util.UserInheritanceMapping;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import org.junit.jupiter.api.Test;
+
+class UserSingleTableMigrationTest {
+
+  private static final String URL = "jdbc:h2:mem:userSingleTableMigration;DB_CLOSE_DELAY=-1";
+
+  @Test
+  void migrate_ShouldMoveJoinedUsersIntoASingleTable() throws SQLException {
+
+    EntityManagerFactory joined = createEntityManagerFactory(UserInheritanceMapping.JOINED, "create");
+    Long warehouseId = seed(joined);
+    joined.close();
+
+    try (Connection connection = DriverManager.getConnection(URL, "sa", "")) {
+      new UserSingleTableMigration().migrate(connection);
+      new UserSingleTableMigration().migrate(connection);
+    }
+
+    EntityManagerFactory singleTable = createEntityManagerFactory(UserInheritanceMapping.SINGLE_TABLE, "none");
+    try {
+      UserDao userDao = new UserDao(singleTable);
+      assertInstanceOf(Owner.class, userDao.findByEmail("owner@wms.com").orElseThrow());
+      assertInstanceOf(Tenant.class, userDao.findByPhone("0888000002").orElseThrow());
+      assertEquals(User.class, userDao.findByEmail("admin@wms.com").orElseThrow().getClass());
+
+      Warehouse warehouse = new WarehouseDao(singleTable).findByIdWithDetails(warehouseId).orElseThrow();
+      assertEquals("owner@wms.com", warehouse.getOwner().getEmail());
+    } finally {
+      singleTable.close();
+    }
+  }
+
+  private EntityManagerFactory createEntityManagerFactory(UserInheritanceMapping inheritance, String schemaAction) {
+
+    Map<String, Object> properties = new HashMap<>(inheritance.configOverrides());
+    properties.put("javax.persistence.jdbc.url", URL);
+    properties.put("hibernate.hbm2ddl.auto", schemaAction);
+    return Persistence.createEntityManagerFactory("wms-test", properties);
+  }
+
+  private Long seed(EntityManagerFactory entityManagerFactory) {
+
+    EntityManager entityManager = entityManagerFactory.createEntityManager();
+    entityManager.getTransaction().begin();
+
+    Owner owner = createUser(new Owner(), Role.OWNER, "owner@wms.com", "0888000001");
+    entityManager.persist(owner);
+    entityManager.persist(createUser(new Tenant(), Role.TENANT, "tenant@wms.com", "0888000002"));
+    entityManager.persist(createUser(new User(), Role.ADMIN, "admin@wms.com", "0888000003"));
+
+    Country country = new Country();
+    country.setName("Bulgaria");
+    City city = new City();
+    city.setName("Varna");
+    city.setCountry(country);
+    Address address = new Address();
+    address.setStreet("Street");
+    address.setZipCode("9000");
+    address.setCity(city);
+    StorageType storageType = new StorageType();
+    storageType.setTypeName("Shelving");
+    entityManager.persist(country);
+    entityManager.persist(city);
+
+    Warehouse warehouse = new Warehouse();
+    warehouse.setOwner(owner);
+    warehouse.setAddress(address);
+    warehouse.setStorageType(storageType);
+    warehouse.setSize(120.0);
+    warehouse.setClimateCondition(ClimateCondition.AMBIENT);
+    entityManager.persist(warehouse);
+
+    entityManager.getTransaction().commit();
+    entityManager.close();
+    return warehouse.getId();
+  }
+}
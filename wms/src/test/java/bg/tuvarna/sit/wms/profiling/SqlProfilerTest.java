@@ -0,0 +1,133 @@
+package bg.tuvarna.sit.wms.profiling;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SqlProfilerTest {
+
+  private final List<SqlExecution> slow = new ArrayList<>();
+  private final List<SqlExecution> sampled = new ArrayList<>();
+  private Connection rawConnection;
+
+  @BeforeEach
+  void setUp() throws SQLException {
+
+    rawConnection = DriverManager.getConnection("jdbc:h2:mem:sqlProfiler", "sa", "");
+    try (Statement statement = rawConnection.createStatement()) {
+      statement.execute("CREATE TABLE items (id INT PRIMARY KEY, name VARCHAR(50))");
+      statement.execute("INSERT INTO items VALUES (1, 'one'), (2, 'two'), (3, 'it''s')");
+    }
+  }
+
+  @AfterEach
+  void tearDown() throws SQLException {
+    rawConnection.close();
+  }
+
+  @Test
+  void query_OverThreshold_ShouldBeLoggedWithBoundParametersRowsAndCallSite() throws SQLException {
+
+    Connection connection = ProfilingJdbc.wrap(rawConnection, profiler(Duration.ZERO, 0, true));
+
+    try (PreparedStatement statement = connection.prepareStatement("SELECT * FROM items WHERE id > ? AND name <> ?")) {
+      statement.setInt(1, 1);
+      statement.setString(2, "it's");
+      try (ResultSet resultSet = statement.executeQuery()) {
+        while (resultSet.next()) {
+          resultSet.getString("name");
+        }
+      }
+    }
+
+    assertEquals(1, slow.size());
+    SqlExecution execution = slow.get(0);
+    assertEquals("SELECT * FROM items WHERE id > 1 AND name <> 'it''s'", execution.getSql());
+    assertEquals(1, execution.getRows());
+    assertTrue(execution.getCallSite().startsWith(SqlProfilerTest.class.getName()
+            + ".query_OverThreshold_ShouldBeLoggedWithBoundParametersRowsAndCallSite"));
+  }
+
+  @Test
+  void update_ShouldReportUpdateCountWithoutParameterValuesByDefault() throws SQLException {
+
+    Connection connection = ProfilingJdbc.wrap(rawConnection, profiler(Duration.ZERO, 0));
+
+    try (PreparedStatement statement = connection.prepareStatement("UPDATE items SET name = ? WHERE id < 3")) {
+      statement.setString(1, "changed");
+      statement.executeUpdate();
+    }
+
+    assertEquals("UPDATE items SET name = ? WHERE id < 3", slow.get(0).getSql());
+    assertEquals(2, slow.get(0).getRows());
+  }
+
+  @Test
+  void bind_ShouldMaskPasswordColumns() {
+
+    assertEquals("insert into users (email, password, id) values ('a@b.c', '***', 7)",
+            ProfilingJdbc.bind("insert into users (email, password, id) values (?, ?, ?)",
+                    Map.of(1, "a@b.c", 2, "hash", 3, 7)));
+    assertEquals("update users set email='a@b.c', password='***' where id=7",
+            ProfilingJdbc.bind("update users set email=?, password=? where id=?",
+                    Map.of(1, "a@b.c", 2, "hash", 3, 7)));
+    assertEquals("select * from users u where u.password <> '***' and u.name = 'x'",
+            ProfilingJdbc.bind("select * from users u where u.password <> ? and u.name = ?",
+                    Map.of(1, "hash", 2, "x")));
+  }
+
+  @Test
+  void statement_UnderThreshold_ShouldOnlyBeSampled() throws SQLException {
+
+    Connection connection = ProfilingJdbc.wrap(rawConnection, profiler(Duration.ofHours(1), 1.0));
+
+    try (Statement statement = connection.createStatement()) {
+      statement.executeQuery("SELECT COUNT(*) FROM items").close();
+    }
+
+    assertTrue(slow.isEmpty());
+    assertEquals(1, sampled.size());
+    assertEquals("SELECT COUNT(*) FROM items", sampled.get(0).getSql());
+  }
+
+  @Test
+  void statement_UnderThresholdWithoutSampling_ShouldNotBeLogged() throws SQLException {
+
+    Connection connection = ProfilingJdbc.wrap(rawConnection, profiler(Duration.ofHours(1), 0));
+
+    try (Statement statement = connection.createStatement()) {
+      statement.executeUpdate("DELETE FROM items WHERE id = 1");
+    }
+
+    assertTrue(slow.isEmpty());
+    assertTrue(sampled.isEmpty());
+  }
+
+  @Test
+  void fromProperties_WithInvalidSampleRate_ShouldFail() {
+
+    assertThrows(IllegalArgumentException.class,
+            () -> SqlProfiler.fromProperties(Map.of(SqlProfiler.SAMPLE_RATE_PROPERTY, "2")));
+  }
+
+  private SqlProfiler profiler(Duration threshold, double sampleRate) {
+    return profiler(threshold, sampleRate, false);
+  }
+
+  private SqlProfiler profiler(Duration threshold, double sampleRate, boolean logParameters) {
+    return new SqlProfiler(threshold, sampleRate, logParameters, slow::add, sampled::add);
+  }
+}
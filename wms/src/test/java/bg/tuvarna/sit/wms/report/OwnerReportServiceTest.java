@@ -0,0 +1,205 @@
+package bg.tuvarna.sit.wms.report;
+
+import bg.tuvarna.sit.wms.dao.ReportDao;
+import bg.tuvarna.sit.wms.entities.Address;
+import bg.tuvarna.sit.wms.entities.Agent;
+import bg.tuvarna.sit.wms.entities.City;
+import bg.tuvarna.sit.wms.entities.Country;
+import bg.tuvarna.sit.wms.entities.Owner;
+import bg.tuvarna.sit.wms.entities.RentalAgreement;
+import bg.tuvarna.sit.wms.entities.StorageType;
+import bg.tuvarna.sit.wms.entities.Tenant;
+import bg.tuvarna.sit.wms.entities.User;
+import bg.tuvarna.sit.wms.entities.Warehouse;
+import bg.tuvarna.sit.wms.enums.ClimateCondition;
+import bg.tuvarna.sit.wms.enums.ReportFormat;
+import bg.tuvarna.sit.wms.enums.Role;
+import bg.tuvarna.sit.wms.util.JsonCodec;
+import static bg.tuvarna.sit.wms.util.PersistenceTestUtils.createUser;
+import static bg.tuvarna.sit.wms.util.PersistenceTestUtils.inTransaction;
+import bg.tuvarna.sit.wms.util.QueryCounter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class OwnerReportServiceTest {
+
+  private static EntityManagerFactory entityManagerFactory;
+  private static long firstOwnerId;
+  private static long busyWarehouseId;
+  private static long idleWarehouseId;
+  private static long secondOwnerId;
+  private static long secondWarehouseId;
+
+  @BeforeAll
+  static void setUp() {
+
+    entityManagerFactory = QueryCounter.createEntityManagerFactory("ownerReport");
+    seedDatabase();
+  }
+
+  @AfterAll
+  static void tearDown() {
+    entityManagerFactory.close();
+  }
+
+  @Test
+  void aggregate_ShouldProrateRevenueAndCountOccupiedDaysOnce() {
+
+    OwnerReportService.OwnerPeriods owner = new OwnerReportService.OwnerPeriods(1, "Owner")
+            .add(7, LocalDate.of(2024, 1, 15), LocalDate.of(2024, 2, 14), new BigDecimal("310"))
+            .add(7, LocalDate.of(2024, 1, 20), LocalDate.of(2024, 1, 31), new BigDecimal("31"))
+            .add(8, null, null, null);
+
+    List<OwnerReportRow> rows = OwnerReportService.aggregate(owner, YearMonth.of(2024, 1), YearMonth.of(2024, 3));
+
+    assertEquals(List.of(
+            row(1, "Owner", 7, "2024-01", "182.00", "54.84"),
+            row(1, "Owner", 7, "2024-02", "149.66", "48.28"),
+            row(1, "Owner", 7, "2024-03", "0.00", "0.00"),
+            row(1, "Owner", 8, "2024-01", "0.00", "0.00"),
+            row(1, "Owner", 8, "2024-02", "0.00", "0.00"),
+            row(1, "Owner", 8, "2024-03", "0.00", "0.00")), rows);
+  }
+
+  @Test
+  void writeReport_ShouldStreamAllOwnersToCsvAndJson(@TempDir Path directory) throws IOException {
+
+    OwnerReportService service = new OwnerReportService(new ReportDao(entityManagerFactory), 2, 1);
+
+    Path csv = directory.resolve("report.csv");
+    assertEquals(6, service.writeReport(null, YearMonth.of(2024, 1), YearMonth.of(2024, 2), ReportFormat.CSV, csv));
+    assertEquals(List.of(
+            "owner_id,owner_name,warehouse_id,month,revenue,occupancy_percent",
+            firstOwnerId + ",\"John Doe, Jr.\"," + busyWarehouseId + ",2024-01,170.00,54.84",
+            firstOwnerId + ",\"John Doe, Jr.\"," + busyWarehouseId + ",2024-02,149.66,48.28",
+            firstOwnerId + ",\"John Doe, Jr.\"," + idleWarehouseId + ",2024-01,0.00,0.00",
+            firstOwnerId + ",\"John Doe, Jr.\"," + idleWarehouseId + ",2024-02,0.00,0.00",
+            secondOwnerId + ",Jane Roe," + secondWarehouseId + ",2024-01,1000.00,100.00",
+            secondOwnerId + ",Jane Roe," + secondWarehouseId + ",2024-02,0.00,0.00"), Files.readAllLines(csv));
+
+    Path json = directory.resolve("report.json");
+    assertEquals(1, service.writeReport(secondOwnerId, YearMonth.of(2024, 1), YearMonth.of(2024, 1),
+            ReportFormat.JSON, json));
+    List<?> rows = (List<?>) JsonCodec.parse(Files.readString(json));
+    assertEquals(Map.of("ownerId", secondOwnerId, "ownerName", "Jane Roe", "warehouseId", secondWarehouseId,
+            "month", "2024-01", "revenue", new BigDecimal("1000.00"), "occupancyPercent", new BigDecimal("100.00")),
+            rows.get(0));
+
+    assertThrows(IllegalArgumentException.class, () -> service.writeReport(null, YearMonth.of(2024, 2),
+            YearMonth.of(2024, 1), ReportFormat.CSV, csv));
+  }
+
+  @Test
+  void writeReport_WhenStreamingFails_ShouldKeepTheExistingFile(@TempDir Path directory) throws IOException {
+
+    ReportDao failingDao = new ReportDao(entityManagerFactory) {
+      @Override
+      public void forEachAgreementPeriod(Long ownerId, Date from, Date to, int fetchSize,
+                                         AgreementPeriodConsumer consumer) {
+
+        super.forEachAgreementPeriod(ownerId, from, to, fetchSize, consumer);
+        throw new IllegalStateException("Connection lost");
+      }
+    };
+    Path csv = directory.resolve("report.csv");
+    Files.writeString(csv, "previous report\n");
+
+    assertThrows(IllegalStateException.class, () -> new OwnerReportService(failingDao, 2, 1)
+            .writeReport(null, YearMonth.of(2024, 1), YearMonth.of(2024, 2), ReportFormat.CSV, csv));
+
+    assertEquals(List.of("previous report"), Files.readAllLines(csv));
+    try (Stream<Path> files = Files.list(directory)) {
+      assertEquals(List.of(csv), files.toList());
+    }
+  }
+
+  private static OwnerReportRow row(long ownerId, String ownerName, long warehouseId, String month, String revenue,
+                                    String occupancy) {
+    return new OwnerReportRow(ownerId, ownerName, warehouseId, YearMonth.parse(month), new BigDecimal(revenue),
+            new BigDecimal(occupancy));
+  }
+
+  private static void seedDatabase() {
+
+    inTransaction(entityManagerFactory, entityManager -> {
+      Country country = new Country();
+      country.setName("Bulgaria");
+      entityManager.persist(country);
+      City city = new City();
+      city.setName("Varna");
+      city.setCountry(country);
+      entityManager.persist(city);
+      StorageType storageType = new StorageType();
+      storageType.setTypeName("Dry storage");
+      entityManager.persist(storageType);
+
+      Owner firstOwner = createUser(new Owner(), Role.OWNER, "John", "Doe, Jr.", "first@wms.com", "0888000001");
+      Owner secondOwner = createUser(new Owner(), Role.OWNER, "Jane", "Roe", "second@wms.com", "0888000002");
+      Agent agent = createUser(new Agent(), Role.AGENT, "Agent", "Smith", "agent@wms.com", "0888000003");
+      Tenant tenant = createUser(new Tenant(), Role.TENANT, "Tenant", "Brown", "tenant@wms.com", "0888000004");
+      for (User user : List.of(firstOwner, secondOwner, agent, tenant)) {
+        entityManager.persist(user);
+      }
+
+      Warehouse busy = createWarehouse(entityManager, firstOwner, city, storageType);
+      Warehouse idle = createWarehouse(entityManager, firstOwner, city, storageType);
+      Warehouse second = createWarehouse(entityManager, secondOwner, city, storageType);
+      createAgreement(entityManager, busy, agent, tenant, LocalDate.of(2024, 1, 15), LocalDate.of(2024, 2, 14), "310");
+      createAgreement(entityManager, busy, agent, tenant, LocalDate.of(2023, 1, 1), LocalDate.of(2023, 12, 31), "99");
+      createAgreement(entityManager, second, agent, tenant, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31),
+              "1000");
+
+      firstOwnerId = firstOwner.getId();
+      secondOwnerId = secondOwner.getId();
+      busyWarehouseId = busy.getId();
+      idleWarehouseId = idle.getId();
+      secondWarehouseId = second.getId();
+    });
+  }
+
+  private static Warehouse createWarehouse(EntityManager entityManager, Owner owner, City city,
+                                           StorageType storageType) {
+
+    Address address = new Address();
+    address.setStreet("Main 1");
+    address.setZipCode("9000");
+    address.setCity(city);
+    Warehouse warehouse = new Warehouse();
+    warehouse.setOwner(owner);
+    warehouse.setAddress(address);
+    warehouse.setStorageType(storageType);
+    warehouse.setSize(100.0);
+    warehouse.setClimateCondition(ClimateCondition.AMBIENT);
+    entityManager.persist(warehouse);
+    return warehouse;
+  }
+
+  private static void createAgreement(EntityManager entityManager, Warehouse warehouse, Agent agent, Tenant tenant,
+                                      LocalDate start, LocalDate end, String price) {
+
+    RentalAgreement agreement = new RentalAgreement();
+    agreement.setWarehouse(warehouse);
+    agreement.setAgent(agent);
+    agreement.setTenant(tenant);
+    agreement.setStartDate(java.sql.Date.valueOf(start));
+    agreement.setEndDate(java.sql.Date.valueOf(end));
+    agreement.setPricePerMonth(new BigDecimal(price));
+    entityManager.persist(agreement);
+  }
+}
@@ -0,0 +1,48 @@
+package bg.tuvarna.sit.wms.search;
+
+import java.util.Comparator;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+
+class CompressedTrieTest {
+
+  private static final Comparator<String> BY_LENGTH = Comparator.comparing(String::length)
+          .thenComparing(Comparator.naturalOrder());
+
+  @Test
+  void find_ShouldMatchWordPrefixesIgnoringCaseAndDiacritics() {
+
+    CompressedTrie<String> trie = CompressedTrie.<String>builder(BY_LENGTH, 10)
+            .add("Veliko Tarnovo", "Veliko Tarnovo")
+            .add("Varna", "Varna")
+            .add("Vratsa", "Vratsa")
+            .add("S\u00e3o Paulo", "Sao Paulo")
+            .add(" -- ", "nothing")
+            .build();
+
+    assertEquals(4, trie.size());
+    assertEquals(List.of("Varna", "Vratsa", "Veliko Tarnovo"), trie.find("v", 10));
+    assertEquals(List.of("Veliko Tarnovo"), trie.find("TAR", 10));
+    assertEquals(List.of("Veliko Tarnovo"), trie.find("veliko-t", 10));
+    assertEquals(List.of("Sao Paulo"), trie.find("s\u00c3o", 10));
+    assertEquals(List.of("Sao Paulo"), trie.find("paul", 10));
+    assertEquals(List.of(), trie.find("varnas", 10));
+    assertEquals(List.of(), trie.find("x", 10));
+    assertEquals(List.of("Varna"), trie.find("", 1));
+  }
+
+  @Test
+  void find_ShouldRankBeyondTheValuesKeptPerNode() {
+
+    CompressedTrie.Builder<String> builder = CompressedTrie.builder(BY_LENGTH, 2);
+    for (String name : List.of("Sofia", "Sozopol", "Sopot", "Smolyan", "Sofia Sofia")) {
+      builder.add(name, name);
+    }
+    CompressedTrie<String> trie = builder.build();
+
+    assertEquals(List.of("Sofia", "Sopot"), trie.find("so", 2));
+    assertEquals(List.of("Sofia", "Sopot", "Sozopol", "Sofia Sofia"), trie.find("so", 10));
+    assertEquals(List.of("Sofia", "Sofia Sofia"), trie.find("sofia", 10));
+  }
+}
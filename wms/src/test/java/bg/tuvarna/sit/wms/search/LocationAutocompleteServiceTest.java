@@ -0,0 +1,172 @@
+package bg.tuvarna.sit.wms.search;
+
+import bg.tuvarna.sit.wms.dao.LocationDao;
+import bg.tuvarna.sit.wms.dto.LocationSuggestionDto;
+import bg.tuvarna.sit.wms.entities.Address;
+import bg.tuvarna.sit.wms.entities.City;
+import bg.tuvarna.sit.wms.entities.Country;
+import bg.tuvarna.sit.wms.entities.Owner;
+import bg.tuvarna.sit.wms.entities.StorageType;
+import bg.tuvarna.sit.wms.entities.Warehouse;
+import bg.tuvarna.sit.wms.enums.ClimateCondition;
+import bg.tuvarna.sit.wms.enums.Role;
+import static bg.tuvarna.sit.wms.util.PersistenceTestUtils.inTransaction;
+import bg.tuvarna.sit.wms.util.QueryCounter;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class LocationAutocompleteServiceTest {
+
+  private static EntityManagerFactory entityManagerFactory;
+
+  @BeforeAll
+  static void setUp() {
+
+    entityManagerFactory = QueryCounter.createEntityManagerFactory("locationAutocomplete");
+    inTransaction(entityManagerFactory, entityManager -> {
+      Country bulgaria = addCountry(entityManager, "Bulgaria");
+      Country romania = addCountry(entityManager, "Rom\u00e2nia");
+      City varna = addCity(entityManager, "Varna", bulgaria);
+      City tarnovo = addCity(entityManager, "Veliko Tarnovo", bulgaria);
+      addCity(entityManager, "Vaslui", romania);
+
+      StorageType storageType = new StorageType();
+      storageType.setTypeName("Dry storage");
+      entityManager.persist(storageType);
+      Owner owner = new Owner();
+      owner.setFirstName("First");
+      owner.setLastName("Last");
+      owner.setRole(Role.OWNER);
+      owner.setEmail("owner@wms.com");
+      owner.setPhone("0888000001");
+      owner.setPassword("password");
+      entityManager.persist(owner);
+
+      for (City city : List.of(tarnovo, tarnovo, varna)) {
+        Address address = new Address();
+        address.setStreet("Main 1");
+        address.setZipCode("5000");
+        address.setCity(city);
+        Warehouse warehouse = new Warehouse();
+        warehouse.setOwner(owner);
+        warehouse.setAddress(address);
+        warehouse.setStorageType(storageType);
+        warehouse.setSize(100.0);
+        warehouse.setClimateCondition(ClimateCondition.AMBIENT);
+        entityManager.persist(warehouse);
+      }
+    });
+  }
+
+  @AfterAll
+  static void tearDown() {
+    entityManagerFactory.close();
+  }
+
+  @Test
+  void suggest_ShouldRankLocationsByTheirWarehousesAndFollowChanges() {
+
+    LocationAutocompleteService service = new LocationAutocompleteService(new LocationDao(entityManagerFactory));
+    service.open();
+    try {
+      List<LocationSuggestionDto> cities = service.suggestCities("v", 10);
+      assertEquals(List.of("Veliko Tarnovo", "Varna", "Vaslui"), names(cities));
+      assertEquals(List.of(2L, 1L, 0L), cities.stream().map(LocationSuggestionDto::getWarehouseCount).toList());
+      assertEquals("Bulgaria", cities.get(0).getCountryName());
+      assertEquals(List.of("Veliko Tarnovo"), names(service.suggestCities("tarn", 10)));
+      assertEquals(List.of("Rom\u00e2nia"), names(service.suggestCountries("roma", 10)));
+      assertEquals(List.of("Bulgaria", "Rom\u00e2nia"), names(service.suggestCountries("", 50)));
+
+      inTransaction(entityManagerFactory, entityManager -> addCity(entityManager, "Vidin",
+              entityManager.getReference(Country.class, bulgariaId())));
+      service.refresh();
+      assertEquals(List.of("Veliko Tarnovo", "Varna", "Vaslui", "Vidin"), names(service.suggestCities("v", 10)));
+    } finally {
+      service.close();
+    }
+  }
+
+  @Test
+  void refresh_ShouldNotLetAnOlderReadReplaceANewerOne() throws InterruptedException {
+
+    CountDownLatch citiesRead = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicBoolean firstRead = new AtomicBoolean(true);
+    LocationDao slowFirstRead = new LocationDao(entityManagerFactory) {
+      @Override
+      public void forEachCountry(Consumer<LocationSuggestionDto> consumer) {
+
+        if (firstRead.getAndSet(false)) {
+          citiesRead.countDown();
+          try {
+            release.await(10, TimeUnit.SECONDS);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        }
+        super.forEachCountry(consumer);
+      }
+    };
+    LocationAutocompleteService service = new LocationAutocompleteService(slowFirstRead);
+
+    Thread older = new Thread(service::refresh);
+    older.start();
+    assertTrue(citiesRead.await(10, TimeUnit.SECONDS));
+    inTransaction(entityManagerFactory, entityManager -> addCity(entityManager, "Ruse",
+            entityManager.getReference(Country.class, bulgariaId())));
+    Thread newer = new Thread(service::refresh);
+    newer.start();
+
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (newer.getState() != Thread.State.BLOCKED && newer.isAlive() && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+    release.countDown();
+    older.join();
+    newer.join();
+
+    assertTrue(names(service.suggestCities("ru", 10)).contains("Ruse"));
+  }
+
+  private static List<String> names(List<LocationSuggestionDto> suggestions) {
+    return suggestions.stream().map(LocationSuggestionDto::getName).toList();
+  }
+
+  private static Long bulgariaId() {
+
+    EntityManager entityManager = entityManagerFactory.createEntityManager();
+    try {
+      return entityManager.createQuery("SELECT c.id FROM Country c WHERE c.name = 'Bulgaria'", Long.class)
+              .getSingleResult();
+    } finally {
+      entityManager.close();
+    }
+  }
+
+  private static Country addCountry(EntityManager entityManager, String name) {
+
+    Country country = new Country();
+    country.setName(name);
+    entityManager.persist(country);
+    return country;
+  }
+
+  private static City addCity(EntityManager entityManager, String name, Country country) {
+
+    City city = new City();
+    city.setName(name);
+    city.setCountry(country);
+    entityManager.persist(city);
+    return city;
+  }
+}
@@ -0,0 +1,118 @@
+package bg.tuvarna.sit.wms.search;
+
+import bg.tuvarna.sit.wms.enums.SearchDocumentType;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumSet;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SearchIndexTest {
+
+  @Test
+  void tokenize_ShouldFoldCaseAndDiacritics() {
+
+    assertEquals(List.of("ulitsa", "sofia", "12", "a"), Tokenizer.tokenize("Ulitsa S\u00f3fia-12, \u00c5"));
+    assertEquals(List.of(), Tokenizer.tokenize(" -- "));
+  }
+
+  @Test
+  void search_ShouldRankByBm25() {
+
+    SearchIndex index = new SearchIndex();
+    index.put(SearchDocumentType.STORAGE_TYPE, 1, "Cold storage", "Refrigerated cold storage for food and cold drinks");
+    index.put(SearchDocumentType.STORAGE_TYPE, 2, "Bulk storage", "Open floor space for bulk goods, cold in winter");
+    index.put(SearchDocumentType.REVIEW, 3, "Friendly owner, the cold room worked as promised");
+    index.put(SearchDocumentType.WAREHOUSE, 4, "Industrial Zone 5", "9000");
+
+    List<SearchHit> hits = index.search("cold storage", 10);
+
+    assertEquals(3, hits.size());
+    assertEquals(1, hits.get(0).id());
+    assertEquals(2, hits.get(1).id());
+    assertTrue(hits.get(0).score() > hits.get(1).score());
+    assertEquals(List.of(3L), index.search("cold", 10, EnumSet.of(SearchDocumentType.REVIEW)).stream()
+            .map(SearchHit::id).toList());
+    assertEquals(1, index.search("cold", 1).size());
+  }
+
+  @Test
+  void search_ShouldMatchPrefixesAndTypos() {
+
+    SearchIndex index = new SearchIndex();
+    index.put(SearchDocumentType.WAREHOUSE, 1, "Tsar Osvoboditel Boulevard 14");
+    index.put(SearchDocumentType.WAREHOUSE, 2, "Vladislav Varnenchik Boulevard 2");
+    index.put(SearchDocumentType.WAREHOUSE, 3, "Osvobozhdenie Square 1");
+
+    assertEquals(List.of(3L, 1L), ids(index.search("osvob", 10)));
+    assertEquals(List.of(2L), ids(index.search("varnenchick", 10)));
+    assertEquals(List.of(2L), ids(index.search("vladsilav", 10)));
+    assertEquals(List.of(), ids(index.search("plovdiv", 10)));
+    assertEquals(1L, index.search("osvoboditel", 10).get(0).id());
+  }
+
+  @Test
+  void put_ShouldReplaceAndRemoveDocuments() {
+
+    SearchIndex index = new SearchIndex();
+    index.put(SearchDocumentType.REVIEW, 1, "Dusty but cheap");
+    index.put(SearchDocumentType.REVIEW, 1, "Clean and cheap");
+    index.put(SearchDocumentType.REVIEW, 2, "Cheap");
+
+    assertEquals(List.of(), index.search("dusty", 10));
+    assertEquals(List.of(1L), ids(index.search("clean", 10)));
+    assertTrue(index.remove(SearchDocumentType.REVIEW, 1));
+    assertFalse(index.remove(SearchDocumentType.REVIEW, 1));
+    assertEquals(List.of(2L), ids(index.search("cheap clean", 10)));
+    assertEquals(1, index.size());
+    assertEquals(1, index.termCount());
+  }
+
+  @Test
+  void segmentStore_ShouldRestoreTheIndexWithTheJournal(@TempDir Path directory) throws IOException {
+
+    SearchIndex index = new SearchIndex();
+    index.put(SearchDocumentType.STORAGE_TYPE, 1, "Cold storage", "Refrigerated");
+    index.put(SearchDocumentType.STORAGE_TYPE, 2, "Bulk storage", null);
+    try (SegmentStore store = new SegmentStore(directory)) {
+      store.writeSegment(index);
+      store.appendPut(SearchDocumentType.REVIEW, 7, "Great cold room");
+      store.appendRemove(SearchDocumentType.STORAGE_TYPE, 2);
+    }
+    Files.write(directory.resolve("journal.bin"), new byte[] {1, 2, 0, 0}, StandardOpenOption.APPEND);
+
+    SearchIndex restored = new SearchIndex();
+    try (SegmentStore store = new SegmentStore(directory)) {
+      store.rotateJournal();
+      store.appendPut(SearchDocumentType.REVIEW, 8, "Dry and bright");
+      assertTrue(store.load(restored));
+      assertEquals(2, restored.size());
+      assertEquals(List.of(1L, 7L), ids(restored.search("cold", 10)));
+      assertEquals(List.of(), restored.search("bulk", 10));
+
+      store.writeSegment(restored);
+      assertFalse(Files.exists(directory.resolve("journal.old.bin")));
+      assertEquals(1, store.getJournalEntries());
+    }
+    SearchIndex reloaded = new SearchIndex();
+    try (SegmentStore store = new SegmentStore(directory)) {
+      store.rotateJournal();
+      assertTrue(store.load(reloaded));
+    }
+    assertEquals(3, reloaded.size());
+    assertEquals(List.of(8L), ids(reloaded.search("bright", 10)));
+
+    assertFalse(new SegmentStore(directory.resolve("missing")).load(restored));
+    assertEquals(0, restored.size());
+  }
+
+  private static List<Long> ids(List<SearchHit> hits) {
+    return hits.stream().map(SearchHit::id).toList();
+  }
+}
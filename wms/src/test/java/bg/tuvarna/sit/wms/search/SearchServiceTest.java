@@ -0,0 +1,199 @@
+package bg.tuvarna.sit.wms.search;
+
+import bg.tuvarna.sit.wms.dao.SearchDao;
+import bg.tuvarna.sit.wms.entities.Address;
+import bg.tuvarna.sit.wms.entities.City;
+import bg.tuvarna.sit.wms.entities.Country;
+import bg.tuvarna.sit.wms.entities.Owner;
+import bg.tuvarna.sit.wms.entities.Review;
+import bg.tuvarna.sit.wms.entities.StorageType;
+import bg.tuvarna.sit.wms.entities.Tenant;
+import bg.tuvarna.sit.wms.entities.Warehouse;
+import bg.tuvarna.sit.wms.enums.ClimateCondition;
+import bg.tuvarna.sit.wms.enums.Role;
+import bg.tuvarna.sit.wms.enums.SearchDocumentType;
+import static bg.tuvarna.sit.wms.util.PersistenceTestUtils.createUser;
+import static bg.tuvarna.sit.wms.util.PersistenceTestUtils.inTransaction;
+import bg.tuvarna.sit.wms.util.QueryCounter;
+import java.nio.file.Path;
+import java.util.List;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+class SearchServiceTest {
+
+  private static EntityManagerFactory entityManagerFactory;
+  private static Long warehouseId;
+  private static Long storageTypeId;
+  private static Long reviewId;
+
+  @BeforeAll
+  static void setUp() {
+
+    entityManagerFactory = QueryCounter.createEntityManagerFactory("searchService");
+    seedDatabase();
+  }
+
+  @AfterAll
+  static void tearDown() {
+    entityManagerFactory.close();
+  }
+
+  @Test
+  void open_ShouldBuildTheIndexFollowTheEntitiesAndReloadItFromDisk(@TempDir Path directory) {
+
+    SearchService searchService = new SearchService(new SearchDao(entityManagerFactory), directory);
+    searchService.open();
+    try {
+      assertEquals(3, searchService.size());
+      assertEquals(List.of(new SearchHit(SearchDocumentType.WAREHOUSE, warehouseId, 0)),
+              withoutScores(searchService.search("industrialna", 10)));
+      assertEquals(List.of(storageTypeId, reviewId), ids(searchService.search("refrigerated", 10)));
+
+      inTransaction(entityManagerFactory, entityManager -> {
+        StorageType storageType = entityManager.find(StorageType.class, storageTypeId);
+        storageType.setDescription("Heated rooms");
+        entityManager.remove(entityManager.find(Review.class, reviewId));
+      });
+      assertEquals(List.of(), searchService.search("refrigerated", 10));
+      assertEquals(List.of(storageTypeId), ids(searchService.search("heated", 10)));
+    } finally {
+      searchService.close();
+    }
+
+    SearchDao searchDao = spy(new SearchDao(entityManagerFactory));
+    SearchService reopened = new SearchService(searchDao, directory);
+    reopened.open();
+    try {
+      assertEquals(2, reopened.size());
+      assertEquals(List.of(storageTypeId), ids(reopened.search("heated", 10)));
+      verify(searchDao, never()).forEachDocument(any(), any());
+    } finally {
+      reopened.close();
+    }
+  }
+
+  @Test
+  void open_ShouldRebuildAStoredIndexWhichNoLongerMatchesTheDatabase(@TempDir Path directory) {
+
+    SearchService searchService = new SearchService(new SearchDao(entityManagerFactory), directory);
+    searchService.open();
+    searchService.close();
+
+    StorageType added = new StorageType();
+    added.setTypeName("Restored from a snapshot");
+    inTransaction(entityManagerFactory, entityManager -> entityManager.persist(added));
+    SearchService reopened = new SearchService(new SearchDao(entityManagerFactory), directory);
+    reopened.open();
+    try {
+      assertEquals(List.of(added.getId()), ids(reopened.search("snapshot", 10)));
+    } finally {
+      reopened.close();
+      inTransaction(entityManagerFactory,
+              entityManager -> entityManager.remove(entityManager.find(StorageType.class, added.getId())));
+    }
+  }
+
+  @Test
+  void index_ShouldApplyOnlyCommittedChanges(@TempDir Path directory) {
+
+    SearchService searchService = new SearchService(new SearchDao(entityManagerFactory), directory);
+    searchService.open();
+    EntityManager entityManager = entityManagerFactory.createEntityManager();
+    try {
+      entityManager.getTransaction().begin();
+      entityManager.find(StorageType.class, storageTypeId).setDescription("Frozen goods");
+      StorageType bonded = new StorageType();
+      bonded.setTypeName("Bonded");
+      entityManager.persist(bonded);
+      entityManager.flush();
+      assertEquals(List.of(), searchService.search("frozen bonded", 10));
+
+      entityManager.getTransaction().rollback();
+      assertEquals(List.of(), searchService.search("frozen bonded", 10));
+
+      entityManager.getTransaction().begin();
+      StorageType bulk = new StorageType();
+      bulk.setTypeName("Bulk");
+      entityManager.persist(bulk);
+      entityManager.flush();
+      assertEquals(List.of(), searchService.search("bulk", 10));
+
+      entityManager.getTransaction().commit();
+      assertEquals(List.of(bulk.getId()), ids(searchService.search("bulk", 10)));
+
+      entityManager.getTransaction().begin();
+      entityManager.remove(bulk);
+      entityManager.getTransaction().commit();
+      assertEquals(List.of(), searchService.search("bulk", 10));
+    } finally {
+      entityManager.close();
+      searchService.close();
+    }
+  }
+
+  private static List<Long> ids(List<SearchHit> hits) {
+    return hits.stream().map(SearchHit::id).toList();
+  }
+
+  private static List<SearchHit> withoutScores(List<SearchHit> hits) {
+    return hits.stream().map(hit -> new SearchHit(hit.type(), hit.id(), 0)).toList();
+  }
+
+  private static void seedDatabase() {
+
+    inTransaction(entityManagerFactory, entityManager -> {
+      Country country = new Country();
+      country.setName("Bulgaria");
+      entityManager.persist(country);
+
+      City city = new City();
+      city.setName("Sofia");
+      city.setCountry(country);
+      entityManager.persist(city);
+
+      StorageType storageType = new StorageType();
+      storageType.setTypeName("Cold storage");
+      storageType.setDescription("Refrigerated rooms");
+      entityManager.persist(storageType);
+
+      Owner owner = createUser(new Owner(), Role.OWNER, "owner@wms.com", "0888000001");
+      Tenant tenant = createUser(new Tenant(), Role.TENANT, "tenant@wms.com", "0888000002");
+      entityManager.persist(owner);
+      entityManager.persist(tenant);
+
+      Address address = new Address();
+      address.setStreet("Industrialna 5");
+      address.setZipCode("1000");
+      address.setCity(city);
+
+      Warehouse warehouse = new Warehouse();
+      warehouse.setOwner(owner);
+      warehouse.setAddress(address);
+      warehouse.setStorageType(storageType);
+      warehouse.setSize(250.0);
+      warehouse.setClimateCondition(ClimateCondition.REFRIGERATED);
+      entityManager.persist(warehouse);
+
+      Review review = new Review();
+      review.setAssessment(5);
+      review.setDescription("The refrigerated room kept the right temperature");
+      review.setSender(tenant);
+      review.setReceiver(owner);
+      entityManager.persist(review);
+
+      warehouseId = warehouse.getId();
+      storageTypeId = storageType.getId();
+      reviewId = review.getId();
+    });
+  }
+}
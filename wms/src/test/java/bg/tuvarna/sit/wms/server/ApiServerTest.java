@@ -0,0 +1,230 @@
+package bg.tuvarna.sit.wms.server;
+
+import bg.tuvarna.sit.wms.analytics.AnalyticsService;
+import bg.tuvarna.sit.wms.dao.AnalyticsDao;
+import bg.tuvarna.sit.wms.dao.LocationDao;
+import bg.tuvarna.sit.wms.dao.NotificationDao;
+import bg.tuvarna.sit.wms.dao.RentalAgreementDao;
+import bg.tuvarna.sit.wms.dao.SearchDao;
+import bg.tuvarna.sit.wms.dao.UserDao;
+import bg.tuvarna.sit.wms.dao.WarehouseDao;
+import bg.tuvarna.sit.wms.entities.Notification;
+import bg.tuvarna.sit.wms.entities.StorageType;
+import bg.tuvarna.sit.wms.entities.User;
+import bg.tuvarna.sit.wms.enums.NotificationStatus;
+import bg.tuvarna.sit.wms.search.LocationAutocompleteService;
+import bg.tuvarna.sit.wms.search.SearchService;
+import bg.tuvarna.sit.wms.service.PasswordHashingService;
+import bg.tuvarna.sit.wms.service.UserService;
+import bg.tuvarna.sit.wms.service.WarehouseService;
+import bg.tuvarna.sit.wms.session.SessionRegistry;
+import bg.tuvarna.sit.wms.util.JsonCodec;
+import bg.tuvarna.sit.wms.util.QueryCounter;
+import bg.tuvarna.sit.wms.validation.Rules;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ApiServerTest {
+
+  private static final String REGISTRATION = "{\"firstName\":\"John\",\"lastName\":\"Doe\","
+          + "\"email\":\"%s\",\"password\":\"Password123!\",\"phone\":\"%s\",\"role\":\"TENANT\"}";
+
+  private static EntityManagerFactory entityManagerFactory;
+  private static SearchService searchService;
+  private static ApiServer server;
+  private static HttpClient client;
+
+  @BeforeAll
+  static void setUp(@TempDir Path searchDirectory) throws IOException {
+
+    entityManagerFactory = QueryCounter.createEntityManagerFactory("apiServer");
+    searchService = new SearchService(new SearchDao(entityManagerFactory), searchDirectory);
+    searchService.open();
+    UserService userService = new UserService(new UserDao(entityManagerFactory), new PasswordHashingService());
+    server = new ApiServer(userService, new WarehouseService(new WarehouseDao(entityManagerFactory)),
+            new RentalAgreementDao(entityManagerFactory), new NotificationDao(entityManagerFactory),
+            new SessionRegistry(), searchService,
+            new LocationAutocompleteService(new LocationDao(entityManagerFactory)),
+            new AnalyticsService(new AnalyticsDao(entityManagerFactory), 1))
+            .start(new InetSocketAddress("127.0.0.1", 0));
+    client = HttpClient.newHttpClient();
+  }
+
+  @AfterAll
+  static void tearDown() {
+
+    server.close();
+    searchService.close();
+    entityManagerFactory.close();
+  }
+
+  @Test
+  void registerAndLogin_ShouldOpenASessionForTheAuthenticatedEndpoints() throws Exception {
+
+    assertEquals(201, post("/api/register", REGISTRATION.formatted("tenant@wms.com", "0888000001"), null)
+            .statusCode());
+    HttpResponse<String> login = post("/api/login",
+            "{\"email\":\"tenant@wms.com\",\"password\":\"Password123!\"}", null);
+    assertEquals(200, login.statusCode());
+    Map<String, Object> session = JsonCodec.parseObject(login.body());
+    String token = (String) session.get("token");
+    assertEquals("John", ((Map<?, ?>) session.get("user")).get("displayName"));
+
+    addNotification("tenant@wms.com");
+    HttpResponse<String> notifications = get("/api/notifications", token);
+    assertEquals(200, notifications.statusCode());
+    List<?> items = (List<?>) JsonCodec.parse(notifications.body());
+    assertEquals(1, items.size());
+    assertEquals("Welcome", ((Map<?, ?>) items.get(0)).get("message"));
+
+    assertEquals(List.of(), JsonCodec.parse(get("/api/rental-agreements", token).body()));
+    assertEquals(Map.of("items", List.of()), JsonCodec.parse(get("/api/warehouses?after=0&limit=10", token).body()));
+    assertEquals(Map.of("count", 0L), JsonCodec.parse(get("/api/warehouses/count", token).body()));
+    assertEquals(Map.of("items", List.of()), JsonCodec.parse(get("/api/locations/cities?q=sof", token).body()));
+    assertEquals(404, get("/api/locations/streets", token).statusCode());
+    assertEquals(403, get("/api/analytics/occupancy", token).statusCode());
+    assertEquals(403, post("/api/rebuild", "", token).statusCode());
+
+    Long storageTypeId = addStorageType("Pallet racking");
+    List<?> hits = (List<?>) JsonCodec.parseObject(get("/api/search?q=palet&type=storage_type", token).body())
+            .get("items");
+    assertEquals(1, hits.size());
+    assertEquals(storageTypeId, ((Map<?, ?>) hits.get(0)).get("id"));
+
+    assertEquals(200, post("/api/logout", "", token).statusCode());
+    assertEquals(401, get("/api/notifications", token).statusCode());
+  }
+
+  @Test
+  void requests_ShouldBeAnsweredWithErrorStatuses() throws Exception {
+
+    assertEquals(401, get("/api/warehouses", null).statusCode());
+    assertEquals(401, get("/api/warehouses", "unknown").statusCode());
+    assertEquals(401, post("/api/login", "{\"email\":\"nobody@wms.com\",\"password\":\"Password123!\"}", null)
+            .statusCode());
+    assertEquals(405, get("/api/login", null).statusCode());
+
+    HttpResponse<String> malformed = post("/api/login", "{\"email\":", null);
+    assertEquals(400, malformed.statusCode());
+    assertTrue(JsonCodec.parseObject(malformed.body()).containsKey("error"));
+
+    HttpResponse<String> invalid = post("/api/register", REGISTRATION.formatted("invalid", "0888000002"), null);
+    assertEquals(400, invalid.statusCode());
+    assertEquals(Rules.EMAIL.getMessage(), JsonCodec.parseObject(invalid.body()).get("error"));
+  }
+
+  @Test
+  void requests_WhenAllThreadsAreBusy_ShouldBeAnsweredWithServiceUnavailable() throws Exception {
+
+    assumeTrue(Runtime.version().feature() < 21, "Virtual threads are not limited");
+    CountDownLatch authenticating = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    UserService userService = mock(UserService.class);
+    when(userService.authenticate(anyString(), anyString())).thenAnswer(invocation -> {
+      authenticating.countDown();
+      release.await(10, TimeUnit.SECONDS);
+      return Optional.empty();
+    });
+    ApiServer busyServer = new ApiServer(userService, mock(WarehouseService.class), mock(RentalAgreementDao.class),
+            mock(NotificationDao.class), new SessionRegistry(), mock(SearchService.class),
+            mock(LocationAutocompleteService.class), mock(AnalyticsService.class));
+    busyServer.setMaxConcurrentRequests(1);
+    busyServer.setQueuedRequests(0);
+    busyServer.start(new InetSocketAddress("127.0.0.1", 0));
+    try {
+      HttpRequest login = HttpRequest.newBuilder(
+                      URI.create("http://127.0.0.1:" + busyServer.getPort() + "/api/login"))
+              .POST(HttpRequest.BodyPublishers.ofString("{\"email\":\"a@wms.com\",\"password\":\"secret\"}"))
+              .build();
+      CompletableFuture<HttpResponse<String>> running = client.sendAsync(login, HttpResponse.BodyHandlers.ofString());
+      assertTrue(authenticating.await(10, TimeUnit.SECONDS));
+
+      HttpResponse<String> rejected = client.send(login, HttpResponse.BodyHandlers.ofString());
+      assertEquals(503, rejected.statusCode());
+      assertEquals("1", rejected.headers().firstValue("Retry-After").orElseThrow());
+
+      release.countDown();
+      assertEquals(401, running.get(10, TimeUnit.SECONDS).statusCode());
+    } finally {
+      release.countDown();
+      busyServer.close();
+    }
+  }
+
+  private static void addNotification(String email) {
+
+    EntityManager entityManager = entityManagerFactory.createEntityManager();
+    try {
+      entityManager.getTransaction().begin();
+      User user = entityManager.createQuery("SELECT u FROM User u WHERE u.email = :email", User.class)
+              .setParameter("email", email)
+              .getSingleResult();
+      Notification notification = new Notification();
+      notification.setMessage("Welcome");
+      notification.setStatus(NotificationStatus.UNREAD);
+      notification.setUser(user);
+      entityManager.persist(notification);
+      entityManager.getTransaction().commit();
+    } finally {
+      entityManager.close();
+    }
+  }
+
+  private static Long addStorageType(String typeName) {
+
+    EntityManager entityManager = entityManagerFactory.createEntityManager();
+    try {
+      entityManager.getTransaction().begin();
+      StorageType storageType = new StorageType();
+      storageType.setTypeName(typeName);
+      entityManager.persist(storageType);
+      entityManager.getTransaction().commit();
+      return storageType.getId();
+    } finally {
+      entityManager.close();
+    }
+  }
+
+  private static HttpResponse<String> get(String path, String token) throws Exception {
+    return send(HttpRequest.newBuilder(uri(path)).GET(), token);
+  }
+
+  private static HttpResponse<String> post(String path, String body, String token) throws Exception {
+    return send(HttpRequest.newBuilder(uri(path)).POST(HttpRequest.BodyPublishers.ofString(body)), token);
+  }
+
+  private static HttpResponse<String> send(HttpRequest.Builder request, String token) throws Exception {
+
+    if (token != null) {
+      request.header("Authorization", "Bearer " + token);
+    }
+    return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+  }
+
+  private static URI uri(String path) {
+    return URI.create("http://127.0.0.1:" + server.getPort() + path);
+  }
+}
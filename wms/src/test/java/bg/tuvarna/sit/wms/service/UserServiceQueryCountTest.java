@@ -0,0 +1,84 @@
+package bg.tuvarna.sit.wms.service;
+
+import bg.tuvarna.sit.wms.dao.UserDao;
+import bg.tuvarna.sit.wms.dto.UserRegistrationDto;
+import bg.tuvarna.sit.wms.exceptions.RegistrationException;
+import bg.tuvarna.sit.wms.session.UserSession;
+import bg.tuvarna.sit.wms.util.QueryCounter;
+import javax.persistence.EntityManagerFactory;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class UserServiceQueryCountTest {
+
+  private static EntityManagerFactory entityManagerFactory;
+  private static UserService userService;
+  private static QueryCounter queryCounter;
+
+  @BeforeAll
+  static void setUp() throws RegistrationException {
+
+    entityManagerFactory = QueryCounter.createEntityManagerFactory("userServiceQueryCount");
+    userService = new UserService(new UserDao(entityManagerFactory), new PasswordHashingService());
+    queryCounter = new QueryCounter(entityManagerFactory);
+    userService.registerUser(createRegistrationDto("tenant@wms.com", "0888000001"));
+  }
+
+  @AfterAll
+  static void tearDown() {
+
+    UserSession.getInstance().logout();
+    entityManagerFactory.close();
+  }
+
+  @Test
+  void login_ShouldExecuteAtMostOneQuery() {
+
+    QueryCounter.Measured<Boolean> measured =
+            queryCounter.measure(() -> userService.login("tenant@wms.com", "Password123!"));
+
+    assertTrue(measured.getValue());
+    measured.getResult()
+            .assertStatementsAtMost(1)
+            .assertEntityLoadsAtMost(1)
+            .assertCollectionFetchesAtMost(0)
+            .assertAnyStatementContains("from users");
+  }
+
+  @Test
+  void login_WithUnknownEmail_ShouldExecuteAtMostOneQuery() {
+
+    QueryCounter.Measured<Boolean> measured =
+            queryCounter.measure(() -> userService.login("unknown@wms.com", "Password123!"));
+
+    assertFalse(measured.getValue());
+    measured.getResult().assertStatementsAtMost(1);
+  }
+
+  @Test
+  void registerUser_ShouldExecuteTwoLookupsAndOneInsertPerTable() {
+
+    queryCounter.measure(() -> {
+      try {
+        userService.registerUser(createRegistrationDto("second@wms.com", "0888000002"));
+      } catch (RegistrationException e) {
+        throw new IllegalStateException(e);
+      }
+    }).assertStatementsAtMost(4).assertCollectionFetchesAtMost(0);
+  }
+
+  private static UserRegistrationDto createRegistrationDto(String email, String phone) {
+
+    UserRegistrationDto registrationDto = new UserRegistrationDto();
+    registrationDto.setFirstName("John");
+    registrationDto.setLastName("Doe");
+    registrationDto.setEmail(email);
+    registrationDto.setPassword("Password123!");
+    registrationDto.setPhone(phone);
+    registrationDto.setRole("TENANT");
+    return registrationDto;
+  }
+}
@@ -1,23 +1,33 @@
 package bg.tuvarna.sit.wms.service;
 
+import bg.tuvarna.sit.wms.audit.AuditLog;
 import bg.tuvarna.sit.wms.dao.UserDao;
 import bg.tuvarna.sit.wms.dto.UserRegistrationDto;
+import bg.tuvarna.sit.wms.entities.Tenant;
 import bg.tuvarna.sit.wms.entities.User;
+import bg.tuvarna.sit.wms.enums.AuditEventType;
+import bg.tuvarna.sit.wms.enums.Role;
 import bg.tuvarna.sit.wms.exceptions.RegistrationException;
 import bg.tuvarna.sit.wms.exceptions.UserPersistenceException;
 import java.security.NoSuchAlgorithmException;
 import java.security.spec.InvalidKeySpecException;
+import java.util.Optional;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import org.mockito.MockitoAnnotations;
 
@@ -29,6 +39,9 @@ class UserServiceTest {
   @Mock
   private PasswordHashingService passwordHashingService;
 
+  @Mock
+  private AuditLog auditLog;
+
   @InjectMocks
   private UserService userService;
 
@@ -45,7 +58,7 @@ class UserServiceTest {
     registrationDto.setLastName("Doe");
     registrationDto.setEmail("john.doe@example.com");
     registrationDto.setPassword("Password123!");
-    registrationDto.setPhone("1234567890");
+    registrationDto.setPhone("0878888888");
     registrationDto.setRole("AGENT");
 
     userService.registerUser(registrationDto);
@@ -61,7 +74,7 @@ class UserServiceTest {
     registrationDto.setLastName("Doe");
     registrationDto.setEmail("john.doe@example.com");
     registrationDto.setPassword("Password123!");
-    registrationDto.setPhone("1234567890");
+    registrationDto.setPhone("0878888888");
     registrationDto.setRole("TENANT");
 
     userService.registerUser(registrationDto);
@@ -77,7 +90,7 @@ class UserServiceTest {
     registrationDto.setLastName("Doe");
     registrationDto.setEmail("john.doe@example.com");
     registrationDto.setPassword("Password123!");
-    registrationDto.setPhone("1234567890");
+    registrationDto.setPhone("0878888888");
     registrationDto.setRole("OWNER");
 
     userService.registerUser(registrationDto);
@@ -85,18 +98,44 @@ class UserServiceTest {
     verify(userDao, times(1)).saveUser(any(User.class));
   }
 
+  @Test
+  void registerUser_LowercaseRole_ShouldSaveUserWithTheRole() throws RegistrationException, UserPersistenceException {
+
+    UserRegistrationDto registrationDto = new UserRegistrationDto();
+    registrationDto.setFirstName("John");
+    registrationDto.setLastName("Doe");
+    registrationDto.setEmail("john.doe@example.com");
+    registrationDto.setPassword("Password123!");
+    registrationDto.setPhone("0878888888");
+    registrationDto.setRole("tenant");
+
+    userService.registerUser(registrationDto);
+
+    ArgumentCaptor<User> saved = ArgumentCaptor.forClass(User.class);
+    verify(userDao).saveUser(saved.capture());
+    assertEquals(Role.TENANT, saved.getValue().getRole());
+    assertTrue(saved.getValue() instanceof Tenant);
+  }
+
   @Test
   void registerUser_InvalidRole_ShouldThrowException() {
 
     UserRegistrationDto registrationDto = new UserRegistrationDto();
+    registrationDto.setFirstName("John");
+    registrationDto.setLastName("Doe");
+    registrationDto.setEmail("john.doe@example.com");
+    registrationDto.setPassword("Password123!");
     registrationDto.setRole("INVALID_ROLE");
     registrationDto.setPhone("0878888888");
 
-    assertThrows(RegistrationException.class, () -> userService.registerUser(registrationDto));
+    RegistrationException thrown = assertThrows(RegistrationException.class,
+            () -> userService.registerUser(registrationDto));
+
+    assertEquals("Invalid role provided for user registration.", thrown.getMessage());
   }
 
   @Test
-  void saveUser_WhenDaoThrowsException_ShouldThrowRegistrationException() throws UserPersistenceException {
+  void registerUser_InvalidPhone_ShouldThrowExceptionWithoutLookingUpTheUser() {
 
     UserRegistrationDto registrationDto = new UserRegistrationDto();
     registrationDto.setFirstName("John");
@@ -106,6 +145,24 @@ class UserServiceTest {
     registrationDto.setPhone("1234567890");
     registrationDto.setRole("AGENT");
 
+    RegistrationException thrown = assertThrows(RegistrationException.class,
+            () -> userService.registerUser(registrationDto));
+
+    assertEquals("Enter a valid phone number.", thrown.getMessage());
+    verifyNoInteractions(userDao);
+  }
+
+  @Test
+  void saveUser_WhenDaoThrowsException_ShouldThrowRegistrationException() throws UserPersistenceException {
+
+    UserRegistrationDto registrationDto = new UserRegistrationDto();
+    registrationDto.setFirstName("John");
+    registrationDto.setLastName("Doe");
+    registrationDto.setEmail("john.doe@example.com");
+    registrationDto.setPassword("Password123!");
+    registrationDto.setPhone("0878888888");
+    registrationDto.setRole("AGENT");
+
     doThrow(UserPersistenceException.class).when(userDao).saveUser(any(User.class));
 
     RegistrationException thrown = assertThrows(
@@ -126,7 +183,7 @@ class UserServiceTest {
     registrationDto.setLastName("Doe");
     registrationDto.setEmail("john.doe@example.com");
     registrationDto.setPassword("Password123!");
-    registrationDto.setPhone("1234567890");
+    registrationDto.setPhone("0878888888");
     registrationDto.setRole("AGENT");
 
     when(passwordHashingService.generateStrongPasswordHash(anyString()))
@@ -143,7 +200,7 @@ class UserServiceTest {
     registrationDto.setLastName("Doe");
     registrationDto.setEmail("john.doe@example.com");
     registrationDto.setPassword("Password123!");
-    registrationDto.setPhone("1234567890");
+    registrationDto.setPhone("0878888888");
     registrationDto.setRole("AGENT");
 
     when(passwordHashingService.generateStrongPasswordHash(anyString()))
@@ -151,4 +208,33 @@ class UserServiceTest {
 
     assertThrows(RegistrationException.class, () -> userService.registerUser(registrationDto));
   }
-}
\ No newline at end of file
+
+  @Test
+  void login_WithWrongPassword_ShouldAuditFailedLogin() throws NoSuchAlgorithmException, InvalidKeySpecException {
+
+    User user = new User();
+    user.setPassword("hash");
+    when(userDao.findByEmail("john.doe@example.com")).thenReturn(Optional.of(user));
+    when(passwordHashingService.validatePassword("wrong", "hash")).thenReturn(false);
+
+    assertFalse(userService.login("john.doe@example.com", "wrong"));
+
+    verify(auditLog).record(AuditEventType.LOGIN_FAILED, "john.doe@example.com");
+  }
+
+  @Test
+  void registerUser_ValidUser_ShouldAuditRegistration() throws RegistrationException {
+
+    UserRegistrationDto registrationDto = new UserRegistrationDto();
+    registrationDto.setFirstName("John");
+    registrationDto.setLastName("Doe");
+    registrationDto.setEmail("john.doe@example.com");
+    registrationDto.setPassword("Password123!");
+    registrationDto.setPhone("0878888888");
+    registrationDto.setRole("TENANT");
+
+    userService.registerUser(registrationDto);
+
+    verify(auditLog).record(eq(AuditEventType.REGISTRATION), any(), eq("john.doe@example.com"));
+  }
+}
@@ -0,0 +1,108 @@
+package bg.tuvarna.sit.wms.session;
+
+import bg.tuvarna.sit.wms.enums.Role;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+class SessionRegistryTest {
+
+  private static final SessionPrincipal JOHN = new SessionPrincipal(1L, Role.TENANT, "John", "john@wms.com");
+  private static final SessionPrincipal JANE = new SessionPrincipal(2L, Role.OWNER, "Jane", "jane@wms.com");
+
+  private final MutableClock clock = new MutableClock();
+  private final SessionRegistry registry = new SessionRegistry(Duration.ofMinutes(30), clock);
+
+  @Test
+  void open_ShouldKeepASessionPerTokenForEachUser() {
+
+    String john = registry.open(JOHN);
+    String johnElsewhere = registry.open(JOHN);
+    String jane = registry.open(JANE);
+
+    assertNotEquals(john, johnElsewhere);
+    assertEquals(Optional.of(JOHN), registry.find(john));
+    assertEquals(Optional.of(JOHN), registry.find(johnElsewhere));
+    assertEquals(Optional.of(JANE), registry.find(jane));
+    assertEquals(Optional.empty(), registry.find("unknown"));
+
+    assertEquals(Optional.of(JOHN), registry.close(john));
+    assertEquals(Optional.empty(), registry.find(john));
+    assertEquals(Optional.of(JOHN), registry.find(johnElsewhere));
+
+    assertEquals(1, registry.closeAll(JOHN.userId()));
+    assertEquals(1, registry.size());
+  }
+
+  @Test
+  void find_ShouldExpireSessionsWhichWereNotUsedForTheIdleTimeout() {
+
+    String used = registry.open(JOHN);
+    String unused = registry.open(JANE);
+
+    clock.advance(Duration.ofMinutes(20));
+    assertTrue(registry.find(used).isPresent());
+    clock.advance(Duration.ofMinutes(20));
+
+    assertTrue(registry.find(used).isPresent());
+    assertEquals(Optional.empty(), registry.find(unused));
+    clock.advance(Duration.ofMinutes(31));
+    assertEquals(1, registry.evictExpired());
+    assertEquals(0, registry.size());
+  }
+
+  @Test
+  void open_ShouldSupportManyConcurrentSessions() throws Exception {
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<Boolean>> results = new ArrayList<>();
+      for (int i = 0; i < 1000; i++) {
+        SessionPrincipal principal = new SessionPrincipal((long) i, Role.TENANT, "User" + i, "user" + i + "@wms.com");
+        results.add(executor.submit(() -> registry.find(registry.open(principal)).orElseThrow().equals(principal)));
+      }
+      for (Future<Boolean> result : results) {
+        assertTrue(result.get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+    assertEquals(1000, registry.size());
+  }
+
+  private static final class MutableClock extends Clock {
+
+    private Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+    void advance(Duration duration) {
+      now = now.plus(duration);
+    }
+
+    @Override
+    public ZoneOffset getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+  }
+}
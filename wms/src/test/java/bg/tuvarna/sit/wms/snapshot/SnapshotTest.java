@@ -0,0 +1,185 @@
+package bg.tuvarna.sit.wms.snapshot;
+
+import bg.tuvarna.sit.wms.dao.UserDao;
+import bg.tuvarna.sit.wms.dataset.DatasetGenerator;
+import bg.tuvarna.sit.wms.dataset.DatasetSpec;
+import bg.tuvarna.sit.wms.entities.Tenant;
+import bg.tuvarna.sit.wms.enums.Role;
+import bg.tuvarna.sit.wms.exceptions.SnapshotException;
+import bg.tuvarna.sit.wms.search.SearchIndex;
+import bg.tuvarna.sit.wms.search.SegmentStore;
+import static bg.tuvarna.sit.wms.util.PersistenceTestUtils.count;
+import static bg.tuvarna.sit.wms.util.PersistenceTestUtils.dump;
+import bg.tuvarna.sit.wms.util.QueryCounter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.persistence.EntityManagerFactory;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+class SnapshotTest {
+
+  private final List<EntityManagerFactory> entityManagerFactories = new ArrayList<>();
+
+  @AfterEach
+  void tearDown() {
+    entityManagerFactories.forEach(EntityManagerFactory::close);
+  }
+
+  @Test
+  void restore_ShouldReplaceTheRowsWithTheExportedDataset(@TempDir Path directory) throws Exception {
+
+    Path file = directory.resolve("wms.snapshot");
+    Path searchDirectory = storeSearchIndex(directory.resolve("search-index"));
+    createDatabase("snapshotSource");
+    EntityManagerFactory target = createDatabase("snapshotTarget");
+
+    try (Connection source = connect("snapshotSource");
+         Connection destination = connect("snapshotTarget")) {
+      new DatasetGenerator(new DatasetSpec()).generate(source);
+      execute(destination, "INSERT INTO countries (id, name) VALUES (5000, 'Stale')");
+      execute(destination, "CREATE INDEX idx_notifications_user_date ON notifications (user_id, date)");
+
+      SnapshotSummary exported = new SnapshotExporter().export(source, file);
+      SnapshotSummary restored = new SnapshotImporter(searchDirectory).restore(destination, file);
+
+      assertEquals(exported.getRowCounts(), restored.getRowCounts());
+      assertEquals(Files.size(file), exported.getBytes());
+      for (String table : SnapshotFormat.TABLES) {
+        assertEquals(dump(source, table), dump(destination, table), table);
+        assertEquals(count(source, "SELECT COUNT(*) FROM " + table), restored.getRowCount(table), table);
+      }
+      assertTrue(restored.getRowCount("notifications") > 0);
+      assertTrue(hasIndex(destination, "NOTIFICATIONS", "IDX_NOTIFICATIONS_USER_DATE"));
+      assertFalse(new SegmentStore(searchDirectory).load(new SearchIndex()));
+    }
+
+    Tenant tenant = new Tenant();
+    tenant.setFirstName("New");
+    tenant.setLastName("Tenant");
+    tenant.setEmail("new.tenant@wms.com");
+    tenant.setPhone("0899999999");
+    tenant.setPassword("password");
+    tenant.setRole(Role.TENANT);
+    new UserDao(target).saveUser(tenant);
+    try (Connection destination = connect("snapshotTarget")) {
+      assertEquals(count(destination, "SELECT MAX(id) FROM users"), tenant.getId());
+    }
+  }
+
+  @Test
+  void restore_ShouldRejectADamagedSnapshotAndKeepTheRows(@TempDir Path directory) throws Exception {
+
+    Path file = directory.resolve("wms.snapshot");
+    Path truncated = directory.resolve("truncated.snapshot");
+    Path other = directory.resolve("other.snapshot");
+    Path searchDirectory = storeSearchIndex(directory.resolve("search-index"));
+    createDatabase("snapshotDamagedSource");
+    createDatabase("snapshotDamagedTarget");
+
+    try (Connection source = connect("snapshotDamagedSource");
+         Connection destination = connect("snapshotDamagedTarget")) {
+      new DatasetGenerator(new DatasetSpec()).generate(source);
+      execute(destination, "INSERT INTO countries (id, name) VALUES (1, 'Kept')");
+      new SnapshotExporter().export(source, file);
+      byte[] bytes = Files.readAllBytes(file);
+      Files.write(truncated, Arrays.copyOf(bytes, bytes.length / 2));
+      Files.write(other, "country,city\n".getBytes(StandardCharsets.US_ASCII));
+
+      SnapshotImporter importer = new SnapshotImporter(searchDirectory);
+      assertThrows(SnapshotException.class, () -> importer.restore(destination, truncated));
+      assertThrows(SnapshotException.class, () -> importer.restore(destination, other));
+
+      assertEquals(List.of("1|Kept|"), dump(destination, "countries"));
+      assertEquals(0, count(destination, "SELECT COUNT(*) FROM warehouses"));
+      assertTrue(new SegmentStore(searchDirectory).load(new SearchIndex()));
+    }
+  }
+
+  @Test
+  void restore_WhenDroppingTheIndexesFails_ShouldRecreateTheDroppedOnes(@TempDir Path directory) throws Exception {
+
+    Path file = directory.resolve("wms.snapshot");
+    createDatabase("snapshotDropSource");
+    createDatabase("snapshotDropTarget");
+
+    try (Connection source = connect("snapshotDropSource");
+         Connection destination = connect("snapshotDropTarget")) {
+      new SnapshotExporter().export(source, file);
+      execute(destination, "CREATE INDEX idx_countries_name ON countries (name)");
+      destination.setAutoCommit(false);
+
+      DatabaseMetaData metaData = mock(DatabaseMetaData.class, delegatesTo(destination.getMetaData()));
+      doThrow(new SQLException("Connection lost")).when(metaData)
+              .getIndexInfo(any(), any(), eq("CITIES"), anyBoolean(), anyBoolean());
+      Connection connection = mock(Connection.class, delegatesTo(destination));
+      doReturn(metaData).when(connection).getMetaData();
+
+      assertThrows(SnapshotException.class, () -> new SnapshotImporter().restore(connection, file));
+
+      assertTrue(hasIndex(destination, "COUNTRIES", "IDX_COUNTRIES_NAME"));
+      assertFalse(destination.getAutoCommit());
+    }
+  }
+
+  private static Path storeSearchIndex(Path searchDirectory) throws IOException {
+
+    try (SegmentStore store = new SegmentStore(searchDirectory)) {
+      store.writeSegment(new SearchIndex());
+    }
+    return searchDirectory;
+  }
+
+  private EntityManagerFactory createDatabase(String database) {
+
+    EntityManagerFactory entityManagerFactory = QueryCounter.createEntityManagerFactory(database);
+    entityManagerFactories.add(entityManagerFactory);
+    return entityManagerFactory;
+  }
+
+  private static Connection connect(String database) throws SQLException {
+    return DriverManager.getConnection("jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1", "sa", "");
+  }
+
+  private static void execute(Connection connection, String sql) throws SQLException {
+
+    try (Statement statement = connection.createStatement()) {
+      statement.execute(sql);
+    }
+  }
+
+  private static boolean hasIndex(Connection connection, String table, String index) throws SQLException {
+
+    try (ResultSet resultSet = connection.getMetaData().getIndexInfo(null, null, table, false, false)) {
+      while (resultSet.next()) {
+        if (index.equals(resultSet.getString("INDEX_NAME"))) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,71 @@
+package bg.tuvarna.sit.wms.util;
+
+import bg.tuvarna.sit.wms.dto.NotificationDto;
+import bg.tuvarna.sit.wms.dto.UserRegistrationDto;
+import bg.tuvarna.sit.wms.enums.NotificationStatus;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+
+class JsonCodecTest {
+
+  @Test
+  void write_ShouldEscapeStringsAndWriteTheDtoFields() {
+
+    Map<String, Object> value = new LinkedHashMap<>();
+    value.put("text", "say \"hi\"\\\n\u0001");
+    value.put("items", List.of(new NotificationDto(7L, "Paid", LocalDateTime.of(2024, 3, 1, 10, 30),
+            NotificationStatus.UNREAD)));
+    value.put("price", new BigDecimal("1E+3"));
+    value.put("missing", null);
+
+    assertEquals("{\"text\":\"say \\\"hi\\\"\\\\\\n\\u0001\","
+            + "\"items\":[{\"id\":7,\"message\":\"Paid\",\"date\":\"2024-03-01T10:30\",\"status\":\"UNREAD\"}],"
+            + "\"price\":1000,\"missing\":null}", JsonCodec.write(value));
+  }
+
+  @Test
+  void parse_ShouldReadWhatWasWritten() {
+
+    Map<String, Object> value = new LinkedHashMap<>();
+    value.put("name", "J\u00f6hn \"Doe\"\t\u2028");
+    value.put("count", 42L);
+    value.put("ratio", new BigDecimal("-0.5"));
+    value.put("flags", Arrays.asList(true, false, null));
+    value.put("nested", Map.of("empty", List.of()));
+
+    assertEquals(value, JsonCodec.parse(JsonCodec.write(value)));
+    assertEquals(new BigDecimal("1.5E+10"), JsonCodec.parse(" 1.5e10 "));
+    assertEquals("\u00e9/", JsonCodec.parse("\"\\u00E9\\/\""));
+  }
+
+  @Test
+  void parse_ShouldRejectMalformedInput() {
+
+    for (String json : List.of("", "{", "{\"a\" 1}", "[1,]", "\"open", "01x", "tru", "{} {}", "\"a\u0001\"",
+            "-", "1.", "\"\\x\"", "[".repeat(100) + "]".repeat(100))) {
+      assertThrows(IllegalArgumentException.class, () -> JsonCodec.parse(json), json);
+    }
+  }
+
+  @Test
+  void readRegistration_ShouldMapTheFormFields() {
+
+    UserRegistrationDto registrationDto = JsonCodec.readRegistration(
+            "{\"firstName\":\"John\",\"email\":\"john@example.com\",\"role\":\"TENANT\",\"extra\":1}");
+
+    assertEquals("John", registrationDto.getFirstName());
+    assertEquals("john@example.com", registrationDto.getEmail());
+    assertEquals("TENANT", registrationDto.getRole());
+    assertNull(registrationDto.getPhone());
+    assertThrows(IllegalArgumentException.class, () -> JsonCodec.readRegistration("{\"email\":1}"));
+    assertThrows(IllegalArgumentException.class, () -> JsonCodec.readRegistration("[]"));
+  }
+}
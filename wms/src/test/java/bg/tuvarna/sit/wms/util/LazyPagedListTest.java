@@ -0,0 +1,149 @@
+package bg.tuvarna.sit.wms.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import javafx.collections.ListChangeListener;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+class LazyPagedListTest {
+
+  private static final int SIZE = 1000;
+  private static final int PAGE_SIZE = 10;
+
+  private final List<String> loads = new ArrayList<>();
+  private final List<Runnable> pendingLoads = new ArrayList<>();
+
+  @Test
+  void get_ShouldReturnNullUntilThePageIsLoadedAndThenTheItem() {
+
+    LazyPagedList<Integer> list = new LazyPagedList<>(SIZE, PAGE_SIZE, 3, this::load, pendingLoads::add, Runnable::run);
+    List<String> changes = new ArrayList<>();
+    list.addListener((ListChangeListener<Integer>) change -> {
+      while (change.next()) {
+        changes.add(change.wasReplaced() + ":" + change.getFrom() + "-" + change.getTo());
+      }
+    });
+
+    assertEquals(SIZE, list.size());
+    assertNull(list.get(25));
+    assertNull(list.get(21));
+    assertEquals(1, pendingLoads.size());
+
+    runPendingLoads();
+
+    assertEquals(25, list.get(25));
+    assertEquals(List.of("20+10"), loads);
+    assertEquals(List.of("true:20-30"), changes);
+  }
+
+  @Test
+  void get_ShouldPassTheLastItemOfTheLoadedPreviousPageAndPrefetchTheNextPage() {
+
+    LazyPagedList<Integer> list = new LazyPagedList<>(SIZE, PAGE_SIZE, 3, this::load, Runnable::run, Runnable::run);
+
+    list.get(0);
+    assertEquals(List.of("0+10"), loads);
+
+    list.get(8);
+    assertEquals(List.of("0+10", "after 9"), loads);
+    assertEquals(10, list.get(10));
+  }
+
+  @Test
+  void get_ShouldKeepOnlyTheMostRecentlyUsedPages() {
+
+    LazyPagedList<Integer> list = new LazyPagedList<>(SIZE, PAGE_SIZE, 3, this::load, Runnable::run, Runnable::run);
+
+    for (int page = 0; page < 5; page++) {
+      list.get(page * PAGE_SIZE);
+    }
+
+    assertEquals(3, list.getLoadedPageCount());
+    loads.clear();
+    assertNull(list.get(0));
+    assertEquals(List.of("0+10"), loads);
+  }
+
+  @Test
+  void get_ShouldDropRequestsFarFromTheLastRequestedPage() {
+
+    LazyPagedList<Integer> list = new LazyPagedList<>(SIZE, PAGE_SIZE, 4, this::load, pendingLoads::add, Runnable::run);
+
+    list.get(0);
+    list.get(500);
+    list.get(990);
+    runPendingLoads();
+
+    assertEquals(List.of("990+10"), loads);
+    assertNull(list.get(0));
+    runPendingLoads();
+    assertEquals(0, list.get(0));
+  }
+
+  @Test
+  void get_ShouldLoadAShorterLastPageAndRejectIndexesOutOfRange() {
+
+    LazyPagedList<Integer> list = new LazyPagedList<>(25, PAGE_SIZE, 3, this::load, Runnable::run, Runnable::run);
+
+    list.get(24);
+    assertEquals(List.of("20+5"), loads);
+    assertEquals(24, list.get(24));
+    assertThrows(IndexOutOfBoundsException.class, () -> list.get(25));
+  }
+
+  @Test
+  void get_ShouldRequestThePageAgainAfterAFailedLoad() {
+
+    List<Integer> attempts = new ArrayList<>();
+    LazyPagedList<Integer> list = new LazyPagedList<>(SIZE, PAGE_SIZE, 3, (offset, limit, previous) -> {
+      attempts.add(offset);
+      if (attempts.size() == 1) {
+        throw new IllegalStateException("Database unavailable");
+      }
+      return range(offset, limit);
+    }, Runnable::run, Runnable::run);
+
+    assertNull(list.get(0));
+    assertNull(list.get(0));
+    assertEquals(0, list.get(0));
+    assertEquals(List.of(0, 0), attempts);
+  }
+
+  @Test
+  void close_ShouldDropPagesInFlight() {
+
+    Executor loadExecutor = pendingLoads::add;
+    LazyPagedList<Integer> list = new LazyPagedList<>(SIZE, PAGE_SIZE, 3, this::load, loadExecutor, Runnable::run);
+
+    list.get(0);
+    list.close();
+    runPendingLoads();
+
+    assertTrue(loads.isEmpty());
+    assertEquals(0, list.getLoadedPageCount());
+  }
+
+  private List<Integer> load(int offset, int limit, Integer previous) {
+
+    loads.add(previous == null ? offset + "+" + limit : "after " + previous);
+    return range(previous == null ? offset : previous + 1, limit);
+  }
+
+  private static List<Integer> range(int from, int count) {
+    return IntStream.range(from, from + count).boxed().collect(Collectors.toList());
+  }
+
+  private void runPendingLoads() {
+
+    List<Runnable> tasks = new ArrayList<>(pendingLoads);
+    pendingLoads.clear();
+    tasks.forEach(Runnable::run);
+  }
+}
@@ -0,0 +1,126 @@
+package bg.tuvarna.sit.wms.util;
+
+import bg.tuvarna.sit.wms.entities.User;
+import bg.tuvarna.sit.wms.enums.Role;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+
+/**
+ * Helpers for the tests filling and inspecting a database, through JPA or plain JDBC.
+ */
+public final class PersistenceTestUtils {
+
+  private PersistenceTestUtils() {
+  }
+
+  /**
+   * Runs the work in a transaction of a new entity manager and commits it. If the work fails, the transaction is
+   * rolled back, so a failed set-up leaves no partial data behind for the other tests.
+   *
+   * @param entityManagerFactory The factory to create the entity manager with.
+   * @param work                 The work to do in the transaction.
+   */
+  public static void inTransaction(EntityManagerFactory entityManagerFactory, Consumer<EntityManager> work) {
+
+    EntityManager entityManager = entityManagerFactory.createEntityManager();
+    EntityTransaction transaction = entityManager.getTransaction();
+    try {
+      transaction.begin();
+      work.accept(entityManager);
+      transaction.commit();
+    } finally {
+      if (transaction.isActive()) {
+        transaction.rollback();
+      }
+      entityManager.close();
+    }
+  }
+
+  /**
+   * Fills in a user named "First Last" with the password {@code password}.
+   *
+   * @param user  The new user of the subclass to create.
+   * @param role  The role of the user.
+   * @param email The email, unique among the users.
+   * @param phone The phone number, unique among the users.
+   * @return The given user.
+   */
+  public static <T extends User> T createUser(T user, Role role, String email, String phone) {
+    return createUser(user, role, "First", "Last", email, phone);
+  }
+
+  /**
+   * Fills in a user with the password {@code password}.
+   *
+   * @param user      The new user of the subclass to create.
+   * @param role      The role of the user.
+   * @param firstName The first name.
+   * @param lastName  The last name.
+   * @param email     The email, unique among the users.
+   * @param phone     The phone number, unique among the users.
+   * @return The given user.
+   */
+  public static <T extends User> T createUser(T user, Role role, String firstName, String lastName, String email,
+                                              String phone) {
+
+    user.setFirstName(firstName);
+    user.setLastName(lastName);
+    user.setRole(role);
+    user.setEmail(email);
+    user.setPhone(phone);
+    user.setPassword("password");
+    return user;
+  }
+
+  /**
+   * Runs a query returning a single number, e.g. a {@code COUNT(*)}.
+   *
+   * @param connection The connection to query.
+   * @param sql        The query.
+   * @return The number in the first column of the first row.
+   * @throws SQLException If the query fails.
+   */
+  public static long count(Connection connection, String sql) throws SQLException {
+
+    try (Statement statement = connection.createStatement();
+         ResultSet resultSet = statement.executeQuery(sql)) {
+      resultSet.next();
+      return resultSet.getLong(1);
+    }
+  }
+
+  /**
+   * Reads all rows of a table ordered by id, each rendered as its column values separated by {@code |}, so two
+   * tables can be compared with a single assertion.
+   *
+   * @param connection The connection to query.
+   * @param table      The table, which must have an {@code id} column.
+   * @return The rendered rows.
+   * @throws SQLException If the query fails.
+   */
+  public static List<String> dump(Connection connection, String table) throws SQLException {
+
+    List<String> rows = new ArrayList<>();
+    try (Statement statement = connection.createStatement();
+         ResultSet resultSet = statement.executeQuery("SELECT * FROM " + table + " ORDER BY id")) {
+      ResultSetMetaData metaData = resultSet.getMetaData();
+      while (resultSet.next()) {
+        StringBuilder row = new StringBuilder();
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+          row.append(resultSet.getString(i)).append('|');
+        }
+        rows.add(row.toString());
+      }
+    }
+    return rows;
+  }
+}
@@ -0,0 +1,192 @@
+package bg.tuvarna.sit.wms.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+import lombok.Getter;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.stat.Statistics;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test utility that counts the SQL statements, entity loads and collection fetches
+ * executed by a single call against the {@code wms-test} persistence unit.
+ * <p>
+ * It reads the Hibernate statistics of the session factory, so it only sees work done through
+ * the entity manager factory it was created for. Calls are expected to run sequentially.
+ * For factories created by {@link #createEntityManagerFactory(String)} the SQL text of the
+ * executed statements is recorded as well, so tests can assert on it and failures print it.
+ * </p>
+ * <pre>{@code
+ * QueryCounter.Result result = queryCounter.measure(() -> userService.login(email, password));
+ * result.assertStatementsAtMost(1);
+ * }</pre>
+ */
+public class QueryCounter {
+
+  private static final String STATEMENT_INSPECTOR = "hibernate.session_factory.statement_inspector";
+
+  private final Statistics statistics;
+  private final StatementRecorder recorder;
+
+  public QueryCounter(EntityManagerFactory entityManagerFactory) {
+
+    SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+    this.statistics = sessionFactory.getStatistics();
+    this.statistics.setStatisticsEnabled(true);
+    StatementInspector inspector = sessionFactory.unwrap(SessionFactoryImplementor.class)
+            .getSessionFactoryOptions().getStatementInspector();
+    this.recorder = inspector instanceof StatementRecorder ? (StatementRecorder) inspector : null;
+  }
+
+  /**
+   * Creates an entity manager factory for the {@code wms-test} persistence unit backed by
+   * its own in-memory database, so the counts are not affected by other tests.
+   *
+   * @param databaseName The name of the in-memory H2 database.
+   * @return A new entity manager factory with statistics enabled and the executed SQL recorded.
+   */
+  public static EntityManagerFactory createEntityManagerFactory(String databaseName) {
+
+    return Persistence.createEntityManagerFactory("wms-test",
+            Map.of("javax.persistence.jdbc.url", "jdbc:h2:mem:" + databaseName + ";DB_CLOSE_DELAY=-1",
+                    "hibernate.generate_statistics", "true",
+                    STATEMENT_INSPECTOR, new StatementRecorder()));
+  }
+
+  /**
+   * Executes the given action and records the work it caused.
+   *
+   * @param action The action to measure.
+   * @return The recorded counts.
+   */
+  public Result measure(Runnable action) {
+
+    return measure(() -> {
+      action.run();
+      return null;
+    }).getResult();
+  }
+
+  /**
+   * Executes the given call and records the work it caused together with its return value.
+   *
+   * @param call The call to measure.
+   * @param <T>  The type of the value returned by the call.
+   * @return The recorded counts together with the value returned by the call.
+   */
+  public <T> Measured<T> measure(Callable<T> call) {
+
+    statistics.clear();
+    if (recorder != null) {
+      recorder.clear();
+    }
+    T value;
+    try {
+      value = call.call();
+    } catch (Exception e) {
+      throw new IllegalStateException("Measured call failed", e);
+    }
+    Result result = new Result(statistics.getPrepareStatementCount(), statistics.getEntityLoadCount(),
+            statistics.getCollectionFetchCount(), recorder == null ? List.of() : recorder.statements());
+    return new Measured<>(value, result);
+  }
+
+  /**
+   * Counts and SQL statements recorded for a single measured call.
+   */
+  @Getter
+  public static class Result {
+
+    private final long statements;
+    private final long entityLoads;
+    private final long collectionFetches;
+    private final List<String> sql;
+
+    Result(long statements, long entityLoads, long collectionFetches, List<String> sql) {
+      this.statements = statements;
+      this.entityLoads = entityLoads;
+      this.collectionFetches = collectionFetches;
+      this.sql = sql;
+    }
+
+    public Result assertStatementsAtMost(long max) {
+
+      assertTrue(statements <= max, () -> "Expected at most " + max + " SQL statements but " + this);
+      return this;
+    }
+
+    public Result assertEntityLoadsAtMost(long max) {
+
+      assertTrue(entityLoads <= max, () -> "Expected at most " + max + " entity loads but " + this);
+      return this;
+    }
+
+    public Result assertCollectionFetchesAtMost(long max) {
+
+      assertTrue(collectionFetches <= max, () -> "Expected at most " + max + " collection fetches but " + this);
+      return this;
+    }
+
+    public Result assertAnyStatementContains(String fragment) {
+
+      assertTrue(sql.stream().anyMatch(statement -> statement.toLowerCase().contains(fragment.toLowerCase())),
+              () -> "Expected a SQL statement containing '" + fragment + "' but " + this);
+      return this;
+    }
+
+    @Override
+    public String toString() {
+
+      StringBuilder description = new StringBuilder("executed " + statements + " statements, " + entityLoads
+              + " entity loads and " + collectionFetches + " collection fetches");
+      for (String statement : sql) {
+        description.append(System.lineSeparator()).append("  ").append(statement);
+      }
+      return description.toString();
+    }
+  }
+
+  /**
+   * A recorded result together with the value returned by the measured call.
+   */
+  @Getter
+  public static class Measured<T> {
+
+    private final T value;
+    private final Result result;
+
+    Measured(T value, Result result) {
+      this.value = value;
+      this.result = result;
+    }
+  }
+
+  /**
+   * Records the SQL text of every statement Hibernate prepares.
+   */
+  static class StatementRecorder implements StatementInspector {
+
+    private final List<String> statements = new ArrayList<>();
+
+    @Override
+    public synchronized String inspect(String sql) {
+
+      statements.add(sql);
+      return sql;
+    }
+
+    synchronized void clear() {
+      statements.clear();
+    }
+
+    synchronized List<String> statements() {
+      return List.copyOf(statements);
+    }
+  }
+}
@@ -0,0 +1,31 @@
+package bg.tuvarna.sit.wms.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import static org.junit.jupiter.api.Assertions.fail;
+import org.testfx.util.WaitForAsyncUtils;
+
+/**
+ * Helpers for the TestFX tests of views running their work in a {@link UiTask}.
+ */
+public final class UiTestUtils {
+
+  private static final long TASK_TIMEOUT_SECONDS = 10;
+
+  private UiTestUtils() {
+  }
+
+  /**
+   * Waits until the background tasks started by the last user action have finished
+   * and their results have been delivered on the JavaFX Application Thread.
+   */
+  public static void waitForUiTasks() {
+
+    try {
+      WaitForAsyncUtils.waitFor(TASK_TIMEOUT_SECONDS, TimeUnit.SECONDS, UiTask::isIdle);
+    } catch (TimeoutException e) {
+      fail("Background tasks did not finish within " + TASK_TIMEOUT_SECONDS + " seconds");
+    }
+    WaitForAsyncUtils.waitForFxEvents();
+  }
+}
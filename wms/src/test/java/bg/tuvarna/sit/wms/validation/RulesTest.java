@@ -0,0 +1,72 @@
+package bg.tuvarna.sit.wms.validation;
+
+import bg.tuvarna.sit.wms.dto.UserRegistrationDto;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+class RulesTest {
+
+  private static final List<String> SAMPLES = List.of("", " ", "John", " John Doe ", "John3", "J\u00f6hn", "a\tb",
+          "john@example.com", " john@example.com ", "john@example", "@example.com", "john@.com", "john@example.",
+          "jo hn@example.com", "a@b.c", "a@@b.c", "@a@b.c", "a.b@c", "a@b.c.", "a@b.c..", "a@.b.c", "a@b@c.d",
+          "a@b..", "a.@b.c", "Password123!", "password123!", "PASSWORD", "Pass!", "Pass word!", "Pass\nword!",
+          "P\u00e4ssword!", "0878888888", "+359878888888", " 0878888888 ", "087888888", "08788888888", "1234567890",
+          "+35987888888", "+3590878888888", "087888888a", "+359", "0", "+");
+
+  @Test
+  void rules_ShouldAcceptTheSameValuesAsTheFormerRegularExpressions() {
+
+    assertSameAs(Rules.FIRST_NAME, "^[A-Za-z\\s]+$");
+    assertSameAs(Rules.LAST_NAME, "^[A-Za-z\\s]+$");
+    assertSameAs(Rules.EMAIL, "\\S+@\\S+\\.\\S+");
+    assertSameAs(Rules.PASSWORD, "^(?=.*[A-Z])(?=.*[!@#$%^&*]).{8,}$");
+    assertSameAs(Rules.PHONE, "^(\\+359|0)\\d{9}$");
+  }
+
+  @Test
+  void matching_ShouldCheckTheTrimmedValueAndFailMissingValues() {
+
+    ValidationRule zipCode = ValidationRule.matching("zipCode", "Enter a valid zip code.", "\\d{4}");
+
+    assertTrue(zipCode.test(" 9000 "));
+    assertFalse(zipCode.test("900"));
+    assertFalse(zipCode.test("   "));
+    assertFalse(zipCode.test(null));
+  }
+
+  @Test
+  void userRegistration_ShouldReportTheViolationsInFormOrder() {
+
+    UserRegistrationDto registrationDto = new UserRegistrationDto();
+    registrationDto.setFirstName("John");
+    registrationDto.setLastName("Doe");
+    registrationDto.setEmail("john.doe@example");
+    registrationDto.setPassword("Password123!");
+    registrationDto.setPhone("1234567890");
+
+    List<Violation> violations = Validator.USER_REGISTRATION.validate(registrationDto);
+
+    assertEquals(2, violations.size());
+    assertEquals("email", violations.get(0).getField());
+    assertEquals("phone", violations.get(1).getField());
+    assertEquals(Rules.EMAIL.getMessage(), Validator.USER_REGISTRATION.firstViolation(registrationDto)
+            .orElseThrow().getMessage());
+    assertFalse(Validator.USER_REGISTRATION.isValid(registrationDto));
+
+    registrationDto.setEmail("john.doe@example.com");
+    registrationDto.setPhone("+359878888888");
+    assertTrue(Validator.USER_REGISTRATION.isValid(registrationDto));
+    assertTrue(Validator.USER_REGISTRATION.validate(registrationDto).isEmpty());
+  }
+
+  private static void assertSameAs(ValidationRule rule, String regex) {
+
+    for (String sample : SAMPLES) {
+      boolean expected = !sample.trim().isEmpty() && sample.trim().matches(regex);
+      assertEquals(expected, rule.test(sample), rule.getName() + " of '" + sample + "'");
+    }
+  }
+}
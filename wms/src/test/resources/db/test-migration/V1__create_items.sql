@@ -0,0 +1,8 @@
+-- Test migration creating a table.
+create table items (
+    id bigint not null,
+    name varchar(100) not null,
+    primary key (id)
+);
+
+insert into items (id, name) values (1, 'first');
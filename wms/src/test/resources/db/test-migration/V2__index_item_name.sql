@@ -0,0 +1 @@
+create index idx_items_name on items (name);
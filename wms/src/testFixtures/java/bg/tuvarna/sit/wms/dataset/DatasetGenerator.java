@@ -0,0 +1,543 @@
+package bg.tuvarna.sit.wms.dataset;
+
+import bg.tuvarna.sit.wms.enums.ClimateCondition;
+import bg.tuvarna.sit.wms.enums.NotificationStatus;
+import bg.tuvarna.sit.wms.enums.Role;
+import bg.tuvarna.sit.wms.enums.WarehouseStatus;
+import bg.tuvarna.sit.wms.migration.MigrationRunner;
+import bg.tuvarna.sit.wms.service.PasswordHashes;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Fills a database holding the WMS schema with a synthetic, production sized dataset.
+ * <p>
+ * Every value is drawn from a single {@link Random} seeded from the {@link DatasetSpec}, so equal
+ * specifications always produce identical rows. The distributions are skewed the way real data is:
+ * a few large cities hold most of the warehouses, a few owners own most of them, most warehouses are
+ * ambient pallet storage, sizes are log-normal, repeat tenants are common and reviews lean positive.
+ * Every warehouse gets a history of rental agreements going back from the reference date; consecutive
+ * agreements mostly follow each other with a gap, but some overlap by a few days the way renewals do.
+ * A warehouse whose latest agreement is still running is {@code RENTED}, some of the others are
+ * {@code PENDING_RENTAL} with open rental requests.
+ * </p>
+ * <p>
+ * Rows are written with batched JDBC inserts in a single transaction, bypassing Hibernate, and ids are
+ * assigned by the generator after the highest existing id of each table, so it can add to a database
+ * that already holds data. Both the {@code JOINED} and the single-table user layouts are supported.
+ * On MySQL add {@code rewriteBatchedStatements=true} to the URL for multi-row inserts.
+ * </p>
+ */
+public class DatasetGenerator {
+
+  private static final Logger LOGGER = LogManager.getLogger(DatasetGenerator.class);
+
+  private static final String[] COUNTRY_NAMES = {"Bulgaria", "Romania", "Greece", "Serbia", "North Macedonia",
+          "Turkey", "Germany", "Austria", "Poland", "Italy"};
+
+  private static final String[] BULGARIAN_CITIES = {"Sofia", "Plovdiv", "Varna", "Burgas", "Ruse", "Stara Zagora",
+          "Pleven", "Sliven", "Dobrich", "Shumen", "Pernik", "Haskovo", "Yambol", "Pazardzhik", "Blagoevgrad",
+          "Veliko Tarnovo", "Vratsa", "Gabrovo", "Asenovgrad", "Vidin", "Kazanlak", "Kyustendil", "Kardzhali",
+          "Montana", "Dimitrovgrad", "Targovishte", "Lovech", "Silistra", "Dupnitsa", "Razgrad"};
+
+  private static final String[] STREETS = {"Industrialna", "Tsar Simeon", "Vasil Levski", "Hristo Botev",
+          "Slivnitsa", "Tsarigradsko shose", "Bulgaria", "Knyaz Boris I", "Maritsa", "Rozova dolina", "Dunav",
+          "Osvobozhdenie", "Logistichna", "Transportna", "Skladova"};
+
+  private static final String[][] STORAGE_TYPES = {
+          {"Pallet racking", "Selective pallet racks for palletised goods handled by forklifts."},
+          {"Shelving", "Hand loaded shelving for small parts and cartons."},
+          {"Bulk floor", "Open floor space for stacked goods and bulk materials."},
+          {"Cold room", "Insulated chilled rooms for fresh food and pharmaceuticals."},
+          {"Freezer", "Deep freeze storage below minus eighteen degrees."},
+          {"Hazardous materials", "Segregated and ventilated storage for dangerous goods."},
+          {"Container yard", "Outdoor yard for shipping containers and trailers."},
+          {"Mezzanine", "Raised platform storage for light goods."}};
+  private static final double[] STORAGE_TYPE_WEIGHTS = {40, 20, 15, 8, 5, 3, 5, 4};
+  private static final int COLD_ROOM = 3;
+  private static final int FREEZER = 4;
+
+  private static final ClimateCondition[] CLIMATES = ClimateCondition.values();
+  private static final double[] CLIMATE_WEIGHTS = new double[CLIMATES.length];
+  private static final double[] MONTHLY_RATE = new double[CLIMATES.length];
+
+  static {
+    setClimate(ClimateCondition.AMBIENT, 55, 4.0);
+    setClimate(ClimateCondition.TEMPERATURE_CONTROLLED, 20, 7.0);
+    setClimate(ClimateCondition.HUMIDITY_CONTROLLED, 12, 6.0);
+    setClimate(ClimateCondition.REFRIGERATED, 10, 11.0);
+    setClimate(ClimateCondition.ATMOSPHERE_CONTROLLED, 3, 14.0);
+  }
+
+  private static final int[] AGREEMENT_MONTHS = {1, 3, 6, 12, 24, 36};
+  private static final double[] AGREEMENT_MONTH_WEIGHTS = {5, 15, 30, 35, 10, 5};
+  private static final double[] ASSESSMENT_WEIGHTS = {5, 7, 13, 35, 40};
+
+  private static final String[] REVIEW_TEXTS = {"Clean and secure, would rent again.",
+          "Easy access for trucks, helpful owner.", "Good value for the price.",
+          "The agent was slow to respond.", "Loading dock too small for our trailers.",
+          "Exactly as described.", "Temperature was not stable during the summer."};
+
+  private static final String[] NOTIFICATION_TEXTS = {"Your rental agreement has been signed.",
+          "A new rental request is waiting for your review.", "Your rental agreement expires in 30 days.",
+          "A tenant left you a review.", "Your warehouse listing has been updated.",
+          "Payment for this month has been received."};
+
+  private final DatasetSpec spec;
+  private final Random random;
+  private long firstUserId;
+
+  /**
+   * Creates a generator for the given specification.
+   *
+   * @param spec The sizes and seed of the dataset.
+   */
+  public DatasetGenerator(DatasetSpec spec) {
+
+    this.spec = spec;
+    this.random = new Random(spec.getSeed());
+  }
+
+  /**
+   * Generates the email address of the user with the given id. Like the phone number it is derived from the id,
+   * so a dataset added to a database that already holds one does not collide with the users there. The users of
+   * a dataset have consecutive ids from {@link DatasetSummary#getFirstUserId()}, in the order owners, agents,
+   * tenants.
+   *
+   * @param userId The id of the user.
+   * @return The email address of the user.
+   */
+  public static String email(long userId) {
+    return "user" + userId + "@dataset.wms";
+  }
+
+  /**
+   * Fills the database and commits. The connection must point to a database holding the WMS schema;
+   * its auto-commit mode is restored afterwards.
+   *
+   * @param connection An open connection to the target database.
+   * @return The number of rows written to each table.
+   * @throws SQLException If any of the inserts fails, in which case nothing is committed.
+   */
+  public DatasetSummary generate(Connection connection) throws SQLException {
+
+    long start = System.nanoTime();
+    DatasetSummary summary = new DatasetSummary();
+    boolean autoCommit = connection.getAutoCommit();
+    connection.setAutoCommit(false);
+    try {
+      Ids ids = new Ids(connection);
+      long[] cityIds = insertGeography(connection, ids, summary);
+      long[] storageTypeIds = insertStorageTypes(connection, ids, summary);
+      insertUsers(connection, ids, summary);
+      insertWarehouses(connection, ids, cityIds, storageTypeIds, summary);
+      insertReviews(connection, ids, summary);
+      insertNotifications(connection, ids, summary);
+      connection.commit();
+      ids.restartIdentities(connection);
+    } catch (SQLException | RuntimeException e) {
+      connection.rollback();
+      throw e;
+    } finally {
+      connection.setAutoCommit(autoCommit);
+    }
+
+    summary.setElapsedMillis((System.nanoTime() - start) / 1_000_000);
+    LOGGER.info("Generated dataset with seed {}: {}", spec.getSeed(), summary);
+    return summary;
+  }
+
+  /**
+   * Migrates and fills the database given by the {@code dataset.url}, {@code dataset.user} and
+   * {@code dataset.password} system properties. The size is taken from {@code dataset.warehouses}
+   * and the seed from {@code dataset.seed}.
+   *
+   * @param args Not used.
+   * @throws Exception If the migration or the generation fails.
+   */
+  public static void main(String[] args) throws Exception {
+
+    String url = System.getProperty("dataset.url");
+    if (url == null) {
+      throw new IllegalArgumentException("Set dataset.url to the JDBC URL of the database to fill");
+    }
+    DatasetSpec spec = DatasetSpec.scaledTo(Integer.getInteger("dataset.warehouses", 1_000_000));
+    spec.setSeed(Long.getLong("dataset.seed", spec.getSeed()));
+
+    try (Connection connection = DriverManager.getConnection(url, System.getProperty("dataset.user", "root"),
+            System.getProperty("dataset.password", ""))) {
+      new MigrationRunner(MigrationRunner.DEFAULT_LOCATION, List.of()).migrate(connection);
+      System.out.println(new DatasetGenerator(spec).generate(connection));
+    }
+  }
+
+  private long[] insertGeography(Connection connection, Ids ids, DatasetSummary summary) throws SQLException {
+
+    long firstCountry = ids.next("countries", spec.getCountries());
+    try (Batch countries = new Batch(connection, "countries", "INSERT INTO countries (id, name) VALUES (?, ?)")) {
+      for (int i = 0; i < spec.getCountries(); i++) {
+        countries.add(firstCountry + i, i < COUNTRY_NAMES.length ? COUNTRY_NAMES[i] : "Country " + (i + 1));
+      }
+      countries.flush();
+      summary.add("countries", countries.getRows());
+    }
+
+    // Bulgaria gets the largest share of the cities, the same as the real data of the application
+    Distributions.Zipf countryOfCity = new Distributions.Zipf(spec.getCountries(), 1.5);
+    long[] cityIds = new long[spec.getCities()];
+    long firstCity = ids.next("cities", spec.getCities());
+    int[] citiesPerCountry = new int[spec.getCountries()];
+    try (Batch cities = new Batch(connection, "cities",
+            "INSERT INTO cities (id, name, country_id) VALUES (?, ?, ?)")) {
+      for (int i = 0; i < spec.getCities(); i++) {
+        int country = i < spec.getCountries() ? i : countryOfCity.next(random);
+        int number = citiesPerCountry[country]++;
+        String name = country == 0 && number < BULGARIAN_CITIES.length
+                ? BULGARIAN_CITIES[number] : "City " + (country + 1) + "-" + (number + 1);
+        cityIds[i] = firstCity + i;
+        cities.add(cityIds[i], name, firstCountry + country);
+      }
+      cities.flush();
+      summary.add("cities", cities.getRows());
+    }
+    return cityIds;
+  }
+
+  private long[] insertStorageTypes(Connection connection, Ids ids, DatasetSummary summary) throws SQLException {
+
+    long[] storageTypeIds = new long[STORAGE_TYPES.length];
+    long first = ids.next("storage_types", STORAGE_TYPES.length);
+    try (Batch storageTypes = new Batch(connection, "storage_types",
+            "INSERT INTO storage_types (id, type_name, description) VALUES (?, ?, ?)")) {
+      for (int i = 0; i < STORAGE_TYPES.length; i++) {
+        storageTypeIds[i] = first + i;
+        storageTypes.add(storageTypeIds[i], STORAGE_TYPES[i][0], STORAGE_TYPES[i][1]);
+      }
+      storageTypes.flush();
+      summary.add("storage_types", storageTypes.getRows());
+    }
+    return storageTypeIds;
+  }
+
+  private void insertUsers(Connection connection, Ids ids, DatasetSummary summary) throws SQLException {
+
+    byte[] salt = new byte[16];
+    random.nextBytes(salt);
+    String passwordHash = PasswordHashes.hash(spec.getPassword(), salt);
+    boolean singleTable = ids.hasColumn(connection, "users", "user_type");
+    firstUserId = ids.next("users", spec.getUsers());
+    summary.setFirstUserId(firstUserId);
+
+    List<Batch> batches = new ArrayList<>();
+    try (Batch users = new Batch(connection, "users", singleTable
+            ? "INSERT INTO users (id, email, first_name, last_name, password, phone, role, user_type) "
+              + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)"
+            : "INSERT INTO users (id, email, first_name, last_name, password, phone, role) "
+              + "VALUES (?, ?, ?, ?, ?, ?, ?)");
+         Batch owners = singleTable ? null : new Batch(connection, "owners", "INSERT INTO owners (id) VALUES (?)");
+         Batch agents = singleTable ? null : new Batch(connection, "agents", "INSERT INTO agents (id) VALUES (?)");
+         Batch tenants = singleTable ? null : new Batch(connection, "tenants",
+                 "INSERT INTO tenants (id) VALUES (?)")) {
+      batches.add(users);
+      if (!singleTable) {
+        batches.add(owners);
+        batches.add(agents);
+        batches.add(tenants);
+      }
+
+      for (int i = 0; i < spec.getUsers(); i++) {
+        long id = firstUserId + i;
+        Role role = i < spec.getOwners() ? Role.OWNER
+                : i < spec.getOwners() + spec.getAgents() ? Role.AGENT : Role.TENANT;
+        String phone = String.format("08%08d", id);
+        if (singleTable) {
+          users.add(id, email(id), "First" + i, "Last" + i, passwordHash, phone, role.name(), role.name());
+        } else {
+          users.add(id, email(id), "First" + i, "Last" + i, passwordHash, phone, role.name());
+          (role == Role.OWNER ? owners : role == Role.AGENT ? agents : tenants).add(id);
+        }
+        if (users.isFull()) {
+          flushAll(batches);
+        }
+      }
+      flushAll(batches);
+      for (Batch batch : batches) {
+        summary.add(batch.getTable(), batch.getRows());
+      }
+    }
+  }
+
+  private void insertWarehouses(Connection connection, Ids ids, long[] cityIds, long[] storageTypeIds,
+                                DatasetSummary summary) throws SQLException {
+
+    Distributions.Zipf cityOfWarehouse = new Distributions.Zipf(cityIds.length, 1.1);
+    Distributions.Zipf ownerOfWarehouse = new Distributions.Zipf(spec.getOwners(), 0.8);
+    Distributions.Zipf repeatTenant = new Distributions.Zipf(spec.getTenants(), 0.7);
+    Distributions.Weighted storageType = new Distributions.Weighted(STORAGE_TYPE_WEIGHTS);
+    Distributions.Weighted climate = new Distributions.Weighted(CLIMATE_WEIGHTS);
+    Distributions.Weighted agreementMonths = new Distributions.Weighted(AGREEMENT_MONTH_WEIGHTS);
+
+    long firstAddress = ids.next("addresses", spec.getWarehouses());
+    long firstWarehouse = ids.next("warehouses", spec.getWarehouses());
+    long firstOwner = firstUserId;
+    long firstAgent = firstOwner + spec.getOwners();
+    long firstTenant = firstAgent + spec.getAgents();
+    LocalDate today = spec.getReferenceDate();
+
+    try (Batch addresses = new Batch(connection, "addresses",
+            "INSERT INTO addresses (id, street, zip_code, city_id) VALUES (?, ?, ?, ?)");
+         Batch warehouses = new Batch(connection, "warehouses", "INSERT INTO warehouses "
+                 + "(id, climate_condition, size, status, address_id, owner_id, storage_type_id) "
+                 + "VALUES (?, ?, ?, ?, ?, ?, ?)");
+         Batch agreements = new Batch(connection, "rental_agreements", "INSERT INTO rental_agreements "
+                 + "(id, start_date, end_date, price_per_month, agent_id, tenant_id, warehouse_id) "
+                 + "VALUES (?, ?, ?, ?, ?, ?, ?)");
+         Batch requests = new Batch(connection, "warehouse_rental_requests",
+                 "INSERT INTO warehouse_rental_requests (id, agent_id, warehouse_id) VALUES (?, ?, ?)")) {
+      List<Batch> batches = List.of(addresses, warehouses, agreements, requests);
+
+      for (int i = 0; i < spec.getWarehouses(); i++) {
+        long addressId = firstAddress + i;
+        long warehouseId = firstWarehouse + i;
+        int city = cityOfWarehouse.next(random);
+        addresses.add(addressId, STREETS[random.nextInt(STREETS.length)] + " " + (1 + random.nextInt(250)),
+                String.valueOf(1000 + city % 9000), cityIds[city]);
+
+        int type = storageType.next(random);
+        ClimateCondition climateCondition = type == COLD_ROOM || type == FREEZER
+                ? ClimateCondition.REFRIGERATED : CLIMATES[climate.next(random)];
+        double size = Math.round(Math.min(50_000, Math.max(20, Distributions.logNormal(random, 400, 0.9))) * 10)
+                / 10.0;
+
+        // The agreements are generated backwards from the most recent one, which decides the status
+        WarehouseStatus status = WarehouseStatus.AVAILABLE;
+        int history = Distributions.geometric(random, spec.getAgreementsPerWarehouse());
+        LocalDate end = today.plusDays(random.nextInt(500) - 200);
+        for (int a = 0; a < history; a++) {
+          LocalDate startDate = end.minusMonths(AGREEMENT_MONTHS[agreementMonths.next(random)]);
+          if (a == 0 && end.isAfter(today) && !startDate.isAfter(today)) {
+            status = WarehouseStatus.RENTED;
+          }
+          double yearsBack = Math.max(0, today.toEpochDay() - startDate.toEpochDay()) / 365.0;
+          BigDecimal price = BigDecimal.valueOf(size * MONTHLY_RATE[climateCondition.ordinal()]
+                          * Distributions.logNormal(random, 1, 0.15) * Math.pow(0.96, yearsBack))
+                  .setScale(2, RoundingMode.HALF_UP);
+          agreements.add(ids.next("rental_agreements", 1), Date.valueOf(startDate), Date.valueOf(end), price,
+                  firstAgent + random.nextInt(spec.getAgents()), firstTenant + repeatTenant.next(random),
+                  warehouseId);
+
+          // Renewals overlap the previous agreement by up to a month, other tenants move in after a gap
+          end = random.nextDouble() < 0.2
+                  ? startDate.plusDays(1 + random.nextInt(30)) : startDate.minusDays(random.nextInt(90));
+        }
+
+        if (status == WarehouseStatus.AVAILABLE && random.nextDouble() < spec.getPendingShare()) {
+          status = WarehouseStatus.PENDING_RENTAL;
+          for (int r = 1 + random.nextInt(3); r > 0; r--) {
+            requests.add(ids.next("warehouse_rental_requests", 1), firstAgent + random.nextInt(spec.getAgents()),
+                    warehouseId);
+          }
+        }
+
+        warehouses.add(warehouseId, climateCondition.name(), size, status.name(), addressId,
+                firstOwner + ownerOfWarehouse.next(random), storageTypeIds[type]);
+        if (addresses.isFull()) {
+          flushAll(batches);
+        }
+      }
+      flushAll(batches);
+      for (Batch batch : batches) {
+        summary.add(batch.getTable(), batch.getRows());
+      }
+    }
+  }
+
+  private void insertReviews(Connection connection, Ids ids, DatasetSummary summary) throws SQLException {
+
+    Distributions.Weighted assessment = new Distributions.Weighted(ASSESSMENT_WEIGHTS);
+    Distributions.Zipf receiver = new Distributions.Zipf(spec.getOwners() + spec.getAgents(), 0.8);
+    long firstReview = ids.next("reviews", spec.getReviews());
+    long firstTenant = firstUserId + spec.getOwners() + spec.getAgents();
+
+    try (Batch reviews = new Batch(connection, "reviews", "INSERT INTO reviews "
+            + "(id, assessment, description, receiver_id, sender_id) VALUES (?, ?, ?, ?, ?)")) {
+      for (int i = 0; i < spec.getReviews(); i++) {
+        String description = random.nextDouble() < 0.4 ? null : REVIEW_TEXTS[random.nextInt(REVIEW_TEXTS.length)];
+        reviews.add(firstReview + i, assessment.next(random) + 1, description, firstUserId + receiver.next(random),
+                firstTenant + random.nextInt(spec.getTenants()));
+        if (reviews.isFull()) {
+          reviews.flush();
+        }
+      }
+      reviews.flush();
+      summary.add("reviews", reviews.getRows());
+    }
+  }
+
+  private void insertNotifications(Connection connection, Ids ids, DatasetSummary summary) throws SQLException {
+
+    Distributions.Zipf recipient = new Distributions.Zipf(spec.getUsers(), 0.6);
+    long firstNotification = ids.next("notifications", spec.getNotifications());
+    LocalDateTime now = spec.getReferenceDate().atStartOfDay();
+
+    try (Batch notifications = new Batch(connection, "notifications",
+            "INSERT INTO notifications (id, date, message, status, user_id) VALUES (?, ?, ?, ?, ?)")) {
+      for (int i = 0; i < spec.getNotifications(); i++) {
+        long ageSeconds = (long) (-60 * 86_400 * Math.log(1 - random.nextDouble()));
+        NotificationStatus status = ageSeconds > 14 * 86_400 && random.nextDouble() < 0.9
+                ? NotificationStatus.READ : NotificationStatus.UNREAD;
+        notifications.add(firstNotification + i, Timestamp.valueOf(now.minusSeconds(ageSeconds)),
+                NOTIFICATION_TEXTS[random.nextInt(NOTIFICATION_TEXTS.length)], status.name(),
+                firstUserId + recipient.next(random));
+        if (notifications.isFull()) {
+          notifications.flush();
+        }
+      }
+      notifications.flush();
+      summary.add("notifications", notifications.getRows());
+    }
+  }
+
+  private static void flushAll(List<Batch> batches) throws SQLException {
+
+    for (Batch batch : batches) {
+      batch.flush();
+    }
+  }
+
+  private static void setClimate(ClimateCondition condition, double weight, double monthlyRate) {
+
+    CLIMATE_WEIGHTS[condition.ordinal()] = weight;
+    MONTHLY_RATE[condition.ordinal()] = monthlyRate;
+  }
+
+  /**
+   * A prepared insert collecting rows until the batch size is reached.
+   */
+  private final class Batch implements AutoCloseable {
+
+    private final String table;
+    private final PreparedStatement statement;
+    private int pending;
+    private long rows;
+
+    private Batch(Connection connection, String table, String sql) throws SQLException {
+
+      this.table = table;
+      this.statement = connection.prepareStatement(sql);
+    }
+
+    private void add(Object... values) throws SQLException {
+
+      for (int i = 0; i < values.length; i++) {
+        statement.setObject(i + 1, values[i]);
+      }
+      statement.addBatch();
+      pending++;
+      rows++;
+    }
+
+    private boolean isFull() {
+      return pending >= spec.getBatchSize();
+    }
+
+    private void flush() throws SQLException {
+
+      if (pending > 0) {
+        statement.executeBatch();
+        pending = 0;
+      }
+    }
+
+    private String getTable() {
+      return table;
+    }
+
+    private long getRows() {
+      return rows;
+    }
+
+    @Override
+    public void close() throws SQLException {
+      statement.close();
+    }
+  }
+
+  /**
+   * Hands out ids after the highest existing id of each table.
+   */
+  private static final class Ids {
+
+    private final Map<String, Long> next = new LinkedHashMap<>();
+    private final Connection connection;
+    private final boolean h2;
+
+    private Ids(Connection connection) throws SQLException {
+
+      this.connection = connection;
+      this.h2 = connection.getMetaData().getDatabaseProductName().equalsIgnoreCase("H2");
+    }
+
+    private long next(String table, int count) throws SQLException {
+
+      Long first = next.get(table);
+      if (first == null) {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT COALESCE(MAX(id), 0) + 1 FROM " + table)) {
+          resultSet.next();
+          first = resultSet.getLong(1);
+        }
+      }
+      next.put(table, first + count);
+      return first;
+    }
+
+    private boolean hasColumn(Connection connection, String table, String column) throws SQLException {
+
+      DatabaseMetaData metaData = connection.getMetaData();
+      for (String name : new String[]{column, column.toUpperCase()}) {
+        try (ResultSet columns = metaData.getColumns(null, null, null, name)) {
+          while (columns.next()) {
+            if (columns.getString("TABLE_NAME").equalsIgnoreCase(table)) {
+              return true;
+            }
+          }
+        }
+      }
+      return false;
+    }
+
+    /**
+     * MySQL moves its auto increment counters past explicitly inserted ids, H2 has to be told.
+     */
+    private void restartIdentities(Connection connection) throws SQLException {
+
+      if (!h2) {
+        return;
+      }
+      try (Statement statement = connection.createStatement()) {
+        for (Map.Entry<String, Long> entry : next.entrySet()) {
+          statement.executeUpdate("ALTER TABLE " + entry.getKey() + " ALTER COLUMN id RESTART WITH " + entry.getValue());
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,67 @@
+package bg.tuvarna.sit.wms.dataset;
+
+import java.time.LocalDate;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Describes the size and shape of a dataset created by {@link DatasetGenerator}.
+ * <p>
+ * The defaults describe a small dataset suitable for unit tests. {@link #scaledTo(int)} derives every
+ * count from the number of warehouses, keeping the ratios of a populated production database.
+ * Two generators given equal specifications write identical rows.
+ * </p>
+ */
+@Getter
+@Setter
+public class DatasetSpec {
+
+  /**
+   * The password of every generated user.
+   */
+  public static final String DEFAULT_PASSWORD = "Dataset123!";
+
+  private long seed = 42;
+  private LocalDate referenceDate = LocalDate.of(2024, 1, 1);
+  private int countries = 5;
+  private int cities = 50;
+  private int warehouses = 1_000;
+  private int owners = 100;
+  private int agents = 30;
+  private int tenants = 400;
+  private double agreementsPerWarehouse = 1.5;
+  private double pendingShare = 0.1;
+  private int reviews = 500;
+  private int notifications = 2_000;
+  private String password = DEFAULT_PASSWORD;
+  private int batchSize = 1_000;
+
+  /**
+   * Creates a specification whose other counts follow from the number of warehouses.
+   *
+   * @param warehouses The number of warehouses to generate.
+   * @return A new specification with the default seed.
+   */
+  public static DatasetSpec scaledTo(int warehouses) {
+
+    DatasetSpec spec = new DatasetSpec();
+    spec.setWarehouses(warehouses);
+    spec.setCountries(Math.max(1, Math.min(50, warehouses / 2_000)));
+    spec.setCities(Math.max(1, warehouses / 200));
+    spec.setOwners(Math.max(1, warehouses / 10));
+    spec.setAgents(Math.max(1, warehouses / 30));
+    spec.setTenants(Math.max(1, warehouses * 2 / 5));
+    spec.setReviews(warehouses / 2);
+    spec.setNotifications(warehouses * 2);
+    return spec;
+  }
+
+  /**
+   * Returns the total number of generated users of all roles.
+   *
+   * @return The number of owners, agents and tenants together.
+   */
+  public int getUsers() {
+    return owners + agents + tenants;
+  }
+}
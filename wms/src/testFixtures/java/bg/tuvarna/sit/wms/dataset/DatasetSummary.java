@@ -0,0 +1,56 @@
+package bg.tuvarna.sit.wms.dataset;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import lombok.Getter;
+
+/**
+ * The number of rows {@link DatasetGenerator} wrote to each table and the time it took.
+ */
+@Getter
+public class DatasetSummary {
+
+  private final Map<String, Long> rowCounts = new LinkedHashMap<>();
+  private long elapsedMillis;
+
+  /**
+   * The id of the first generated user, the others follow it consecutively.
+   */
+  private long firstUserId;
+
+  void add(String table, long rows) {
+    rowCounts.merge(table, rows, Long::sum);
+  }
+
+  void setElapsedMillis(long elapsedMillis) {
+    this.elapsedMillis = elapsedMillis;
+  }
+
+  void setFirstUserId(long firstUserId) {
+    this.firstUserId = firstUserId;
+  }
+
+  /**
+   * Returns the number of rows written to a table.
+   *
+   * @param table The table name.
+   * @return The row count, zero for tables that were not written.
+   */
+  public long getRowCount(String table) {
+    return rowCounts.getOrDefault(table, 0L);
+  }
+
+  public long getTotalRows() {
+    return rowCounts.values().stream().mapToLong(Long::longValue).sum();
+  }
+
+  public Map<String, Long> getRowCounts() {
+    return Collections.unmodifiableMap(rowCounts);
+  }
+
+  @Override
+  public String toString() {
+    return getTotalRows() + " rows in " + elapsedMillis + " ms " + rowCounts;
+  }
+}
@@ -0,0 +1,75 @@
+package bg.tuvarna.sit.wms.dataset;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Skewed distributions sampled from a shared {@link Random}, so the output depends only on the seed.
+ */
+final class Distributions {
+
+  private Distributions() {
+  }
+
+  /**
+   * Picks indexes with fixed relative weights.
+   */
+  static final class Weighted {
+
+    private final double[] cumulative;
+
+    Weighted(double... weights) {
+
+      cumulative = new double[weights.length];
+      double total = 0;
+      for (int i = 0; i < weights.length; i++) {
+        total += weights[i];
+        cumulative[i] = total;
+      }
+      for (int i = 0; i < cumulative.length; i++) {
+        cumulative[i] /= total;
+      }
+    }
+
+    int next(Random random) {
+
+      int index = Arrays.binarySearch(cumulative, random.nextDouble());
+      return Math.min(index < 0 ? -index - 1 : index, cumulative.length - 1);
+    }
+  }
+
+  /**
+   * Picks ranks {@code 0..n-1} with a probability proportional to {@code 1 / (rank + 1)^exponent},
+   * so a few ranks receive most of the picks.
+   */
+  static final class Zipf {
+
+    private final Weighted weighted;
+
+    Zipf(int n, double exponent) {
+
+      double[] weights = new double[n];
+      for (int i = 0; i < n; i++) {
+        weights[i] = 1 / Math.pow(i + 1, exponent);
+      }
+      weighted = new Weighted(weights);
+    }
+
+    int next(Random random) {
+      return weighted.next(random);
+    }
+  }
+
+  static double logNormal(Random random, double median, double sigma) {
+    return median * Math.exp(sigma * random.nextGaussian());
+  }
+
+  static int geometric(Random random, double mean) {
+
+    if (mean <= 0) {
+      return 0;
+    }
+    double p = 1 / (mean + 1);
+    return (int) Math.floor(Math.log(1 - random.nextDouble()) / Math.log(1 - p));
+  }
+}
@@ -0,0 +1,37 @@
+package bg.tuvarna.sit.wms.service;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.spec.InvalidKeySpecException;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * Creates password hashes in the format of {@link PasswordHashingService} from a given salt, so fixtures
+ * can write reproducible users that still log in through the real service.
+ */
+public final class PasswordHashes {
+
+  private static final int ITERATIONS = 1000;
+
+  private PasswordHashes() {
+  }
+
+  /**
+   * Hashes a password in the format stored in the {@code users} table.
+   *
+   * @param password The plain text password.
+   * @param salt     The salt, 16 bytes like the ones of {@link PasswordHashingService}.
+   * @return The salted PBKDF2 hash of the password.
+   */
+  public static String hash(String password, byte[] salt) {
+
+    try {
+      PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, ITERATIONS, 64 * 8);
+      byte[] hash = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA1").generateSecret(spec).getEncoded();
+      PasswordHashingService hashingService = new PasswordHashingService();
+      return ITERATIONS + ":" + hashingService.toHex(salt) + ":" + hashingService.toHex(hash);
+    } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
+      throw new IllegalStateException("PBKDF2 is not available", e);
+    }
+  }
+}